@@ -8,12 +8,15 @@
 package org.roda_project.commons_ip.utils;
 
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
 
 public class FileZipEntryInfo implements ZipEntryInfo {
   private final String name;
   private final Path filePath;
   private String checksum;
   private String checksumAlgorithm;
+  private Map<String, String> knownChecksums = Collections.emptyMap();
 
   public FileZipEntryInfo(String name, Path filePath) {
     this.name = name;
@@ -61,4 +64,16 @@ public class FileZipEntryInfo implements ZipEntryInfo {
     this.checksumAlgorithm = checksumAlgorithm;
   }
 
+  /**
+   * @return the checksums of the file already known before zipping it, by
+   *         algorithm.
+   */
+  public Map<String, String> getKnownChecksums() {
+    return knownChecksums;
+  }
+
+  public void setKnownChecksums(Map<String, String> knownChecksums) {
+    this.knownChecksums = knownChecksums;
+  }
+
 }
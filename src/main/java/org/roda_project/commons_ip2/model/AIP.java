@@ -50,6 +50,22 @@ public interface AIP extends IPInterface {
    */
   AIP addSubmission(IPFileInterface submission);
 
+  /**
+   * Set how the payload files are placed when building the AIP as a folder.
+   *
+   * @param folderWriteMode
+   *          the {@link FolderWriteMode}.
+   * @return the {@link AIP}.
+   */
+  AIP setFolderWriteMode(FolderWriteMode folderWriteMode);
+
+  /**
+   * Get how the payload files are placed when building the AIP as a folder.
+   *
+   * @return the {@link FolderWriteMode}.
+   */
+  FolderWriteMode getFolderWriteMode();
+
   /**
    * Parse an {@link AIP} from the given source {@link Path}.
    *
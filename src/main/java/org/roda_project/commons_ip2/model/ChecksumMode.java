@@ -0,0 +1,24 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+/**
+ * How the build uses the checksums already known for a file (see
+ * {@link IPFile#addKnownChecksum(String, String)}).
+ */
+public enum ChecksumMode {
+  /** Known checksums are used as they are; only the missing ones are calculated. */
+  TRUST,
+  /**
+   * Every checksum is calculated while the file is copied and the build fails if
+   * a known checksum does not match.
+   */
+  VERIFY,
+  /** Known checksums are ignored and every checksum is calculated. */
+  COMPUTE
+}
@@ -0,0 +1,29 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+/**
+ * How the payload files (all but the METS files) are placed in an AIP built as
+ * a folder.
+ */
+public enum FolderWriteMode {
+  /** Files are copied while calculating their checksums. */
+  COPY,
+  /**
+   * Files are transferred by the file system ({@code FileChannel.transferTo}),
+   * which may copy them in the kernel or share their blocks; their checksums
+   * are calculated apart, unless known (see {@link ChecksumMode#TRUST}).
+   */
+  TRANSFER,
+  /**
+   * Files are hard linked (the AIP shares them with their source, so changing
+   * one changes the other), falling back to {@link #TRANSFER} when not
+   * possible; their checksums are calculated apart, unless known.
+   */
+  HARD_LINK
+}
@@ -51,6 +51,7 @@ public abstract class IP implements IPInterface {
   private List<IPFileInterface> documentation;
 
   private Map<String, ZipEntryInfo> zipEntries;
+  private ChecksumMode checksumMode = ChecksumMode.COMPUTE;
 
   private ValidationReport validationReport;
 
@@ -464,5 +465,20 @@ public abstract class IP implements IPInterface {
     return zipEntries;
   }
 
+  /**
+   * @return how the build uses the checksums known for the files (by default,
+   *         they are ignored and calculated again).
+   */
+  @Override
+  public ChecksumMode getChecksumMode() {
+    return checksumMode;
+  }
+
+  @Override
+  public IP setChecksumMode(final ChecksumMode checksumMode) {
+    this.checksumMode = checksumMode;
+    return this;
+  }
+
   public abstract Set<String> getExtraChecksumAlgorithms();
 }
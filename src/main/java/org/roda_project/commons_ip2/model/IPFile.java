@@ -9,20 +9,36 @@ package org.roda_project.commons_ip2.model;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class IPFile implements IPFileInterface {
   private static final long serialVersionUID = -8653651803476080935L;
+  /**
+   * The serialized form keeps the relative folders as a {@link List}, as
+   * before they were interned (see {@link IPFolder}).
+   */
+  private static final ObjectStreamField[] serialPersistentFields = {new ObjectStreamField("pathString", String.class),
+    new ObjectStreamField("renameTo", String.class), new ObjectStreamField("relativeFolders", List.class),
+    new ObjectStreamField("checksum", String.class), new ObjectStreamField("checksumAlgorithm", String.class),
+    new ObjectStreamField("knownChecksums", Map.class), new ObjectStreamField("relatedTags", List.class)};
 
   private transient Path path;
   private String pathString;
   private String renameTo;
-  private List<String> relativeFolders;
+  private IPFolder relativeFolders;
+  private transient IPFolder.View relativeFoldersView;
   private String checksum = "";
   private String checksumAlgorithm = "";
+  private Map<String, String> knownChecksums;
   private List<String> relatedTags;
 
   public IPFile() {
@@ -34,7 +50,7 @@ public class IPFile implements IPFileInterface {
     this.path = path;
     this.pathString = this.path.toAbsolutePath().toString();
     this.renameTo = null;
-    this.relativeFolders = new ArrayList<>();
+    this.relativeFolders = IPFolder.ROOT;
     this.relatedTags = new ArrayList<>();
   }
 
@@ -43,7 +59,7 @@ public class IPFile implements IPFileInterface {
     this.path = path;
     this.pathString = this.path.toAbsolutePath().toString();
     this.renameTo = null;
-    this.relativeFolders = relativeFolders;
+    this.relativeFolders = IPFolder.of(relativeFolders);
     this.relatedTags = new ArrayList<>();
   }
 
@@ -52,7 +68,7 @@ public class IPFile implements IPFileInterface {
     this.path = path;
     this.pathString = this.path.toAbsolutePath().toString();
     this.renameTo = renameTo;
-    this.relativeFolders = new ArrayList<>();
+    this.relativeFolders = IPFolder.ROOT;
     this.relatedTags = new ArrayList<>();
   }
 
@@ -66,12 +82,32 @@ public class IPFile implements IPFileInterface {
     return this;
   }
 
+  /**
+   * @return a modifiable view of the relative folders, that are kept shared
+   *         with every other file in the same folder (see {@link IPFolder}).
+   */
   public List<String> getRelativeFolders() {
-    return relativeFolders;
+    if (relativeFolders == null) {
+      return null;
+    }
+    if (relativeFoldersView == null) {
+      relativeFoldersView = new IPFolder.View() {
+        @Override
+        public IPFolder getFolder() {
+          return relativeFolders;
+        }
+
+        @Override
+        void setFolder(IPFolder folder) {
+          relativeFolders = folder;
+        }
+      };
+    }
+    return relativeFoldersView;
   }
 
   public IPFileInterface setRelativeFolders(List<String> relativeFolders) {
-    this.relativeFolders = relativeFolders;
+    this.relativeFolders = IPFolder.of(relativeFolders);
     return this;
   }
 
@@ -118,6 +154,29 @@ public class IPFile implements IPFileInterface {
     return this;
   }
 
+  /**
+   * Adds a checksum already known for the file (e.g. kept by the repository it
+   * comes from), so that the build can use or verify it instead of only
+   * calculating it (see {@link ChecksumMode}).
+   *
+   * @param algorithm
+   *          the algorithm (e.g. {@link IPConstants#CHECKSUM_ALGORITHM}).
+   * @param checksum
+   *          the checksum, in hexadecimal.
+   */
+  public IPFile addKnownChecksum(String algorithm, String checksum) {
+    if (knownChecksums == null) {
+      knownChecksums = new LinkedHashMap<>();
+    }
+    knownChecksums.put(algorithm, checksum.toUpperCase(Locale.ROOT));
+    return this;
+  }
+
+  @Override
+  public Map<String, String> getKnownChecksums() {
+    return knownChecksums == null ? Collections.emptyMap() : Collections.unmodifiableMap(knownChecksums);
+  }
+
   public List<String> getRelatedTags() {
     return relatedTags;
   }
@@ -130,11 +189,32 @@ public class IPFile implements IPFileInterface {
   @Override
   public String toString() {
     return "IPFile [path=" + path + ", renameTo=" + renameTo + ", relativeFolders=" + relativeFolders + ", checksum="
-      + checksum + ", checksumAlgorithm=" + checksumAlgorithm + ", relatedTags=" + relatedTags + "]";
+      + checksum + ", checksumAlgorithm=" + checksumAlgorithm + ", knownChecksums=" + knownChecksums + ", relatedTags="
+      + relatedTags + "]";
+  }
+
+  private void writeObject(ObjectOutputStream outputStream) throws IOException {
+    ObjectOutputStream.PutField fields = outputStream.putFields();
+    fields.put("pathString", pathString);
+    fields.put("renameTo", renameTo);
+    fields.put("relativeFolders", relativeFolders);
+    fields.put("checksum", checksum);
+    fields.put("checksumAlgorithm", checksumAlgorithm);
+    fields.put("knownChecksums", knownChecksums);
+    fields.put("relatedTags", relatedTags);
+    outputStream.writeFields();
   }
 
+  @SuppressWarnings("unchecked")
   private void readObject(ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
-    inputStream.defaultReadObject();
+    ObjectInputStream.GetField fields = inputStream.readFields();
+    this.pathString = (String) fields.get("pathString", null);
+    this.renameTo = (String) fields.get("renameTo", null);
+    this.relativeFolders = IPFolder.of((List<String>) fields.get("relativeFolders", null));
+    this.checksum = (String) fields.get("checksum", "");
+    this.checksumAlgorithm = (String) fields.get("checksumAlgorithm", "");
+    this.knownChecksums = (Map<String, String>) fields.get("knownChecksums", null);
+    this.relatedTags = (List<String>) fields.get("relatedTags", null);
     this.path = Paths.get(this.pathString);
   }
 
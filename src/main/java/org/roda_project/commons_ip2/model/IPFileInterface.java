@@ -2,7 +2,9 @@ package org.roda_project.commons_ip2.model;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Miguel Guimarães <mguimaraes@keep.pt>
@@ -14,4 +16,12 @@ public interface IPFileInterface extends Serializable {
   String getFileName();
 
   Path getPath();
+
+  /**
+   * @return the checksums of the file already known (e.g. kept by the repository
+   *         it comes from), by algorithm, in upper case hexadecimal.
+   */
+  default Map<String, String> getKnownChecksums() {
+    return Collections.emptyMap();
+  }
 }
@@ -18,7 +18,8 @@ public class IPFileShallow implements IPFileInterface {
 
   private URI fileLocation;
   private FileType fileType;
-  private List<String> relativeFolders;
+  private IPFolder relativeFolders;
+  private transient IPFolder.View relativeFoldersView;
 
   /**
    * Constructor only with relative folders.
@@ -27,7 +28,7 @@ public class IPFileShallow implements IPFileInterface {
    *          {@link List}
    */
   public IPFileShallow(final List<String> relativeFolders) {
-    this.relativeFolders = relativeFolders;
+    this.relativeFolders = IPFolder.of(relativeFolders);
   }
 
   /**
@@ -58,7 +59,7 @@ public class IPFileShallow implements IPFileInterface {
     super();
     this.fileLocation = fileLocation;
     this.fileType = fileType;
-    this.relativeFolders = relativeFolders;
+    this.relativeFolders = IPFolder.of(relativeFolders);
   }
 
   public URI getFileLocation() {
@@ -77,9 +78,31 @@ public class IPFileShallow implements IPFileInterface {
     this.fileType = fileType;
   }
 
+  /**
+   * Get a modifiable view of the relative folders, that are kept shared with
+   * every other file in the same folder (see {@link IPFolder}).
+   * 
+   * @return {@link List}
+   */
   @Override
   public List<String> getRelativeFolders() {
-    return relativeFolders;
+    if (relativeFolders == null) {
+      return null;
+    }
+    if (relativeFoldersView == null) {
+      relativeFoldersView = new IPFolder.View() {
+        @Override
+        public IPFolder getFolder() {
+          return relativeFolders;
+        }
+
+        @Override
+        void setFolder(IPFolder folder) {
+          relativeFolders = folder;
+        }
+      };
+    }
+    return relativeFoldersView;
   }
 
   /**
@@ -90,7 +113,7 @@ public class IPFileShallow implements IPFileInterface {
    * @return {@link IPFileInterface}
    */
   public IPFileInterface setRelativeFolders(List<String> relativeFolders) {
-    this.relativeFolders = relativeFolders;
+    this.relativeFolders = IPFolder.of(relativeFolders);
     return this;
   }
 
@@ -0,0 +1,203 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.WeakHashMap;
+
+/**
+ * Relative folders of IP files, as an immutable list of folder names that is
+ * interned in a tree: every file under the same folder shares the same
+ * instance, so a package with millions of files under a few thousand folders
+ * keeps only a few thousand lists. The folder path (as returned by
+ * {@link org.roda_project.commons_ip2.model.impl.ModelUtils#getFoldersFromList(List)})
+ * is computed once per folder.
+ *
+ * Folders no longer referenced by any file are garbage collected. Files give
+ * their folders as a modifiable {@link View}.
+ */
+public final class IPFolder extends AbstractList<String> implements RandomAccess, Serializable {
+  private static final long serialVersionUID = 4815710387652741106L;
+
+  /** The empty relative folder, i.e. the root of the tree. */
+  public static final IPFolder ROOT = new IPFolder(null, null);
+
+  private final String[] names;
+  private final transient IPFolder parent;
+  private final transient String path;
+  private transient Map<String, WeakReference<IPFolder>> children;
+  private transient int hash;
+
+  private IPFolder(IPFolder parent, String name) {
+    this.parent = parent;
+    if (parent == null) {
+      this.names = new String[0];
+      this.path = "";
+    } else {
+      this.names = Arrays.copyOf(parent.names, parent.names.length + 1);
+      this.names[parent.names.length] = name;
+      String folderPath = parent.path + name;
+      this.path = folderPath.isEmpty() ? folderPath : folderPath + IPConstants.ZIP_PATH_SEPARATOR;
+    }
+  }
+
+  /**
+   * Gets the interned folder with the given names.
+   *
+   * @param folders
+   *          the folder names, from the outermost one (can be {@code null}).
+   * @return the {@link IPFolder} or {@code null} if folders is {@code null}.
+   */
+  public static IPFolder of(List<String> folders) {
+    if (folders == null || folders instanceof IPFolder) {
+      return (IPFolder) folders;
+    }
+    if (folders instanceof View) {
+      return ((View) folders).getFolder();
+    }
+    IPFolder folder = ROOT;
+    for (String name : folders) {
+      folder = folder.child(name);
+    }
+    return folder;
+  }
+
+  /**
+   * Gets the interned sub folder with the given name.
+   */
+  public synchronized IPFolder child(String name) {
+    if (children == null) {
+      children = new WeakHashMap<>();
+    }
+    WeakReference<IPFolder> reference = children.get(name);
+    IPFolder child = reference == null ? null : reference.get();
+    if (child == null) {
+      child = new IPFolder(this, name);
+      // the key is the child own name, so the entry goes away with the child
+      children.put(child.names[names.length], new WeakReference<>(child));
+    }
+    return child;
+  }
+
+  /**
+   * @return the parent folder or {@code null} for {@link #ROOT}.
+   */
+  public IPFolder getParent() {
+    return parent;
+  }
+
+  /**
+   * @return the folder name or {@code null} for {@link #ROOT}.
+   */
+  public String getName() {
+    return names.length == 0 ? null : names[names.length - 1];
+  }
+
+  /**
+   * @return the folder names joined and terminated by
+   *         {@link IPConstants#ZIP_PATH_SEPARATOR} (empty for {@link #ROOT}).
+   */
+  public String getPath() {
+    return path;
+  }
+
+  @Override
+  public String get(int index) {
+    return names[index];
+  }
+
+  @Override
+  public int size() {
+    return names.length;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0 && names.length > 0) {
+      h = super.hashCode();
+      hash = h;
+    }
+    return h;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return super.equals(o);
+  }
+
+  private Object readResolve() {
+    return of(Arrays.asList(names));
+  }
+
+  /**
+   * Modifiable view of the relative folders of a file. It reads the folder the
+   * file has at the moment and each change is made on a copy, interned and set
+   * as the file folder: changing the view changes the file, and no other file
+   * of the same folder. A file keeps a single view, created when first asked
+   * for.
+   */
+  public abstract static class View extends AbstractList<String> implements RandomAccess {
+
+    View() {
+      super();
+    }
+
+    /**
+     * @return the (shared) folder the view shows.
+     */
+    public abstract IPFolder getFolder();
+
+    /**
+     * Sets the folder of the file.
+     */
+    abstract void setFolder(IPFolder folder);
+
+    @Override
+    public String get(int index) {
+      return getFolder().get(index);
+    }
+
+    @Override
+    public int size() {
+      return getFolder().size();
+    }
+
+    @Override
+    public String set(int index, String name) {
+      List<String> names = new ArrayList<>(getFolder());
+      String previous = names.set(index, name);
+      setFolder(of(names));
+      return previous;
+    }
+
+    @Override
+    public void add(int index, String name) {
+      List<String> names = new ArrayList<>(getFolder());
+      names.add(index, name);
+      setFolder(of(names));
+      modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+      List<String> names = new ArrayList<>(getFolder());
+      String previous = names.remove(index);
+      setFolder(of(names));
+      modCount++;
+      return previous;
+    }
+  }
+}
@@ -117,6 +117,10 @@ public interface IPInterface {
 
   Map<String, ZipEntryInfo> getZipEntries();
 
+  IPInterface setChecksumMode(ChecksumMode checksumMode);
+
+  ChecksumMode getChecksumMode();
+
   ValidationReport getValidationReport();
 
   boolean isValid();
@@ -1,205 +1,290 @@
-/**
- * The contents of this file are subject to the license and copyright
- * detailed in the LICENSE file at the root of the source
- * tree and available online at
- *
- * https://github.com/keeps/commons-ip
- */
-package org.roda_project.commons_ip2.model;
-
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-
-import javax.xml.datatype.XMLGregorianCalendar;
-
-import org.roda_project.commons_ip2.utils.Utils;
-
-public class IPRepresentation {
-  private String representationID;
-  private String objectID;
-  private Optional<XMLGregorianCalendar> createDate;
-  private Optional<XMLGregorianCalendar> modificationDate;
-
-  // maps to mets/@type
-  private IPContentType contentType;
-  private IPContentInformationType contentInformationType;
-  private RepresentationStatus status;
-  private String description;
-  private List<IPAgent> agents;
-  private List<IPDescriptiveMetadata> descriptiveMetadata;
-  private List<IPMetadata> preservationMetadata;
-  private List<IPMetadata> otherMetadata;
-  private List<IPFileInterface> data;
-  private List<IPFileInterface> schemas;
-  private List<IPFileInterface> documentation;
-
-  public IPRepresentation() {
-    this.representationID = Utils.generateRandomAndPrefixedUUID();
-    this.objectID = representationID;
-    this.createDate = Utils.getCurrentTime();
-    this.contentType = IPContentType.getMIXED();
-    this.contentInformationType = IPContentInformationType.getMIXED();
-    this.status = RepresentationStatus.getORIGINAL();
-    this.description = "";
-    this.agents = new ArrayList<>();
-    this.descriptiveMetadata = new ArrayList<>();
-    this.preservationMetadata = new ArrayList<>();
-    this.otherMetadata = new ArrayList<>();
-    this.data = new ArrayList<>();
-    this.schemas = new ArrayList<>();
-    this.documentation = new ArrayList<>();
-  }
-
-  public IPRepresentation(String representationID) {
-    this();
-    this.representationID = representationID;
-    this.objectID = representationID;
-  }
-
-  public String getRepresentationID() {
-    return representationID;
-  }
-
-  public String getObjectID() {
-    return objectID;
-  }
-
-  public IPRepresentation setObjectID(String objectID) {
-    this.objectID = objectID;
-    return this;
-  }
-
-  public IPContentType getContentType() {
-    return contentType;
-  }
-
-  public IPRepresentation setContentType(IPContentType contentType) {
-    this.contentType = contentType;
-    return this;
-  }
-
-  public IPContentInformationType getContentInformationType() {
-    return contentInformationType;
-  }
-
-  public void setContentInformationType(IPContentInformationType contentInformationType) {
-    this.contentInformationType = contentInformationType;
-  }
-
-  public RepresentationStatus getStatus() {
-    return status;
-  }
-
-  public IPRepresentation setStatus(RepresentationStatus status) {
-    this.status = status;
-    return this;
-  }
-
-  public Optional<XMLGregorianCalendar> getCreateDate() {
-    return createDate;
-  }
-
-  public IPRepresentation setCreateDate(XMLGregorianCalendar createDate) {
-    this.createDate = Optional.ofNullable(createDate);
-    return this;
-  }
-
-  public Optional<XMLGregorianCalendar> getModificationDate() {
-    return modificationDate;
-  }
-
-  public IPRepresentation setModificationDate(XMLGregorianCalendar modificationDate) {
-    this.modificationDate = Optional.ofNullable(modificationDate);
-    return this;
-  }
-
-  public IPRepresentation setDescription(String description) {
-    this.description = description;
-    return this;
-  }
-
-  public String getDescription() {
-    return description;
-  }
-
-  public List<IPAgent> getAgents() {
-    return agents;
-  }
-
-  public IPRepresentation addAgent(IPAgent agent) {
-    agents.add(agent);
-    return this;
-  }
-
-  public List<IPDescriptiveMetadata> getDescriptiveMetadata() {
-    return descriptiveMetadata;
-  }
-
-  public IPRepresentation addDescriptiveMetadata(IPDescriptiveMetadata metadata) {
-    descriptiveMetadata.add(metadata);
-    return this;
-  }
-
-  public List<IPMetadata> getPreservationMetadata() {
-    return preservationMetadata;
-  }
-
-  public IPRepresentation addPreservationMetadata(IPMetadata metadata) {
-    preservationMetadata.add(metadata);
-    return this;
-  }
-
-  public List<IPMetadata> getOtherMetadata() {
-    return otherMetadata;
-  }
-
-  public IPRepresentation addOtherMetadata(IPMetadata metadata) {
-    otherMetadata.add(metadata);
-    return this;
-  }
-
-  public List<IPFileInterface> getData() {
-    return data;
-  }
-
-  public IPRepresentation addFile(IPFileInterface ipFile) {
-    data.add(ipFile);
-    return this;
-  }
-
-  public IPRepresentation addFile(Path filePath, List<String> folders) {
-    data.add(new IPFile(filePath, folders));
-    return this;
-  }
-
-  public List<IPFileInterface> getSchemas() {
-    return schemas;
-  }
-
-  public IPRepresentation addSchema(IPFileInterface schema) {
-    this.schemas.add(schema);
-    return this;
-  }
-
-  public List<IPFileInterface> getDocumentation() {
-    return documentation;
-  }
-
-  public IPRepresentation addDocumentation(IPFileInterface documentation) {
-    this.documentation.add(documentation);
-    return this;
-  }
-
-  @Override
-  public String toString() {
-    return "IPRepresentation [representationID=" + representationID + ", objectID=" + objectID + ", createDate="
-      + createDate + ", modificationDate=" + modificationDate + ", contentType=" + contentType
-      + ", contentInformationType=" + contentInformationType + ", status=" + status + ", description=" + description
-      + ", agents=" + agents + ", descriptiveMetadata=" + descriptiveMetadata + ", preservationMetadata="
-      + preservationMetadata + ", otherMetadata=" + otherMetadata + ", data=" + data + ", schemas=" + schemas
-      + ", documentation=" + documentation + "]";
-  }
-
-}
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class IPRepresentation {
+  private String representationID;
+  private String objectID;
+  private Optional<XMLGregorianCalendar> createDate;
+  private Optional<XMLGregorianCalendar> modificationDate;
+
+  // maps to mets/@type
+  private IPContentType contentType;
+  private IPContentInformationType contentInformationType;
+  private RepresentationStatus status;
+  private String description;
+  private List<IPAgent> agents;
+  private List<IPDescriptiveMetadata> descriptiveMetadata;
+  private List<IPMetadata> preservationMetadata;
+  private List<IPMetadata> otherMetadata;
+  private List<IPFileInterface> data;
+  private List<IPFileInterface> schemas;
+  private List<IPFileInterface> documentation;
+
+  // METS of the already built package this representation was read from (only
+  // kept while the representation is not modified, the lists above included)
+  private Path sourceMetsPath;
+
+  public IPRepresentation() {
+    this.representationID = Utils.generateRandomAndPrefixedUUID();
+    this.objectID = representationID;
+    this.createDate = Utils.getCurrentTime();
+    this.contentType = IPContentType.getMIXED();
+    this.contentInformationType = IPContentInformationType.getMIXED();
+    this.status = RepresentationStatus.getORIGINAL();
+    this.description = "";
+    this.agents = new ModificationTrackingList<>();
+    this.descriptiveMetadata = new ModificationTrackingList<>();
+    this.preservationMetadata = new ModificationTrackingList<>();
+    this.otherMetadata = new ModificationTrackingList<>();
+    this.data = new ModificationTrackingList<>();
+    this.schemas = new ModificationTrackingList<>();
+    this.documentation = new ModificationTrackingList<>();
+  }
+
+  public IPRepresentation(String representationID) {
+    this();
+    this.representationID = representationID;
+    this.objectID = representationID;
+  }
+
+  public String getRepresentationID() {
+    return representationID;
+  }
+
+  public String getObjectID() {
+    return objectID;
+  }
+
+  public IPRepresentation setObjectID(String objectID) {
+    markAsModified();
+    this.objectID = objectID;
+    return this;
+  }
+
+  public IPContentType getContentType() {
+    return contentType;
+  }
+
+  public IPRepresentation setContentType(IPContentType contentType) {
+    markAsModified();
+    this.contentType = contentType;
+    return this;
+  }
+
+  public IPContentInformationType getContentInformationType() {
+    return contentInformationType;
+  }
+
+  public void setContentInformationType(IPContentInformationType contentInformationType) {
+    markAsModified();
+    this.contentInformationType = contentInformationType;
+  }
+
+  public RepresentationStatus getStatus() {
+    return status;
+  }
+
+  public IPRepresentation setStatus(RepresentationStatus status) {
+    markAsModified();
+    this.status = status;
+    return this;
+  }
+
+  public Optional<XMLGregorianCalendar> getCreateDate() {
+    return createDate;
+  }
+
+  public IPRepresentation setCreateDate(XMLGregorianCalendar createDate) {
+    markAsModified();
+    this.createDate = Optional.ofNullable(createDate);
+    return this;
+  }
+
+  public Optional<XMLGregorianCalendar> getModificationDate() {
+    return modificationDate;
+  }
+
+  public IPRepresentation setModificationDate(XMLGregorianCalendar modificationDate) {
+    markAsModified();
+    this.modificationDate = Optional.ofNullable(modificationDate);
+    return this;
+  }
+
+  public IPRepresentation setDescription(String description) {
+    markAsModified();
+    this.description = description;
+    return this;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public List<IPAgent> getAgents() {
+    return agents;
+  }
+
+  public IPRepresentation addAgent(IPAgent agent) {
+    markAsModified();
+    agents.add(agent);
+    return this;
+  }
+
+  public List<IPDescriptiveMetadata> getDescriptiveMetadata() {
+    return descriptiveMetadata;
+  }
+
+  public IPRepresentation addDescriptiveMetadata(IPDescriptiveMetadata metadata) {
+    markAsModified();
+    descriptiveMetadata.add(metadata);
+    return this;
+  }
+
+  public List<IPMetadata> getPreservationMetadata() {
+    return preservationMetadata;
+  }
+
+  public IPRepresentation addPreservationMetadata(IPMetadata metadata) {
+    markAsModified();
+    preservationMetadata.add(metadata);
+    return this;
+  }
+
+  public List<IPMetadata> getOtherMetadata() {
+    return otherMetadata;
+  }
+
+  public IPRepresentation addOtherMetadata(IPMetadata metadata) {
+    markAsModified();
+    otherMetadata.add(metadata);
+    return this;
+  }
+
+  public List<IPFileInterface> getData() {
+    return data;
+  }
+
+  public IPRepresentation addFile(IPFileInterface ipFile) {
+    markAsModified();
+    data.add(ipFile);
+    return this;
+  }
+
+  public IPRepresentation addFile(Path filePath, List<String> folders) {
+    markAsModified();
+    data.add(new IPFile(filePath, folders));
+    return this;
+  }
+
+  public List<IPFileInterface> getSchemas() {
+    return schemas;
+  }
+
+  public IPRepresentation addSchema(IPFileInterface schema) {
+    markAsModified();
+    this.schemas.add(schema);
+    return this;
+  }
+
+  public List<IPFileInterface> getDocumentation() {
+    return documentation;
+  }
+
+  public IPRepresentation addDocumentation(IPFileInterface documentation) {
+    markAsModified();
+    this.documentation.add(documentation);
+    return this;
+  }
+
+  /**
+   * @return the METS file of the already built package this representation was
+   *         read from (see {@code parseForUpdate} in the E-ARK implementations),
+   *         if the representation was not modified since then. In that case the
+   *         representation METS and files are carried over as they are when
+   *         building.
+   */
+  public Optional<Path> getSourceMetsPath() {
+    return Optional.ofNullable(sourceMetsPath);
+  }
+
+  public IPRepresentation setSourceMetsPath(Path sourceMetsPath) {
+    this.sourceMetsPath = sourceMetsPath;
+    return this;
+  }
+
+  /**
+   * Forces the representation METS to be regenerated on build (needed when an
+   * element of the lists, e.g. an {@link IPFile}, is changed; changing the lists
+   * returned by the getters already does it).
+   */
+  public IPRepresentation markAsModified() {
+    this.sourceMetsPath = null;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "IPRepresentation [representationID=" + representationID + ", objectID=" + objectID + ", createDate="
+      + createDate + ", modificationDate=" + modificationDate + ", contentType=" + contentType
+      + ", contentInformationType=" + contentInformationType + ", status=" + status + ", description=" + description
+      + ", agents=" + agents + ", descriptiveMetadata=" + descriptiveMetadata + ", preservationMetadata="
+      + preservationMetadata + ", otherMetadata=" + otherMetadata + ", data=" + data + ", schemas=" + schemas
+      + ", documentation=" + documentation + "]";
+  }
+
+  /**
+   * List that marks the representation as modified when it is changed (every
+   * change of an {@link AbstractList} goes through {@code add}, {@code set} or
+   * {@code remove}).
+   */
+  private final class ModificationTrackingList<E> extends AbstractList<E> {
+    private final List<E> elements = new ArrayList<>();
+
+    @Override
+    public E get(int index) {
+      return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+      return elements.size();
+    }
+
+    @Override
+    public void add(int index, E element) {
+      markAsModified();
+      elements.add(index, element);
+      modCount++;
+    }
+
+    @Override
+    public E set(int index, E element) {
+      markAsModified();
+      return elements.set(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+      markAsModified();
+      modCount++;
+      return elements.remove(index);
+    }
+  }
+
+}
@@ -8,11 +8,17 @@
 package org.roda_project.commons_ip2.model;
 
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec.FileGrp;
+import org.roda_project.commons_ip2.utils.METSFileGrpSpool;
 
 public class MetsWrapper {
 
@@ -33,6 +39,9 @@ public class MetsWrapper {
   private FileGrpType submissionFileGroup;
   private FileGrpType documentationFileGroup;
   private FileGrpType dataFileGroup;
+  private METSFileGrpSpool dataFileGroupSpool;
+  private Set<String> streamedFileGroupIds;
+  private final Map<String, FileGrp> shallowDataFileGroups = new HashMap<>();
 
   private MdSecType mainDmdSec;
   private MdSecType documentationDmdSec;
@@ -41,6 +50,7 @@ public class MetsWrapper {
     super();
     this.mets = mets;
     this.metsPath = metsPath;
+    this.streamedFileGroupIds = new HashSet<>();
   }
 
   public Mets getMets() {
@@ -115,6 +125,34 @@ public class MetsWrapper {
     this.dataFileGroup = dataFileGroup;
   }
 
+  /**
+   * @return the spool holding the data files, when they are streamed to disk
+   *         instead of being added to {@link #getDataFileGroup()}.
+   */
+  public METSFileGrpSpool getDataFileGroupSpool() {
+    return dataFileGroupSpool;
+  }
+
+  public void setDataFileGroupSpool(METSFileGrpSpool dataFileGroupSpool) {
+    this.dataFileGroupSpool = dataFileGroupSpool;
+  }
+
+  /**
+   * @return the IDs of the file groups whose files were left out when the METS
+   *         was read (and must be read with
+   *         {@link org.roda_project.commons_ip2.utils.METSStreamReader#readFiles}).
+   */
+  public Set<String> getStreamedFileGroupIds() {
+    return streamedFileGroupIds;
+  }
+
+  /**
+   * @return the data fileGrps of a shallow representation, by data folder.
+   */
+  public Map<String, FileGrp> getShallowDataFileGroups() {
+    return shallowDataFileGroups;
+  }
+
   public FileGrpType getMainFileGroup() {
     return mainFileGroup;
   }
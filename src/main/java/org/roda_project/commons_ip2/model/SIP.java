@@ -9,13 +9,26 @@ package org.roda_project.commons_ip2.model;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.roda_project.commons_ip.model.ParseException;
 import org.roda_project.commons_ip.utils.IPEnums.IPType;
+import org.roda_project.commons_ip2.utils.ContentAwareZipEntryCompressionPolicy;
+import org.roda_project.commons_ip2.utils.IDGenerator;
+import org.roda_project.commons_ip2.utils.METSBinding;
+import org.roda_project.commons_ip2.utils.PackageContainer;
+import org.roda_project.commons_ip2.utils.ZipEntryCompressionPolicy;
 
 public abstract class SIP extends IP {
   private final List<SIPObserver> observers;
+  private ZipEntryCompressionPolicy zipEntryCompressionPolicy = new ContentAwareZipEntryCompressionPolicy();
+  private PackageContainer packageContainer = PackageContainer.ZIP;
+  private boolean resumableBuild;
+  private IDGenerator idGenerator;
+  private METSBinding metsBinding;
+  private Date reproducibleBuildTime;
 
   public SIP() {
     super();
@@ -38,6 +51,109 @@ public abstract class SIP extends IP {
     observers = new ArrayList<>();
   }
 
+  /**
+   * @return the policy used to decide which ZIP entries are deflated or stored
+   *         (by default, already compressed formats are stored).
+   */
+  public ZipEntryCompressionPolicy getZipEntryCompressionPolicy() {
+    return zipEntryCompressionPolicy;
+  }
+
+  public SIP setZipEntryCompressionPolicy(ZipEntryCompressionPolicy zipEntryCompressionPolicy) {
+    this.zipEntryCompressionPolicy = zipEntryCompressionPolicy;
+    return this;
+  }
+
+  /**
+   * @return the archive format of the built SIP (by default, ZIP).
+   */
+  public PackageContainer getPackageContainer() {
+    return packageContainer;
+  }
+
+  public SIP setPackageContainer(PackageContainer packageContainer) {
+    this.packageContainer = packageContainer;
+    return this;
+  }
+
+  /**
+   * @return if the build journals the entries written to the package so that,
+   *         if interrupted, it can be resumed by building again (see
+   *         {@link PackageContainer#writeResumable}).
+   */
+  public boolean isResumableBuild() {
+    return resumableBuild;
+  }
+
+  /**
+   * Sets the resumable build mode, where an interrupted build keeps the
+   * partially written package (and its journal) to be resumed instead of
+   * deleting it.
+   */
+  public SIP setResumableBuild(boolean resumableBuild) {
+    this.resumableBuild = resumableBuild;
+    return this;
+  }
+
+  /**
+   * @return the generator of the METS identifiers of the build, or
+   *         {@code null} to use the default one (see
+   *         {@link org.roda_project.commons_ip2.utils.Utils#setDefaultIDGenerator}).
+   */
+  public IDGenerator getIDGenerator() {
+    return idGenerator;
+  }
+
+  public SIP setIDGenerator(IDGenerator idGenerator) {
+    this.idGenerator = idGenerator;
+    return this;
+  }
+
+  /**
+   * @return how the METS files of the build are written, or {@code null} to
+   *         use the binding of the building thread (see
+   *         {@link org.roda_project.commons_ip2.utils.METSUtils#getMETSBinding()}).
+   */
+  public METSBinding getMETSBinding() {
+    return metsBinding;
+  }
+
+  public SIP setMETSBinding(METSBinding metsBinding) {
+    this.metsBinding = metsBinding;
+    return this;
+  }
+
+  /**
+   * @return if the build is reproducible, i.e. building the same SIP (the same
+   *         ids and files) again gives exactly the same package.
+   */
+  public boolean isReproducibleBuild() {
+    return reproducibleBuildTime != null;
+  }
+
+  /**
+   * @return the time of every date written by a reproducible build.
+   */
+  public Date getReproducibleBuildTime() {
+    return reproducibleBuildTime;
+  }
+
+  /**
+   * Sets the reproducible build mode, where the METS identifiers are derived
+   * from the SIP id and file paths (see {@link IDGenerator#nameBased}) and
+   * every date (METS dates and package entry times) is the given time. Ids set
+   * when the SIP is created (of the SIP, representations and metadata) are
+   * random unless given, so they must be given for the build to be
+   * reproducible.
+   *
+   * @param buildTime
+   *          the time to write, or {@code null} to leave the mode.
+   */
+  public SIP setReproducibleBuild(Date buildTime) {
+    this.reproducibleBuildTime = buildTime == null ? null : new Date(buildTime.getTime());
+    return this;
+  }
+
   public void addObserver(SIPObserver observer) {
     observers.add(observer);
   }
@@ -88,6 +204,18 @@ public abstract class SIP extends IP {
     }
   }
 
+  public void notifySipBuildPackagingProgress(SIPBuildProgress progress) {
+    for (SIPObserver sipObserver : observers) {
+      sipObserver.sipBuildPackagingProgress(progress);
+    }
+  }
+
+  public void notifySipBuildPhaseTimings(Map<SIPBuildPhase, Long> nanosByPhase) {
+    for (SIPObserver sipObserver : observers) {
+      sipObserver.sipBuildPhaseTimings(nanosByPhase);
+    }
+  }
+
   public void notifySipBuildPackagingEnded() {
     for (SIPObserver sipObserver : observers) {
       sipObserver.sipBuildPackagingEnded();
@@ -0,0 +1,22 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+/**
+ * Phases of a SIP build whose time is measured (see {@link SIPBuildTimings}).
+ */
+public enum SIPBuildPhase {
+  /** Writing the METS files. */
+  METS_GENERATION,
+  /** Probing the content type of files (and if they are worth compressing). */
+  MIME_PROBING,
+  /** Calculating checksums. */
+  HASHING,
+  /** Writing (deflating or storing) the ZIP entries. */
+  COMPRESSION
+}
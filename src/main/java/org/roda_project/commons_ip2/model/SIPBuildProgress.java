@@ -0,0 +1,82 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+/**
+ * Progress of the packaging of a SIP, in bytes: how much of the content of the
+ * entries was already written, out of the total, while writing which entry,
+ * and the resulting throughput and estimated time to finish.
+ *
+ * <p>
+ * The total only counts the METS files once they are generated, so it may grow
+ * while packaging.
+ * </p>
+ */
+public final class SIPBuildProgress {
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+  private final long bytesProcessed;
+  private final long totalBytes;
+  private final String currentEntry;
+  private final long elapsedNanos;
+
+  public SIPBuildProgress(long bytesProcessed, long totalBytes, String currentEntry, long elapsedNanos) {
+    this.bytesProcessed = bytesProcessed;
+    this.totalBytes = totalBytes;
+    this.currentEntry = currentEntry;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getBytesProcessed() {
+    return bytesProcessed;
+  }
+
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * @return the name of the entry being written.
+   */
+  public String getCurrentEntry() {
+    return currentEntry;
+  }
+
+  /**
+   * @return the time since the packaging started, in nanoseconds.
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * @return the average throughput since the packaging started, in bytes per
+   *         second (0 if nothing was processed yet).
+   */
+  public double getBytesPerSecond() {
+    return elapsedNanos > 0 ? bytesProcessed * NANOS_PER_SECOND / elapsedNanos : 0d;
+  }
+
+  /**
+   * @return the estimated time to finish at the average throughput, in
+   *         nanoseconds, or -1 if it cannot be estimated yet.
+   */
+  public long getEtaNanos() {
+    if (bytesProcessed <= 0) {
+      return -1;
+    }
+    long remainingBytes = Math.max(0, totalBytes - bytesProcessed);
+    return (long) ((double) remainingBytes * elapsedNanos / bytesProcessed);
+  }
+
+  @Override
+  public String toString() {
+    return "SIPBuildProgress [bytesProcessed=" + bytesProcessed + ", totalBytes=" + totalBytes + ", currentEntry="
+      + currentEntry + ", elapsedNanos=" + elapsedNanos + "]";
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time spent in each {@link SIPBuildPhase} by the SIP build running in the
+ * current thread. The utilities doing the work (METS marshalling, content type
+ * probing, hashing and zipping) add to it, without knowing which SIP is being
+ * built; the SIP resets it when its build starts and reports it to its
+ * {@link SIPObserver}s when the packaging ends.
+ */
+public final class SIPBuildTimings {
+  private static final ThreadLocal<SIPBuildTimings> CURRENT = ThreadLocal.withInitial(SIPBuildTimings::new);
+
+  private final long[] nanos = new long[SIPBuildPhase.values().length];
+
+  private SIPBuildTimings() {
+    // use current()
+  }
+
+  /**
+   * @return the timings of the current thread.
+   */
+  public static SIPBuildTimings current() {
+    return CURRENT.get();
+  }
+
+  public void add(SIPBuildPhase phase, long elapsedNanos) {
+    nanos[phase.ordinal()] += elapsedNanos;
+  }
+
+  public long get(SIPBuildPhase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  public void reset() {
+    for (int i = 0; i < nanos.length; i++) {
+      nanos[i] = 0;
+    }
+  }
+
+  /**
+   * @return the time spent in each phase, in nanoseconds.
+   */
+  public Map<SIPBuildPhase, Long> toMap() {
+    Map<SIPBuildPhase, Long> map = new EnumMap<>(SIPBuildPhase.class);
+    for (SIPBuildPhase phase : SIPBuildPhase.values()) {
+      map.put(phase, get(phase));
+    }
+    return Collections.unmodifiableMap(map);
+  }
+}
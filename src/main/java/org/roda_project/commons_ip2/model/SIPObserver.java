@@ -7,6 +7,8 @@
  */
 package org.roda_project.commons_ip2.model;
 
+import java.util.Map;
+
 public interface SIPObserver {
 
   public void sipBuildRepresentationsProcessingStarted(int totalNumberOfRepresentations);
@@ -25,4 +27,20 @@ public interface SIPObserver {
 
   public void sipBuildPackagingEnded();
 
+  /**
+   * Called while packaging, as the content of the entries is written (at most a
+   * few times per second and when each entry is done).
+   */
+  default void sipBuildPackagingProgress(SIPBuildProgress progress) {
+    // ignored by default
+  }
+
+  /**
+   * Called once the packaging ends (before {@link #sipBuildPackagingEnded()})
+   * with the time spent in each phase of the whole build, in nanoseconds.
+   */
+  default void sipBuildPhaseTimings(Map<SIPBuildPhase, Long> nanosByPhase) {
+    // ignored by default
+  }
+
 }
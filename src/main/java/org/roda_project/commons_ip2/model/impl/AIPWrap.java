@@ -18,6 +18,8 @@ import org.roda_project.commons_ip.utils.IPEnums;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
 import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.ChecksumMode;
+import org.roda_project.commons_ip2.model.FolderWriteMode;
 import org.roda_project.commons_ip2.model.IP;
 import org.roda_project.commons_ip2.model.IPAgent;
 import org.roda_project.commons_ip2.model.IPContentInformationType;
@@ -25,6 +27,7 @@ import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
 import org.roda_project.commons_ip2.model.IPFileInterface;
 import org.roda_project.commons_ip2.model.IPHeader;
+import org.roda_project.commons_ip2.model.IPInterface;
 import org.roda_project.commons_ip2.model.IPMetadata;
 import org.roda_project.commons_ip2.model.IPRepresentation;
 import org.roda_project.commons_ip2.model.ValidationReport;
@@ -310,6 +313,26 @@ public class AIPWrap implements AIP {
     return aip.getZipEntries();
   }
 
+  @Override
+  public AIP setFolderWriteMode(final FolderWriteMode folderWriteMode) {
+    return aip.setFolderWriteMode(folderWriteMode);
+  }
+
+  @Override
+  public FolderWriteMode getFolderWriteMode() {
+    return aip.getFolderWriteMode();
+  }
+
+  @Override
+  public IPInterface setChecksumMode(final ChecksumMode checksumMode) {
+    return aip.setChecksumMode(checksumMode);
+  }
+
+  @Override
+  public ChecksumMode getChecksumMode() {
+    return aip.getChecksumMode();
+  }
+
   @Override
   public ValidationReport getValidationReport() {
     return aip.getValidationReport();
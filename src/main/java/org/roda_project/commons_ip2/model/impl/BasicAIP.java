@@ -17,6 +17,7 @@ import org.roda_project.commons_ip.utils.IPEnums;
 import org.roda_project.commons_ip.utils.IPEnums.IPType;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.FolderWriteMode;
 import org.roda_project.commons_ip2.model.IP;
 import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.IPFileInterface;
@@ -46,6 +47,11 @@ public class BasicAIP extends IP implements AIP {
    */
   private List<IPFileInterface> submissions;
 
+  /**
+   * How the payload files are placed when building the AIP as a folder.
+   */
+  private FolderWriteMode folderWriteMode = FolderWriteMode.COPY;
+
   /**
    * Constructor.
    */
@@ -105,6 +111,17 @@ public class BasicAIP extends IP implements AIP {
     return this;
   }
 
+  @Override
+  public AIP setFolderWriteMode(final FolderWriteMode folderWriteMode) {
+    this.folderWriteMode = folderWriteMode;
+    return this;
+  }
+
+  @Override
+  public FolderWriteMode getFolderWriteMode() {
+    return folderWriteMode;
+  }
+
   @Override
   public Path build(final Path destinationDirectory) throws IPException, InterruptedException {
     throw new IPException("Not implemented");
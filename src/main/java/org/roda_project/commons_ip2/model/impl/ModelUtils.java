@@ -14,6 +14,7 @@ import java.util.List;
 
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPFolder;
 import org.roda_project.commons_ip2.utils.Utils;
 import org.slf4j.Logger;
 
@@ -40,6 +41,12 @@ public class ModelUtils {
   }
 
   public static String getFoldersFromList(List<String> folders) {
+    if (folders instanceof IPFolder) {
+      return ((IPFolder) folders).getPath();
+    }
+    if (folders instanceof IPFolder.View) {
+      return ((IPFolder.View) folders).getFolder().getPath();
+    }
     StringBuilder sb = new StringBuilder();
     for (String folder : folders) {
       sb.append(folder);
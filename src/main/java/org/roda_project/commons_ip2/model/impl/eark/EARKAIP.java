@@ -3,13 +3,19 @@ package org.roda_project.commons_ip2.model.impl.eark;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -17,20 +23,25 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
 import org.roda_project.commons_ip.utils.IPEnums;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
 import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
 import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.FolderWriteMode;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.impl.AIPWrap;
 import org.roda_project.commons_ip2.model.impl.BasicAIP;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.KnownChecksums;
 import org.roda_project.commons_ip2.utils.METSFileTypeZipEntryInfo;
 import org.roda_project.commons_ip2.utils.METSMdRefZipEntryInfo;
+import org.roda_project.commons_ip2.utils.METSSpooledFileZipEntryInfo;
 import org.roda_project.commons_ip2.utils.METSUtils;
 import org.roda_project.commons_ip2.utils.METSZipEntryInfo;
+import org.roda_project.commons_ip2.utils.UnchangedFileZipEntryInfo;
 import org.roda_project.commons_ip2.utils.ZIPUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +52,7 @@ import org.slf4j.LoggerFactory;
 public class EARKAIP extends AIPWrap {
   private static final Logger LOGGER = LoggerFactory.getLogger(EARKAIP.class);
   private static final String TEMP_DIR = "EARKAIP";
+  private static final int BUFFER_SIZE = 64 * 1024;
 
   /**
    * Constructor.
@@ -68,12 +80,72 @@ public class EARKAIP extends AIPWrap {
     return parseEARKAIP(source, destinationDirectory);
   }
 
+  /**
+   * Parses an AIP, parsing (and verifying the files of) its representations
+   * concurrently on the given {@link Executor}. The result is the same as
+   * {@link #parse(Path)}.
+   */
+  public static AIP parse(final Path source, final Executor representationExecutor) throws ParseException {
+    try {
+      if (Files.isDirectory(source)) {
+        return parseEARKAIPFromPath(source, false, representationExecutor);
+      } else {
+        return parse(source, Files.createTempDirectory("unzipped"), representationExecutor);
+      }
+    } catch (final IOException e) {
+      throw new ParseException("Error creating temporary directory for E-ARK AIP parse", e);
+    }
+  }
+
+  /**
+   * Parses an AIP, parsing (and verifying the files of) its representations
+   * concurrently on the given {@link Executor}. The result is the same as
+   * {@link #parse(Path, Path)}.
+   */
+  public static AIP parse(final Path source, final Path destinationDirectory, final Executor representationExecutor)
+    throws ParseException {
+    final Path aipPath = ZIPUtils.extractIPIfInZipFormat(source, destinationDirectory);
+    return parseEARKAIPFromPath(aipPath, false, representationExecutor);
+  }
+
+  /**
+   * Parses an AIP to be updated and built again. Representations are parsed
+   * without verifying their files checksums and, unless modified, are carried
+   * over as they are on the next build (when building a folder AIP in its own
+   * location, their files are left in place).
+   */
+  public static AIP parseForUpdate(final Path source) throws ParseException {
+    try {
+      if (Files.isDirectory(source)) {
+        return parseEARKAIPFromPath(source, true);
+      } else {
+        return parseForUpdate(source, Files.createTempDirectory("unzipped"));
+      }
+    } catch (final IOException e) {
+      throw new ParseException("Error creating temporary directory for E-ARK AIP parse", e);
+    }
+  }
+
+  public static AIP parseForUpdate(final Path source, final Path destinationDirectory) throws ParseException {
+    Path aipPath = ZIPUtils.extractIPIfInZipFormat(source, destinationDirectory);
+    return parseEARKAIPFromPath(aipPath, true);
+  }
+
   private static AIP parseEARKAIP(final Path source, final Path destinationDirectory) throws ParseException {
     Path aipPath = ZIPUtils.extractIPIfInZipFormat(source, destinationDirectory);
     return parseEARKAIPFromPath(aipPath);
   }
 
   private static AIP parseEARKAIPFromPath(final Path aipPath) throws ParseException {
+    return parseEARKAIPFromPath(aipPath, false);
+  }
+
+  private static AIP parseEARKAIPFromPath(final Path aipPath, final boolean forUpdate) throws ParseException {
+    return parseEARKAIPFromPath(aipPath, forUpdate, Runnable::run);
+  }
+
+  private static AIP parseEARKAIPFromPath(final Path aipPath, final boolean forUpdate,
+    final Executor representationExecutor) throws ParseException {
     try {
       final AIP aip = new EARKAIP(new BasicAIP());
       aip.setBasePath(aipPath);
@@ -92,7 +164,7 @@ public class EARKAIP extends AIPWrap {
 
           EARKUtils.processPreservationMetadata(metsWrapper, aip, LOGGER, null, aip.getBasePath());
 
-          EARKUtils.processRepresentations(metsWrapper, aip, LOGGER);
+          EARKUtils.processRepresentations(metsWrapper, aip, LOGGER, forUpdate, representationExecutor);
 
           EARKUtils.processSchemasMetadata(metsWrapper, aip, aip.getBasePath());
 
@@ -207,7 +279,11 @@ public class EARKAIP extends AIPWrap {
         zipEntryInfo.prepareEntryforZipping();
         LOGGER.debug("Writing file {}", zipEntryInfo.getFilePath());
         final Path outputPath = Paths.get(path.toString(), zipEntryInfo.getName());
-        writeFileToPath(zipEntryInfo, outputPath, onlyMets);
+        if (zipEntryInfo instanceof UnchangedFileZipEntryInfo) {
+          copyUnchangedFileToPath(zipEntryInfo, outputPath, onlyMets);
+        } else {
+          writeFileToPath(zipEntryInfo, outputPath, onlyMets);
+        }
       }
     } catch (final IOException | NoSuchAlgorithmException e) {
       LOGGER.debug("Error in write method", e);
@@ -215,38 +291,114 @@ public class EARKAIP extends AIPWrap {
     }
   }
 
+  private void copyUnchangedFileToPath(final ZipEntryInfo zipEntryInfo, final Path outputPath, final boolean onlyMets)
+    throws IOException {
+    if (!onlyMets && !isSameFile(zipEntryInfo.getFilePath(), outputPath)) {
+      Files.createDirectories(outputPath.getParent());
+      if (getFolderWriteMode() == FolderWriteMode.COPY) {
+        Files.copy(zipEntryInfo.getFilePath(), outputPath, StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        placeFile(zipEntryInfo.getFilePath(), outputPath);
+      }
+    }
+  }
+
+  private static boolean isSameFile(final Path source, final Path target) throws IOException {
+    return Files.exists(target) && Files.isSameFile(source, target);
+  }
+
   private void writeFileToPath(final ZipEntryInfo zipEntryInfo, final Path outputPath, final boolean onlyMets)
-    throws IOException, NoSuchAlgorithmException {
-    InputStream is = null;
-    OutputStream os = null;
-    try {
+    throws IOException, NoSuchAlgorithmException, IPException {
+    // when building an updated AIP in its own location, nothing is written
+    // for files that are already there (only their checksum is needed)
+    final boolean write = (!onlyMets || zipEntryInfo instanceof METSZipEntryInfo)
+      && !isSameFile(zipEntryInfo.getFilePath(), outputPath);
+    // METS files are always copied, as they are build files
+    final boolean copy = write
+      && (getFolderWriteMode() == FolderWriteMode.COPY || zipEntryInfo instanceof METSZipEntryInfo);
+
+    final Map<String, String> knownChecksums = zipEntryInfo instanceof FileZipEntryInfo
+      ? ((FileZipEntryInfo) zipEntryInfo).getKnownChecksums()
+      : Collections.emptyMap();
+    final Map<String, MessageDigest> digests = new HashMap<>();
+    for (String algorithm : KnownChecksums.toCalculate(getChecksumMode(),
+      Collections.singleton(IPConstants.CHECKSUM_ALGORITHM), knownChecksums)) {
+      digests.put(algorithm, MessageDigest.getInstance(algorithm));
+    }
 
-      is = Files.newInputStream(zipEntryInfo.getFilePath());
+    if (write && !copy) {
+      Files.createDirectories(outputPath.getParent());
+      placeFile(zipEntryInfo.getFilePath(), outputPath);
+    }
 
-      if (!onlyMets || zipEntryInfo instanceof METSZipEntryInfo) {
-        Files.createDirectories(outputPath.getParent());
-        os = Files.newOutputStream(outputPath);
-      } else {
-        os = new NullOutputStream();
-      }
+    // a file that is neither copied nor hashed (its checksum is trusted) is
+    // not read at all
+    if (copy || !digests.isEmpty()) {
+      InputStream is = null;
+      OutputStream os = null;
+      try {
+        is = Files.newInputStream(zipEntryInfo.getFilePath());
+        if (copy) {
+          Files.createDirectories(outputPath.getParent());
+          os = Files.newOutputStream(outputPath);
+        } else {
+          os = new NullOutputStream();
+        }
 
-      final byte[] buffer = new byte[4096];
-      final MessageDigest complete = MessageDigest.getInstance(IPConstants.CHECKSUM_ALGORITHM);
-      int numRead;
-      do {
-        numRead = is.read(buffer);
-        if (numRead > 0) {
-          complete.update(buffer, 0, numRead);
-          if (!onlyMets || zipEntryInfo instanceof METSZipEntryInfo) {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int numRead;
+        do {
+          numRead = is.read(buffer);
+          if (numRead > 0) {
+            for (MessageDigest digest : digests.values()) {
+              digest.update(buffer, 0, numRead);
+            }
             os.write(buffer, 0, numRead);
           }
-        }
-      } while (numRead != -1);
+        } while (numRead != -1);
+      } finally {
+        IOUtils.closeQuietly(is);
+        IOUtils.closeQuietly(os);
+      }
+    }
 
-      setChecksum(zipEntryInfo, DatatypeConverter.printHexBinary(complete.digest()), IPConstants.CHECKSUM_ALGORITHM);
-    } finally {
-      IOUtils.closeQuietly(is);
-      IOUtils.closeQuietly(os);
+    final Map<String, String> calculated = new HashMap<>();
+    digests.forEach((algorithm, digest) -> calculated.put(algorithm,
+      DatatypeConverter.printHexBinary(digest.digest())));
+    final Map<String, String> checksums = KnownChecksums.merge(getChecksumMode(), calculated, knownChecksums,
+      zipEntryInfo.getName());
+    setChecksum(zipEntryInfo, checksums.get(IPConstants.CHECKSUM_ALGORITHM), IPConstants.CHECKSUM_ALGORITHM);
+  }
+
+  /**
+   * Places a file in the AIP folder without copying it through the JVM, as set
+   * by {@link #getFolderWriteMode()}. A file that cannot be hard linked (e.g.
+   * in another file store) is transferred instead.
+   */
+  private void placeFile(final Path source, final Path target) throws IOException {
+    if (getFolderWriteMode() == FolderWriteMode.HARD_LINK) {
+      try {
+        Files.deleteIfExists(target);
+        Files.createLink(target, source);
+        return;
+      } catch (final UnsupportedOperationException | IOException e) {
+        LOGGER.debug("Could not link {} to {}, transferring it", target, source, e);
+      }
+    }
+
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+      FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      final long size = in.size();
+      long position = 0;
+      while (position < size) {
+        final long transferred = in.transferTo(position, size - position, out);
+        if (transferred <= 0) {
+          // the file shrank after its size was read
+          throw new IOException("File " + source + " changed size while being written");
+        }
+        position += transferred;
+      }
     }
   }
 
@@ -262,6 +414,8 @@ public class EARKAIP extends AIPWrap {
       METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) zipEntryInfo;
       f.getMetsMdRef().setCHECKSUM(checksum);
       f.getMetsMdRef().setCHECKSUMTYPE(checksumType);
+    } else if (zipEntryInfo instanceof METSSpooledFileZipEntryInfo) {
+      ((METSSpooledFileZipEntryInfo) zipEntryInfo).complete();
     }
   }
 
@@ -10,7 +10,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -61,6 +61,8 @@ import org.roda_project.commons_ip2.model.IPRepresentation;
 import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.FileAttributesCollector;
+import org.roda_project.commons_ip2.utils.METSFileGrpSpool;
 import org.roda_project.commons_ip2.utils.METSUtils;
 import org.roda_project.commons_ip2.utils.StructMapDiv;
 import org.roda_project.commons_ip2.utils.Tree;
@@ -76,11 +78,6 @@ public final class EARKMETSUtils {
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(EARKMETSUtils.class);
 
-  /**
-   * {@link HashMap} with all data fileGrps.
-   */
-  private static final Map<String, FileGrp> dataFileGrp = new HashMap<>();
-
   private EARKMETSUtils() {
     // do nothing
   }
@@ -251,40 +248,67 @@ public final class EARKMETSUtils {
         throw new InterruptedException();
       }
 
-      // create mets pointer
-      final Mptr mptr = new Mptr();
-      mptr.setLOCTYPE(LocType.URL.toString());
-      mptr.setType(IPConstants.METS_TYPE_SIMPLE);
-      mptr.setHref(METSUtils.encodeHref(representationMetsPath));
-
       // create file
       final FileType fileType = new FileType();
-      fileType.setID(Utils.generateRandomAndPrefixedFileID());
+      fileType.setID(Utils.generatePrefixedFileID(representationMetsPath));
 
       addMETSToZip(zipEntries, representationMETSWrapper, representationMetsPath, buildDir, false, fileType);
 
-      // add to file group and then to file section
-      final FileGrp fileGrp = createFileGroup(
-        IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/" + representationId);
-      final FLocat fileLocation = METSUtils.createFileLocation(representationMetsPath);
-      fileType.getFLocat().add(fileLocation);
-      fileGrp.getFile().add(fileType);
-      mainMETSWrapper.getMets().getFileSec().getFileGrp().add(fileGrp);
-
-      // set mets pointer
-      final DivType representationDiv = createRepresentationDivForStructMap(representationId, mptr);
-      mptr.setTitle(fileGrp.getID());
-      mainMETSWrapper.getMainDiv().getDiv().add(representationDiv);
+      addRepresentationMETSToMainMETS(mainMETSWrapper, representationId, representationMetsPath, fileType);
     } catch (JAXBException | IOException e) {
       throw new IPException("Error saving representation METS", e);
     }
   }
 
+  /**
+   * Adds the METS of a representation carried over from an already built IP
+   * (i.e. the METS file is used as it is, instead of being generated).
+   */
+  public static void addExistingRepresentationMETSToZipAndToMainMETS(final Map<String, ZipEntryInfo> zipEntries,
+    final MetsWrapper mainMETSWrapper, final String representationId, final Path representationMetsFile,
+    final String representationMetsPath) throws IPException, InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+
+    final FileType fileType = new FileType();
+    fileType.setID(Utils.generatePrefixedFileID(representationMetsPath));
+    METSUtils.setFileBasicInformation(LOGGER, representationMetsFile, fileType);
+
+    // checksum is set when the METS is zipped/written
+    ZIPUtils.addFileTypeFileToZip(zipEntries, representationMetsFile, representationMetsPath, fileType);
+
+    addRepresentationMETSToMainMETS(mainMETSWrapper, representationId, representationMetsPath, fileType);
+  }
+
+  private static void addRepresentationMETSToMainMETS(final MetsWrapper mainMETSWrapper,
+    final String representationId, final String representationMetsPath, final FileType fileType) {
+    // create mets pointer
+    final Mptr mptr = new Mptr();
+    mptr.setLOCTYPE(LocType.URL.toString());
+    mptr.setType(IPConstants.METS_TYPE_SIMPLE);
+    mptr.setHref(METSUtils.encodeHref(representationMetsPath));
+
+    // add to file group and then to file section
+    final FileGrp fileGrp = createFileGroup(
+      IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/" + representationId);
+    final FLocat fileLocation = METSUtils.createFileLocation(representationMetsPath);
+    fileType.getFLocat().add(fileLocation);
+    fileGrp.getFile().add(fileType);
+    mainMETSWrapper.getMets().getFileSec().getFileGrp().add(fileGrp);
+
+    // set mets pointer
+    final DivType representationDiv = createRepresentationDivForStructMap(representationId, mptr);
+    mptr.setTitle(fileGrp.getID());
+    mainMETSWrapper.getMainDiv().getDiv().add(representationDiv);
+  }
+
   private static void addMETSToZip(final Map<String, ZipEntryInfo> zipEntries, final MetsWrapper metsWrapper,
     final String metsPath, final Path buildDir, final boolean mainMets, final FileType fileType)
     throws JAXBException, IOException, IPException {
     final Path temp = Files.createTempFile(buildDir, IPConstants.METS_FILE_NAME, IPConstants.METS_FILE_EXTENSION);
-    ZIPUtils.addMETSFileToZip(zipEntries, temp, metsPath, metsWrapper.getMets(), mainMets, fileType);
+    ZIPUtils.addMETSFileToZip(zipEntries, temp, metsPath, metsWrapper.getMets(), mainMets, fileType,
+      metsWrapper.getDataFileGroupSpool());
   }
 
   private static Agent createMETSAgent(final IPAgent ipAgent) {
@@ -423,7 +447,28 @@ public final class EARKMETSUtils {
 
     // set mimetype, date creation, etc.
     METSUtils.setFileBasicInformation(LOGGER, dataFile, file);
+    addDataFileToMETS(representationMETS, dataFilePath, file);
+    return file;
+  }
+
+  /**
+   * Adds a data file whose mimetype, date creation, etc. were already collected
+   * by a {@link FileAttributesCollector}.
+   *
+   * @param zipPath
+   *          path of the file inside the IP, unique in the package.
+   */
+  public static FileType addDataFileToMETS(final MetsWrapper representationMETS, final String dataFilePath,
+    final String zipPath, final FileAttributesCollector.FileAttributes attributes) {
+    final FileType file = new FileType();
+    file.setID(Utils.generatePrefixedFileID(zipPath));
+    METSUtils.setFileBasicInformation(file, attributes);
+    addDataFileToMETS(representationMETS, dataFilePath, file);
+    return file;
+  }
 
+  private static void addDataFileToMETS(final MetsWrapper representationMETS, final String dataFilePath,
+    final FileType file) {
     // add to file section
     final FLocat fileLocation = METSUtils.createFileLocation(dataFilePath);
     file.getFLocat().add(fileLocation);
@@ -435,7 +480,48 @@ public final class EARKMETSUtils {
       fptr.setFILEID(representationMETS.getDataFileGroup());
       representationMETS.getDataDiv().getFptr().add(fptr);
     }
-    return file;
+  }
+
+  /**
+   * Makes the data files of a representation METS be spooled to disk (see
+   * {@link METSFileGrpSpool}) instead of being kept in the METS object graph.
+   */
+  public static void spoolDataFiles(final MetsWrapper representationMETS, final Path buildDir) throws IPException {
+    if (representationMETS.getDataFileGroup() != null) {
+      try {
+        final Path spoolFile = Files.createTempFile(buildDir, IPConstants.DATA, ".spool");
+        representationMETS
+          .setDataFileGroupSpool(new METSFileGrpSpool(representationMETS.getDataFileGroup(), spoolFile));
+      } catch (IOException e) {
+        throw new IPException("Error creating METS data files spool", e);
+      }
+    }
+  }
+
+  public static void addDataFileToMETS(final Map<String, ZipEntryInfo> zipEntries,
+    final MetsWrapper representationMETS, final String dataFilePath, final Path dataFile, final String zipPath)
+    throws IPException, InterruptedException {
+    representationMETS.getDataFileGroupSpool().addFile(zipEntries, dataFile, zipPath, dataFilePath);
+    addDataFileGroupToStructMap(representationMETS);
+  }
+
+  /**
+   * Adds a data file, whose information was already collected by a
+   * {@link FileAttributesCollector}, to the spooled file group.
+   */
+  public static void addDataFileToMETS(final Map<String, ZipEntryInfo> zipEntries,
+    final MetsWrapper representationMETS, final String dataFilePath, final Path dataFile, final String zipPath,
+    final FileAttributesCollector.FileAttributes attributes) {
+    representationMETS.getDataFileGroupSpool().addFile(zipEntries, dataFile, zipPath, dataFilePath, attributes);
+    addDataFileGroupToStructMap(representationMETS);
+  }
+
+  private static void addDataFileGroupToStructMap(final MetsWrapper representationMETS) {
+    if (representationMETS.getDataDiv().getFptr().isEmpty()) {
+      final Fptr fptr = new Fptr();
+      fptr.setFILEID(representationMETS.getDataFileGroup());
+      representationMETS.getDataDiv().getFptr().add(fptr);
+    }
   }
 
   public static FileType addSchemaFileToMETS(final MetsWrapper metsWrapper, final String schemaFilePath,
@@ -709,18 +795,26 @@ public final class EARKMETSUtils {
     }
   }
 
+  /**
+   * @deprecated the data fileGrps are kept by the {@link MetsWrapper} of each
+   *             representation, see {@link MetsWrapper#getShallowDataFileGroups()}.
+   * @return an empty {@link Map}.
+   */
+  @Deprecated
   public static Map<String, FileGrp> getDataFileGrp() {
-    return dataFileGrp;
+    return Collections.emptyMap();
   }
 
   /**
    * Iterates trough files in Representation, create the FileGrps and adds to the
-   * {@link HashMap}.
+   * {@link Map}.
    * 
+   * @param dataFileGrp
+   *          the {@link Map} of data fileGrps.
    * @param representation
    *          {@link IPRepresentation}
    */
-  private static void addFileGrps(final IPRepresentation representation) {
+  private static void addFileGrps(final Map<String, FileGrp> dataFileGrp, final IPRepresentation representation) {
 
     for (IPFileInterface file : representation.getData()) {
       final String dataFilePath;
@@ -755,7 +849,8 @@ public final class EARKMETSUtils {
   private static void createShallowFileGrps(final MetsWrapper metsWrapper, final FileSec fileSec,
     final boolean mainMets, final boolean isRepresentationsData, final IPRepresentation representation) {
     if (!mainMets && isRepresentationsData) {
-      addFileGrps(representation);
+      final Map<String, FileGrp> dataFileGrp = metsWrapper.getShallowDataFileGroups();
+      addFileGrps(dataFileGrp, representation);
       for (Map.Entry<String, FileGrp> entry : dataFileGrp.entrySet()) {
         fileSec.getFileGrp().add(entry.getValue());
         if (metsWrapper.getDataFileGroup() == null) {
@@ -783,6 +878,7 @@ public final class EARKMETSUtils {
   private static void createAndAddShallowDataDiv(final MetsWrapper metsWrapper, final IPRepresentation representation,
     final DivType mainDiv, final boolean mainMets, final boolean isRepresentationsData) {
     if (!mainMets && isRepresentationsData) {
+      final Map<String, FileGrp> dataFileGrp = metsWrapper.getShallowDataFileGroups();
       final Tree<StructMapDiv> dataDivsTree = createTree(representation);
       DivType dataDiv = createDivForStructMap(dataDivsTree.getRoot().getLabel());
       if (dataDiv.getFptr().isEmpty() && dataFileGrp.get(dataDiv.getLABEL()) != null) {
@@ -790,7 +886,7 @@ public final class EARKMETSUtils {
         fptr.setFILEID(dataFileGrp.get(dataDiv.getLABEL()));
         dataDiv.getFptr().add(fptr);
       }
-      createDataDiv(dataDivsTree, dataDiv);
+      createDataDiv(dataFileGrp, dataDivsTree, dataDiv);
       metsWrapper.setDataDiv(dataDiv);
       mainDiv.getDiv().add(dataDiv);
     }
@@ -824,7 +920,7 @@ public final class EARKMETSUtils {
    * @param divTree
    *          {@link Tree} of {@link StructMapDiv}.
    * @param fileLocation
-   *          {@link String} key of {@link HashMap} of fileGrps.
+   *          {@link String} key of {@link Map} of fileGrps.
    * @param fileRelativeFolders
    *          {@link List} of {@link String} of file Relative folders.
    */
@@ -838,9 +934,7 @@ public final class EARKMETSUtils {
       if (fileRelativeFolders.get(0) != null) {
         Tree<StructMapDiv> childNode = divTree.addChild(new StructMapDiv(fileRelativeFolders.get(0)),
           divTree.getRoot());
-        List<String> newRelativeFolders = new ArrayList<>(fileRelativeFolders);
-        newRelativeFolders.remove(0);
-        addNodes(childNode, fileLocation, newRelativeFolders);
+        addNodes(childNode, fileLocation, fileRelativeFolders.subList(1, fileRelativeFolders.size()));
       }
     }
   }
@@ -849,12 +943,15 @@ public final class EARKMETSUtils {
    * Recursive method who creates the Struct Map inner Data Divs from {@link Tree}
    * of {@link StructMapDiv}.
    * 
+   * @param dataFileGrp
+   *          the {@link Map} of data fileGrps.
    * @param dataDivsTree
    *          {@link Tree} of {@link StructMapDiv}.
    * @param dataDiv
    *          {@link DivType}.
    */
-  private static void createDataDiv(Tree<StructMapDiv> dataDivsTree, DivType dataDiv) {
+  private static void createDataDiv(Map<String, FileGrp> dataFileGrp, Tree<StructMapDiv> dataDivsTree,
+    DivType dataDiv) {
     if (!dataDivsTree.getChilds().isEmpty()) {
       for (Tree<StructMapDiv> child : dataDivsTree.getChilds()) {
         DivType div = createDivForStructMap(child.getRoot().getLabel());
@@ -864,7 +961,7 @@ public final class EARKMETSUtils {
           div.getFptr().add(fptr);
         }
         dataDiv.getDiv().add(div);
-        createDataDiv(child, div);
+        createDataDiv(dataFileGrp, child, div);
       }
     }
   }
@@ -894,10 +991,12 @@ public final class EARKMETSUtils {
   }
 
   /**
-   * Clean the {@link HashMap} data.
+   * @deprecated the data fileGrps are kept by the {@link MetsWrapper} of each
+   *             representation, there is nothing to clean.
    */
+  @Deprecated
   public static void cleanFileGrpStructure() {
-    dataFileGrp.clear();
+    // do nothing
   }
 
 }
@@ -11,10 +11,15 @@ import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
@@ -27,8 +32,13 @@ import org.roda_project.commons_ip2.model.IPContentInformationType;
 import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.SIPBuildTimings;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.IDGenerator;
+import org.roda_project.commons_ip2.utils.IPFutures;
+import org.roda_project.commons_ip2.utils.METSBinding;
 import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.Utils;
 import org.roda_project.commons_ip2.utils.ZIPUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +47,7 @@ public class EARKSIP extends SIP {
   private static final Logger LOGGER = LoggerFactory.getLogger(EARKSIP.class);
 
   private static final String SIP_TEMP_DIR = "EARKSIP";
-  private static final String SIP_FILE_EXTENSION = ".zip";
+  private static final String SEGMENT_FOLDER_PREFIX = "segment_";
 
   public EARKSIP() {
     super();
@@ -73,6 +83,16 @@ public class EARKSIP extends SIP {
     return parseEARKSIP(source, destinationDirectory);
   }
 
+  /**
+   * Parses a SIP, parsing (and verifying the files of) its representations
+   * concurrently on the given {@link Executor}. The result is the same as
+   * {@link #parse(Path, Path)}.
+   */
+  public static SIP parse(Path source, Path destinationDirectory, Executor representationExecutor)
+    throws ParseException {
+    return parseEARKSIP(source, destinationDirectory, false, representationExecutor);
+  }
+
   public static SIP parse(Path source) throws ParseException {
     try {
       return parse(source, Files.createTempDirectory("unzipped"));
@@ -81,7 +101,65 @@ public class EARKSIP extends SIP {
     }
   }
 
+  /**
+   * Parses a SIP to be updated and built again. Representations are parsed
+   * without verifying their files checksums and, unless modified, are carried
+   * over as they are on the next build (only the affected METS files are
+   * regenerated).
+   */
+  public static SIP parseForUpdate(Path source, Path destinationDirectory) throws ParseException {
+    return parseEARKSIP(source, destinationDirectory, true, Runnable::run);
+  }
+
+  /**
+   * Parses a SIP built in segments (see
+   * {@link #buildSegmented(Path, long, Executor)}), reassembling it: the
+   * representations split across segments get all their data files and the
+   * validation issues of every segment are kept.
+   *
+   * @param segments
+   *          the segments, in any order.
+   * @param destinationDirectory
+   *          where the segments are extracted to (each to its own folder).
+   * @throws ParseException
+   *           if the segments do not form a segmented SIP (see
+   *           {@link #checkSegments(List)}) or some error occurs.
+   */
+  public static SIP parseSegmented(List<Path> segments, Path destinationDirectory) throws ParseException {
+    int parentIndex = EARKSIPSegments.checkLinks(segments);
+    SIP parent = parse(segments.get(parentIndex), destinationDirectory.resolve(SEGMENT_FOLDER_PREFIX + parentIndex));
+    try {
+      for (int i = 0; i < segments.size(); i++) {
+        if (i != parentIndex) {
+          SIP child = parse(segments.get(i), destinationDirectory.resolve(SEGMENT_FOLDER_PREFIX + i));
+          EARKSIPSegments.merge(parent, child);
+        }
+      }
+    } catch (IPException e) {
+      throw new ParseException("Error reassembling segmented E-ARK SIP", e);
+    }
+    return parent;
+  }
+
+  /**
+   * Checks, reading only their root METS, that the segments form a segmented
+   * SIP: a single parent, not a child of another segment, that every other
+   * segment has as ancestor.
+   *
+   * @return the parent segment.
+   * @throws ParseException
+   *           if they do not or some error occurs.
+   */
+  public static Path checkSegments(List<Path> segments) throws ParseException {
+    return segments.get(EARKSIPSegments.checkLinks(segments));
+  }
+
   private static SIP parseEARKSIP(final Path source, final Path destinationDirectory) throws ParseException {
+    return parseEARKSIP(source, destinationDirectory, false, Runnable::run);
+  }
+
+  private static SIP parseEARKSIP(final Path source, final Path destinationDirectory, final boolean forUpdate,
+    final Executor representationExecutor) throws ParseException {
     try {
       IPConstants.METS_ENCODE_AND_DECODE_HREF = true;
       SIP sip = new EARKSIP();
@@ -100,7 +178,7 @@ public class EARKSIP extends SIP {
           EARKUtils.processDescriptiveMetadata(metsWrapper, sip, LOGGER, null, sip.getBasePath());
           EARKUtils.processOtherMetadata(metsWrapper, sip, LOGGER, null, sip.getBasePath());
           EARKUtils.processPreservationMetadata(metsWrapper, sip, LOGGER, null, sip.getBasePath());
-          EARKUtils.processRepresentations(metsWrapper, sip, LOGGER);
+          EARKUtils.processRepresentations(metsWrapper, sip, LOGGER, forUpdate, representationExecutor);
           EARKUtils.processSchemasMetadata(metsWrapper, sip, sip.getBasePath());
           EARKUtils.processDocumentationMetadata(metsWrapper, sip, sip.getBasePath());
           EARKUtils.processAncestors(metsWrapper, sip);
@@ -187,6 +265,13 @@ public class EARKSIP extends SIP {
   public Path build(final Path destinationDirectory, final String fileNameWithoutExtension, final boolean onlyManifest,
     IPEnums.SipType sipType) throws IPException, InterruptedException {
     IPConstants.METS_ENCODE_AND_DECODE_HREF = true;
+    SIPBuildTimings.current().reset();
+    IDGenerator previousIDGenerator = Utils
+      .setIDGenerator(isReproducibleBuild() ? IDGenerator.nameBased(getId()) : getIDGenerator());
+    Long previousFixedTime = Utils
+      .setFixedTime(isReproducibleBuild() ? getReproducibleBuildTime().getTime() : null);
+    METSBinding previousMETSBinding = METSUtils
+      .setMETSBinding(getMETSBinding() != null ? getMETSBinding() : METSUtils.getMETSBinding());
     Path buildDir = ModelUtils.createBuildDir(SIP_TEMP_DIR);
     Path zipPath = getZipPath(destinationDirectory, fileNameWithoutExtension);
     try {
@@ -217,23 +302,80 @@ public class EARKSIP extends SIP {
       createZipFile(zipEntries, zipPath);
       return zipPath;
     } catch (InterruptedException e) {
-      ModelUtils.cleanUpUponInterrupt(LOGGER, zipPath);
+      // a resumable build keeps what it wrote, to carry on from there
+      if (!isResumableBuild()) {
+        ModelUtils.cleanUpUponInterrupt(LOGGER, zipPath);
+      }
       throw e;
     } finally {
+      Utils.setIDGenerator(previousIDGenerator);
+      Utils.setFixedTime(previousFixedTime);
+      METSUtils.setMETSBinding(previousMETSBinding);
       ModelUtils.deleteBuildDir(buildDir);
     }
   }
 
+  /**
+   * Builds the SIP as several linked packages (segments) of about the given
+   * size, following the E-ARK CSIP guidance on dividing large packages. The
+   * first segment (the parent) keeps the SIP id, metadata, schemas and
+   * documentation and every other segment (a child) has the parent as
+   * ancestor; the data files of the representations are distributed in order,
+   * so a representation may be split across consecutive segments. A file
+   * bigger than the target size gets a segment of its own.
+   *
+   * <p>
+   * The segments are built concurrently on the given {@link Executor}; if one
+   * fails, the others are cancelled and removed. Observers of this SIP are not
+   * notified.
+   * </p>
+   *
+   * @return the segments, the parent first.
+   */
+  public List<Path> buildSegmented(Path destinationDirectory, long targetSegmentSize, Executor executor)
+    throws IPException, InterruptedException {
+    List<CompletableFuture<Path>> builds = new ArrayList<>();
+    for (EARKSIP segment : EARKSIPSegments.split(this, targetSegmentSize)) {
+      builds.add(IPFutures.build(segment, destinationDirectory, executor));
+    }
+    try {
+      List<Path> segments = new ArrayList<>();
+      for (CompletableFuture<Path> build : builds) {
+        segments.add(build.get());
+      }
+      return segments;
+    } catch (ExecutionException e) {
+      cancelSegments(builds);
+      if (e.getCause() instanceof IPException) {
+        throw (IPException) e.getCause();
+      }
+      throw new IPException("Error building segmented E-ARK SIP", e.getCause());
+    } catch (InterruptedException e) {
+      cancelSegments(builds);
+      throw e;
+    }
+  }
+
+  private static void cancelSegments(List<CompletableFuture<Path>> builds) {
+    for (CompletableFuture<Path> build : builds) {
+      // running builds clean up after themselves when interrupted
+      if (!build.cancel(true) && !build.isCompletedExceptionally()) {
+        ModelUtils.cleanUpUponInterrupt(LOGGER, build.join());
+      }
+    }
+  }
+
   private Path getZipPath(Path destinationDirectory, String fileNameWithoutExtension) throws IPException {
     Path zipPath;
     if (fileNameWithoutExtension != null) {
-      zipPath = destinationDirectory.resolve(fileNameWithoutExtension + SIP_FILE_EXTENSION);
+      zipPath = destinationDirectory.resolve(fileNameWithoutExtension + getPackageContainer().getFileExtension());
     } else {
-      zipPath = destinationDirectory.resolve(getId().replaceAll("[^a-zA-Z0-9-_\\.]", "_") + SIP_FILE_EXTENSION);
+      zipPath = destinationDirectory.resolve(getId().replaceAll("[^a-zA-Z0-9-_\\.]", "_")
+        + getPackageContainer().getFileExtension());
     }
 
     try {
-      if (Files.exists(zipPath)) {
+      if (Files.exists(zipPath) && !isResumableBuild()) {
         Files.delete(zipPath);
       }
     } catch (IOException e) {
@@ -246,12 +388,17 @@ public class EARKSIP extends SIP {
     throws IPException, InterruptedException {
     try {
       notifySipBuildPackagingStarted(zipEntries.size());
-      ZIPUtils.zip(zipEntries, Files.newOutputStream(zipPath), this, true, true);
+      if (isResumableBuild()) {
+        getPackageContainer().writeResumable(zipEntries, zipPath, this, true);
+      } else {
+        getPackageContainer().write(zipEntries, Files.newOutputStream(zipPath), this, true);
+      }
     } catch (ClosedByInterruptException e) {
       throw new InterruptedException();
     } catch (IOException e) {
       throw new IPException("Error generating E-ARK SIP ZIP file. Reason: " + e.getMessage(), e);
     } finally {
+      notifySipBuildPhaseTimings(SIPBuildTimings.current().toMap());
       notifySipBuildPackagingEnded();
     }
   }
@@ -0,0 +1,312 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.io.FileUtils;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.PackageContainer;
+import org.roda_project.commons_ip2.utils.ZIPUtils;
+import org.xml.sax.SAXException;
+
+/**
+ * Splits a SIP into segments (following the E-ARK CSIP guidance on dividing
+ * large packages) and links them back together.
+ *
+ * <p>
+ * The first segment (the parent) keeps the SIP id, ancestors, metadata, schemas
+ * and documentation; every other segment (a child) has the parent id as its
+ * only ancestor. The data files of the representations are distributed in order,
+ * filling each segment up to the target size, so a representation may be
+ * split across consecutive segments (each part keeping the representation id;
+ * its metadata, schemas and documentation go with the first part).
+ * </p>
+ */
+final class EARKSIPSegments {
+  private static final String SEGMENT_ID_SEPARATOR = "_part";
+
+  private EARKSIPSegments() {
+    // do nothing
+  }
+
+  static List<EARKSIP> split(SIP sip, long targetSegmentSize) throws IPException {
+    List<EARKSIP> segments = new ArrayList<>();
+    EARKSIP segment = newSegment(sip, sip.getId());
+    segment.setAncestors(sip.getAncestors());
+    segments.add(segment);
+    long segmentSize = 0;
+
+    for (IPDescriptiveMetadata metadata : sip.getDescriptiveMetadata()) {
+      segment.addDescriptiveMetadata(metadata);
+      segmentSize += sizeOf(metadata.getMetadata());
+    }
+    for (IPMetadata metadata : sip.getPreservationMetadata()) {
+      segment.addPreservationMetadata(metadata);
+      segmentSize += sizeOf(metadata.getMetadata());
+    }
+    for (IPMetadata metadata : sip.getOtherMetadata()) {
+      segment.addOtherMetadata(metadata);
+      segmentSize += sizeOf(metadata.getMetadata());
+    }
+    for (IPFileInterface schema : sip.getSchemas()) {
+      segment.addSchema(schema);
+      segmentSize += sizeOf(schema);
+    }
+    for (IPFileInterface documentation : sip.getDocumentation()) {
+      segment.addDocumentation(documentation);
+      segmentSize += sizeOf(documentation);
+    }
+
+    for (IPRepresentation representation : sip.getRepresentations()) {
+      IPRepresentation part = null;
+      boolean first = true;
+      for (IPFileInterface file : representation.getData()) {
+        long size = sizeOf(file);
+        if (segmentSize > 0 && segmentSize + size > targetSegmentSize) {
+          segment = newSegment(sip, sip.getId() + SEGMENT_ID_SEPARATOR + segments.size());
+          segment.setAncestors(Collections.singletonList(sip.getId()));
+          segments.add(segment);
+          segmentSize = 0;
+          part = null;
+        }
+        if (part == null) {
+          part = newPart(representation, first);
+          segmentSize += first ? sizeOfMetadata(representation) : 0;
+          first = false;
+          segment.addRepresentation(part);
+        }
+        part.addFile(file);
+        segmentSize += size;
+      }
+      if (first) {
+        segment.addRepresentation(newPart(representation, true));
+        segmentSize += sizeOfMetadata(representation);
+      }
+    }
+    return segments;
+  }
+
+  private static EARKSIP newSegment(SIP sip, String id) {
+    EARKSIP segment = new EARKSIP(id, sip.getContentType(), sip.getContentInformationType());
+    segment.setProfile(sip.getProfile());
+    segment.setDescription(sip.getDescription());
+    segment.setHeader(sip.getHeader());
+    segment.setChecksumMode(sip.getChecksumMode());
+    segment.setZipEntryCompressionPolicy(sip.getZipEntryCompressionPolicy());
+    segment.setPackageContainer(sip.getPackageContainer());
+    segment.setResumableBuild(sip.isResumableBuild());
+    // segments are built concurrently, each with its own generator
+    if (sip.getIDGenerator() != null) {
+      segment.setIDGenerator(sip.getIDGenerator().forPackage(id));
+    }
+    segment.setMETSBinding(sip.getMETSBinding());
+    segment.setReproducibleBuild(sip.getReproducibleBuildTime());
+    return segment;
+  }
+
+  private static IPRepresentation newPart(IPRepresentation representation, boolean withMetadata) {
+    IPRepresentation part = new IPRepresentation(representation.getRepresentationID());
+    part.setObjectID(representation.getObjectID());
+    part.setContentType(representation.getContentType());
+    part.setContentInformationType(representation.getContentInformationType());
+    part.setStatus(representation.getStatus());
+    part.setDescription(representation.getDescription());
+    // the dates are not always set (not even as empty)
+    if (representation.getCreateDate() != null) {
+      representation.getCreateDate().ifPresent(part::setCreateDate);
+    }
+    if (representation.getModificationDate() != null) {
+      representation.getModificationDate().ifPresent(part::setModificationDate);
+    }
+    representation.getAgents().forEach(part::addAgent);
+    if (withMetadata) {
+      representation.getDescriptiveMetadata().forEach(part::addDescriptiveMetadata);
+      representation.getPreservationMetadata().forEach(part::addPreservationMetadata);
+      representation.getOtherMetadata().forEach(part::addOtherMetadata);
+      representation.getSchemas().forEach(part::addSchema);
+      representation.getDocumentation().forEach(part::addDocumentation);
+    }
+    return part;
+  }
+
+  private static long sizeOfMetadata(IPRepresentation representation) throws IPException {
+    long size = 0;
+    for (IPDescriptiveMetadata metadata : representation.getDescriptiveMetadata()) {
+      size += sizeOf(metadata.getMetadata());
+    }
+    for (IPMetadata metadata : representation.getPreservationMetadata()) {
+      size += sizeOf(metadata.getMetadata());
+    }
+    for (IPMetadata metadata : representation.getOtherMetadata()) {
+      size += sizeOf(metadata.getMetadata());
+    }
+    for (IPFileInterface file : representation.getSchemas()) {
+      size += sizeOf(file);
+    }
+    for (IPFileInterface file : representation.getDocumentation()) {
+      size += sizeOf(file);
+    }
+    return size;
+  }
+
+  private static long sizeOf(IPFileInterface file) throws IPException {
+    if (!(file instanceof IPFile)) {
+      return 0;
+    }
+    try {
+      return Files.size(file.getPath());
+    } catch (IOException e) {
+      throw new IPException("Error getting the size of " + file.getPath(), e);
+    }
+  }
+
+  /**
+   * Reads the root METS of each segment and checks that they form a segmented
+   * SIP: a single parent, not a child of another segment, that every other
+   * segment has as ancestor.
+   *
+   * @return the index of the parent segment.
+   */
+  static int checkLinks(List<Path> segments) throws ParseException {
+    Map<String, List<String>> ancestorsById = new LinkedHashMap<>();
+    for (Path segment : segments) {
+      Mets mets = readRootMets(segment);
+      if (ancestorsById.put(mets.getOBJID(), EARKMETSUtils.extractAncestorsFromStructMap(mets)) != null) {
+        throw new ParseException("Segment " + segment + " repeats the id " + mets.getOBJID());
+      }
+    }
+
+    List<String> ids = new ArrayList<>(ancestorsById.keySet());
+    List<String> parents = new ArrayList<>();
+    ancestorsById.forEach((id, ancestors) -> {
+      if (Collections.disjoint(ancestors, ids)) {
+        parents.add(id);
+      }
+    });
+    if (parents.size() != 1) {
+      throw new ParseException("A segmented SIP needs exactly one segment that is not a child of another, found "
+        + parents);
+    }
+    String parent = parents.get(0);
+    for (Map.Entry<String, List<String>> entry : ancestorsById.entrySet()) {
+      if (!entry.getKey().equals(parent) && !entry.getValue().contains(parent)) {
+        throw new ParseException("Segment " + entry.getKey() + " does not have " + parent + " as ancestor");
+      }
+    }
+    return ids.indexOf(parent);
+  }
+
+  private static Mets readRootMets(Path segment) throws ParseException {
+    Path metsFile = null;
+    Path extractedSegment = null;
+    try {
+      if (Files.isDirectory(segment)) {
+        return METSUtils.instantiateMETSFromFile(segment.resolve(IPConstants.METS_FILE));
+      }
+      if (PackageContainer.TAR.canExtract(segment)) {
+        // TAR has no index to read a single entry from, so the segment is
+        // extracted
+        extractedSegment = Files.createTempDirectory("segment");
+        Path ipFolder = ZIPUtils.extractIPIfInZipFormat(segment, extractedSegment);
+        return METSUtils.instantiateMETSFromFile(ipFolder.resolve(IPConstants.METS_FILE));
+      }
+      try (ZipFile zipFile = new ZipFile(segment.toFile())) {
+        ZipEntry rootMets = null;
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements() && rootMets == null) {
+          ZipEntry entry = entries.nextElement();
+          if (isRootMets(entry.getName())) {
+            rootMets = entry;
+          }
+        }
+        if (rootMets == null) {
+          throw new ParseException("Segment " + segment + " has no root METS");
+        }
+        metsFile = Files.createTempFile(IPConstants.METS_FILE, null);
+        try (InputStream inputStream = zipFile.getInputStream(rootMets)) {
+          Files.copy(inputStream, metsFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return METSUtils.instantiateMETSFromFile(metsFile);
+      }
+    } catch (IOException | JAXBException | SAXException e) {
+      throw new ParseException("Error reading the root METS of segment " + segment, e);
+    } finally {
+      if (metsFile != null) {
+        try {
+          Files.deleteIfExists(metsFile);
+        } catch (IOException e) {
+          // only a temporary file
+        }
+      }
+      if (extractedSegment != null) {
+        FileUtils.deleteQuietly(extractedSegment.toFile());
+      }
+    }
+  }
+
+  /**
+   * @return if the zip entry is the root METS, either at the root of the zip or
+   *         inside its single top folder.
+   */
+  private static boolean isRootMets(String name) {
+    int separator = name.indexOf(IPConstants.ZIP_PATH_SEPARATOR);
+    return name.equals(IPConstants.METS_FILE)
+      || (separator == name.lastIndexOf(IPConstants.ZIP_PATH_SEPARATOR) && name.endsWith(IPConstants.METS_FILE)
+        && separator == name.length() - IPConstants.METS_FILE.length() - 1);
+  }
+
+  /**
+   * Adds the content of a child segment to the parent: data files of
+   * representations split across segments are appended to the representation
+   * of the parent and validation issues are carried over.
+   */
+  static void merge(SIP parent, SIP child) throws IPException {
+    for (IPRepresentation part : child.getRepresentations()) {
+      IPRepresentation representation = null;
+      for (IPRepresentation existing : parent.getRepresentations()) {
+        if (existing.getRepresentationID().equals(part.getRepresentationID())) {
+          representation = existing;
+        }
+      }
+      if (representation == null) {
+        parent.addRepresentation(part);
+      } else {
+        part.getData().forEach(representation::addFile);
+      }
+    }
+    child.getValidationReport().getValidationEntries().forEach(parent.getValidationReport()::addEntry);
+    if (!child.isValid()) {
+      parent.getValidationReport().setValid(false);
+    }
+  }
+}
@@ -14,14 +14,24 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import javax.xml.bind.JAXBException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
 import org.roda_project.commons_ip.utils.IPEnums;
 import org.roda_project.commons_ip.utils.IPEnums.IPStatus;
 import org.roda_project.commons_ip.utils.IPException;
@@ -39,6 +49,7 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.Agent;
 import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
 import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.ChecksumMode;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
@@ -55,7 +66,11 @@ import org.roda_project.commons_ip2.model.RepresentationStatus;
 import org.roda_project.commons_ip2.model.SIP;
 import org.roda_project.commons_ip2.model.ValidationEntry;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.FileAttributesCollector;
+import org.roda_project.commons_ip2.utils.METSBinding;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
 import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.UnchangedFileZipEntryInfo;
 import org.roda_project.commons_ip2.utils.Utils;
 import org.roda_project.commons_ip2.utils.ValidationUtils;
 import org.roda_project.commons_ip2.utils.ZIPUtils;
@@ -88,6 +103,7 @@ public final class EARKUtils {
             + descriptiveFilePath;
         }
         ZIPUtils.addMdRefFileToZip(zipEntries, file.getPath(), descriptiveFilePath, mdRef);
+        setKnownChecksums(zipEntries, descriptiveFilePath, file);
       }
     }
   }
@@ -111,6 +127,7 @@ public final class EARKUtils {
             + IPConstants.ZIP_PATH_SEPARATOR + preservationMetadataPath;
         }
         ZIPUtils.addMdRefFileToZip(zipEntries, file.getPath(), preservationMetadataPath, mdRef);
+        setKnownChecksums(zipEntries, preservationMetadataPath, file);
       }
     }
   }
@@ -133,6 +150,7 @@ public final class EARKUtils {
             + otherMetadataPath;
         }
         ZIPUtils.addMdRefFileToZip(zipEntries, file.getPath(), otherMetadataPath, mdRef);
+        setKnownChecksums(zipEntries, otherMetadataPath, file);
       }
     }
   }
@@ -150,6 +168,11 @@ public final class EARKUtils {
           throw new InterruptedException();
         }
         String representationId = representation.getObjectID();
+        Optional<Path> sourceMetsPath = representation.getSourceMetsPath();
+        if (sourceMetsPath.isPresent() && Files.exists(sourceMetsPath.get())) {
+          addUnchangedRepresentationToZipAndMETS(zipEntries, mainMETSWrapper, representationId, sourceMetsPath.get());
+          continue;
+        }
         // 20160407 hsilva: not being used by Common Specification v0.13
         final boolean isRepresentationMetadataOther = (representation.getOtherMetadata() != null
           && !representation.getOtherMetadata().isEmpty());
@@ -176,6 +199,9 @@ public final class EARKUtils {
             isRepresentationMetadata, isRepresentationMetadataOther, isRepresentationSchemas,
             isRepresentationDocumentation, false, false, isRepresentationsData);
         }
+        if (!IPEnums.SipType.EARK2S.equals(sipType)) {
+          EARKMETSUtils.spoolDataFiles(representationMETSWrapper, buildDir);
+        }
 
         representationMETSWrapper.getMainDiv().setTYPE(representation.getStatus().asString());
 
@@ -207,8 +233,6 @@ public final class EARKUtils {
           representationMETSWrapper, IPConstants.REPRESENTATIONS_FOLDER + representationId
             + IPConstants.ZIP_PATH_SEPARATOR + IPConstants.METS_FILE,
           buildDir);
-
-        EARKMETSUtils.cleanFileGrpStructure();
       }
       if (ip instanceof SIP) {
         ((SIP) ip).notifySipBuildRepresentationsProcessingEnded();
@@ -216,6 +240,41 @@ public final class EARKUtils {
     }
   }
 
+  /**
+   * Carries over a representation of an already built IP that was not modified:
+   * its METS is reused and its files are copied without being probed or hashed.
+   * The files are the ones in the representation folder, which match its METS
+   * and its lists, as any change to those marks it as modified (see
+   * {@link IPRepresentation#markAsModified()}).
+   */
+  protected static void addUnchangedRepresentationToZipAndMETS(Map<String, ZipEntryInfo> zipEntries,
+    MetsWrapper mainMETSWrapper, String representationId, Path representationMetsFile)
+    throws IPException, InterruptedException {
+    String representationFolder = IPConstants.REPRESENTATIONS_FOLDER + representationId
+      + IPConstants.ZIP_PATH_SEPARATOR;
+    Path representationBasePath = representationMetsFile.getParent();
+    try (Stream<Path> files = Files.walk(representationBasePath)) {
+      Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+      while (iterator.hasNext()) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        Path file = iterator.next();
+        if (!file.equals(representationMetsFile)) {
+          String filePath = representationFolder
+            + ModelUtils.getFoldersFromList(Utils.getFileRelativeFolders(representationBasePath, file))
+            + file.getFileName().toString();
+          zipEntries.put(filePath, new UnchangedFileZipEntryInfo(filePath, file));
+        }
+      }
+    } catch (IOException e) {
+      throw new IPException("Error carrying over representation '" + representationId + "'", e);
+    }
+
+    EARKMETSUtils.addExistingRepresentationMETSToZipAndToMainMETS(zipEntries, mainMETSWrapper, representationId,
+      representationMetsFile, representationFolder + IPConstants.METS_FILE);
+  }
+
   protected static void addRepresentationDataFilesToZipAndMETS(IPInterface ip, Map<String, ZipEntryInfo> zipEntries,
     MetsWrapper representationMETSWrapper, IPRepresentation representation, String representationId)
     throws IPException, InterruptedException {
@@ -224,29 +283,41 @@ public final class EARKUtils {
         ((SIP) ip).notifySipBuildRepresentationProcessingStarted(representation.getData().size());
       }
       int i = 0;
-      for (IPFileInterface file : representation.getData()) {
-        if (Thread.interrupted()) {
-          throw new InterruptedException();
-        }
-
-        if (file instanceof IPFile) {
-          String dataFilePath = IPConstants.DATA_FOLDER + ModelUtils.getFoldersFromList(file.getRelativeFolders())
-            + file.getFileName();
-          FileType fileType = EARKMETSUtils.addDataFileToMETS(representationMETSWrapper, dataFilePath, file.getPath());
+      // mimetype, size, etc. of the data files are collected ahead of this loop
+      Iterator<Path> dataFiles = representation.getData().stream().filter(IPFile.class::isInstance)
+        .map(IPFileInterface::getPath).iterator();
+      try (FileAttributesCollector fileAttributes = new FileAttributesCollector(dataFiles)) {
+        for (IPFileInterface file : representation.getData()) {
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
 
-          dataFilePath = IPConstants.REPRESENTATIONS_FOLDER + representationId + IPConstants.ZIP_PATH_SEPARATOR
-            + dataFilePath;
-          ZIPUtils.addFileTypeFileToZip(zipEntries, file.getPath(), dataFilePath, fileType);
-        } else if (file instanceof IPFileShallow) {
-          IPFileShallow shallow = (IPFileShallow) file;
-          if (shallow.getFileLocation() != null) {
-            EARKMETSUtils.addDataFileToMETS(representationMETSWrapper, shallow);
+          if (file instanceof IPFile) {
+            String dataFilePath = IPConstants.DATA_FOLDER + ModelUtils.getFoldersFromList(file.getRelativeFolders())
+              + file.getFileName();
+            String zipPath = IPConstants.REPRESENTATIONS_FOLDER + representationId + IPConstants.ZIP_PATH_SEPARATOR
+              + dataFilePath;
+            FileAttributesCollector.FileAttributes attributes = fileAttributes.next();
+            if (representationMETSWrapper.getDataFileGroupSpool() != null) {
+              EARKMETSUtils.addDataFileToMETS(zipEntries, representationMETSWrapper, dataFilePath, file.getPath(),
+                zipPath, attributes);
+            } else {
+              FileType fileType = EARKMETSUtils.addDataFileToMETS(representationMETSWrapper, dataFilePath, zipPath,
+                attributes);
+              ZIPUtils.addFileTypeFileToZip(zipEntries, file.getPath(), zipPath, fileType);
+            }
+            setKnownChecksums(zipEntries, zipPath, file);
+          } else if (file instanceof IPFileShallow) {
+            IPFileShallow shallow = (IPFileShallow) file;
+            if (shallow.getFileLocation() != null) {
+              EARKMETSUtils.addDataFileToMETS(representationMETSWrapper, shallow);
+            }
           }
-        }
 
-        i++;
-        if (ip instanceof SIP) {
-          ((SIP) ip).notifySipBuildRepresentationProcessingCurrentStatus(i);
+          i++;
+          if (ip instanceof SIP) {
+            ((SIP) ip).notifySipBuildRepresentationProcessingCurrentStatus(i);
+          }
         }
       }
       if (ip instanceof SIP) {
@@ -272,6 +343,7 @@ public final class EARKUtils {
             + schemaFilePath;
         }
         ZIPUtils.addFileTypeFileToZip(zipEntries, schema.getPath(), schemaFilePath, fileType);
+        setKnownChecksums(zipEntries, schemaFilePath, schema);
       }
     }
   }
@@ -293,33 +365,54 @@ public final class EARKUtils {
             + documentationFilePath;
         }
         ZIPUtils.addFileTypeFileToZip(zipEntries, doc.getPath(), documentationFilePath, fileType);
+        setKnownChecksums(zipEntries, documentationFilePath, doc);
       }
     }
   }
 
+  /**
+   * Hands the checksums known for a file to its zip entry, so that the build
+   * uses or verifies them according to the IP {@link ChecksumMode}.
+   */
+  private static void setKnownChecksums(Map<String, ZipEntryInfo> zipEntries, String zipPath, IPFileInterface file) {
+    ZipEntryInfo entry = zipEntries.get(zipPath);
+    if (entry instanceof FileZipEntryInfo && !file.getKnownChecksums().isEmpty()) {
+      ((FileZipEntryInfo) entry).setKnownChecksums(file.getKnownChecksums());
+    }
+  }
+
   protected static void addDefaultSchemas(Logger logger, List<IPFileInterface> schemas, Path buildDir)
     throws InterruptedException {
     try {
       if (Thread.interrupted()) {
         throw new InterruptedException();
       }
-      Path earkCsipSchema = Utils.copyResourceFromClasspathToDir(EARKSIP.class, buildDir,
-        IPConstants.SCHEMA_EARK_CSIP_FILENAME, IPConstants.SCHEMA_EARK_CSIP_RELATIVE_PATH_FROM_RESOURCES);
-      schemas.add(new IPFile(earkCsipSchema, IPConstants.SCHEMA_EARK_CSIP_FILENAME));
-      Path earkSipSchema = Utils.copyResourceFromClasspathToDir(EARKSIP.class, buildDir,
-        IPConstants.SCHEMA_EARK_SIP_FILENAME, IPConstants.SCHEMA_EARK_SIP_RELATIVE_PATH_FROM_RESOURCES);
-      schemas.add(new IPFile(earkSipSchema, IPConstants.SCHEMA_EARK_SIP_FILENAME));
-      Path metsSchema = Utils.copyResourceFromClasspathToDir(EARKSIP.class, buildDir,
-        IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION, IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
-      schemas.add(new IPFile(metsSchema, IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION));
-      Path xlinkSchema = Utils.copyResourceFromClasspathToDir(EARKSIP.class, buildDir,
-        IPConstants.SCHEMA_XLINK_FILENAME, IPConstants.SCHEMA_XLINK_RELATIVE_PATH_FROM_RESOURCES);
-      schemas.add(new IPFile(xlinkSchema, IPConstants.SCHEMA_XLINK_FILENAME));
+      addDefaultSchema(schemas, buildDir, IPConstants.SCHEMA_EARK_CSIP_FILENAME,
+        IPConstants.SCHEMA_EARK_CSIP_RELATIVE_PATH_FROM_RESOURCES);
+      addDefaultSchema(schemas, buildDir, IPConstants.SCHEMA_EARK_SIP_FILENAME,
+        IPConstants.SCHEMA_EARK_SIP_RELATIVE_PATH_FROM_RESOURCES);
+      addDefaultSchema(schemas, buildDir, IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION,
+        IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
+      addDefaultSchema(schemas, buildDir, IPConstants.SCHEMA_XLINK_FILENAME,
+        IPConstants.SCHEMA_XLINK_RELATIVE_PATH_FROM_RESOURCES);
     } catch (IOException e) {
       logger.error("Error while trying to add default schemas", e);
     }
   }
 
+  private static void addDefaultSchema(List<IPFileInterface> schemas, Path buildDir, String schemaFileName,
+    String schemaResourcePath) throws IOException, InterruptedException {
+    // a parsed IP (e.g. one being updated) already has the default schemas
+    for (IPFileInterface schema : schemas) {
+      if (schemaFileName.equals(schema.getFileName()) && schema.getRelativeFolders().isEmpty()) {
+        return;
+      }
+    }
+    Path schemaPath = Utils.copyResourceFromClasspathToDir(EARKSIP.class, buildDir, schemaFileName,
+      schemaResourcePath);
+    schemas.add(new IPFile(schemaPath, schemaFileName));
+  }
+
   protected static void addSubmissionsToZipAndMETS(final Map<String, ZipEntryInfo> zipEntries,
     final MetsWrapper metsWrapper, final List<IPFileInterface> submissions) throws IPException, InterruptedException {
     if (submissions != null && !submissions.isEmpty()) {
@@ -332,6 +425,7 @@ public final class EARKUtils {
         final FileType fileType = EARKMETSUtils.addSubmissionFileToMETS(metsWrapper, submissionFilePath,
           submission.getPath());
         ZIPUtils.addFileTypeFileToZip(zipEntries, submission.getPath(), submissionFilePath, fileType);
+        setKnownChecksums(zipEntries, submissionFilePath, submission);
       }
     }
   }
@@ -339,10 +433,13 @@ public final class EARKUtils {
   protected static MetsWrapper processMainMets(IPInterface ip, Path ipPath) {
     Path mainMETSFile = ipPath.resolve(IPConstants.METS_FILE);
     Mets mainMets = null;
+    // as in the representation METS, data files are left out and read when
+    // needed
+    Set<String> streamedFileGroupIds = new HashSet<>();
     if (Files.exists(mainMETSFile)) {
       ValidationUtils.addInfo(ip.getValidationReport(), ValidationConstants.MAIN_METS_FILE_FOUND, ipPath, mainMETSFile);
       try {
-        mainMets = METSUtils.instantiateMETSFromFile(mainMETSFile);
+        mainMets = METSStreamReader.readWithoutDataFiles(mainMETSFile, streamedFileGroupIds);
         ip.setIds(Arrays.asList(mainMets.getOBJID().split(" ")));
         ip.setCreateDate(mainMets.getMetsHdr().getCREATEDATE());
         ip.setModificationDate(mainMets.getMetsHdr().getLASTMODDATE());
@@ -360,7 +457,11 @@ public final class EARKUtils {
       ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.MAIN_METS_FILE_NOT_FOUND,
         ValidationEntry.LEVEL.ERROR, ip.getBasePath(), mainMETSFile);
     }
-    return new MetsWrapper(mainMets, mainMETSFile);
+    MetsWrapper metsWrapper = new MetsWrapper(mainMets, mainMETSFile);
+    if (mainMets != null) {
+      metsWrapper.getStreamedFileGroupIds().addAll(streamedFileGroupIds);
+    }
+    return metsWrapper;
   }
 
   protected static void setIPContentType(Mets mets, IPInterface ip) throws ParseException {
@@ -406,11 +507,14 @@ public final class EARKUtils {
   protected static MetsWrapper processRepresentationMets(IPInterface ip, Path representationMetsFile,
     IPRepresentation representation) {
     Mets representationMets = null;
+    // data files are not unmarshalled with the rest of the METS, as they can be
+    // too many to fit in memory, and are read one at a time afterwards
+    Set<String> streamedFileGroupIds = new HashSet<>();
     if (Files.exists(representationMetsFile)) {
       ValidationUtils.addInfo(ip.getValidationReport(), ValidationConstants.REPRESENTATION_METS_FILE_FOUND,
         ip.getBasePath(), representationMetsFile);
       try {
-        representationMets = METSUtils.instantiateMETSFromFile(representationMetsFile);
+        representationMets = METSStreamReader.readWithoutDataFiles(representationMetsFile, streamedFileGroupIds);
         setRepresentationContentType(representationMets, representation);
         ValidationUtils.addInfo(ip.getValidationReport(), ValidationConstants.REPRESENTATION_METS_IS_VALID,
           ip.getBasePath(), representationMetsFile);
@@ -423,7 +527,11 @@ public final class EARKUtils {
       ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.REPRESENTATION_METS_FILE_NOT_FOUND,
         ValidationEntry.LEVEL.ERROR, ip.getBasePath(), representationMetsFile);
     }
-    return new MetsWrapper(representationMets, representationMetsFile);
+    MetsWrapper representationMetsWrapper = new MetsWrapper(representationMets, representationMetsFile);
+    if (representationMets != null) {
+      representationMetsWrapper.getStreamedFileGroupIds().addAll(streamedFileGroupIds);
+    }
+    return representationMetsWrapper;
   }
 
   // FIXME review this
@@ -442,66 +550,172 @@ public final class EARKUtils {
 
   protected static IPInterface processRepresentations(MetsWrapper metsWrapper, IPInterface ip, Logger logger)
     throws IPException {
+    return processRepresentations(metsWrapper, ip, logger, false);
+  }
+
+  /**
+   * @param forUpdate
+   *          if {@code true}, the checksums of the representation files are not
+   *          verified and each representation keeps a reference to its METS, so
+   *          that it is carried over unchanged if not modified before the IP is
+   *          built again.
+   */
+  protected static IPInterface processRepresentations(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
+    boolean forUpdate) throws IPException {
+    return processRepresentations(metsWrapper, ip, logger, forUpdate, Runnable::run);
+  }
+
+  /**
+   * Parses the representations, each on the given {@link Executor}. Every
+   * representation is parsed into a {@link ParsedRepresentation} of its own,
+   * which are added to the IP (representation, validation entries, schemas and
+   * documentation) in METS order, so the result does not depend on how the
+   * executor schedules them. The representation METS files are read with the
+   * {@link METSBinding}, {@link org.roda_project.commons_ip2.utils.IDGenerator}
+   * and fixed time of the calling thread.
+   *
+   * @param forUpdate
+   *          see {@link #processRepresentations(MetsWrapper, IPInterface, Logger, boolean)}.
+   * @param executor
+   *          the {@link Executor} where representations are parsed.
+   */
+  protected static IPInterface processRepresentations(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
+    boolean forUpdate, Executor executor) throws IPException {
 
     if (metsWrapper.getMainDiv() != null && metsWrapper.getMainDiv().getDiv() != null) {
+      final List<CompletableFuture<ParsedRepresentation>> futures = new ArrayList<>();
+      final METSBinding metsBinding = METSUtils.getMETSBinding();
       for (DivType div : metsWrapper.getMainDiv().getDiv()) {
         if (div.getLABEL().startsWith(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL)) {
           if (div.getMptr() != null && !div.getMptr().isEmpty()) {
-            // we can assume one and only one mets for each representation div
-            Mptr mptr = div.getMptr().get(0);
-            String href = Utils.extractedRelativePathFromHref(mptr.getHref());
-            Path metsFilePath = ip.getBasePath().resolve(href);
-            IPRepresentation representation = new IPRepresentation(
-              div.getLABEL().replaceFirst(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/", ""));
-            MetsWrapper representationMetsWrapper = processRepresentationMets(ip, metsFilePath, representation);
+            final Callable<ParsedRepresentation> task = Utils
+              .withThreadSettings(() -> processRepresentation(ip.getBasePath(), div, logger, forUpdate));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+              METSBinding previousMETSBinding = METSUtils.setMETSBinding(metsBinding);
+              try {
+                return task.call();
+              } catch (RuntimeException e) {
+                throw e;
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              } finally {
+                METSUtils.setMETSBinding(previousMETSBinding);
+              }
+            }, executor));
+          }
+        }
+      }
+
+      for (CompletableFuture<ParsedRepresentation> future : futures) {
+        final ParsedRepresentation parsed;
+        try {
+          parsed = future.join();
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof IPException) {
+            throw (IPException) e.getCause();
+          }
+          throw e;
+        }
+        parsed.addTo(ip);
+      }
+
+      // post-process validations
+      if (ip.getRepresentations().isEmpty()) {
+        ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.MAIN_METS_NO_REPRESENTATIONS_FOUND,
+          ValidationEntry.LEVEL.WARN, metsWrapper.getMainDiv(), ip.getBasePath(), metsWrapper.getMetsPath());
+      }
+    }
 
-            if (representationMetsWrapper.getMets() != null) {
-              Path representationBasePath = metsFilePath.getParent();
+    return ip;
 
-              StructMapType representationStructMap = getEARKStructMap(representationMetsWrapper, ip, false);
-              if (representationStructMap != null) {
+  }
 
-                preProcessStructMap(representationMetsWrapper, representationStructMap);
-                representation.setStatus(new RepresentationStatus(representationMetsWrapper.getMainDiv().getTYPE()));
-                ip.addRepresentation(representation);
+  private static ParsedRepresentation processRepresentation(Path ipBasePath, DivType div, Logger logger,
+    boolean forUpdate) throws IPException {
+    final boolean verifyChecksums = !forUpdate;
+    final ParsedRepresentation parsed = new ParsedRepresentation(ipBasePath);
+    final IPInterface ip = parsed.scratch;
 
-                // process representation agents
-                processRepresentationAgents(representationMetsWrapper, representation);
+    // we can assume one and only one mets for each representation div
+    Mptr mptr = div.getMptr().get(0);
+    String href = Utils.extractedRelativePathFromHref(mptr.getHref());
+    Path metsFilePath = ip.getBasePath().resolve(href);
+    IPRepresentation representation = new IPRepresentation(
+      div.getLABEL().replaceFirst(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/", ""));
+    MetsWrapper representationMetsWrapper = processRepresentationMets(ip, metsFilePath, representation);
 
-                // process files
-                processRepresentationFiles(ip, representationMetsWrapper, representation, representationBasePath);
+    if (representationMetsWrapper.getMets() != null) {
+      Path representationBasePath = metsFilePath.getParent();
 
-                // process descriptive metadata
-                processDescriptiveMetadata(representationMetsWrapper, ip, logger, representation,
-                  representationBasePath);
+      StructMapType representationStructMap = getEARKStructMap(representationMetsWrapper, ip, false);
+      if (representationStructMap != null) {
 
-                // process preservation metadata
-                processPreservationMetadata(representationMetsWrapper, ip, logger, representation,
-                  representationBasePath);
+        preProcessStructMap(representationMetsWrapper, representationStructMap);
+        representation.setStatus(new RepresentationStatus(representationMetsWrapper.getMainDiv().getTYPE()));
+        parsed.representation = representation;
 
-                // process other metadata
-                processOtherMetadata(representationMetsWrapper, ip, logger, representation, representationBasePath);
+        // process representation agents
+        processRepresentationAgents(representationMetsWrapper, representation);
 
-                // process schemas
-                processSchemasMetadata(representationMetsWrapper, ip, representationBasePath);
+        // process files
+        processRepresentationFiles(ip, representationMetsWrapper, representation, representationBasePath,
+          verifyChecksums);
 
-                // process documentation
-                processDocumentationMetadata(representationMetsWrapper, ip, representationBasePath);
-              }
-            }
-          }
-        }
-      }
+        // process descriptive metadata
+        processDescriptiveMetadata(representationMetsWrapper, ip, logger, representation, representationBasePath,
+          verifyChecksums);
 
-      // post-process validations
-      if (ip.getRepresentations().isEmpty()) {
-        ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.MAIN_METS_NO_REPRESENTATIONS_FOUND,
-          ValidationEntry.LEVEL.WARN, metsWrapper.getMainDiv(), ip.getBasePath(), metsWrapper.getMetsPath());
+        // process preservation metadata
+        processPreservationMetadata(representationMetsWrapper, ip, logger, representation, representationBasePath,
+          verifyChecksums);
+
+        // process other metadata
+        processOtherMetadata(representationMetsWrapper, ip, logger, representation, representationBasePath,
+          verifyChecksums);
+
+        // process schemas
+        processSchemasMetadata(representationMetsWrapper, ip, representationBasePath, verifyChecksums);
+
+        // process documentation
+        processDocumentationMetadata(representationMetsWrapper, ip, representationBasePath, verifyChecksums);
+
+        if (forUpdate) {
+          representation.setSourceMetsPath(metsFilePath);
+        }
       }
     }
+    return parsed;
+  }
 
-    return ip;
+  /**
+   * What parsing a representation adds to the IP. The representation is parsed
+   * against a scratch IP (with the same base path) that collects the validation
+   * entries, schemas and documentation, so that representations can be parsed
+   * concurrently and then added to the IP one at a time.
+   */
+  private static final class ParsedRepresentation {
+    private final IPInterface scratch;
+    private IPRepresentation representation;
+
+    private ParsedRepresentation(Path ipBasePath) {
+      scratch = new EARKSIP();
+      scratch.setBasePath(ipBasePath);
+    }
 
+    private void addTo(IPInterface ip) throws IPException {
+      if (representation != null) {
+        ip.addRepresentation(representation);
+      }
+      for (ValidationEntry entry : scratch.getValidationReport().getValidationEntries()) {
+        ip.getValidationReport().addEntry(entry);
+      }
+      for (IPFileInterface schema : scratch.getSchemas()) {
+        ip.addSchema(schema);
+      }
+      for (IPFileInterface documentation : scratch.getDocumentation()) {
+        ip.addDocumentation(documentation);
+      }
+    }
   }
 
   protected static StructMapType getEARKStructMap(MetsWrapper metsWrapper, IPInterface ip, boolean mainMets) {
@@ -552,27 +766,43 @@ public final class EARKUtils {
 
   protected static IPInterface processDescriptiveMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
     IPRepresentation representation, Path basePath) throws IPException {
+    return processDescriptiveMetadata(metsWrapper, ip, logger, representation, basePath, true);
+  }
+
+  protected static IPInterface processDescriptiveMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
+    IPRepresentation representation, Path basePath, boolean verifyChecksums) throws IPException {
 
     return processMetadata(ip, logger, metsWrapper, representation, metsWrapper.getMetadataDiv(),
-      IPConstants.DESCRIPTIVE, basePath);
+      IPConstants.DESCRIPTIVE, basePath, verifyChecksums);
   }
 
   protected static IPInterface processOtherMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
     IPRepresentation representation, Path basePath) throws IPException {
+    return processOtherMetadata(metsWrapper, ip, logger, representation, basePath, true);
+  }
+
+  protected static IPInterface processOtherMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
+    IPRepresentation representation, Path basePath, boolean verifyChecksums) throws IPException {
 
     return processMetadata(ip, logger, metsWrapper, representation, metsWrapper.getOtherMetadataDiv(),
-      IPConstants.OTHER, basePath);
+      IPConstants.OTHER, basePath, verifyChecksums);
   }
 
   protected static IPInterface processPreservationMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
     IPRepresentation representation, Path basePath) throws IPException {
+    return processPreservationMetadata(metsWrapper, ip, logger, representation, basePath, true);
+  }
+
+  protected static IPInterface processPreservationMetadata(MetsWrapper metsWrapper, IPInterface ip, Logger logger,
+    IPRepresentation representation, Path basePath, boolean verifyChecksums) throws IPException {
 
     return processMetadata(ip, logger, metsWrapper, representation, metsWrapper.getMetadataDiv(),
-      IPConstants.PRESERVATION, basePath);
+      IPConstants.PRESERVATION, basePath, verifyChecksums);
   }
 
   protected static IPInterface processMetadata(IPInterface ip, Logger logger, MetsWrapper representationMetsWrapper,
-    IPRepresentation representation, DivType div, String metadataType, Path basePath) throws IPException {
+    IPRepresentation representation, DivType div, String metadataType, Path basePath, boolean verifyChecksums)
+    throws IPException {
     if (div != null) {
       List<Object> objects = null;
       if (IPConstants.DESCRIPTIVE.equals(metadataType) || IPConstants.OTHER.equals(metadataType)) {
@@ -592,7 +822,8 @@ public final class EARKUtils {
                 List<String> fileRelativeFolders = Utils
                   .getFileRelativeFolders(basePath.resolve(IPConstants.METADATA).resolve(metadataType), filePath);
 
-                processMetadataFile(ip, logger, representation, metadataType, mdRef, filePath, fileRelativeFolders);
+                processMetadataFile(ip, logger, representation, metadataType, mdRef, filePath, fileRelativeFolders,
+                  verifyChecksums);
               } else {
                 ValidationUtils.addIssue(ip.getValidationReport(),
                   ValidationConstants.getMetadataFileNotFoundString(metadataType), ValidationEntry.LEVEL.ERROR,
@@ -608,8 +839,10 @@ public final class EARKUtils {
   }
 
   protected static void processMetadataFile(IPInterface ip, Logger logger, IPRepresentation representation,
-    String metadataType, MdRef mdRef, Path filePath, List<String> fileRelativeFolders) throws IPException {
-    Optional<IPFileInterface> metadataFile = validateMetadataFile(ip, filePath, mdRef, fileRelativeFolders);
+    String metadataType, MdRef mdRef, Path filePath, List<String> fileRelativeFolders, boolean verifyChecksums)
+    throws IPException {
+    Optional<IPFileInterface> metadataFile = validateMetadataFile(ip, filePath, mdRef, fileRelativeFolders,
+      verifyChecksums);
     if (metadataFile.isPresent()) {
       ValidationUtils.addInfo(ip.getValidationReport(),
         ValidationConstants.getMetadataFileFoundWithMatchingChecksumString(metadataType), ip.getBasePath(), filePath);
@@ -660,19 +893,42 @@ public final class EARKUtils {
   }
 
   protected static Optional<IPFileInterface> validateFile(IPInterface ip, Path filePath, FileType fileType,
-    List<String> fileRelativeFolders) {
-    return Utils.validateFile(ip, filePath, fileRelativeFolders, fileType.getCHECKSUM(), fileType.getCHECKSUMTYPE(),
-      fileType.getID());
+    List<String> fileRelativeFolders, boolean verifyChecksum) {
+    if (!verifyChecksum) {
+      return withKnownChecksum(Optional.of(new IPFile(filePath, fileRelativeFolders)
+        .setChecksumAndAlgorithm(fileType.getCHECKSUM(), fileType.getCHECKSUMTYPE())));
+    }
+    return withKnownChecksum(Utils.validateFile(ip, filePath, fileRelativeFolders, fileType.getCHECKSUM(),
+      fileType.getCHECKSUMTYPE(), fileType.getID()));
   }
 
   protected static Optional<IPFileInterface> validateMetadataFile(IPInterface ip, Path filePath, MdRef mdRef,
-    List<String> fileRelativeFolders) {
-    return Utils.validateFile(ip, filePath, fileRelativeFolders, mdRef.getCHECKSUM(), mdRef.getCHECKSUMTYPE(),
-      mdRef.getID());
+    List<String> fileRelativeFolders, boolean verifyChecksum) {
+    if (!verifyChecksum) {
+      return withKnownChecksum(Optional.of(new IPFile(filePath, fileRelativeFolders)
+        .setChecksumAndAlgorithm(mdRef.getCHECKSUM(), mdRef.getCHECKSUMTYPE())));
+    }
+    return withKnownChecksum(Utils.validateFile(ip, filePath, fileRelativeFolders, mdRef.getCHECKSUM(),
+      mdRef.getCHECKSUMTYPE(), mdRef.getID()));
   }
 
-  protected static IPInterface processFile(IPInterface ip, DivType div, String folder, Path basePath)
-    throws IPException {
+  /**
+   * Keeps the checksum recorded in the METS (verified, unless parsing for
+   * update) as known, so that building the IP again while trusting the known
+   * checksums (see {@link ChecksumMode#TRUST}) does not read the file.
+   */
+  private static Optional<IPFileInterface> withKnownChecksum(Optional<IPFileInterface> file) {
+    if (file.isPresent() && file.get() instanceof IPFile) {
+      IPFile ipFile = (IPFile) file.get();
+      if (StringUtils.isNoneBlank(ipFile.getChecksum(), ipFile.getChecksumAlgorithm())) {
+        ipFile.addKnownChecksum(ipFile.getChecksumAlgorithm(), ipFile.getChecksum());
+      }
+    }
+    return file;
+  }
+
+  protected static IPInterface processFile(IPInterface ip, DivType div, String folder, Path basePath,
+    boolean verifyChecksums) throws IPException {
     if (div != null && div.getFptr() != null) {
       for (Fptr fptr : div.getFptr()) {
         Object object = fptr.getFILEID();
@@ -686,7 +942,8 @@ public final class EARKUtils {
 
               if (Files.exists(filePath)) {
                 List<String> fileRelativeFolders = Utils.getFileRelativeFolders(basePath.resolve(folder), filePath);
-                Optional<IPFileInterface> file = validateFile(ip, filePath, fileType, fileRelativeFolders);
+                Optional<IPFileInterface> file = validateFile(ip, filePath, fileType, fileRelativeFolders,
+                  verifyChecksums);
 
                 if (file.isPresent()) {
                   if (IPConstants.SCHEMAS.equalsIgnoreCase(folder)) {
@@ -731,50 +988,18 @@ public final class EARKUtils {
   }
 
   protected static void processRepresentationFiles(IPInterface ip, MetsWrapper representationMetsWrapper,
-    IPRepresentation representation, Path representationBasePath) throws IPException {
+    IPRepresentation representation, Path representationBasePath, boolean verifyChecksums) throws IPException {
 
     if (representationMetsWrapper.getDataDiv() != null && representationMetsWrapper.getDataDiv().getFptr() != null) {
+      // the files of the file groups left out of the METS are read afterwards,
+      // all in one pass over the METS file
+      final Map<String, METSStreamReader.FileConsumer> streamedFiles = new HashMap<>();
       for (Fptr fptr : representationMetsWrapper.getDataDiv().getFptr()) {
         Object object = fptr.getFILEID();
         if (object instanceof FileGrpType) {
-          FileGrpType fileGrp = ((FileGrpType) object);
-          for (FileType fileType : fileGrp.getFile()) {
-            if (fileType != null && fileType.getFLocat() != null) {
-              FLocat fLocat = fileType.getFLocat().get(0);
-              String href = Utils.extractedRelativePathFromHref(fLocat.getHref());
-              Path filePath = representationBasePath.resolve(href);
-
-              // Verify that when protocol is file:/// the file is inside the SIP or not
-              if (filePath.startsWith(representationBasePath)) {
-                // treat as a SIP (generic behaviour)
-                if (Files.exists(filePath)) {
-                  List<String> fileRelativeFolders = Utils
-                    .getFileRelativeFolders(representationBasePath.resolve(IPConstants.DATA), filePath);
-                  Optional<IPFileInterface> file = validateFile(ip, filePath, fileType, fileRelativeFolders);
-
-                  if (file.isPresent()) {
-                    representation.addFile(file.get());
-                    ValidationUtils.addInfo(ip.getValidationReport(),
-                      ValidationConstants.REPRESENTATION_FILE_FOUND_WITH_MATCHING_CHECKSUMS, ip.getBasePath(),
-                      filePath);
-                  }
-                } else {
-                  // treat as a SIP shallow
-                  Optional<IPFileInterface> ipFileInterface = validateFileShallow(ip, fLocat, filePath, fileType,
-                    Collections.emptyList());
-                  ipFileInterface.ifPresent(representation::addFile);
-                }
-              } else {
-                // treat as a SIP shallow
-                Optional<IPFileInterface> ipFileInterface = validateFileShallow(ip, fLocat, filePath, fileType,
-                  Collections.emptyList());
-                ipFileInterface.ifPresent(representation::addFile);
-              }
-            } else {
-              ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.REPRESENTATION_FILE_HAS_NO_FLOCAT,
-                ValidationEntry.LEVEL.ERROR, fileType, ip.getBasePath(), representationMetsWrapper.getMetsPath());
-            }
-          }
+          forEachFile(representationMetsWrapper, (FileGrpType) object, streamedFiles,
+            fileType -> processRepresentationFile(ip, representationMetsWrapper, representation,
+              representationBasePath, fileType, Collections.emptyList(), verifyChecksums));
         }
       }
 
@@ -782,7 +1007,15 @@ public final class EARKUtils {
         final List<String> subDivRelativePath = new ArrayList<>();
         subDivRelativePath.add(subDiv.getLABEL());
         processRepresentationFilesSubDivs(ip, representationMetsWrapper, representation, representationBasePath, subDiv,
-                subDivRelativePath);
+          subDivRelativePath, verifyChecksums, streamedFiles);
+      }
+
+      if (!streamedFiles.isEmpty()) {
+        try {
+          METSStreamReader.readFiles(representationMetsWrapper.getMetsPath(), streamedFiles);
+        } catch (IOException e) {
+          throw new IPException("Error reading files from METS " + representationMetsWrapper.getMetsPath(), e);
+        }
       }
 
       // post-process validations
@@ -795,52 +1028,24 @@ public final class EARKUtils {
   }
 
   protected static void processRepresentationFilesSubDivs(IPInterface ip, MetsWrapper representationMetsWrapper,
-    IPRepresentation representation, Path representationBasePath, DivType div, List<String> relativePath)
-    throws IPException {
+    IPRepresentation representation, Path representationBasePath, DivType div, List<String> relativePath,
+    boolean verifyChecksums) throws IPException {
+    processRepresentationFilesSubDivs(ip, representationMetsWrapper, representation, representationBasePath, div,
+      relativePath, verifyChecksums, null);
+  }
+
+  private static void processRepresentationFilesSubDivs(IPInterface ip, MetsWrapper representationMetsWrapper,
+    IPRepresentation representation, Path representationBasePath, DivType div, List<String> relativePath,
+    boolean verifyChecksums, Map<String, METSStreamReader.FileConsumer> streamedFiles) throws IPException {
 
     final List<Fptr> fptrs = div.getFptr();
     if (fptrs != null && !fptrs.isEmpty()) {
       for (Fptr fptr : fptrs) {
         final Object object = fptr.getFILEID();
         if (object instanceof FileGrpType) {
-          final FileGrpType fileGrp = (FileGrpType) object;
-          for (FileType fileType : fileGrp.getFile()) {
-            if (fileType != null && fileType.getFLocat() != null) {
-              final FLocat fLocat = fileType.getFLocat().get(0);
-              final String href = Utils.extractedRelativePathFromHref(fLocat.getHref());
-              final Path filePath = representationBasePath.resolve(href);
-
-              // Verify that when protocol is file:/// the file is inside the SIP or not
-              if (filePath.startsWith(representationBasePath)) {
-                // treat as a SIP (generic behaviour)
-                if (Files.exists(filePath)) {
-                  final List<String> fileRelativeFolders = Utils
-                    .getFileRelativeFolders(representationBasePath.resolve(IPConstants.DATA), filePath);
-                  final Optional<IPFileInterface> file = validateFile(ip, filePath, fileType, fileRelativeFolders);
-
-                  if (file.isPresent()) {
-                    representation.addFile(file.get());
-                    ValidationUtils.addInfo(ip.getValidationReport(),
-                      ValidationConstants.REPRESENTATION_FILE_FOUND_WITH_MATCHING_CHECKSUMS, ip.getBasePath(),
-                      filePath);
-                  }
-                } else {
-                  // treat as a SIP shallow
-                  final Optional<IPFileInterface> ipFileInterface = validateFileShallow(ip, fLocat, filePath, fileType,
-                    relativePath);
-                  ipFileInterface.ifPresent(representation::addFile);
-                }
-              } else {
-                // treat as a SIP shallow
-                final Optional<IPFileInterface> ipFileInterface = validateFileShallow(ip, fLocat, filePath, fileType,
-                  relativePath);
-                ipFileInterface.ifPresent(representation::addFile);
-              }
-            } else {
-              ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.REPRESENTATION_FILE_HAS_NO_FLOCAT,
-                ValidationEntry.LEVEL.ERROR, fileType, ip.getBasePath(), representationMetsWrapper.getMetsPath());
-            }
-          }
+          forEachFile(representationMetsWrapper, (FileGrpType) object, streamedFiles,
+            fileType -> processRepresentationFile(ip, representationMetsWrapper, representation,
+              representationBasePath, fileType, relativePath, verifyChecksums));
         }
       }
     } else if (div.getDiv().isEmpty()) {
@@ -853,9 +1058,73 @@ public final class EARKUtils {
       final List<String> subDivRelativePath = new ArrayList<>(relativePath);
       subDivRelativePath.add(subDiv.getLABEL());
       processRepresentationFilesSubDivs(ip, representationMetsWrapper, representation, representationBasePath, subDiv,
-        subDivRelativePath);
+        subDivRelativePath, verifyChecksums, streamedFiles);
+    }
+
+  }
+
+  /**
+   * Iterates the files of a file group or, when they were left out when the
+   * METS was read (see {@link MetsWrapper#getStreamedFileGroupIds()}), adds the
+   * consumer to the ones of the file group, to be called when the files are
+   * read from the METS file (or reads them right away if streamedFiles is
+   * {@code null}).
+   */
+  private static void forEachFile(MetsWrapper metsWrapper, FileGrpType fileGrp,
+    Map<String, METSStreamReader.FileConsumer> streamedFiles, METSStreamReader.FileConsumer consumer)
+    throws IPException {
+    if (metsWrapper.getStreamedFileGroupIds().contains(fileGrp.getID())) {
+      if (streamedFiles != null) {
+        // a file group referenced by several divs gets all their consumers
+        streamedFiles.merge(fileGrp.getID(), consumer, (first, second) -> fileType -> {
+          first.accept(fileType);
+          second.accept(fileType);
+        });
+        return;
+      }
+      try {
+        METSStreamReader.readFiles(metsWrapper.getMetsPath(), fileGrp.getID(), consumer);
+      } catch (IOException e) {
+        throw new IPException("Error reading files from METS " + metsWrapper.getMetsPath(), e);
+      }
+    } else {
+      for (FileType fileType : fileGrp.getFile()) {
+        consumer.accept(fileType);
+      }
     }
+  }
 
+  private static void processRepresentationFile(IPInterface ip, MetsWrapper representationMetsWrapper,
+    IPRepresentation representation, Path representationBasePath, FileType fileType, List<String> relativePath,
+    boolean verifyChecksums) throws IPException {
+    if (fileType != null && fileType.getFLocat() != null) {
+      final FLocat fLocat = fileType.getFLocat().get(0);
+      final String href = Utils.extractedRelativePathFromHref(fLocat.getHref());
+      final Path filePath = representationBasePath.resolve(href);
+
+      // Verify that when protocol is file:/// the file is inside the SIP or not
+      if (filePath.startsWith(representationBasePath) && Files.exists(filePath)) {
+        // treat as a SIP (generic behaviour)
+        final List<String> fileRelativeFolders = Utils
+          .getFileRelativeFolders(representationBasePath.resolve(IPConstants.DATA), filePath);
+        final Optional<IPFileInterface> file = validateFile(ip, filePath, fileType, fileRelativeFolders,
+          verifyChecksums);
+
+        if (file.isPresent()) {
+          representation.addFile(file.get());
+          ValidationUtils.addInfo(ip.getValidationReport(),
+            ValidationConstants.REPRESENTATION_FILE_FOUND_WITH_MATCHING_CHECKSUMS, ip.getBasePath(), filePath);
+        }
+      } else {
+        // treat as a SIP shallow
+        final Optional<IPFileInterface> ipFileInterface = validateFileShallow(ip, fLocat, filePath, fileType,
+          relativePath);
+        ipFileInterface.ifPresent(representation::addFile);
+      }
+    } else {
+      ValidationUtils.addIssue(ip.getValidationReport(), ValidationConstants.REPRESENTATION_FILE_HAS_NO_FLOCAT,
+        ValidationEntry.LEVEL.ERROR, fileType, ip.getBasePath(), representationMetsWrapper.getMetsPath());
+    }
   }
 
   private static Optional<IPFileInterface> validateFileShallow(IPInterface ip, FLocat fLocat, Path filePath,
@@ -874,12 +1143,22 @@ public final class EARKUtils {
 
   protected static IPInterface processSchemasMetadata(MetsWrapper metsWrapper, IPInterface ip, Path basePath)
     throws IPException {
-    return processFile(ip, metsWrapper.getSchemasDiv(), IPConstants.SCHEMAS, basePath);
+    return processSchemasMetadata(metsWrapper, ip, basePath, true);
+  }
+
+  protected static IPInterface processSchemasMetadata(MetsWrapper metsWrapper, IPInterface ip, Path basePath,
+    boolean verifyChecksums) throws IPException {
+    return processFile(ip, metsWrapper.getSchemasDiv(), IPConstants.SCHEMAS, basePath, verifyChecksums);
   }
 
   protected static IPInterface processDocumentationMetadata(MetsWrapper metsWrapper, IPInterface ip, Path basePath)
     throws IPException {
-    return processFile(ip, metsWrapper.getDocumentationDiv(), IPConstants.DOCUMENTATION, basePath);
+    return processDocumentationMetadata(metsWrapper, ip, basePath, true);
+  }
+
+  protected static IPInterface processDocumentationMetadata(MetsWrapper metsWrapper, IPInterface ip, Path basePath,
+    boolean verifyChecksums) throws IPException {
+    return processFile(ip, metsWrapper.getDocumentationDiv(), IPConstants.DOCUMENTATION, basePath, verifyChecksums);
   }
 
   protected static IPInterface processAncestors(MetsWrapper metsWrapper, IPInterface ip) {
@@ -894,7 +1173,7 @@ public final class EARKUtils {
 
   protected static IPInterface processSubmissionMetadata(final MetsWrapper metsWrapper, final IPInterface ip,
     final Path basePath) throws IPException {
-    return processFile(ip, metsWrapper.getSubmissionsDiv(), IPConstants.SUBMISSION, basePath);
+    return processFile(ip, metsWrapper.getSubmissionsDiv(), IPConstants.SUBMISSION, basePath, true);
   }
 
 }
@@ -0,0 +1,407 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Package file written by a resumable build, with a journal (next to it, with
+ * the {@link #JOURNAL_EXTENSION}) of the entries already written: their offsets
+ * in the package, checksums and the size and modification time of their
+ * source.
+ *
+ * <p>
+ * Entries are journaled at checkpoints, every {@link #CHECKPOINT_ENTRIES}
+ * entries or {@link #CHECKPOINT_BYTES} bytes, only after the package is forced
+ * to disk, so the journal never refers to content that may be lost in a crash.
+ * When the build runs again, the journaled entries that are still the same (in
+ * the same order, from unchanged sources) are kept, the package is truncated
+ * after the last of them and the build carries on from there. The journal is
+ * deleted when the package is complete.
+ * </p>
+ */
+final class BuildJournal implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BuildJournal.class);
+
+  static final String JOURNAL_EXTENSION = ".journal";
+  private static final int MAGIC = 0x43495031;
+  private static final int CHECKPOINT_ENTRIES = 256;
+  private static final long CHECKPOINT_BYTES = 64L * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_RECORD_SIZE = 1024 * 1024;
+  private static final long GENERATED = -1;
+
+  private final Path packagePath;
+  private final Path journalPath;
+  private final List<Record> records;
+  private final List<Record> pendingRecords = new ArrayList<>();
+  private int keptEntries;
+  private FileChannel packageChannel;
+  private OutputStream packageBuffer;
+  private CountingOutputStream packageOutput;
+  private long start;
+  private long pendingBytes;
+  private DataOutputStream journalOutput;
+  private FileChannel journalChannel;
+
+  private BuildJournal(Path packagePath, List<Record> records) {
+    this.packagePath = packagePath;
+    this.journalPath = packagePath.resolveSibling(packagePath.getFileName() + JOURNAL_EXTENSION);
+    this.records = records;
+  }
+
+  /**
+   * Opens the package file, keeping the entries of the journal of a previous
+   * build that can be reused (see {@link #getKeptEntries()}) and truncating it
+   * after them.
+   *
+   * @param entryNames
+   *          the names of the entries, in the order they are written.
+   */
+  static BuildJournal open(Path packagePath, List<String> entryNames, List<ZipEntryInfo> entries)
+    throws IOException {
+    BuildJournal journal = new BuildJournal(packagePath, new ArrayList<>());
+    List<Record> previous = journal.readRecords();
+    long packageSize = Files.exists(packagePath) ? Files.size(packagePath) : 0;
+
+    long end = 0;
+    for (Record record : previous) {
+      int index = journal.records.size();
+      if (index >= entries.size() || !record.name.equals(entryNames.get(index)) || record.offset != end
+        || record.end > packageSize || !record.isSourceOf(entries.get(index))) {
+        break;
+      }
+      journal.records.add(record);
+      end = record.end;
+    }
+    journal.keptEntries = journal.records.size();
+    if (!previous.isEmpty()) {
+      LOGGER.info("Resuming build of {} after {} of {} journaled entries ({} bytes)", packagePath,
+        journal.keptEntries, previous.size(), end);
+    }
+
+    journal.packageChannel = FileChannel.open(packagePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    journal.packageChannel.truncate(end);
+    journal.packageChannel.position(end);
+    journal.start = end;
+    journal.packageBuffer = new BufferedOutputStream(Channels.newOutputStream(journal.packageChannel), BUFFER_SIZE);
+    journal.packageOutput = new CountingOutputStream(journal.packageBuffer);
+    journal.rewriteJournal();
+    return journal;
+  }
+
+  private List<Record> readRecords() throws IOException {
+    List<Record> previous = new ArrayList<>();
+    if (!Files.exists(journalPath)) {
+      return previous;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+      if (input.readInt() != MAGIC) {
+        LOGGER.warn("Ignoring {}, it is not a build journal", journalPath);
+        return previous;
+      }
+      while (true) {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+          break;
+        }
+        byte[] content = new byte[length];
+        input.readFully(content);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if (crc.getValue() != input.readLong()) {
+          // torn write of the last checkpoint
+          break;
+        }
+        previous.add(new Record(new DataInputStream(new ByteArrayInputStream(content))));
+      }
+    } catch (EOFException e) {
+      // end of the journal (or of its last complete record)
+    }
+    return previous;
+  }
+
+  private void rewriteJournal() throws IOException {
+    Path newJournal = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(newJournal, StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      output.writeInt(MAGIC);
+      for (Record record : records) {
+        writeRecord(output, record);
+      }
+      output.flush();
+      channel.force(false);
+    }
+    Files.move(newJournal, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    journalChannel = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    journalOutput = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel)));
+  }
+
+  private static void writeRecord(DataOutputStream output, Record record) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    record.write(new DataOutputStream(content));
+    CRC32 crc = new CRC32();
+    crc.update(content.toByteArray());
+    output.writeInt(content.size());
+    content.writeTo(output);
+    output.writeLong(crc.getValue());
+  }
+
+  Path getPackagePath() {
+    return packagePath;
+  }
+
+  /**
+   * @return how many entries, from the first, are already in the package.
+   */
+  int getKeptEntries() {
+    return keptEntries;
+  }
+
+  /**
+   * @return the entries in the package (kept and written since).
+   */
+  List<Record> getRecords() {
+    return Collections.unmodifiableList(records);
+  }
+
+  /**
+   * @return the output to the package, positioned after the kept entries (it
+   *         is not closed by closing it, only by {@link #finish()}).
+   */
+  OutputStream getOutput() {
+    return new CloseShieldOutputStream(packageOutput);
+  }
+
+  /**
+   * @return the position in the package of the next byte written to the
+   *         output.
+   */
+  long position() {
+    return start + packageOutput.getByteCount();
+  }
+
+  /**
+   * Journals an entry written to the package, at the next checkpoint.
+   */
+  void add(Record record) throws IOException {
+    records.add(record);
+    pendingRecords.add(record);
+    pendingBytes += record.end - record.offset;
+    if (pendingRecords.size() >= CHECKPOINT_ENTRIES || pendingBytes >= CHECKPOINT_BYTES) {
+      checkpoint();
+    }
+  }
+
+  private void checkpoint() throws IOException {
+    if (pendingRecords.isEmpty()) {
+      return;
+    }
+    packageBuffer.flush();
+    packageChannel.force(false);
+    for (Record record : pendingRecords) {
+      writeRecord(journalOutput, record);
+    }
+    journalOutput.flush();
+    journalChannel.force(false);
+    pendingRecords.clear();
+    pendingBytes = 0;
+  }
+
+  /**
+   * Discards what was written to the package from a position on (e.g. a
+   * trailer to be written again).
+   */
+  void truncate(long position) throws IOException {
+    packageBuffer.flush();
+    packageChannel.truncate(position);
+    packageChannel.position(position);
+    start = position;
+    packageOutput.resetByteCount();
+  }
+
+  /**
+   * Completes the package, deleting the journal.
+   */
+  void finish() throws IOException {
+    packageBuffer.flush();
+    packageChannel.force(false);
+    closeQuietly();
+    Files.deleteIfExists(journalPath);
+  }
+
+  /**
+   * Journals the entries completely written so far (if the build did not
+   * {@link #finish()}), so that the build can be resumed.
+   */
+  @Override
+  public void close() {
+    if (packageChannel.isOpen()) {
+      try {
+        checkpoint();
+      } catch (IOException e) {
+        LOGGER.warn("Error journaling the last entries written to {}", packagePath, e);
+      }
+      closeQuietly();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      packageBuffer.flush();
+    } catch (IOException e) {
+      LOGGER.debug("Error flushing {}", packagePath, e);
+    }
+    for (AutoCloseable closeable : new AutoCloseable[] {packageChannel, journalOutput, journalChannel}) {
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        LOGGER.debug("Error closing the build journal of {}", packagePath, e);
+      }
+    }
+  }
+
+  /**
+   * An entry written to the package.
+   */
+  static final class Record {
+    private final String name;
+    private final long offset;
+    private final long end;
+    private final long size;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final Map<String, String> checksums;
+    private final long crc;
+    private final long compressedSize;
+
+    /**
+     * @param offset
+     *          the position in the package where the entry starts.
+     * @param end
+     *          the position in the package after the entry.
+     * @param size
+     *          the size of the content of the entry.
+     * @param crc
+     *          the CRC-32 of the content (only for ZIP).
+     * @param compressedSize
+     *          the size of the content in the package (only for ZIP).
+     */
+    Record(String name, long offset, long end, ZipEntryInfo source, long size, Map<String, String> checksums,
+      long crc, long compressedSize) throws IOException {
+      this.name = name;
+      this.offset = offset;
+      this.end = end;
+      this.size = size;
+      // the METS files are generated by the build, their content is not known
+      // beforehand
+      this.sourceSize = source instanceof METSZipEntryInfo ? GENERATED : Files.size(source.getFilePath());
+      this.sourceModified = source instanceof METSZipEntryInfo ? GENERATED
+        : Files.getLastModifiedTime(source.getFilePath()).toMillis();
+      this.checksums = new LinkedHashMap<>(checksums);
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+    }
+
+    private Record(DataInputStream input) throws IOException {
+      name = input.readUTF();
+      offset = input.readLong();
+      end = input.readLong();
+      size = input.readLong();
+      sourceSize = input.readLong();
+      sourceModified = input.readLong();
+      crc = input.readLong();
+      compressedSize = input.readLong();
+      checksums = new LinkedHashMap<>();
+      int count = input.readInt();
+      for (int i = 0; i < count; i++) {
+        checksums.put(input.readUTF(), input.readUTF());
+      }
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+      output.writeUTF(name);
+      output.writeLong(offset);
+      output.writeLong(end);
+      output.writeLong(size);
+      output.writeLong(sourceSize);
+      output.writeLong(sourceModified);
+      output.writeLong(crc);
+      output.writeLong(compressedSize);
+      output.writeInt(checksums.size());
+      for (Map.Entry<String, String> checksum : checksums.entrySet()) {
+        output.writeUTF(checksum.getKey());
+        output.writeUTF(checksum.getValue());
+      }
+    }
+
+    private boolean isSourceOf(ZipEntryInfo entry) throws IOException {
+      if (sourceModified == GENERATED) {
+        return entry instanceof METSZipEntryInfo;
+      }
+      Path source = entry.getFilePath();
+      return !(entry instanceof METSZipEntryInfo) && Files.exists(source) && Files.size(source) == sourceSize
+        && Files.getLastModifiedTime(source).toMillis() == sourceModified;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    long getEnd() {
+      return end;
+    }
+
+    long getSize() {
+      return size;
+    }
+
+    Map<String, String> getChecksums() {
+      return checksums;
+    }
+
+    long getCrc() {
+      return crc;
+    }
+
+    long getCompressedSize() {
+      return compressedSize;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+
+/**
+ * {@link ZipEntryCompressionPolicy} that stores entries whose content is
+ * already compressed (images, audio/video, archives, office containers, ...)
+ * and deflates everything else. The decision is taken from the METS MIME type
+ * (when known) or the file extension and, optionally, from a deflate probe over
+ * a sample of the file beginning.
+ */
+public class ContentAwareZipEntryCompressionPolicy implements ZipEntryCompressionPolicy {
+  private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList("jp2", "j2k", "jpf", "jpx",
+    "jpm", "jpg", "jpeg", "png", "gif", "webp", "heic", "mp4", "m4v", "m4a", "mov", "mkv", "webm", "mp3", "aac", "ogg",
+    "oga", "ogv", "opus", "flac", "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar", "war", "docx", "xlsx",
+    "pptx", "odt", "ods", "odp", "epub"));
+  private static final Set<String> COMPRESSED_MIMETYPES = new HashSet<>(Arrays.asList("image/jp2", "image/jpx",
+    "image/jpm", "image/jpeg", "image/png", "image/gif", "image/webp", "image/heic", "video/mp4", "video/quicktime",
+    "video/x-matroska", "video/webm", "audio/mp4", "audio/mpeg", "audio/aac", "audio/ogg", "audio/flac",
+    "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-xz",
+    "application/x-7z-compressed", "application/vnd.rar", "application/zstd", "application/java-archive",
+    "application/epub+zip"));
+  private static final String[] COMPRESSED_MIMETYPE_PREFIXES = {"application/vnd.openxmlformats-officedocument.",
+    "application/vnd.oasis.opendocument."};
+
+  public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+  public static final double DEFAULT_MINIMUM_GAIN = 0.1;
+
+  private final boolean sampleContent;
+  private final int sampleSize;
+  private final double minimumGain;
+
+  /**
+   * Policy deciding only by MIME type and extension (no content is read).
+   */
+  public ContentAwareZipEntryCompressionPolicy() {
+    this(false, DEFAULT_SAMPLE_SIZE, DEFAULT_MINIMUM_GAIN);
+  }
+
+  /**
+   * @param sampleContent
+   *          if {@code true}, entries not recognized by MIME type or extension
+   *          are probed by deflating the first {@code sampleSize} bytes.
+   * @param sampleSize
+   *          number of bytes to probe.
+   * @param minimumGain
+   *          minimum fraction of saved bytes (e.g. 0.1 for 10%) the probe must
+   *          achieve for the entry to be deflated.
+   */
+  public ContentAwareZipEntryCompressionPolicy(boolean sampleContent, int sampleSize, double minimumGain) {
+    this.sampleContent = sampleContent;
+    this.sampleSize = sampleSize;
+    this.minimumGain = minimumGain;
+  }
+
+  @Override
+  public boolean shouldCompress(ZipEntryInfo entry) throws IOException {
+    if (isAlreadyCompressedType(entry)) {
+      return false;
+    }
+    return !sampleContent || sampleIsCompressible(entry);
+  }
+
+  private boolean isAlreadyCompressedType(ZipEntryInfo entry) {
+    String mimetype = null;
+    if (entry instanceof METSFileTypeZipEntryInfo) {
+      METSFileTypeZipEntryInfo fileTypeEntry = (METSFileTypeZipEntryInfo) entry;
+      if (fileTypeEntry.getMetsFileType() != null) {
+        mimetype = fileTypeEntry.getMetsFileType().getMIMETYPE();
+      }
+    } else if (entry instanceof METSSpooledFileZipEntryInfo) {
+      mimetype = ((METSSpooledFileZipEntryInfo) entry).getMimetype();
+    }
+
+    if (mimetype != null) {
+      mimetype = mimetype.toLowerCase(Locale.ENGLISH);
+      if (COMPRESSED_MIMETYPES.contains(mimetype)) {
+        return true;
+      }
+      for (String prefix : COMPRESSED_MIMETYPE_PREFIXES) {
+        if (mimetype.startsWith(prefix)) {
+          return true;
+        }
+      }
+    }
+
+    String extension = FilenameUtils.getExtension(entry.getName()).toLowerCase(Locale.ENGLISH);
+    return COMPRESSED_EXTENSIONS.contains(extension);
+  }
+
+  private boolean sampleIsCompressible(ZipEntryInfo entry) throws IOException {
+    byte[] sample = new byte[sampleSize];
+    int sampleLength;
+    try (InputStream inputStream = Files.newInputStream(entry.getFilePath())) {
+      sampleLength = IOUtils.read(inputStream, sample);
+    }
+    if (sampleLength == 0) {
+      return true;
+    }
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try {
+      deflater.setInput(sample, 0, sampleLength);
+      deflater.finish();
+      byte[] output = new byte[sampleLength];
+      long compressedLength = 0;
+      while (!deflater.finished() && compressedLength < sampleLength) {
+        compressedLength += deflater.deflate(output);
+      }
+      return compressedLength <= sampleLength * (1 - minimumGain);
+    } finally {
+      deflater.end();
+    }
+  }
+
+}
@@ -0,0 +1,212 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.SIPBuildPhase;
+import org.roda_project.commons_ip2.model.SIPBuildTimings;
+
+/**
+ * Collects the information that the METS keeps about files (MIMETYPE, SIZE and
+ * CREATED) ahead of the thread that writes the METS: the files are read (in
+ * order) from an {@link Iterator} and their content type and attributes are
+ * probed concurrently, in batches, so that the METS generation does not wait
+ * for one file system call after the other. Unless told otherwise, the batches
+ * are probed by a pool of daemon threads shared by every collector, so builds
+ * running at the same time do not each start their own threads. Every file
+ * gets the same CREATED date, the moment the collector was created.
+ *
+ * The time the METS generation waits for the attributes is accounted as
+ * {@link SIPBuildPhase#MIME_PROBING}.
+ */
+public final class FileAttributesCollector implements AutoCloseable {
+  private static final int BATCH_SIZE = 128;
+  private static final int DEFAULT_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final Iterator<Path> files;
+  private final Executor executor;
+  private final int parallelism;
+  private final XMLGregorianCalendar created;
+  private final long createdMillis;
+  private final Deque<Future<FileAttributes[]>> pendingBatches = new ArrayDeque<>();
+  private FileAttributes[] batch = new FileAttributes[0];
+  private int batchIndex;
+
+  public FileAttributesCollector(Iterator<Path> files) throws IPException {
+    this(files, SharedExecutor.INSTANCE, DEFAULT_THREADS);
+  }
+
+  /**
+   * @param files
+   *          the files, in the order their attributes will be asked for.
+   * @param executor
+   *          the {@link Executor} that probes the files (it is not shut down
+   *          when the collector is closed).
+   * @param parallelism
+   *          the number of batches probed at the same time.
+   */
+  public FileAttributesCollector(Iterator<Path> files, Executor executor, int parallelism) throws IPException {
+    this.files = files;
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+    try {
+      this.created = Utils.getCurrentCalendar();
+    } catch (DatatypeConfigurationException e) {
+      throw new IPException("Error getting curent calendar", e);
+    }
+    this.createdMillis = created.toGregorianCalendar().getTimeInMillis();
+  }
+
+  /**
+   * @return the attributes of the next file of the iterator.
+   */
+  public FileAttributes next() throws IPException, InterruptedException {
+    if (batchIndex == batch.length) {
+      long start = System.nanoTime();
+      try {
+        submitBatches();
+        if (pendingBatches.isEmpty()) {
+          throw new IllegalStateException("No more files");
+        }
+        batch = pendingBatches.poll().get();
+        batchIndex = 0;
+        submitBatches();
+      } catch (ExecutionException e) {
+        throw new IPException("Error collecting file attributes", e.getCause());
+      } finally {
+        SIPBuildTimings.current().add(SIPBuildPhase.MIME_PROBING, System.nanoTime() - start);
+      }
+    }
+    FileAttributes attributes = batch[batchIndex];
+    batch[batchIndex++] = null;
+    if (attributes.error != null) {
+      throw attributes.error;
+    }
+    return attributes;
+  }
+
+  private void submitBatches() {
+    while (pendingBatches.size() < parallelism * 2 && files.hasNext()) {
+      final List<Path> paths = new ArrayList<>(BATCH_SIZE);
+      while (paths.size() < BATCH_SIZE && files.hasNext()) {
+        paths.add(files.next());
+      }
+      FutureTask<FileAttributes[]> task = new FutureTask<>(Utils.withThreadSettings(() -> collect(paths)));
+      executor.execute(task);
+      pendingBatches.add(task);
+    }
+  }
+
+  private FileAttributes[] collect(List<Path> paths) {
+    FileAttributes[] attributes = new FileAttributes[paths.size()];
+    for (int i = 0; i < attributes.length && !Thread.currentThread().isInterrupted(); i++) {
+      attributes[i] = collect(paths.get(i));
+    }
+    return attributes;
+  }
+
+  private FileAttributes collect(Path file) {
+    FileAttributes attributes = new FileAttributes(created, createdMillis);
+    try {
+      attributes.mimetype = METSUtils.getFileMimetype(file);
+    } catch (IOException e) {
+      attributes.error = new IPException("Error probing content-type (" + file.toString() + ")", e);
+      return attributes;
+    }
+    try {
+      attributes.size = Files.readAttributes(file, BasicFileAttributes.class).size();
+    } catch (IOException e) {
+      attributes.error = new IPException("Error getting file size (" + file.toString() + ")", e);
+    }
+    return attributes;
+  }
+
+  /**
+   * Cancels the batches not collected yet.
+   */
+  @Override
+  public void close() {
+    for (Future<FileAttributes[]> pendingBatch : pendingBatches) {
+      pendingBatch.cancel(true);
+    }
+    pendingBatches.clear();
+  }
+
+  /**
+   * Threads shared by the collectors that are not given an {@link Executor},
+   * created when first needed.
+   */
+  private static final class SharedExecutor {
+    private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(DEFAULT_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "commons-ip-file-attributes-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    private SharedExecutor() {
+      // do nothing
+    }
+  }
+
+  /**
+   * Information the METS keeps about a file.
+   */
+  public static final class FileAttributes {
+    private final XMLGregorianCalendar created;
+    private final long createdMillis;
+    private String mimetype;
+    private long size;
+    private IPException error;
+
+    private FileAttributes(XMLGregorianCalendar created, long createdMillis) {
+      this.created = created;
+      this.createdMillis = createdMillis;
+    }
+
+    public String getMimetype() {
+      return mimetype;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * @return a copy of the CREATED date, the same for every file of the
+     *         collector.
+     */
+    public XMLGregorianCalendar getCreated() {
+      return (XMLGregorianCalendar) created.clone();
+    }
+
+    public long getCreatedMillis() {
+      return createdMillis;
+    }
+  }
+}
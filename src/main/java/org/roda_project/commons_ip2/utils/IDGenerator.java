@@ -0,0 +1,94 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Strategy that generates the identifiers of METS elements (files, divs, file
+ * groups, etc.) while building an IP (see {@link Utils#setIDGenerator}).
+ * Identifiers are the given prefix followed by an upper case UUID.
+ */
+public interface IDGenerator {
+
+  /**
+   * Random UUIDs from the shared {@link java.security.SecureRandom} (the
+   * default).
+   */
+  IDGenerator RANDOM = (prefix, name) -> prefix + UUID.randomUUID().toString().toUpperCase(Locale.ROOT);
+
+  /**
+   * Random UUIDs from {@link ThreadLocalRandom}, which neither contends between
+   * threads nor blocks waiting for entropy. Fit for identifiers that only need
+   * to be unique, not unpredictable.
+   */
+  IDGenerator THREAD_LOCAL_RANDOM = (prefix, name) -> {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // version 4 and IETF variant, as UUID#randomUUID
+    long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+    long leastSigBits = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+    return prefix + new UUID(mostSigBits, leastSigBits).toString().toUpperCase(Locale.ROOT);
+  };
+
+  /**
+   * @param prefix
+   *          the identifier prefix (e.g. {@link org.roda_project.commons_ip.utils.METSEnums#FILE_ID_PREFIX}).
+   * @param name
+   *          a name of the element that is unique within the package (e.g. the
+   *          path of a file inside the package), or {@code null} if there is
+   *          none.
+   * @return a new identifier.
+   */
+  String generate(String prefix, String name);
+
+  /**
+   * Gets a generator for another package built alongside this one with the
+   * same settings (e.g. a segment of a SIP built with
+   * {@code EARKSIP#buildSegmented}), so that packages built concurrently do
+   * not share the state of a generator.
+   * Stateless generators, like {@link #RANDOM}, return themselves; generators
+   * with state must override this.
+   *
+   * @param packageId
+   *          the id of the other package.
+   */
+  default IDGenerator forPackage(String packageId) {
+    return this;
+  }
+
+  /**
+   * Deterministic name based (version 3) UUIDs, derived from the package id
+   * and the element name or, for elements without one, from the order in which
+   * they are created: building the same IP twice gives the same identifiers.
+   * A new generator must be used for each build.
+   *
+   * @param packageId
+   *          the id of the package being built.
+   */
+  static IDGenerator nameBased(String packageId) {
+    final AtomicLong sequence = new AtomicLong();
+    return new IDGenerator() {
+      @Override
+      public String generate(String prefix, String name) {
+        String key = name != null ? packageId + "/" + prefix + "/" + name
+          : packageId + "#" + prefix + "#" + sequence.incrementAndGet();
+        return prefix
+          + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString().toUpperCase(Locale.ROOT);
+      }
+
+      @Override
+      public IDGenerator forPackage(String otherPackageId) {
+        return nameBased(otherPackageId);
+      }
+    };
+  }
+}
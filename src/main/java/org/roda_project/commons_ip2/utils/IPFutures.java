@@ -0,0 +1,177 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.IPInterface;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKAIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous versions of the build, parse and validate operations: each runs
+ * on the given {@link Executor} and returns a {@link CompletableFuture}, so that
+ * they can be composed (e.g. build and then validate) without a thread waiting
+ * for each step.
+ *
+ * <p>
+ * Cancelling a returned future with {@code cancel(true)} interrupts the thread
+ * running the operation, which stops at its next
+ * interruption check (between files and while copying or hashing their
+ * content) and cleans up what it was writing. Futures derived from it (e.g.
+ * with {@link CompletableFuture#thenApply}) are not cancellable this way: cancel
+ * the future of the operation itself.
+ * </p>
+ */
+public final class IPFutures {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IPFutures.class);
+  private static final String REPORT_EXTENSION = ".json";
+
+  private IPFutures() {
+    // do nothing
+  }
+
+  /**
+   * Runs a task on an {@link Executor}, interrupting it when the returned
+   * future is cancelled. A task cancelled before it starts does not run. The
+   * future fails with the exception thrown by the task (checked or not). The
+   * task runs with the {@link IDGenerator} and fixed time of the calling thread
+   * (see {@link Utils#withThreadSettings(Callable)}).
+   */
+  public static <T> CompletableFuture<T> supplyInterruptibly(Callable<T> task, Executor executor) {
+    InterruptibleFuture<T> future = new InterruptibleFuture<>();
+    Callable<T> threadTask = Utils.withThreadSettings(task);
+    executor.execute(() -> future.run(threadTask));
+    return future;
+  }
+
+  public static CompletableFuture<Path> build(IPInterface ip, Path destinationDirectory, Executor executor) {
+    return supplyInterruptibly(() -> ip.build(destinationDirectory), executor);
+  }
+
+  public static CompletableFuture<SIP> parseSIP(Path source, Path destinationDirectory, Executor executor) {
+    return supplyInterruptibly(() -> EARKSIP.parse(source, destinationDirectory), executor);
+  }
+
+  public static CompletableFuture<AIP> parseAIP(Path source, Path destinationDirectory, Executor executor) {
+    return supplyInterruptibly(() -> EARKAIP.parse(source, destinationDirectory), executor);
+  }
+
+  /**
+   * Validates an IP, writing the report to a file.
+   *
+   * @return the future of whether the IP is valid.
+   */
+  public static CompletableFuture<Boolean> validate(Path ip, Path report, Executor executor) {
+    return supplyInterruptibly(() -> {
+      try (OutputStream outputStream = Files.newOutputStream(report)) {
+        return new EARKSIPValidator(new ValidationReportOutputJson(ip, outputStream)).validate();
+      }
+    }, executor);
+  }
+
+  /**
+   * Runs an already configured validator (observers, cache, ...).
+   *
+   * @return the future of whether the IP is valid.
+   */
+  public static CompletableFuture<Boolean> validate(EARKSIPValidator validator, Executor executor) {
+    return supplyInterruptibly(validator::validate, executor);
+  }
+
+  /**
+   * Validates a SIP built in segments (see
+   * {@link EARKSIP#buildSegmented(Path, long, Executor)}): the segments are
+   * validated concurrently, each writing its report to the given directory
+   * (named after the segment), and must be linked as a segmented SIP (see
+   * {@link EARKSIP#checkSegments(List)}).
+   *
+   * @return the future of whether every segment is valid and they are linked.
+   */
+  public static CompletableFuture<Boolean> validateSegmented(List<Path> segments, Path reportDirectory,
+    Executor executor) {
+    List<CompletableFuture<Boolean>> validations = new ArrayList<>();
+    validations.add(supplyInterruptibly(() -> {
+      try {
+        EARKSIP.checkSegments(segments);
+        return true;
+      } catch (ParseException e) {
+        LOGGER.warn("Segments are not linked as a segmented SIP", e);
+        return false;
+      }
+    }, executor));
+    for (Path segment : segments) {
+      validations.add(validate(segment, reportDirectory.resolve(segment.getFileName() + REPORT_EXTENSION), executor));
+    }
+    return CompletableFuture.allOf(validations.toArray(new CompletableFuture<?>[0]))
+      .thenApply(v -> validations.stream().allMatch(CompletableFuture::join));
+  }
+
+  /**
+   * {@link CompletableFuture} that, when cancelled, interrupts the thread
+   * running its task. The thread is only interrupted while running the task
+   * (and its interrupt status is cleared afterwards), never once it moved on to
+   * other work.
+   */
+  private static final class InterruptibleFuture<T> extends CompletableFuture<T> {
+    private Thread runner;
+    private boolean interrupted;
+
+    private void run(Callable<T> task) {
+      synchronized (this) {
+        if (isDone()) {
+          return;
+        }
+        runner = Thread.currentThread();
+      }
+      try {
+        complete(task.call());
+      } catch (Exception e) {
+        completeExceptionally(e);
+      } catch (Error e) {
+        completeExceptionally(e);
+        throw e;
+      } finally {
+        synchronized (this) {
+          runner = null;
+          if (interrupted) {
+            Thread.interrupted();
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        synchronized (this) {
+          if (mayInterruptIfRunning && runner != null) {
+            runner.interrupt();
+            interrupted = true;
+          }
+        }
+      }
+      return cancelled;
+    }
+  }
+}
@@ -1,37 +1,118 @@
 package org.roda_project.commons_ip2.utils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.roda_project.commons_ip2.validator.constants.Constants;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public final class IanaMediaTypes {
-  /**
-   * {@link Set} with the IANA Media Types.
-   */
-  private static Set<String> ianaMediaTypesList = null;
 
   private IanaMediaTypes() {
     // do nothing
   }
 
   /**
-   * If {@link Set} with the IANA Media types is null, loads from resource.
+   * Gets the {@link Set} with the IANA Media types (loaded from resource on
+   * first use).
    *
-   * @return {@link Set}.
+   * @return unmodifiable {@link Set}.
    */
   public static Set<String> getIanaMediaTypesList() {
-    if (ianaMediaTypesList == null) {
-      ianaMediaTypesList = new BufferedReader(new InputStreamReader(
+    return Registry.MEDIA_TYPES;
+  }
+
+  /**
+   * Checks if a media type is registered in IANA. Does not allocate, so it can
+   * be called for every file of a package (and from several threads).
+   *
+   * @param mediaType
+   *          the media type.
+   * @return {@code true} if the media type is registered, {@code false}
+   *         otherwise.
+   */
+  public static boolean isRegistered(CharSequence mediaType) {
+    if (mediaType == null) {
+      return false;
+    }
+    final String[] table = Registry.TABLE;
+    final int mask = table.length - 1;
+    int index = spread(hashCode(mediaType)) & mask;
+    String candidate;
+    while ((candidate = table[index]) != null) {
+      if (candidate.contentEquals(mediaType)) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Same as {@link String#hashCode()} (which is cached by strings), for any
+   * {@link CharSequence}.
+   */
+  private static int hashCode(CharSequence sequence) {
+    if (sequence instanceof String) {
+      return sequence.hashCode();
+    }
+    int hash = 0;
+    for (int i = 0; i < sequence.length(); i++) {
+      hash = 31 * hash + sequence.charAt(i);
+    }
+    return hash;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Holder of the media types, loaded (once, thread-safely) by the class loader
+   * the first time it is used.
+   */
+  private static final class Registry {
+    private static final Set<String> MEDIA_TYPES;
+    /** Open addressing hash table (at most half full) with the media types. */
+    private static final String[] TABLE;
+
+    static {
+      final Set<String> mediaTypes = new LinkedHashSet<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
         Objects.requireNonNull(
           IanaMediaTypes.class.getResourceAsStream(Constants.PATH_RESOURCES_CSIP_VOCABULARY_IANA_MEDIA_TYPES)),
-        StandardCharsets.UTF_8)).lines().collect(Collectors.toSet());
+        StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty()) {
+            mediaTypes.add(line.intern());
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      MEDIA_TYPES = Collections.unmodifiableSet(mediaTypes);
+
+      int capacity = Integer.highestOneBit(Math.max(mediaTypes.size(), 1) * 2 - 1) << 1;
+      TABLE = new String[capacity];
+      for (String mediaType : mediaTypes) {
+        int index = spread(mediaType.hashCode()) & (capacity - 1);
+        while (TABLE[index] != null) {
+          index = (index + 1) & (capacity - 1);
+        }
+        TABLE[index] = mediaType;
+      }
+    }
+
+    private Registry() {
+      // do nothing
     }
-    return ianaMediaTypesList;
   }
 }
@@ -0,0 +1,80 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.validation.Schema;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+
+/**
+ * {@link METSBinding} through JAXB.
+ */
+final class JAXBMETSBinding implements METSBinding {
+  private static JAXBContext context;
+
+  @Override
+  public Mets unmarshal(InputStream inputStream, Schema schema, Consumer<Object> listener) throws JAXBException {
+    Unmarshaller unmarshaller = getContext().createUnmarshaller();
+    unmarshaller.setSchema(schema);
+    if (listener != null) {
+      unmarshaller.setListener(new Unmarshaller.Listener() {
+        @Override
+        public void afterUnmarshal(Object target, Object parent) {
+          listener.accept(target);
+        }
+      });
+    }
+    return (Mets) unmarshaller.unmarshal(inputStream);
+  }
+
+  @Override
+  public void marshal(Mets mets, OutputStream outputStream, String schemaLocation, METSFileGrpSpool dataFileGrpSpool)
+    throws JAXBException, IPException {
+    Marshaller m = getContext().createMarshaller();
+    m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, schemaLocation);
+    if (dataFileGrpSpool == null) {
+      m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+      m.marshal(mets, outputStream);
+    } else {
+      try {
+        XMLStreamWriter writer = new METSStreamWriter(
+          XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name()),
+          dataFileGrpSpool);
+        m.marshal(mets, writer);
+        writer.close();
+      } catch (XMLStreamException e) {
+        throw new IPException("Error writing METS", e);
+      }
+    }
+  }
+
+  @Override
+  public void warmUp() throws JAXBException {
+    getContext();
+  }
+
+  private static synchronized JAXBContext getContext() throws JAXBException {
+    if (context == null) {
+      context = JAXBContext.newInstance(Mets.class);
+    }
+    return context;
+  }
+}
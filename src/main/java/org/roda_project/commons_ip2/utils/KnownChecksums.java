@@ -0,0 +1,68 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.ChecksumMode;
+
+/**
+ * Combines the checksums known for a file with the ones calculated while
+ * copying it, according to a {@link ChecksumMode}.
+ */
+public final class KnownChecksums {
+
+  private KnownChecksums() {
+    // do nothing
+  }
+
+  /**
+   * @return the algorithms that have to be calculated while copying a file to
+   *         get the required checksums: the required ones not known when
+   *         trusting the known checksums, the required and the known ones when
+   *         verifying them and all the required ones otherwise.
+   */
+  public static Set<String> toCalculate(ChecksumMode mode, Set<String> required, Map<String, String> known) {
+    Set<String> algorithms = new TreeSet<>(required);
+    if (mode == ChecksumMode.TRUST) {
+      algorithms.removeAll(known.keySet());
+    } else if (mode == ChecksumMode.VERIFY) {
+      algorithms.addAll(known.keySet());
+    }
+    return algorithms;
+  }
+
+  /**
+   * Merges the calculated checksums with the known ones (unless computing them
+   * all), so that every known algorithm is available without calculating it.
+   *
+   * @throws IPException
+   *           if verifying and a calculated checksum differs from the known one.
+   */
+  public static Map<String, String> merge(ChecksumMode mode, Map<String, String> calculated,
+    Map<String, String> known, String name) throws IPException {
+    Map<String, String> checksums = new HashMap<>(calculated);
+    if (mode != ChecksumMode.COMPUTE) {
+      for (Entry<String, String> entry : known.entrySet()) {
+        String checksum = calculated.get(entry.getKey());
+        if (checksum == null) {
+          checksums.put(entry.getKey(), entry.getValue());
+        } else if (!checksum.equalsIgnoreCase(entry.getValue())) {
+          throw new IPException("Checksum mismatch for " + name + ": the known " + entry.getKey() + " checksum is "
+            + entry.getValue() + " but the calculated one is " + checksum);
+        }
+      }
+    }
+    return checksums;
+  }
+}
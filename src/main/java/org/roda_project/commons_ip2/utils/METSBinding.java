@@ -0,0 +1,79 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.validation.Schema;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+
+/**
+ * How a METS document is bound to (and from) the {@link Mets} object graph.
+ * Both bindings read and write the same documents (schema-wise) and build the
+ * same objects, so they can be switched (for a build or a parse, see
+ * {@link METSUtils#setMETSBinding(METSBinding)}) without changing anything
+ * else.
+ */
+public interface METSBinding {
+
+  /** JAXB (default). */
+  METSBinding JAXB = new JAXBMETSBinding();
+
+  /**
+   * Hand-written StAX reader and writer, that create the objects directly
+   * instead of through reflection, reading and writing a METS about 1.5 times
+   * faster than JAXB.
+   */
+  METSBinding STAX = new StAXMETSBinding();
+
+  /**
+   * Reads a METS.
+   *
+   * @param schema
+   *          if not {@code null}, the schema the METS is validated against
+   *          while being read.
+   * @param listener
+   *          if not {@code null}, given each object of the graph after its
+   *          content has been read.
+   * @throws JAXBException
+   *           if the METS cannot be read or is not valid (with the
+   *           {@link org.xml.sax.SAXException} as its cause).
+   */
+  Mets unmarshal(InputStream inputStream, Schema schema, Consumer<Object> listener) throws JAXBException;
+
+  /**
+   * Writes a METS without closing the output, one element per line indented
+   * by four spaces per level (JAXB through {@code JAXB_FORMATTED_OUTPUT}, StAX
+   * through {@code METSStreamWriter}, not the XML writer). The documents of the
+   * two bindings are equivalent but not byte for byte the same: JAXB marks them
+   * standalone, ends them with a new line and may choose other prefixes for the
+   * namespaces the root element does not declare.
+   *
+   * @param schemaLocation
+   *          the {@code xsi:schemaLocation} of the METS.
+   * @param dataFileGrpSpool
+   *          if not {@code null}, the spool whose {@code file} elements are
+   *          streamed into its {@code fileGrp} (see {@link METSFileGrpSpool}).
+   */
+  void marshal(Mets mets, OutputStream outputStream, String schemaLocation, METSFileGrpSpool dataFileGrpSpool)
+    throws JAXBException, IOException, IPException;
+
+  /**
+   * Creates what the binding needs and takes long to create (e.g. a JAXB
+   * context), so that the first METS read or written does not pay for it.
+   */
+  default void warmUp() throws JAXBException {
+    // nothing to create
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+
+/**
+ * Content of a METS {@code fileGrp} kept on disk instead of in the METS object
+ * graph, so that the METS {@code file} elements (and their FLocat and checksum)
+ * are not held in memory for every file.
+ *
+ * Files are added (in order) while the IP is being assembled; each file record
+ * (ID, MIMETYPE, SIZE, CREATED, CHECKSUM, FLocat href) is appended to a spool
+ * file once the file checksum is known (i.e. when it is zipped or written) and
+ * the in-memory information is released, the spool keeping only the files not
+ * spooled yet. When the METS is marshalled, the records are streamed into the
+ * {@code fileGrp} element by {@link METSUtils#marshallMETS}.
+ *
+ * The memory needed is reduced, not bounded: the IP entries still hold a
+ * {@link METSSpooledFileZipEntryInfo} (its name, path and checksum) per file,
+ * as the package is written from them.
+ */
+public class METSFileGrpSpool {
+  private static final String NO_VALUE = "";
+
+  private final String fileGrpId;
+  private final Path spoolFile;
+  /**
+   * Files added but not spooled yet, by their index.
+   */
+  private final Map<Integer, METSSpooledFileZipEntryInfo> pending;
+  private int numberOfFiles;
+  private int nextToSpool;
+  private DataOutputStream output;
+  private boolean spooled;
+
+  public METSFileGrpSpool(FileGrpType fileGrp, Path spoolFile) {
+    this.fileGrpId = fileGrp.getID();
+    this.spoolFile = spoolFile;
+    this.pending = new HashMap<>();
+    this.numberOfFiles = 0;
+    this.nextToSpool = 0;
+  }
+
+  public String getFileGrpId() {
+    return fileGrpId;
+  }
+
+  public synchronized int getNumberOfFiles() {
+    return numberOfFiles;
+  }
+
+  /**
+   * Adds a file to the file group and to the ZIP entries.
+   *
+   * @param zipEntries
+   *          the entries of the IP being built.
+   * @param filePath
+   *          file to add.
+   * @param zipPath
+   *          path of the file inside the IP.
+   * @param metsPath
+   *          path of the file relative to the METS (i.e. the FLocat href,
+   *          before encoding).
+   * @return the new entry.
+   */
+  public METSSpooledFileZipEntryInfo addFile(Map<String, ZipEntryInfo> zipEntries, Path filePath, String zipPath,
+    String metsPath) throws IPException {
+    final String mimetype;
+    final long size;
+    try {
+      mimetype = METSUtils.getFileMimetype(filePath);
+    } catch (IOException e) {
+      throw new IPException("Error probing content-type (" + filePath.toString() + ")", e);
+    }
+    try {
+      size = Files.size(filePath);
+    } catch (IOException e) {
+      throw new IPException("Error getting file size (" + filePath.toString() + ")", e);
+    }
+
+    return addFile(zipEntries, filePath, zipPath, metsPath, mimetype, size, Utils.currentTimeMillis());
+  }
+
+  /**
+   * Adds a file, whose information was already collected, to the file group
+   * and to the ZIP entries.
+   *
+   * @see #addFile(Map, Path, String, String)
+   */
+  public METSSpooledFileZipEntryInfo addFile(Map<String, ZipEntryInfo> zipEntries, Path filePath, String zipPath,
+    String metsPath, FileAttributesCollector.FileAttributes attributes) {
+    return addFile(zipEntries, filePath, zipPath, metsPath, attributes.getMimetype(), attributes.getSize(),
+      attributes.getCreatedMillis());
+  }
+
+  private synchronized METSSpooledFileZipEntryInfo addFile(Map<String, ZipEntryInfo> zipEntries, Path filePath,
+    String zipPath, String metsPath, String mimetype, long size, long created) {
+    METSSpooledFileZipEntryInfo entry = new METSSpooledFileZipEntryInfo(zipPath, filePath, this, numberOfFiles,
+      Utils.generatePrefixedFileID(zipPath), mimetype, size, created, METSUtils.encodeHref(metsPath));
+    pending.put(numberOfFiles, entry);
+    numberOfFiles++;
+    zipEntries.put(zipPath, entry);
+    return entry;
+  }
+
+  /**
+   * Spools every completed file that follows the last spooled one, so that the
+   * records keep the order in which files were added.
+   */
+  synchronized void fileCompleted(METSSpooledFileZipEntryInfo entry) throws IOException {
+    if (entry.getIndex() == nextToSpool) {
+      while (nextToSpool < numberOfFiles && pending.get(nextToSpool).isCompleted()) {
+        spool(pending.remove(nextToSpool));
+        nextToSpool++;
+      }
+    }
+  }
+
+  private void spool(METSSpooledFileZipEntryInfo entry) throws IOException {
+    if (output == null) {
+      output = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(spoolFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+    output.writeUTF(entry.getId());
+    output.writeUTF(entry.getMimetype());
+    output.writeLong(entry.getSize());
+    output.writeLong(entry.getCreated());
+    output.writeUTF(entry.getChecksum() != null ? entry.getChecksum() : NO_VALUE);
+    output.writeUTF(entry.getChecksumAlgorithm() != null ? entry.getChecksumAlgorithm() : NO_VALUE);
+    output.writeUTF(entry.getHref());
+    entry.release();
+    spooled = true;
+  }
+
+  /**
+   * Spools the files that were never completed (e.g. when only the METS files
+   * are written) and writes every record to the METS.
+   */
+  synchronized void writeFiles(METSStreamWriter writer) throws IOException, XMLStreamException {
+    while (nextToSpool < numberOfFiles) {
+      spool(pending.remove(nextToSpool));
+      nextToSpool++;
+    }
+    if (output != null) {
+      output.close();
+      output = null;
+    }
+    if (!spooled) {
+      return;
+    }
+
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(spoolFile)))) {
+      while (true) {
+        final String id;
+        try {
+          id = input.readUTF();
+        } catch (EOFException e) {
+          break;
+        }
+        final String mimetype = input.readUTF();
+        final long size = input.readLong();
+        final long created = input.readLong();
+        final String checksum = input.readUTF();
+        final String checksumType = input.readUTF();
+        final String href = input.readUTF();
+        writer.writeFile(id, mimetype, size, created, NO_VALUE.equals(checksum) ? null : checksum,
+          NO_VALUE.equals(checksumType) ? null : checksumType, href);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
+
+/**
+ * Entry whose METS {@code file} element is not kept in the METS object graph
+ * but written to a {@link METSFileGrpSpool} as soon as its checksum is known.
+ */
+public class METSSpooledFileZipEntryInfo extends FileZipEntryInfo {
+  private final METSFileGrpSpool spool;
+  private final int index;
+
+  private String id;
+  private String mimetype;
+  private long size;
+  private long created;
+  private String href;
+  private boolean completed;
+
+  METSSpooledFileZipEntryInfo(String name, Path filePath, METSFileGrpSpool spool, int index, String id,
+    String mimetype, long size, long created, String href) {
+    super(name, filePath);
+    this.spool = spool;
+    this.index = index;
+    this.id = id;
+    this.mimetype = mimetype;
+    this.size = size;
+    this.created = created;
+    this.href = href;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getMimetype() {
+    return mimetype;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public String getHref() {
+    return href;
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Records the checksum of the entry (already set with
+   * {@link #setChecksum(String)} and {@link #setChecksumAlgorithm(String)}) in
+   * the spool.
+   */
+  public void complete() throws IOException {
+    completed = true;
+    spool.fileCompleted(this);
+  }
+
+  /**
+   * Releases the METS information once it has been written to the spool.
+   */
+  void release() {
+    id = null;
+    mimetype = null;
+    href = null;
+  }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Fptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Mptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+
+/**
+ * Receives the sections of a METS as {@link METSStreamReader} reads them, in
+ * document order.
+ *
+ * Container elements ({@code mets}, {@code fileGrp}, {@code structMap},
+ * {@code div}) are given with their attributes only (their content is given by
+ * the following events) and the remaining sections are given whole, one at a
+ * time. As each section is unmarshalled on its own, ID references (e.g.
+ * {@code DMDID}, {@code ADMID}, {@code FILEID}) are given as the referenced ID
+ * {@link String}s instead of the referenced objects.
+ */
+public interface METSStreamHandler {
+
+  default void startMets(Mets mets) throws IPException {
+    // do nothing
+  }
+
+  default void metsHdr(MetsHdr metsHdr) throws IPException {
+    // do nothing
+  }
+
+  default void dmdSec(MdSecType dmdSec) throws IPException {
+    // do nothing
+  }
+
+  default void amdSec(AmdSecType amdSec) throws IPException {
+    // do nothing
+  }
+
+  default void startFileGrp(FileGrpType fileGrp) throws IPException {
+    // do nothing
+  }
+
+  default void file(FileGrpType fileGrp, FileType file) throws IPException {
+    // do nothing
+  }
+
+  default void endFileGrp(FileGrpType fileGrp) throws IPException {
+    // do nothing
+  }
+
+  default void startStructMap(StructMapType structMap) throws IPException {
+    // do nothing
+  }
+
+  default void startDiv(DivType div) throws IPException {
+    // do nothing
+  }
+
+  default void fptr(DivType div, Fptr fptr) throws IPException {
+    // do nothing
+  }
+
+  default void mptr(DivType div, Mptr mptr) throws IPException {
+    // do nothing
+  }
+
+  default void endDiv(DivType div) throws IPException {
+    // do nothing
+  }
+
+  default void endStructMap(StructMapType structMap) throws IPException {
+    // do nothing
+  }
+
+  default void endMets(Mets mets) throws IPException {
+    // do nothing
+  }
+
+}
@@ -0,0 +1,528 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.xml.sax.SAXException;
+
+/**
+ * Streaming (StAX) METS reader, for METS files too big to be unmarshalled
+ * into a single {@link Mets} object. The METS is validated against the METS
+ * schema in the same pass it is read.
+ *
+ * <ul>
+ * <li>{@link #read(Path, METSStreamHandler)} gives the METS sections to a
+ * {@link METSStreamHandler}, one at a time;</li>
+ * <li>{@link #readWithoutDataFiles(Path, Set)} unmarshals the whole METS except
+ * the {@code file} elements of the data file groups (the ones that grow with
+ * the package), which can afterwards be read one at a time, in a single pass
+ * for all the groups, with {@link #readFiles(Path, Map)}, or one group at a
+ * time with {@link #openFiles(InputStream, String, Mets)}.</li>
+ * </ul>
+ *
+ * Both the root and the representation METS files are read without their data
+ * files when parsing an IP, and so are the METS files validated by the CSIP
+ * validator. The elements are read with {@link StAXMETSReader}, the same code
+ * as {@link METSBinding#STAX}.
+ */
+public final class METSStreamReader {
+  private static final String METS = "mets";
+  private static final String METS_HDR = "metsHdr";
+  private static final String DMD_SEC = "dmdSec";
+  private static final String AMD_SEC = "amdSec";
+  private static final String FILE_SEC = "fileSec";
+  private static final String FILE_GRP = "fileGrp";
+  private static final String FILE = "file";
+  private static final String STRUCT_MAP = "structMap";
+  private static final String DIV = "div";
+  private static final String FPTR = "fptr";
+  private static final String MPTR = "mptr";
+
+  private METSStreamReader() {
+    // do nothing
+  }
+
+  /**
+   * Consumer of the {@code file} elements of a file group.
+   */
+  @FunctionalInterface
+  public interface FileConsumer {
+    void accept(FileType file) throws IPException;
+  }
+
+  /**
+   * Cursor over the {@code file} elements of a file group, read one at a time.
+   */
+  public interface FileCursor extends Closeable {
+    /**
+     * Gets the next file of the group.
+     *
+     * @return the next {@link FileType} or {@code null} if there are no more.
+     */
+    FileType next() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+      // do nothing
+    }
+  }
+
+  /**
+   * Gets a {@link FileCursor} over files already in memory.
+   */
+  public static FileCursor cursor(List<FileType> files) {
+    final Iterator<FileType> iterator = files.iterator();
+    return () -> iterator.hasNext() ? iterator.next() : null;
+  }
+
+  /**
+   * Reads and validates a METS, giving its sections to the handler in document
+   * order. Memory usage is bounded by the biggest section (e.g. a
+   * {@code dmdSec}) and not by the METS size.
+   */
+  public static void read(Path metsFile, METSStreamHandler handler) throws SAXException, IOException, IPException {
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(metsFile))) {
+      XMLStreamReader reader = createValidatingReader(inputStream, metsFile.toUri().toString());
+      try {
+        dispatch(reader, handler);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw toException(e);
+    }
+  }
+
+  /**
+   * Reads and validates a METS, unmarshalling everything except the
+   * {@code file} elements of the data file groups (the ones whose {@code USE}
+   * is {@code Data} or {@code Data/...}).
+   *
+   * @param dataFileGrpIds
+   *          where the IDs of the file groups whose files were left out are
+   *          added.
+   */
+  public static Mets readWithoutDataFiles(Path metsFile, Set<String> dataFileGrpIds)
+    throws JAXBException, SAXException, IOException {
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(metsFile))) {
+      return readWithoutDataFiles(inputStream, metsFile.toUri().toString(), dataFileGrpIds, null);
+    }
+  }
+
+  /**
+   * Reads and validates a METS from a stream (that is not closed), as
+   * {@link #readWithoutDataFiles(Path, Set)} does.
+   *
+   * @param systemId
+   *          the system ID of the METS, used in error messages (may be
+   *          {@code null}).
+   * @param listener
+   *          called with each unmarshalled object (may be {@code null}).
+   */
+  public static Mets readWithoutDataFiles(InputStream inputStream, String systemId, Set<String> dataFileGrpIds,
+    Consumer<Object> listener) throws JAXBException, SAXException, IOException {
+    try {
+      XMLStreamReader reader = createValidatingReader(inputStream, systemId);
+      try {
+        XMLStreamReader filteredReader = newInputFactory().createFilteredReader(reader,
+          new DataFilesFilter(dataFileGrpIds));
+        Mets mets = StAXMETSReader.read(filteredReader, listener);
+        // make sure the whole document was validated
+        while (reader.hasNext()) {
+          reader.next();
+        }
+        return mets;
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw toException(e);
+    }
+  }
+
+  /**
+   * Reads, one at a time, the {@code file} elements of a file group (without
+   * validating the METS, that is expected to have been validated before).
+   */
+  public static void readFiles(Path metsFile, String fileGrpId, FileConsumer consumer)
+    throws IOException, IPException {
+    readFiles(metsFile, Collections.singletonMap(fileGrpId, consumer));
+  }
+
+  /**
+   * Reads, one at a time and in a single pass over the METS, the {@code file}
+   * elements of several file groups (without validating the METS, that is
+   * expected to have been validated before).
+   *
+   * @param consumers
+   *          the consumer of the files of each file group, by file group ID.
+   */
+  public static void readFiles(Path metsFile, Map<String, ? extends FileConsumer> consumers)
+    throws IOException, IPException {
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(metsFile))) {
+      XMLStreamReader reader = newInputFactory().createXMLStreamReader(inputStream);
+      try {
+        StAXMETSReader elements = StAXMETSReader.forElements(reader, Function.identity());
+        int remaining = consumers.size();
+        FileConsumer consumer = null;
+        int event = reader.getEventType();
+        while (event != XMLStreamConstants.END_DOCUMENT && (remaining > 0 || consumer != null)) {
+          if (consumer == null) {
+            if (event == XMLStreamConstants.START_ELEMENT && FILE_GRP.equals(reader.getLocalName())) {
+              consumer = consumers.get(reader.getAttributeValue(null, "ID"));
+              if (consumer != null) {
+                remaining--;
+              }
+            }
+            event = reader.next();
+          } else if (event == XMLStreamConstants.START_ELEMENT) {
+            if (FILE.equals(reader.getLocalName())) {
+              consumer.accept(elements.file());
+            } else {
+              skipElement(reader);
+            }
+            event = reader.getEventType();
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            consumer = null;
+            event = reader.next();
+          } else {
+            event = reader.next();
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Error reading METS file " + metsFile, e);
+    }
+  }
+
+  /**
+   * Opens a {@link FileCursor} over the {@code file} elements of a file group
+   * (without validating the METS, that is expected to have been validated
+   * before). The references of the files to the metadata sections (e.g.
+   * {@code ADMID}) are resolved against the given METS, the one read with
+   * {@link #readWithoutDataFiles(InputStream, String, Set, Consumer)}; other
+   * references are left out.
+   *
+   * @param inputStream
+   *          the METS, closed when the cursor is.
+   */
+  public static FileCursor openFiles(InputStream inputStream, String fileGrpId, Mets mets) throws IOException {
+    boolean opened = false;
+    try {
+      XMLStreamReader reader = newInputFactory().createXMLStreamReader(inputStream);
+      StAXMETSReader elements = StAXMETSReader.forElements(reader, metadataSections(mets)::get);
+      opened = true;
+      return new StreamFileCursor(inputStream, reader, elements, fileGrpId);
+    } catch (XMLStreamException e) {
+      throw new IOException("Error reading METS", e);
+    } finally {
+      if (!opened) {
+        inputStream.close();
+      }
+    }
+  }
+
+  static boolean isDataFileGrp(String use) {
+    if (use == null) {
+      return false;
+    }
+    String lowerCaseUse = use.toLowerCase(Locale.ENGLISH);
+    return IPConstants.DATA.equals(lowerCaseUse) || lowerCaseUse.startsWith(IPConstants.DATA_FOLDER);
+  }
+
+  /**
+   * @return the metadata sections ({@code dmdSec}, {@code amdSec} and the ones
+   *         in it) of the METS, by ID.
+   */
+  private static Map<String, Object> metadataSections(Mets mets) {
+    Map<String, Object> sections = new HashMap<>();
+    for (MdSecType dmdSec : mets.getDmdSec()) {
+      sections.put(dmdSec.getID(), dmdSec);
+    }
+    for (AmdSecType amdSec : mets.getAmdSec()) {
+      sections.put(amdSec.getID(), amdSec);
+      for (List<MdSecType> mdSecs : Arrays.asList(amdSec.getTechMD(), amdSec.getRightsMD(), amdSec.getSourceMD(),
+        amdSec.getDigiprovMD())) {
+        for (MdSecType mdSec : mdSecs) {
+          sections.put(mdSec.getID(), mdSec);
+        }
+      }
+    }
+    return sections;
+  }
+
+  private static void dispatch(XMLStreamReader reader, METSStreamHandler handler)
+    throws XMLStreamException, IPException {
+    final StAXMETSReader elements = StAXMETSReader.forElements(reader, Function.identity());
+    final Deque<FileGrpType> fileGrps = new ArrayDeque<>();
+    final Deque<DivType> divs = new ArrayDeque<>();
+    Mets mets = null;
+    StructMapType structMap = null;
+
+    int event = reader.getEventType();
+    while (event != XMLStreamConstants.END_DOCUMENT) {
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        switch (reader.getLocalName()) {
+          case METS:
+            mets = elements.startMets();
+            handler.startMets(mets);
+            event = reader.next();
+            break;
+          case METS_HDR:
+            handler.metsHdr(elements.metsHdr());
+            event = reader.getEventType();
+            break;
+          case DMD_SEC:
+            handler.dmdSec(elements.dmdSec());
+            event = reader.getEventType();
+            break;
+          case AMD_SEC:
+            handler.amdSec(elements.amdSec());
+            event = reader.getEventType();
+            break;
+          case FILE_SEC:
+            event = reader.next();
+            break;
+          case FILE_GRP:
+            FileGrpType fileGrp = elements.startFileGrp(fileGrps.isEmpty());
+            fileGrps.push(fileGrp);
+            handler.startFileGrp(fileGrp);
+            event = reader.next();
+            break;
+          case FILE:
+            handler.file(fileGrps.peek(), elements.file());
+            event = reader.getEventType();
+            break;
+          case STRUCT_MAP:
+            structMap = elements.startStructMap();
+            handler.startStructMap(structMap);
+            event = reader.next();
+            break;
+          case DIV:
+            DivType div = elements.startDiv();
+            divs.push(div);
+            handler.startDiv(div);
+            event = reader.next();
+            break;
+          case FPTR:
+            handler.fptr(divs.peek(), elements.fptr());
+            event = reader.getEventType();
+            break;
+          case MPTR:
+            handler.mptr(divs.peek(), elements.mptr());
+            event = reader.getEventType();
+            break;
+          default:
+            skipElement(reader);
+            event = reader.getEventType();
+            break;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        switch (reader.getLocalName()) {
+          case FILE_GRP:
+            handler.endFileGrp(fileGrps.pop());
+            break;
+          case DIV:
+            handler.endDiv(divs.pop());
+            break;
+          case STRUCT_MAP:
+            handler.endStructMap(structMap);
+            break;
+          case METS:
+            handler.endMets(mets);
+            break;
+          default:
+            break;
+        }
+        event = reader.next();
+      } else {
+        event = reader.next();
+      }
+    }
+  }
+
+  /**
+   * Skips the element the reader is at, leaving the reader at the event that
+   * follows its end (as JAXB does when unmarshalling an element).
+   */
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+    reader.next();
+  }
+
+  private static XMLInputFactory newInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  private static XMLStreamReader createValidatingReader(InputStream inputStream, String systemId)
+    throws XMLStreamException, SAXException {
+    XMLStreamReader reader = newInputFactory().createXMLStreamReader(systemId, inputStream);
+    return new ValidatingXMLStreamReader(reader, METSUtils.getMETSSchema().newValidatorHandler());
+  }
+
+  /**
+   * Throws the validation error, if that is the cause of the exception, or
+   * returns it as an {@link IOException} otherwise.
+   */
+  private static IOException toException(XMLStreamException e) throws SAXException {
+    if (e.getNestedException() instanceof SAXException) {
+      throw (SAXException) e.getNestedException();
+    }
+    return new IOException("Error reading METS", e);
+  }
+
+  /**
+   * Hides the {@code file} elements of data file groups (and their content)
+   * from the reader consumer.
+   */
+  private static final class DataFilesFilter implements StreamFilter {
+    private final Set<String> dataFileGrpIds;
+    private final Deque<String> fileGrps = new ArrayDeque<>();
+    private int skippedDepth = 0;
+
+    private DataFilesFilter(Set<String> dataFileGrpIds) {
+      this.dataFileGrpIds = dataFileGrpIds;
+    }
+
+    @Override
+    public boolean accept(XMLStreamReader reader) {
+      int event = reader.getEventType();
+      if (skippedDepth > 0) {
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          skippedDepth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          skippedDepth--;
+        }
+        return false;
+      }
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (FILE_GRP.equals(reader.getLocalName())) {
+          String id = reader.getAttributeValue(null, "ID");
+          fileGrps.push(isDataFileGrp(reader.getAttributeValue(null, "USE")) && id != null ? id : "");
+        } else if (FILE.equals(reader.getLocalName()) && !fileGrps.isEmpty() && !fileGrps.peek().isEmpty()) {
+          dataFileGrpIds.add(fileGrps.peek());
+          skippedDepth = 1;
+          return false;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT && FILE_GRP.equals(reader.getLocalName())
+        && !fileGrps.isEmpty()) {
+        fileGrps.pop();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * {@link FileCursor} that reads the {@code file} elements of a file group from
+   * the METS, skipping everything else.
+   */
+  private static final class StreamFileCursor implements FileCursor {
+    private final InputStream inputStream;
+    private final XMLStreamReader reader;
+    private final StAXMETSReader elements;
+    private final String fileGrpId;
+    private boolean inFileGrp = false;
+    private boolean finished = false;
+
+    private StreamFileCursor(InputStream inputStream, XMLStreamReader reader, StAXMETSReader elements,
+      String fileGrpId) {
+      this.inputStream = inputStream;
+      this.reader = reader;
+      this.elements = elements;
+      this.fileGrpId = fileGrpId;
+    }
+
+    @Override
+    public FileType next() throws IOException {
+      try {
+        int event = reader.getEventType();
+        while (!finished && event != XMLStreamConstants.END_DOCUMENT) {
+          if (!inFileGrp) {
+            inFileGrp = event == XMLStreamConstants.START_ELEMENT && FILE_GRP.equals(reader.getLocalName())
+              && fileGrpId.equals(reader.getAttributeValue(null, "ID"));
+            event = reader.next();
+          } else if (event == XMLStreamConstants.START_ELEMENT) {
+            if (FILE.equals(reader.getLocalName())) {
+              return elements.file();
+            }
+            skipElement(reader);
+            event = reader.getEventType();
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            finished = true;
+          } else {
+            event = reader.next();
+          }
+        }
+        finished = true;
+        return null;
+      } catch (XMLStreamException e) {
+        throw new IOException("Error reading files of file group " + fileGrpId, e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        throw new IOException("Error closing METS", e);
+      } finally {
+        inputStream.close();
+      }
+    }
+  }
+
+}
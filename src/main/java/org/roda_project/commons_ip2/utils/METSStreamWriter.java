@@ -0,0 +1,301 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.roda_project.commons_ip.utils.METSEnums.LocType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FLocat;
+import org.roda_project.commons_ip2.model.IPConstants;
+
+/**
+ * {@link XMLStreamWriter} used to marshal a METS: it indents the output (like
+ * {@code JAXB_FORMATTED_OUTPUT}) and, when the {@code fileGrp} of a
+ * {@link METSFileGrpSpool} is closed, streams the spooled {@code file}
+ * elements into it.
+ */
+class METSStreamWriter implements XMLStreamWriter {
+  private static final String FILE_GRP = "fileGrp";
+  private static final String ID = "ID";
+  private static final String INDENT = "    ";
+
+  private final XMLStreamWriter writer;
+  private final METSFileGrpSpool spool;
+  private final TimeZone timeZone;
+  private final Deque<Element> elements;
+
+  METSStreamWriter(XMLStreamWriter writer, METSFileGrpSpool spool) {
+    this.writer = writer;
+    this.spool = spool;
+    this.timeZone = Utils.getFixedTime() != null ? TimeZone.getTimeZone("UTC") : TimeZone.getDefault();
+    this.elements = new ArrayDeque<>();
+  }
+
+  /**
+   * Writes a METS {@code file} element (with its {@code FLocat}) with the same
+   * attributes the file would have if it had not been spooled, through
+   * {@link StAXMETSWriter}.
+   */
+  void writeFile(String id, String mimetype, long size, long created, String checksum, String checksumType,
+    String href) throws XMLStreamException {
+    FileType file = new FileType();
+    file.setID(id);
+    file.setMIMETYPE(mimetype);
+    file.setSIZE(size);
+    GregorianCalendar calendar = new GregorianCalendar(timeZone);
+    calendar.setTimeInMillis(created);
+    try {
+      file.setCREATED(Utils.getDatatypeFactory().newXMLGregorianCalendar(calendar));
+    } catch (DatatypeConfigurationException e) {
+      throw new XMLStreamException("Error getting datatype factory", e);
+    }
+    file.setCHECKSUM(checksum);
+    file.setCHECKSUMTYPE(checksumType);
+    FLocat fLocat = new FLocat();
+    fLocat.setType(IPConstants.METS_TYPE_SIMPLE);
+    fLocat.setHref(href);
+    fLocat.setLOCTYPE(LocType.URL.toString());
+    file.getFLocat().add(fLocat);
+    StAXMETSWriter.writeFile(this, file);
+  }
+
+  private void startElement() throws XMLStreamException {
+    Element parent = elements.peek();
+    if (parent != null) {
+      parent.hasChildElements = true;
+    }
+    newLine(elements.size());
+  }
+
+  private void endElement() throws XMLStreamException {
+    Element element = elements.peek();
+    if (element.spooledFileGrp) {
+      try {
+        spool.writeFiles(this);
+      } catch (IOException e) {
+        throw new XMLStreamException("Error reading spooled METS files", e);
+      }
+    }
+    elements.pop();
+    if (element.hasChildElements) {
+      newLine(elements.size());
+    }
+    writer.writeEndElement();
+  }
+
+  private void newLine(int depth) throws XMLStreamException {
+    StringBuilder builder = new StringBuilder(1 + depth * INDENT.length()).append('\n');
+    for (int i = 0; i < depth; i++) {
+      builder.append(INDENT);
+    }
+    writer.writeCharacters(builder.toString());
+  }
+
+  private void attribute(String localName, String value) {
+    Element element = elements.peek();
+    if (element != null && element.fileGrp && spool != null && ID.equals(localName)
+      && spool.getFileGrpId().equals(value)) {
+      element.spooledFileGrp = true;
+    }
+  }
+
+  @Override
+  public void writeStartElement(String localName) throws XMLStreamException {
+    startElement();
+    writer.writeStartElement(localName);
+    elements.push(new Element(FILE_GRP.equals(localName)));
+  }
+
+  @Override
+  public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+    startElement();
+    writer.writeStartElement(namespaceURI, localName);
+    elements.push(new Element(FILE_GRP.equals(localName)));
+  }
+
+  @Override
+  public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    startElement();
+    writer.writeStartElement(prefix, localName, namespaceURI);
+    elements.push(new Element(FILE_GRP.equals(localName)));
+  }
+
+  @Override
+  public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+    startElement();
+    writer.writeEmptyElement(namespaceURI, localName);
+  }
+
+  @Override
+  public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    startElement();
+    writer.writeEmptyElement(prefix, localName, namespaceURI);
+  }
+
+  @Override
+  public void writeEmptyElement(String localName) throws XMLStreamException {
+    startElement();
+    writer.writeEmptyElement(localName);
+  }
+
+  @Override
+  public void writeEndElement() throws XMLStreamException {
+    endElement();
+  }
+
+  @Override
+  public void writeEndDocument() throws XMLStreamException {
+    writer.writeEndDocument();
+  }
+
+  @Override
+  public void close() throws XMLStreamException {
+    writer.close();
+  }
+
+  @Override
+  public void flush() throws XMLStreamException {
+    writer.flush();
+  }
+
+  @Override
+  public void writeAttribute(String localName, String value) throws XMLStreamException {
+    attribute(localName, value);
+    writer.writeAttribute(localName, value);
+  }
+
+  @Override
+  public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+    throws XMLStreamException {
+    attribute(localName, value);
+    writer.writeAttribute(prefix, namespaceURI, localName, value);
+  }
+
+  @Override
+  public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+    attribute(localName, value);
+    writer.writeAttribute(namespaceURI, localName, value);
+  }
+
+  @Override
+  public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+    writer.writeNamespace(prefix, namespaceURI);
+  }
+
+  @Override
+  public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+    writer.writeDefaultNamespace(namespaceURI);
+  }
+
+  @Override
+  public void writeComment(String data) throws XMLStreamException {
+    writer.writeComment(data);
+  }
+
+  @Override
+  public void writeProcessingInstruction(String target) throws XMLStreamException {
+    writer.writeProcessingInstruction(target);
+  }
+
+  @Override
+  public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+    writer.writeProcessingInstruction(target, data);
+  }
+
+  @Override
+  public void writeCData(String data) throws XMLStreamException {
+    writer.writeCData(data);
+  }
+
+  @Override
+  public void writeDTD(String dtd) throws XMLStreamException {
+    writer.writeDTD(dtd);
+  }
+
+  @Override
+  public void writeEntityRef(String name) throws XMLStreamException {
+    writer.writeEntityRef(name);
+  }
+
+  @Override
+  public void writeStartDocument() throws XMLStreamException {
+    writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+  }
+
+  @Override
+  public void writeStartDocument(String version) throws XMLStreamException {
+    writer.writeStartDocument(StandardCharsets.UTF_8.name(), version);
+  }
+
+  @Override
+  public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+    writer.writeStartDocument(encoding, version);
+  }
+
+  @Override
+  public void writeCharacters(String text) throws XMLStreamException {
+    writer.writeCharacters(text);
+  }
+
+  @Override
+  public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+    writer.writeCharacters(text, start, len);
+  }
+
+  @Override
+  public String getPrefix(String uri) throws XMLStreamException {
+    return writer.getPrefix(uri);
+  }
+
+  @Override
+  public void setPrefix(String prefix, String uri) throws XMLStreamException {
+    writer.setPrefix(prefix, uri);
+  }
+
+  @Override
+  public void setDefaultNamespace(String uri) throws XMLStreamException {
+    writer.setDefaultNamespace(uri);
+  }
+
+  @Override
+  public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+    writer.setNamespaceContext(context);
+  }
+
+  @Override
+  public NamespaceContext getNamespaceContext() {
+    return writer.getNamespaceContext();
+  }
+
+  @Override
+  public Object getProperty(String name) {
+    return writer.getProperty(name);
+  }
+
+  private static final class Element {
+    private final boolean fileGrp;
+    private boolean spooledFileGrp;
+    private boolean hasChildElements;
+
+    private Element(boolean fileGrp) {
+      this.fileGrp = fileGrp;
+    }
+  }
+
+}
@@ -8,6 +8,7 @@
 package org.roda_project.commons_ip2.utils;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -16,13 +17,12 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -41,6 +41,8 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.Agent.Note
 import org.roda_project.commons_ip2.model.IPAgent;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.MetsWrapper;
+import org.roda_project.commons_ip2.model.SIPBuildPhase;
+import org.roda_project.commons_ip2.model.SIPBuildTimings;
 import org.slf4j.Logger;
 import org.xml.sax.SAXException;
 
@@ -50,41 +52,128 @@ public final class METSUtils {
     // do nothing
   }
 
+  private static volatile METSBinding defaultMETSBinding = METSBinding.JAXB;
+  private static final ThreadLocal<METSBinding> METS_BINDING = new ThreadLocal<>();
+  private static Schema metsSchema;
+
+  /**
+   * @return how METS files are read and written by the current thread or, if
+   *         none was set, the default binding.
+   */
+  public static METSBinding getMETSBinding() {
+    METSBinding binding = METS_BINDING.get();
+    return binding != null ? binding : defaultMETSBinding;
+  }
+
+  /**
+   * Sets how METS files are read and written by the current thread (e.g. while
+   * a SIP is built or parsed, see
+   * {@link org.roda_project.commons_ip2.model.SIP#setMETSBinding(METSBinding)}).
+   *
+   * @param binding
+   *          the binding, or {@code null} to use the default one.
+   * @return the binding previously set for the current thread.
+   */
+  public static METSBinding setMETSBinding(METSBinding binding) {
+    METSBinding previous = METS_BINDING.get();
+    if (binding == null) {
+      METS_BINDING.remove();
+    } else {
+      METS_BINDING.set(binding);
+    }
+    return previous;
+  }
+
+  /**
+   * Sets how METS files are read and written by threads that have no binding
+   * set (by default, {@link METSBinding#JAXB}).
+   */
+  public static void setDefaultMETSBinding(METSBinding binding) {
+    defaultMETSBinding = binding;
+  }
+
   public static Mets instantiateMETSFromFile(Path metsFile) throws JAXBException, SAXException, IOException {
-    JAXBContext jaxbContext = JAXBContext.newInstance(Mets.class);
-    Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(metsFile.toAbsolutePath()))) {
+      return getMETSBinding().unmarshal(inputStream, getMETSSchema(), null);
+    }
+  }
+
+  /**
+   * Loads the METS schema (and the schemas it imports) from the resources.
+   */
+  public static Schema newMETSSchema() throws SAXException {
     SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
     factory.setResourceResolver(new ResourceResolver());
     InputStream metsSchemaInputStream = METSUtils.class
       .getResourceAsStream(IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
     Source metsSchemaSource = new StreamSource(metsSchemaInputStream);
-    Schema schema = factory.newSchema(metsSchemaSource);
-    jaxbUnmarshaller.setSchema(schema);
-    return (Mets) jaxbUnmarshaller.unmarshal(new BufferedInputStream(Files.newInputStream(metsFile.toAbsolutePath())));
+    return factory.newSchema(metsSchemaSource);
+  }
+
+  /**
+   * @return the METS schema, loaded the first time it is needed and shared
+   *         (it is thread-safe).
+   */
+  public static synchronized Schema getMETSSchema() throws SAXException {
+    if (metsSchema == null) {
+      metsSchema = newMETSSchema();
+    }
+    return metsSchema;
   }
 
   public static Path marshallMETS(Mets mets, Path tempMETSFile, boolean rootMETS)
     throws JAXBException, IOException, IPException {
-    JAXBContext context = JAXBContext.newInstance(Mets.class);
-    Marshaller m = context.createMarshaller();
-    m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    return marshallMETS(mets, tempMETSFile, rootMETS, null);
+  }
+
+  /**
+   * Marshals a METS whose data {@code fileGrp} content was spooled to disk (see
+   * {@link METSFileGrpSpool}). The METS object graph is marshalled through a
+   * StAX writer that streams the spooled {@code file} elements into that
+   * {@code fileGrp}, so the output is the same (schema-wise) as if the files
+   * had been added to the graph.
+   */
+  public static Path marshallMETS(Mets mets, Path tempMETSFile, boolean rootMETS, METSFileGrpSpool dataFileGrpSpool)
+    throws JAXBException, IOException, IPException {
+    return marshallMETS(mets, tempMETSFile, rootMETS, dataFileGrpSpool, null);
+  }
+
+  /**
+   * Same as {@link #marshallMETS(Mets, Path, boolean, METSFileGrpSpool)},
+   * updating the provided digest (if not {@code null}) with the bytes written,
+   * so that the METS checksum is known without reading it back.
+   */
+  public static Path marshallMETS(Mets mets, Path tempMETSFile, boolean rootMETS, METSFileGrpSpool dataFileGrpSpool,
+    MessageDigest digest) throws JAXBException, IOException, IPException {
+    long start = System.nanoTime();
+    try {
+      return writeMETS(mets, tempMETSFile, rootMETS, dataFileGrpSpool, digest);
+    } finally {
+      SIPBuildTimings.current().add(SIPBuildPhase.METS_GENERATION, System.nanoTime() - start);
+    }
+  }
 
+  private static Path writeMETS(Mets mets, Path tempMETSFile, boolean rootMETS, METSFileGrpSpool dataFileGrpSpool,
+    MessageDigest digest) throws JAXBException, IOException, IPException {
+    String schemaLocation;
     if (rootMETS) {
-      m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-        "http://www.loc.gov/METS/ schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
-          + " http://www.w3.org/1999/xlink schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
-          + " https://dilcis.eu/XML/METS/CSIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
-          + " https://dilcis.eu/XML/METS/SIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME);
+      schemaLocation = "http://www.loc.gov/METS/ schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
+        + " http://www.w3.org/1999/xlink schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
+        + " https://dilcis.eu/XML/METS/CSIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
+        + " https://dilcis.eu/XML/METS/SIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME;
     } else {
-      m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-        "http://www.loc.gov/METS/ ../../schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
-          + " http://www.w3.org/1999/xlink ../../schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
-          + " https://dilcis.eu/XML/METS/CSIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
-          + " https://dilcis.eu/XML/METS/SIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME);
+      schemaLocation = "http://www.loc.gov/METS/ ../../schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
+        + " http://www.w3.org/1999/xlink ../../schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
+        + " https://dilcis.eu/XML/METS/CSIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
+        + " https://dilcis.eu/XML/METS/SIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME;
     }
 
-    try (OutputStream metsOutputStream = Files.newOutputStream(tempMETSFile)) {
-      m.marshal(mets, metsOutputStream);
+    OutputStream fileOutputStream = Files.newOutputStream(tempMETSFile);
+    if (digest != null) {
+      fileOutputStream = new DigestOutputStream(fileOutputStream, digest);
+    }
+    try (OutputStream metsOutputStream = new BufferedOutputStream(fileOutputStream)) {
+      getMETSBinding().marshal(mets, metsOutputStream, schemaLocation, dataFileGrpSpool);
     }
 
     return tempMETSFile;
@@ -194,12 +283,27 @@ public final class METSUtils {
     }
   }
 
-  private static String getFileMimetype(Path file) throws IOException {
-    String probedContentType = Files.probeContentType(file);
+  /**
+   * Sets the information collected by a {@link FileAttributesCollector}.
+   */
+  public static void setFileBasicInformation(FileType fileType, FileAttributesCollector.FileAttributes attributes) {
+    fileType.setMIMETYPE(attributes.getMimetype());
+    fileType.setCREATED(attributes.getCreated());
+    fileType.setSIZE(attributes.getSize());
+  }
+
+  public static String getFileMimetype(Path file) throws IOException {
+    long start = System.nanoTime();
+    String probedContentType;
+    try {
+      probedContentType = Files.probeContentType(file);
+    } finally {
+      SIPBuildTimings.current().add(SIPBuildPhase.MIME_PROBING, System.nanoTime() - start);
+    }
     if (probedContentType == null) {
       probedContentType = "application/octet-stream";
     } else {
-      if (!IanaMediaTypes.getIanaMediaTypesList().contains(probedContentType)) {
+      if (!IanaMediaTypes.isRegistered(probedContentType)) {
         probedContentType = "application/octet-stream";
       }
     }
@@ -8,16 +8,13 @@
 package org.roda_project.commons_ip2.utils;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 
+import javax.xml.bind.DatatypeConverter;
 import javax.xml.bind.JAXBException;
 
 import org.roda_project.commons_ip.utils.FileZipEntryInfo;
@@ -36,14 +33,21 @@ public class METSZipEntryInfo extends FileZipEntryInfo {
   private Map<String, String> checksums;
   private long size;
   private FileType fileType;
+  private METSFileGrpSpool dataFileGrpSpool;
 
   public METSZipEntryInfo(String name, Path filePath, Mets mets, boolean rootMETS, FileType fileType) {
+    this(name, filePath, mets, rootMETS, fileType, null);
+  }
+
+  public METSZipEntryInfo(String name, Path filePath, Mets mets, boolean rootMETS, FileType fileType,
+    METSFileGrpSpool dataFileGrpSpool) {
     super(name, filePath);
     this.mets = mets;
     this.rootMETS = rootMETS;
     checksums = new HashMap<>();
     size = 0;
     this.fileType = fileType;
+    this.dataFileGrpSpool = dataFileGrpSpool;
   }
 
   public Map<String, String> getChecksums() {
@@ -62,28 +66,29 @@ public class METSZipEntryInfo extends FileZipEntryInfo {
     this.size = size;
   }
 
+  /**
+   * @return the element of the root METS that references this METS (if it is
+   *         not the root METS).
+   */
+  public FileType getFileType() {
+    return fileType;
+  }
+
   @Override
   public void prepareEntryforZipping() throws IPException {
     try {
-      METSUtils.marshallMETS(mets, getFilePath(), rootMETS);
       if (!rootMETS && fileType != null) {
-        METSUtils.setFileBasicInformation(LOGGER, getFilePath(), fileType);
-
+        // the checksum referenced by the root METS is calculated while writing
         String checksumType = IPConstants.CHECKSUM_ALGORITHM;
-        Set<String> checksumAlgorithms = new HashSet<>();
-        checksumAlgorithms.add(checksumType);
-        try (InputStream inputStream = Files.newInputStream(getFilePath())) {
-          Map<String, String> checksums = ZIPUtils.calculateChecksums(Optional.empty(), inputStream,
-            checksumAlgorithms);
-          String checksum = checksums.get(checksumType);
-          fileType.setCHECKSUM(checksum);
-          fileType.setCHECKSUMTYPE(checksumType);
-        } catch (NoSuchAlgorithmException e) {
-          // do nothing
-        }
-
+        MessageDigest digest = MessageDigest.getInstance(checksumType);
+        METSUtils.marshallMETS(mets, getFilePath(), rootMETS, dataFileGrpSpool, digest);
+        METSUtils.setFileBasicInformation(LOGGER, getFilePath(), fileType);
+        fileType.setCHECKSUM(DatatypeConverter.printHexBinary(digest.digest()));
+        fileType.setCHECKSUMTYPE(checksumType);
+      } else {
+        METSUtils.marshallMETS(mets, getFilePath(), rootMETS, dataFileGrpSpool);
       }
-    } catch (JAXBException | IOException e) {
+    } catch (JAXBException | IOException | NoSuchAlgorithmException e) {
       throw new IPException("Error marshalling METS", e);
     } catch (InterruptedException e) {
       // do nothing
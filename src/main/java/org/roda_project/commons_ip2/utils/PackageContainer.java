@@ -0,0 +1,78 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.SIP;
+
+/**
+ * Archive format in which an IP is packaged (e.g. ZIP or TAR). Building writes
+ * the entries of the IP to it and parsing and validating extract it, so the
+ * rest of the build (METS generation, checksums, progress) does not depend on
+ * the format.
+ */
+public interface PackageContainer {
+
+  /** ZIP, with the entries compressed according to the SIP (default). */
+  PackageContainer ZIP = new ZipPackageContainer();
+
+  /** Uncompressed TAR. */
+  PackageContainer TAR = new TarPackageContainer(0);
+
+  /**
+   * @return the extension of the package files (e.g. .zip).
+   */
+  String getFileExtension();
+
+  /**
+   * Writes the entries of an IP to the package, setting their checksums (and
+   * the ones of the METS elements that reference them), and closes the output.
+   *
+   * @param createSipIdFolder
+   *          if the entries are written inside a folder named after the SIP id.
+   */
+  void write(Map<String, ZipEntryInfo> entries, OutputStream out, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException;
+
+  /**
+   * Writes the entries of an IP to a package file, journaling them (in a file
+   * next to it) so that, if the build is interrupted (even by a crash), running
+   * it again resumes it after the last entries known to be on disk. Entries
+   * are kept only if they are still the same (in the same order, from sources
+   * of the same size and modification time).
+   *
+   * @param createSipIdFolder
+   *          if the entries are written inside a folder named after the SIP id.
+   */
+  default void writeResumable(Map<String, ZipEntryInfo> entries, Path packagePath, SIP sip,
+    boolean createSipIdFolder) throws IOException, InterruptedException, IPException {
+    throw new IPException("Resumable builds are not supported for " + getFileExtension() + " packages");
+  }
+
+  /**
+   * @return if the file is a package in this format (judging by its content,
+   *         not its name).
+   */
+  boolean canExtract(Path path) throws IOException;
+
+  void extract(Path source, Path destinationDirectory) throws IOException;
+
+  /**
+   * @return the container of a package file, judging by its content (ZIP if
+   *         it is not in any other known format).
+   */
+  static PackageContainer of(Path path) throws IOException {
+    return TAR.canExtract(path) ? TAR : ZIP;
+  }
+}
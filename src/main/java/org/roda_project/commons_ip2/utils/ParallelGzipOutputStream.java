@@ -0,0 +1,165 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP output stream that deflates blocks of its input concurrently (in the
+ * same way as pigz): each block is deflated on its own, primed with the last
+ * 32 KiB of the previous block as dictionary, and ended with a sync flush so
+ * the deflated blocks can be concatenated into a single GZIP member, readable
+ * by any GZIP decompressor. The CRC-32 is calculated sequentially, as the input
+ * is written.
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+  private static final int BLOCK_SIZE = 128 * 1024;
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int maxPendingBlocks;
+  private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength;
+  private byte[] dictionary;
+  private long size;
+  private boolean closed;
+
+  ParallelGzipOutputStream(OutputStream out, int threads) throws IOException {
+    this.out = out;
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "commons-ip-gzip-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.maxPendingBlocks = threads * 2;
+    out.write(HEADER);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    crc.update(b, off, len);
+    size += len;
+    while (len > 0) {
+      int n = Math.min(len, BLOCK_SIZE - blockLength);
+      System.arraycopy(b, off, block, blockLength, n);
+      blockLength += n;
+      off += n;
+      len -= n;
+      if (blockLength == BLOCK_SIZE) {
+        submitBlock(false);
+      }
+    }
+  }
+
+  private void submitBlock(boolean last) throws IOException {
+    final byte[] input = block;
+    final int length = blockLength;
+    final byte[] blockDictionary = dictionary;
+    pendingBlocks.add(executor.submit(() -> deflate(input, length, blockDictionary, last)));
+    if (length >= DICTIONARY_SIZE) {
+      dictionary = Arrays.copyOfRange(input, length - DICTIONARY_SIZE, length);
+    }
+    block = new byte[BLOCK_SIZE];
+    blockLength = 0;
+    while (pendingBlocks.size() >= maxPendingBlocks) {
+      writeNextBlock();
+    }
+  }
+
+  private static byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      if (dictionary != null) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(input, 0, length);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2 + 64);
+      byte[] buffer = new byte[64 * 1024];
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          output.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        int n;
+        do {
+          n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          output.write(buffer, 0, n);
+        } while (n == buffer.length);
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void writeNextBlock() throws IOException {
+    try {
+      out.write(pendingBlocks.remove().get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ClosedByInterruptException();
+    } catch (ExecutionException e) {
+      throw new IOException("Error deflating block", e.getCause());
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      submitBlock(true);
+      while (!pendingBlocks.isEmpty()) {
+        writeNextBlock();
+      }
+      writeInt((int) crc.getValue());
+      writeInt((int) size);
+    } finally {
+      executor.shutdownNow();
+      out.close();
+    }
+  }
+
+  private void writeInt(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+    out.write((value >>> 16) & 0xff);
+    out.write((value >>> 24) & 0xff);
+  }
+}
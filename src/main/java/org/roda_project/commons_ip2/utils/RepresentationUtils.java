@@ -3,11 +3,10 @@ package org.roda_project.commons_ip2.utils;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFolder;
 import org.roda_project.commons_ip2.model.IPRepresentation;
 
 /**
@@ -23,7 +22,7 @@ public final class RepresentationUtils {
 
     for (Path file : filesOrFolders) {
       try {
-        addToRepresentation(file, representation, Collections.EMPTY_LIST);
+        addToRepresentation(file, representation, IPFolder.ROOT);
       } catch (final IOException e) {
         // do nothing
       }
@@ -34,7 +33,7 @@ public final class RepresentationUtils {
     if (Files.isDirectory(directory)) {
       Files.list(directory).forEach(f -> {
         try {
-          addToRepresentation(f, representation, Collections.EMPTY_LIST);
+          addToRepresentation(f, representation, IPFolder.ROOT);
         } catch (final IOException e) {
           // do nothing
         }
@@ -43,10 +42,9 @@ public final class RepresentationUtils {
   }
 
   private static void addToRepresentation(final Path path, final IPRepresentation representation,
-    final List<String> relativeFolders) throws IOException {
+    final IPFolder relativeFolders) throws IOException {
     if (Files.isDirectory(path)) {
-      final List<String> newRelative = new ArrayList<>(relativeFolders);
-      newRelative.add(path.getFileName().toString());
+      final IPFolder newRelative = relativeFolders.child(path.getFileName().toString());
       Files.list(path).forEach(f -> {
         try {
           addToRepresentation(f, representation, newRelative);
@@ -0,0 +1,41 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.validation.Schema;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+
+/**
+ * {@link METSBinding} through {@link StAXMETSReader} and
+ * {@link StAXMETSWriter}.
+ */
+final class StAXMETSBinding implements METSBinding {
+
+  @Override
+  public Mets unmarshal(InputStream inputStream, Schema schema, Consumer<Object> listener) throws JAXBException {
+    return StAXMETSReader.read(inputStream, schema, listener);
+  }
+
+  @Override
+  public void marshal(Mets mets, OutputStream outputStream, String schemaLocation, METSFileGrpSpool dataFileGrpSpool)
+    throws IPException {
+    try {
+      StAXMETSWriter.write(mets, outputStream, schemaLocation, dataFileGrpSpool);
+    } catch (XMLStreamException e) {
+      throw new IPException("Error writing METS", e);
+    }
+  }
+}
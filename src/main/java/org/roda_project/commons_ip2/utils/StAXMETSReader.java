@@ -0,0 +1,1801 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.Schema;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.AreaType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.BehaviorSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.BehaviorType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Fptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Mptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FContent;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FLocat;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.TransformFile;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdWrap;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.Agent;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.AltRecordID;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.MetsDocumentID;
+import org.roda_project.commons_ip2.mets_v1_12.beans.ObjectType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.ParType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.SeqType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp.SmArcLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp.SmLocatorLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads a METS into the {@link Mets} object graph, as JAXB does (IDs collapsed,
+ * IDREFs resolved to the objects with those IDs, unknown attributes kept in
+ * the other attributes and {@code xmlData} content as DOM elements), creating
+ * the objects directly. It also reads the METS one element at a time for
+ * {@link METSStreamReader} (see {@link #forElements(XMLStreamReader, Function)}).
+ */
+final class StAXMETSReader {
+  static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+  static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+  static final String CSIP_NAMESPACE = "https://DILCIS.eu/XML/METS/CSIPExtensionMETS";
+  static final String SIP_NAMESPACE = "https://DILCIS.eu/XML/METS/SIPExtensionMETS";
+
+  private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+  private static final DatatypeFactory DATATYPE_FACTORY = newDatatypeFactory();
+
+  private final XMLStreamReader reader;
+  private final Consumer<Object> listener;
+  private final Map<String, Object> ids = new HashMap<>();
+  private final Function<String, ?> resolver;
+  private final List<Reference> references = new ArrayList<>();
+  private Document document;
+
+  private StAXMETSReader(XMLStreamReader reader, Consumer<Object> listener, Function<String, ?> resolver) {
+    this.reader = reader;
+    this.listener = listener;
+    this.resolver = resolver;
+  }
+
+  static Mets read(InputStream inputStream, Schema schema, Consumer<Object> listener) throws JAXBException {
+    try {
+      XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+      if (schema != null) {
+        reader = new ValidatingXMLStreamReader(reader, schema.newValidatorHandler());
+      }
+      try {
+        return read(reader, listener);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      // like JAXB, a validation error is the cause of the unmarshal exception
+      throw new UnmarshalException(e.getNestedException() instanceof SAXException ? e.getNestedException() : e);
+    }
+  }
+
+  /**
+   * Reads a whole METS document from the reader (that is not closed).
+   */
+  static Mets read(XMLStreamReader reader, Consumer<Object> listener) throws XMLStreamException, UnmarshalException {
+    return new StAXMETSReader(reader, listener, null).readDocument();
+  }
+
+  /**
+   * Gets a reader of single elements of a METS, for {@link METSStreamReader}.
+   * Each element is read on its own, from the reader's current
+   * {@code START_ELEMENT}, and its references are resolved as soon as it is
+   * read. The IDs of the elements read are not kept, so memory usage does not
+   * grow with the number of elements.
+   *
+   * @param resolver
+   *          gives the object a reference resolves to, by ID, or {@code null}
+   *          to leave the reference out.
+   */
+  static StAXMETSReader forElements(XMLStreamReader reader, Function<String, ?> resolver) {
+    return new StAXMETSReader(reader, null, resolver);
+  }
+
+  /** Reads the attributes of the {@code mets} element, leaving its content. */
+  Mets startMets() throws XMLStreamException {
+    return resolve(readMetsAttributes(new Mets()));
+  }
+
+  /** Reads the attributes of a {@code fileGrp} element, leaving its content. */
+  FileGrpType startFileGrp(boolean fileSecChild) throws XMLStreamException {
+    return resolve(readFileGrpAttributes(fileSecChild ? new FileSec.FileGrp() : new FileGrpType()));
+  }
+
+  /**
+   * Reads the attributes of a {@code structMap} element, leaving its content.
+   */
+  StructMapType startStructMap() throws XMLStreamException {
+    return resolve(readStructMapAttributes());
+  }
+
+  /** Reads the attributes of a {@code div} element, leaving its content. */
+  DivType startDiv() throws XMLStreamException {
+    return resolve(readDivAttributes());
+  }
+
+  /**
+   * Reads a whole {@code metsHdr} element, leaving the reader at the event
+   * after its end (as JAXB does). The same goes for the other whole elements.
+   */
+  MetsHdr metsHdr() throws XMLStreamException {
+    return element(readMetsHdr());
+  }
+
+  MdSecType dmdSec() throws XMLStreamException {
+    return element(readMdSec());
+  }
+
+  AmdSecType amdSec() throws XMLStreamException {
+    return element(readAmdSec());
+  }
+
+  FileType file() throws XMLStreamException {
+    return element(readFile());
+  }
+
+  Mptr mptr() throws XMLStreamException {
+    return element(readMptr());
+  }
+
+  Fptr fptr() throws XMLStreamException {
+    return element(readFptr());
+  }
+
+  private Mets readDocument() throws XMLStreamException, UnmarshalException {
+    int event = reader.getEventType();
+    while (event != XMLStreamConstants.START_ELEMENT) {
+      event = reader.next();
+    }
+    if (!METS_NAMESPACE.equals(reader.getNamespaceURI()) || !"mets".equals(reader.getLocalName())) {
+      throw new UnmarshalException("Unexpected element " + reader.getName() + ", expected mets");
+    }
+    Mets mets = readMets(new Mets());
+    // make sure the whole document was read (and validated)
+    while (reader.hasNext()) {
+      reader.next();
+    }
+    for (Reference reference : references) {
+      Object target = ids.get(reference.id);
+      if (target != null) {
+        reference.setter.accept(target);
+      }
+    }
+    return mets;
+  }
+
+  private <T> T element(T object) throws XMLStreamException {
+    resolve(object);
+    reader.next();
+    return object;
+  }
+
+  private <T> T resolve(T object) {
+    for (Reference reference : references) {
+      Object target = resolver.apply(reference.id);
+      if (target != null) {
+        reference.setter.accept(target);
+      }
+    }
+    references.clear();
+    return object;
+  }
+
+  private <T extends MetsType> T readMetsAttributes(T mets) throws XMLStreamException {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          mets.setID(id(value, mets));
+          break;
+        case "OBJID":
+          mets.setOBJID(value);
+          break;
+        case "LABEL":
+          mets.setLABEL(value);
+          break;
+        case "TYPE":
+          mets.setTYPE(value);
+          break;
+        case "csip:OTHERTYPE":
+          mets.setOTHERTYPE(value);
+          break;
+        case "csip:CONTENTINFORMATIONTYPE":
+          mets.setCONTENTINFORMATIONTYPE(value);
+          break;
+        case "csip:OTHERCONTENTINFORMATIONTYPE":
+          mets.setOTHERCONTENTINFORMATIONTYPE(value);
+          break;
+        case "PROFILE":
+          mets.setPROFILE(value);
+          break;
+        default:
+          otherAttribute(i, mets.getOtherAttributes());
+      }
+    }
+    return mets;
+  }
+
+  private <T extends MetsType> T readMets(T mets) throws XMLStreamException {
+    readMetsAttributes(mets);
+    while (nextChild()) {
+      switch (childName()) {
+        case "metsHdr":
+          mets.setMetsHdr(readMetsHdr());
+          break;
+        case "dmdSec":
+          mets.getDmdSec().add(readMdSec());
+          break;
+        case "amdSec":
+          mets.getAmdSec().add(readAmdSec());
+          break;
+        case "fileSec":
+          mets.setFileSec(readFileSec());
+          break;
+        case "structMap":
+          mets.getStructMap().add(readStructMap());
+          break;
+        case "structLink":
+          mets.setStructLink(readStructLink(new MetsType.StructLink()));
+          break;
+        case "behaviorSec":
+          mets.getBehaviorSec().add(readBehaviorSec());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(mets);
+  }
+
+  private MetsHdr readMetsHdr() throws XMLStreamException {
+    MetsHdr metsHdr = new MetsHdr();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          metsHdr.setID(id(value, metsHdr));
+          break;
+        case "ADMID":
+          idrefs(value, metsHdr.getADMID());
+          break;
+        case "CREATEDATE":
+          metsHdr.setCREATEDATE(dateTime(value));
+          break;
+        case "LASTMODDATE":
+          metsHdr.setLASTMODDATE(dateTime(value));
+          break;
+        case "RECORDSTATUS":
+          metsHdr.setRECORDSTATUS(value);
+          break;
+        case "csip:OAISPACKAGETYPE":
+          metsHdr.setOAISPACKAGETYPE(value);
+          break;
+        default:
+          otherAttribute(i, metsHdr.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "agent":
+          metsHdr.getAgent().add(readAgent());
+          break;
+        case "altRecordID":
+          metsHdr.getAltRecordID().add(readAltRecordID());
+          break;
+        case "metsDocumentID":
+          metsHdr.setMetsDocumentID(readMetsDocumentID());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(metsHdr);
+  }
+
+  private Agent readAgent() throws XMLStreamException {
+    Agent agent = new Agent();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          agent.setID(id(value, agent));
+          break;
+        case "ROLE":
+          agent.setROLE(value);
+          break;
+        case "OTHERROLE":
+          agent.setOTHERROLE(value);
+          break;
+        case "TYPE":
+          agent.setTYPE(value);
+          break;
+        case "OTHERTYPE":
+          agent.setOTHERTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "name":
+          agent.setName(reader.getElementText());
+          break;
+        case "note":
+          agent.getNote().add(readNote());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(agent);
+  }
+
+  private Agent.Note readNote() throws XMLStreamException {
+    Agent.Note note = new Agent.Note();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if ("csip:NOTETYPE".equals(attributeName(i))) {
+        note.setNOTETYPE(reader.getAttributeValue(i));
+      } else {
+        otherAttribute(i, note.getOtherAttributes());
+      }
+    }
+    note.setValue(reader.getElementText());
+    return done(note);
+  }
+
+  private AltRecordID readAltRecordID() throws XMLStreamException {
+    AltRecordID altRecordID = new AltRecordID();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          altRecordID.setID(id(value, altRecordID));
+          break;
+        case "TYPE":
+          altRecordID.setTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    altRecordID.setValue(reader.getElementText());
+    return done(altRecordID);
+  }
+
+  private MetsDocumentID readMetsDocumentID() throws XMLStreamException {
+    MetsDocumentID metsDocumentID = new MetsDocumentID();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          metsDocumentID.setID(id(value, metsDocumentID));
+          break;
+        case "TYPE":
+          metsDocumentID.setTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    metsDocumentID.setValue(reader.getElementText());
+    return done(metsDocumentID);
+  }
+
+  private MdSecType readMdSec() throws XMLStreamException {
+    MdSecType mdSec = new MdSecType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          mdSec.setID(id(value, mdSec));
+          break;
+        case "GROUPID":
+          mdSec.setGROUPID(value);
+          break;
+        case "ADMID":
+          idrefs(value, mdSec.getADMID());
+          break;
+        case "CREATED":
+          mdSec.setCREATED(dateTime(value));
+          break;
+        case "STATUS":
+          mdSec.setSTATUS(value);
+          break;
+        default:
+          otherAttribute(i, mdSec.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "mdRef":
+          mdSec.setMdRef(readMdRef());
+          break;
+        case "mdWrap":
+          mdSec.setMdWrap(readMdWrap());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(mdSec);
+  }
+
+  private MdRef readMdRef() throws XMLStreamException {
+    MdRef mdRef = new MdRef();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          mdRef.setID(id(value, mdRef));
+          break;
+        case "LABEL":
+          mdRef.setLABEL(value);
+          break;
+        case "XPTR":
+          mdRef.setXPTR(value);
+          break;
+        case "LOCTYPE":
+          mdRef.setLOCTYPE(value);
+          break;
+        case "OTHERLOCTYPE":
+          mdRef.setOTHERLOCTYPE(value);
+          break;
+        case "MDTYPE":
+          mdRef.setMDTYPE(value);
+          break;
+        case "OTHERMDTYPE":
+          mdRef.setOTHERMDTYPE(value);
+          break;
+        case "MDTYPEVERSION":
+          mdRef.setMDTYPEVERSION(value);
+          break;
+        case "xlink:type":
+          mdRef.setType(value);
+          break;
+        case "xlink:href":
+          mdRef.setHref(value);
+          break;
+        case "xlink:role":
+          mdRef.setRole(value);
+          break;
+        case "xlink:arcrole":
+          mdRef.setArcrole(value);
+          break;
+        case "xlink:title":
+          mdRef.setTitle(value);
+          break;
+        case "xlink:show":
+          mdRef.setShow(value);
+          break;
+        case "xlink:actuate":
+          mdRef.setActuate(value);
+          break;
+        case "MIMETYPE":
+          mdRef.setMIMETYPE(value);
+          break;
+        case "SIZE":
+          mdRef.setSIZE(longValue(value));
+          break;
+        case "CREATED":
+          mdRef.setCREATED(dateTime(value));
+          break;
+        case "CHECKSUM":
+          mdRef.setCHECKSUM(value);
+          break;
+        case "CHECKSUMTYPE":
+          mdRef.setCHECKSUMTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(mdRef);
+  }
+
+  private MdWrap readMdWrap() throws XMLStreamException {
+    MdWrap mdWrap = new MdWrap();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          mdWrap.setID(id(value, mdWrap));
+          break;
+        case "LABEL":
+          mdWrap.setLABEL(value);
+          break;
+        case "MIMETYPE":
+          mdWrap.setMIMETYPE(value);
+          break;
+        case "SIZE":
+          mdWrap.setSIZE(longValue(value));
+          break;
+        case "CREATED":
+          mdWrap.setCREATED(dateTime(value));
+          break;
+        case "CHECKSUM":
+          mdWrap.setCHECKSUM(value);
+          break;
+        case "CHECKSUMTYPE":
+          mdWrap.setCHECKSUMTYPE(value);
+          break;
+        case "MDTYPE":
+          mdWrap.setMDTYPE(value);
+          break;
+        case "OTHERMDTYPE":
+          mdWrap.setOTHERMDTYPE(value);
+          break;
+        case "MDTYPEVERSION":
+          mdWrap.setMDTYPEVERSION(value);
+          break;
+        default:
+          break;
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "binData":
+          mdWrap.setBinData(binData());
+          break;
+        case "xmlData":
+          MdWrap.XmlData xmlData = new MdWrap.XmlData();
+          readAny(xmlData.getAny());
+          mdWrap.setXmlData(done(xmlData));
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(mdWrap);
+  }
+
+  private AmdSecType readAmdSec() throws XMLStreamException {
+    AmdSecType amdSec = new AmdSecType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if ("ID".equals(attributeName(i))) {
+        amdSec.setID(id(reader.getAttributeValue(i), amdSec));
+      } else {
+        otherAttribute(i, amdSec.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "techMD":
+          amdSec.getTechMD().add(readMdSec());
+          break;
+        case "rightsMD":
+          amdSec.getRightsMD().add(readMdSec());
+          break;
+        case "sourceMD":
+          amdSec.getSourceMD().add(readMdSec());
+          break;
+        case "digiprovMD":
+          amdSec.getDigiprovMD().add(readMdSec());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(amdSec);
+  }
+
+  private FileSec readFileSec() throws XMLStreamException {
+    FileSec fileSec = new FileSec();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if ("ID".equals(attributeName(i))) {
+        fileSec.setID(id(reader.getAttributeValue(i), fileSec));
+      } else {
+        otherAttribute(i, fileSec.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      if ("fileGrp".equals(childName())) {
+        fileSec.getFileGrp().add(readFileGrp(new FileSec.FileGrp()));
+      } else {
+        skipElement();
+      }
+    }
+    return done(fileSec);
+  }
+
+  private <T extends FileGrpType> T readFileGrpAttributes(T fileGrp) throws XMLStreamException {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          fileGrp.setID(id(value, fileGrp));
+          break;
+        case "VERSDATE":
+          fileGrp.setVERSDATE(dateTime(value));
+          break;
+        case "ADMID":
+          idrefs(value, fileGrp.getADMID());
+          break;
+        case "USE":
+          fileGrp.setUSE(value);
+          break;
+        default:
+          otherAttribute(i, fileGrp.getOtherAttributes());
+      }
+    }
+    return fileGrp;
+  }
+
+  private <T extends FileGrpType> T readFileGrp(T fileGrp) throws XMLStreamException {
+    readFileGrpAttributes(fileGrp);
+    while (nextChild()) {
+      switch (childName()) {
+        case "fileGrp":
+          fileGrp.getFileGrp().add(readFileGrp(new FileGrpType()));
+          break;
+        case "file":
+          fileGrp.getFile().add(readFile());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(fileGrp);
+  }
+
+  private FileType readFile() throws XMLStreamException {
+    FileType file = new FileType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          file.setID(id(value, file));
+          break;
+        case "SEQ":
+          file.setSEQ(intValue(value));
+          break;
+        case "OWNERID":
+          file.setOWNERID(value);
+          break;
+        case "ADMID":
+          idrefs(value, file.getADMID());
+          break;
+        case "DMDID":
+          idrefs(value, file.getDMDID());
+          break;
+        case "GROUPID":
+          file.setGROUPID(value);
+          break;
+        case "USE":
+          file.setUSE(value);
+          break;
+        case "BEGIN":
+          file.setBEGIN(value);
+          break;
+        case "END":
+          file.setEND(value);
+          break;
+        case "BETYPE":
+          file.setBETYPE(value);
+          break;
+        case "sip:FILEFORMATNAME":
+          file.setFILEFORMATNAME(value);
+          break;
+        case "sip:FILEFORMATVERSION":
+          file.setFILEFORMATVERSION(value);
+          break;
+        case "sip:FORMATREGISTRY":
+          file.setFORMATREGISTRY(value);
+          break;
+        case "sip:FORMATREGISTRYKEY":
+          file.setFORMATREGISTRYKEY(value);
+          break;
+        case "MIMETYPE":
+          file.setMIMETYPE(value);
+          break;
+        case "SIZE":
+          file.setSIZE(longValue(value));
+          break;
+        case "CREATED":
+          file.setCREATED(dateTime(value));
+          break;
+        case "CHECKSUM":
+          file.setCHECKSUM(value);
+          break;
+        case "CHECKSUMTYPE":
+          file.setCHECKSUMTYPE(value);
+          break;
+        default:
+          otherAttribute(i, file.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "FLocat":
+          file.getFLocat().add(readFLocat());
+          break;
+        case "FContent":
+          file.setFContent(readFContent());
+          break;
+        case "stream":
+          file.getStream().add(readStream());
+          break;
+        case "transformFile":
+          file.getTransformFile().add(readTransformFile());
+          break;
+        case "file":
+          file.getFile().add(readFile());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(file);
+  }
+
+  private FLocat readFLocat() throws XMLStreamException {
+    FLocat fLocat = new FLocat();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          fLocat.setID(id(value, fLocat));
+          break;
+        case "USE":
+          fLocat.setUSE(value);
+          break;
+        case "xlink:type":
+          fLocat.setType(value);
+          break;
+        case "xlink:href":
+          fLocat.setHref(value);
+          break;
+        case "xlink:role":
+          fLocat.setRole(value);
+          break;
+        case "xlink:arcrole":
+          fLocat.setArcrole(value);
+          break;
+        case "xlink:title":
+          fLocat.setTitle(value);
+          break;
+        case "xlink:show":
+          fLocat.setShow(value);
+          break;
+        case "xlink:actuate":
+          fLocat.setActuate(value);
+          break;
+        case "LOCTYPE":
+          fLocat.setLOCTYPE(value);
+          break;
+        case "OTHERLOCTYPE":
+          fLocat.setOTHERLOCTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(fLocat);
+  }
+
+  private FContent readFContent() throws XMLStreamException {
+    FContent fContent = new FContent();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          fContent.setID(id(value, fContent));
+          break;
+        case "USE":
+          fContent.setUSE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "binData":
+          fContent.setBinData(binData());
+          break;
+        case "xmlData":
+          FContent.XmlData xmlData = new FContent.XmlData();
+          readAny(xmlData.getAny());
+          fContent.setXmlData(done(xmlData));
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(fContent);
+  }
+
+  private FileType.Stream readStream() throws XMLStreamException {
+    FileType.Stream stream = new FileType.Stream();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          stream.setID(id(value, stream));
+          break;
+        case "streamType":
+          stream.setStreamType(value);
+          break;
+        case "OWNERID":
+          stream.setOWNERID(value);
+          break;
+        case "ADMID":
+          idrefs(value, stream.getADMID());
+          break;
+        case "DMDID":
+          idrefs(value, stream.getDMDID());
+          break;
+        case "BEGIN":
+          stream.setBEGIN(value);
+          break;
+        case "END":
+          stream.setEND(value);
+          break;
+        case "BETYPE":
+          stream.setBETYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(stream);
+  }
+
+  private TransformFile readTransformFile() throws XMLStreamException {
+    TransformFile transformFile = new TransformFile();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          transformFile.setID(id(value, transformFile));
+          break;
+        case "TRANSFORMTYPE":
+          transformFile.setTRANSFORMTYPE(value);
+          break;
+        case "TRANSFORMALGORITHM":
+          transformFile.setTRANSFORMALGORITHM(value);
+          break;
+        case "TRANSFORMKEY":
+          transformFile.setTRANSFORMKEY(value);
+          break;
+        case "TRANSFORMBEHAVIOR":
+          idref(value, transformFile::setTRANSFORMBEHAVIOR);
+          break;
+        case "TRANSFORMORDER":
+          transformFile.setTRANSFORMORDER(integerValue(value));
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(transformFile);
+  }
+
+  private StructMapType readStructMapAttributes() throws XMLStreamException {
+    StructMapType structMap = new StructMapType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          structMap.setID(id(value, structMap));
+          break;
+        case "TYPE":
+          structMap.setTYPE(value);
+          break;
+        case "LABEL":
+          structMap.setLABEL(value);
+          break;
+        default:
+          otherAttribute(i, structMap.getOtherAttributes());
+      }
+    }
+    return structMap;
+  }
+
+  private StructMapType readStructMap() throws XMLStreamException {
+    StructMapType structMap = readStructMapAttributes();
+    while (nextChild()) {
+      if ("div".equals(childName())) {
+        structMap.setDiv(readDiv());
+      } else {
+        skipElement();
+      }
+    }
+    return done(structMap);
+  }
+
+  private DivType readDivAttributes() throws XMLStreamException {
+    DivType div = new DivType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          div.setID(id(value, div));
+          break;
+        case "DMDID":
+          idrefs(value, div.getDMDID());
+          break;
+        case "ADMID":
+          idrefs(value, div.getADMID());
+          break;
+        case "TYPE":
+          div.setTYPE(value);
+          break;
+        case "CONTENTIDS":
+          tokens(value, div.getCONTENTIDS());
+          break;
+        case "xlink:label":
+          div.setXlinkLabel(value);
+          break;
+        case "ORDER":
+          div.setORDER(integerValue(value));
+          break;
+        case "ORDERLABEL":
+          div.setORDERLABEL(value);
+          break;
+        case "LABEL":
+          div.setLABEL(value);
+          break;
+        default:
+          break;
+      }
+    }
+    return div;
+  }
+
+  private DivType readDiv() throws XMLStreamException {
+    DivType div = readDivAttributes();
+    while (nextChild()) {
+      switch (childName()) {
+        case "mptr":
+          div.getMptr().add(readMptr());
+          break;
+        case "fptr":
+          div.getFptr().add(readFptr());
+          break;
+        case "div":
+          div.getDiv().add(readDiv());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(div);
+  }
+
+  private Mptr readMptr() throws XMLStreamException {
+    Mptr mptr = new Mptr();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          mptr.setID(id(value, mptr));
+          break;
+        case "CONTENTIDS":
+          tokens(value, mptr.getCONTENTIDS());
+          break;
+        case "xlink:type":
+          mptr.setType(value);
+          break;
+        case "xlink:href":
+          mptr.setHref(value);
+          break;
+        case "xlink:role":
+          mptr.setRole(value);
+          break;
+        case "xlink:arcrole":
+          mptr.setArcrole(value);
+          break;
+        case "xlink:title":
+          mptr.setTitle(value);
+          break;
+        case "xlink:show":
+          mptr.setShow(value);
+          break;
+        case "xlink:actuate":
+          mptr.setActuate(value);
+          break;
+        case "LOCTYPE":
+          mptr.setLOCTYPE(value);
+          break;
+        case "OTHERLOCTYPE":
+          mptr.setOTHERLOCTYPE(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(mptr);
+  }
+
+  private Fptr readFptr() throws XMLStreamException {
+    Fptr fptr = new Fptr();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          fptr.setID(id(value, fptr));
+          break;
+        case "FILEID":
+          idref(value, fptr::setFILEID);
+          break;
+        case "CONTENTIDS":
+          tokens(value, fptr.getCONTENTIDS());
+          break;
+        default:
+          otherAttribute(i, fptr.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "par":
+          fptr.setPar(readPar());
+          break;
+        case "seq":
+          fptr.setSeq(readSeq());
+          break;
+        case "area":
+          fptr.setArea(readArea());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(fptr);
+  }
+
+  private ParType readPar() throws XMLStreamException {
+    ParType par = new ParType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          par.setID(id(value, par));
+          break;
+        case "ORDER":
+          par.setORDER(integerValue(value));
+          break;
+        case "ORDERLABEL":
+          par.setORDERLABEL(value);
+          break;
+        case "LABEL":
+          par.setLABEL(value);
+          break;
+        default:
+          otherAttribute(i, par.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "area":
+          par.getAreaOrSeq().add(readArea());
+          break;
+        case "seq":
+          par.getAreaOrSeq().add(readSeq());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(par);
+  }
+
+  private SeqType readSeq() throws XMLStreamException {
+    SeqType seq = new SeqType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          seq.setID(id(value, seq));
+          break;
+        case "ORDER":
+          seq.setORDER(integerValue(value));
+          break;
+        case "ORDERLABEL":
+          seq.setORDERLABEL(value);
+          break;
+        case "LABEL":
+          seq.setLABEL(value);
+          break;
+        default:
+          otherAttribute(i, seq.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "area":
+          seq.getAreaOrPar().add(readArea());
+          break;
+        case "par":
+          seq.getAreaOrPar().add(readPar());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(seq);
+  }
+
+  private AreaType readArea() throws XMLStreamException {
+    AreaType area = new AreaType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          area.setID(id(value, area));
+          break;
+        case "FILEID":
+          idref(value, area::setFILEID);
+          break;
+        case "SHAPE":
+          area.setSHAPE(value);
+          break;
+        case "COORDS":
+          area.setCOORDS(value);
+          break;
+        case "BEGIN":
+          area.setBEGIN(value);
+          break;
+        case "END":
+          area.setEND(value);
+          break;
+        case "BETYPE":
+          area.setBETYPE(value);
+          break;
+        case "EXTENT":
+          area.setEXTENT(value);
+          break;
+        case "EXTTYPE":
+          area.setEXTTYPE(value);
+          break;
+        case "ADMID":
+          idrefs(value, area.getADMID());
+          break;
+        case "CONTENTIDS":
+          tokens(value, area.getCONTENTIDS());
+          break;
+        case "ORDER":
+          area.setORDER(integerValue(value));
+          break;
+        case "ORDERLABEL":
+          area.setORDERLABEL(value);
+          break;
+        case "LABEL":
+          area.setLABEL(value);
+          break;
+        default:
+          otherAttribute(i, area.getOtherAttributes());
+      }
+    }
+    skipContent();
+    return done(area);
+  }
+
+  private <T extends StructLinkType> T readStructLink(T structLink) throws XMLStreamException {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if ("ID".equals(attributeName(i))) {
+        structLink.setID(id(reader.getAttributeValue(i), structLink));
+      } else {
+        otherAttribute(i, structLink.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "smLink":
+          structLink.getSmLinkOrSmLinkGrp().add(readSmLink());
+          break;
+        case "smLinkGrp":
+          structLink.getSmLinkOrSmLinkGrp().add(readSmLinkGrp());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(structLink);
+  }
+
+  private SmLink readSmLink() throws XMLStreamException {
+    SmLink smLink = new SmLink();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          smLink.setID(id(value, smLink));
+          break;
+        case "xlink:arcrole":
+          smLink.setArcrole(value);
+          break;
+        case "xlink:title":
+          smLink.setTitle(value);
+          break;
+        case "xlink:show":
+          smLink.setShow(value);
+          break;
+        case "xlink:actuate":
+          smLink.setActuate(value);
+          break;
+        case "xlink:to":
+          smLink.setTo(value);
+          break;
+        case "xlink:from":
+          smLink.setFrom(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(smLink);
+  }
+
+  private SmLinkGrp readSmLinkGrp() throws XMLStreamException {
+    SmLinkGrp smLinkGrp = new SmLinkGrp();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          smLinkGrp.setID(id(value, smLinkGrp));
+          break;
+        case "ARCLINKORDER":
+          smLinkGrp.setARCLINKORDER(value);
+          break;
+        case "xlink:type":
+          smLinkGrp.setType(value);
+          break;
+        case "xlink:role":
+          smLinkGrp.setRole(value);
+          break;
+        case "xlink:title":
+          smLinkGrp.setTitle(value);
+          break;
+        default:
+          break;
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "smLocatorLink":
+          smLinkGrp.getSmLocatorLink().add(readSmLocatorLink());
+          break;
+        case "smArcLink":
+          smLinkGrp.getSmArcLink().add(readSmArcLink());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(smLinkGrp);
+  }
+
+  private SmLocatorLink readSmLocatorLink() throws XMLStreamException {
+    SmLocatorLink smLocatorLink = new SmLocatorLink();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          smLocatorLink.setID(id(value, smLocatorLink));
+          break;
+        case "xlink:type":
+          smLocatorLink.setType(value);
+          break;
+        case "xlink:href":
+          smLocatorLink.setHref(value);
+          break;
+        case "xlink:role":
+          smLocatorLink.setRole(value);
+          break;
+        case "xlink:title":
+          smLocatorLink.setTitle(value);
+          break;
+        case "xlink:label":
+          smLocatorLink.setXlinkLabel(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(smLocatorLink);
+  }
+
+  private SmArcLink readSmArcLink() throws XMLStreamException {
+    SmArcLink smArcLink = new SmArcLink();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          smArcLink.setID(id(value, smArcLink));
+          break;
+        case "ARCTYPE":
+          smArcLink.setARCTYPE(value);
+          break;
+        case "ADMID":
+          idrefs(value, smArcLink.getADMID());
+          break;
+        case "xlink:type":
+          smArcLink.setType(value);
+          break;
+        case "xlink:arcrole":
+          smArcLink.setArcrole(value);
+          break;
+        case "xlink:title":
+          smArcLink.setTitle(value);
+          break;
+        case "xlink:show":
+          smArcLink.setShow(value);
+          break;
+        case "xlink:actuate":
+          smArcLink.setActuate(value);
+          break;
+        case "xlink:from":
+          smArcLink.setFrom(value);
+          break;
+        case "xlink:to":
+          smArcLink.setTo(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(smArcLink);
+  }
+
+  private BehaviorSecType readBehaviorSec() throws XMLStreamException {
+    BehaviorSecType behaviorSec = new BehaviorSecType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          behaviorSec.setID(id(value, behaviorSec));
+          break;
+        case "CREATED":
+          behaviorSec.setCREATED(dateTime(value));
+          break;
+        case "LABEL":
+          behaviorSec.setLABEL(value);
+          break;
+        default:
+          otherAttribute(i, behaviorSec.getOtherAttributes());
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "behaviorSec":
+          behaviorSec.getBehaviorSec().add(readBehaviorSec());
+          break;
+        case "behavior":
+          behaviorSec.getBehavior().add(readBehavior());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(behaviorSec);
+  }
+
+  private BehaviorType readBehavior() throws XMLStreamException {
+    BehaviorType behavior = new BehaviorType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          behavior.setID(id(value, behavior));
+          break;
+        case "STRUCTID":
+          idrefs(value, behavior.getSTRUCTID());
+          break;
+        case "BTYPE":
+          behavior.setBTYPE(value);
+          break;
+        case "CREATED":
+          behavior.setCREATED(dateTime(value));
+          break;
+        case "LABEL":
+          behavior.setLABEL(value);
+          break;
+        case "GROUPID":
+          behavior.setGROUPID(value);
+          break;
+        case "ADMID":
+          idrefs(value, behavior.getADMID());
+          break;
+        default:
+          break;
+      }
+    }
+    while (nextChild()) {
+      switch (childName()) {
+        case "interfaceDef":
+          behavior.setInterfaceDef(readObject());
+          break;
+        case "mechanism":
+          behavior.setMechanism(readObject());
+          break;
+        default:
+          skipElement();
+      }
+    }
+    return done(behavior);
+  }
+
+  private ObjectType readObject() throws XMLStreamException {
+    ObjectType object = new ObjectType();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String value = reader.getAttributeValue(i);
+      switch (attributeName(i)) {
+        case "ID":
+          object.setID(id(value, object));
+          break;
+        case "LABEL":
+          object.setLABEL(value);
+          break;
+        case "LOCTYPE":
+          object.setLOCTYPE(value);
+          break;
+        case "OTHERLOCTYPE":
+          object.setOTHERLOCTYPE(value);
+          break;
+        case "xlink:type":
+          object.setType(value);
+          break;
+        case "xlink:href":
+          object.setHref(value);
+          break;
+        case "xlink:role":
+          object.setRole(value);
+          break;
+        case "xlink:arcrole":
+          object.setArcrole(value);
+          break;
+        case "xlink:title":
+          object.setTitle(value);
+          break;
+        case "xlink:show":
+          object.setShow(value);
+          break;
+        case "xlink:actuate":
+          object.setActuate(value);
+          break;
+        default:
+          break;
+      }
+    }
+    skipContent();
+    return done(object);
+  }
+
+  /**
+   * Reads the content of an {@code xmlData}: METS documents are read as
+   * {@link Mets} and other elements as DOM {@link Element}s.
+   */
+  private void readAny(List<Object> any) throws XMLStreamException {
+    while (nextChild()) {
+      if ("mets".equals(childName())) {
+        any.add(readMets(new Mets()));
+      } else {
+        Element element = newElement(null);
+        readElementContent(element);
+        any.add(element);
+      }
+    }
+  }
+
+  private Element newElement(Node parent) throws XMLStreamException {
+    String namespace = emptyToNull(reader.getNamespaceURI());
+    String prefix = emptyToNull(reader.getPrefix());
+    Element element = document().createElementNS(namespace, qName(prefix, reader.getLocalName()));
+    if (parent != null) {
+      parent.appendChild(element);
+    }
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String declaredPrefix = emptyToNull(reader.getNamespacePrefix(i));
+      element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, xmlnsName(declaredPrefix),
+        reader.getNamespaceURI(i));
+    }
+    // namespaces declared outside of the element content are declared on it
+    declareNamespace(element, prefix, namespace);
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String attributeNamespace = emptyToNull(reader.getAttributeNamespace(i));
+      String attributePrefix = emptyToNull(reader.getAttributePrefix(i));
+      if (attributeNamespace != null) {
+        declareNamespace(element, attributePrefix, attributeNamespace);
+      }
+      element.setAttributeNS(attributeNamespace, qName(attributePrefix, reader.getAttributeLocalName(i)),
+        reader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  private void readElementContent(Element element) throws XMLStreamException {
+    int event = reader.next();
+    while (event != XMLStreamConstants.END_ELEMENT) {
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          readElementContent(newElement(element));
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          element.appendChild(document().createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          element.appendChild(document().createCDATASection(reader.getText()));
+          break;
+        case XMLStreamConstants.COMMENT:
+          element.appendChild(document().createComment(reader.getText()));
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          element.appendChild(document().createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+          break;
+        default:
+          break;
+      }
+      event = reader.next();
+    }
+  }
+
+  private static void declareNamespace(Element element, String prefix, String namespace) {
+    String declared = element.lookupNamespaceURI(prefix);
+    if (namespace == null ? declared != null : !namespace.equals(declared)) {
+      element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, xmlnsName(prefix),
+        namespace == null ? "" : namespace);
+    }
+  }
+
+  private Document document() throws XMLStreamException {
+    if (document == null) {
+      try {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        document = factory.newDocumentBuilder().newDocument();
+      } catch (ParserConfigurationException e) {
+        throw new XMLStreamException("Error creating DOM document", e);
+      }
+    }
+    return document;
+  }
+
+  /**
+   * Moves to the next child element of the current element, returning
+   * {@code true}, or to its end, returning {@code false}.
+   */
+  private boolean nextChild() throws XMLStreamException {
+    while (true) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        return true;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return the local name of the current element, if it is in the METS
+   *         namespace, or an empty string otherwise.
+   */
+  private String childName() {
+    return METS_NAMESPACE.equals(reader.getNamespaceURI()) ? reader.getLocalName() : "";
+  }
+
+  /**
+   * @return the name of an attribute, prefixed by the usual prefix of its
+   *         namespace (e.g. {@code xlink:href}) or an empty string if its
+   *         namespace is not one of the METS ones.
+   */
+  private String attributeName(int index) {
+    String namespace = reader.getAttributeNamespace(index);
+    if (namespace == null || namespace.isEmpty()) {
+      return reader.getAttributeLocalName(index);
+    } else if (XLINK_NAMESPACE.equals(namespace)) {
+      return "xlink:" + reader.getAttributeLocalName(index);
+    } else if (CSIP_NAMESPACE.equals(namespace)) {
+      return "csip:" + reader.getAttributeLocalName(index);
+    } else if (SIP_NAMESPACE.equals(namespace)) {
+      return "sip:" + reader.getAttributeLocalName(index);
+    } else {
+      return "";
+    }
+  }
+
+  /**
+   * Keeps an attribute the METS binding does not know about, as JAXB does
+   * (except the {@code xsi} ones).
+   */
+  private void otherAttribute(int index, Map<QName, String> otherAttributes) {
+    String namespace = reader.getAttributeNamespace(index);
+    if (!XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespace)) {
+      otherAttributes.put(reader.getAttributeName(index), reader.getAttributeValue(index));
+    }
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /** Skips the content of an element that can only be empty. */
+  private void skipContent() throws XMLStreamException {
+    while (nextChild()) {
+      skipElement();
+    }
+  }
+
+  private <T> T done(T object) {
+    if (listener != null) {
+      listener.accept(object);
+    }
+    return object;
+  }
+
+  private String id(String value, Object object) {
+    String id = collapse(value);
+    if (resolver == null) {
+      ids.put(id, object);
+    }
+    return id;
+  }
+
+  private void idref(String value, Consumer<Object> setter) {
+    references.add(new Reference(collapse(value), setter));
+  }
+
+  private void idrefs(String value, List<Object> targets) {
+    for (String id : value.trim().split("\\s+")) {
+      if (!id.isEmpty()) {
+        references.add(new Reference(id, targets::add));
+      }
+    }
+  }
+
+  private static void tokens(String value, List<String> values) {
+    for (String token : value.trim().split("\\s+")) {
+      if (!token.isEmpty()) {
+        values.add(token);
+      }
+    }
+  }
+
+  private byte[] binData() throws XMLStreamException {
+    return Base64.getMimeDecoder().decode(reader.getElementText().trim());
+  }
+
+  private XMLGregorianCalendar dateTime(String value) throws XMLStreamException {
+    try {
+      return DATATYPE_FACTORY.newXMLGregorianCalendar(value.trim());
+    } catch (IllegalArgumentException e) {
+      throw invalidValue(value, e);
+    }
+  }
+
+  private Long longValue(String value) throws XMLStreamException {
+    try {
+      return Long.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      throw invalidValue(value, e);
+    }
+  }
+
+  private Integer intValue(String value) throws XMLStreamException {
+    try {
+      return Integer.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      throw invalidValue(value, e);
+    }
+  }
+
+  private BigInteger integerValue(String value) throws XMLStreamException {
+    try {
+      return new BigInteger(value.trim());
+    } catch (NumberFormatException e) {
+      throw invalidValue(value, e);
+    }
+  }
+
+  private XMLStreamException invalidValue(String value, Exception cause) {
+    return new XMLStreamException("Invalid value \"" + value + "\"", reader.getLocation(), cause);
+  }
+
+  private static String collapse(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.isWhitespace(value.charAt(i))) {
+        return value.trim().replaceAll("\\s+", " ");
+      }
+    }
+    return value;
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+
+  private static String qName(String prefix, String localName) {
+    return prefix == null ? localName : prefix + ":" + localName;
+  }
+
+  private static String xmlnsName(String prefix) {
+    return prefix == null ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+  }
+
+  private static XMLInputFactory newInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  private static DatatypeFactory newDatatypeFactory() {
+    try {
+      return DatatypeFactory.newInstance();
+    } catch (DatatypeConfigurationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static final class Reference {
+    private final String id;
+    private final Consumer<Object> setter;
+
+    private Reference(String id, Consumer<Object> setter) {
+      this.id = id;
+      this.setter = setter;
+    }
+  }
+}
@@ -0,0 +1,918 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import static org.roda_project.commons_ip2.utils.StAXMETSReader.CSIP_NAMESPACE;
+import static org.roda_project.commons_ip2.utils.StAXMETSReader.METS_NAMESPACE;
+import static org.roda_project.commons_ip2.utils.StAXMETSReader.SIP_NAMESPACE;
+import static org.roda_project.commons_ip2.utils.StAXMETSReader.XLINK_NAMESPACE;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.AreaType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.BehaviorSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.BehaviorType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Fptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Mptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FContent;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FLocat;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.TransformFile;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdWrap;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.Agent;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.AltRecordID;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.MetsDocumentID;
+import org.roda_project.commons_ip2.mets_v1_12.beans.ObjectType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.ParType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.SeqType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp.SmArcLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructLinkType.SmLinkGrp.SmLocatorLink;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes the {@link Mets} object graph as JAXB does (same prefixes for the
+ * METS namespaces, attributes and elements in the same order, IDREFs written
+ * as the IDs of the objects they reference), through a
+ * {@link METSStreamWriter} so the output is indented and spooled data files are
+ * streamed into it.
+ */
+final class StAXMETSWriter {
+  private static final String XLINK = "xlink";
+  private static final String CSIP = "csip";
+  private static final String SIP = "sip";
+
+  private final XMLStreamWriter writer;
+  private int generatedPrefixes = 0;
+
+  private StAXMETSWriter(XMLStreamWriter writer) {
+    this.writer = writer;
+  }
+
+  static void write(Mets mets, OutputStream outputStream, String schemaLocation, METSFileGrpSpool dataFileGrpSpool)
+    throws XMLStreamException {
+    XMLStreamWriter writer = new METSStreamWriter(new UTF8XMLStreamWriter(outputStream), dataFileGrpSpool);
+    writer.writeStartDocument();
+    new StAXMETSWriter(writer).writeMets(mets, schemaLocation, true);
+    writer.writeEndDocument();
+    writer.close();
+  }
+
+  /**
+   * Writes a single {@code file} element, for {@link METSStreamWriter} to
+   * stream spooled files into a METS being written (with the namespace
+   * prefixes declared on its root).
+   */
+  static void writeFile(XMLStreamWriter writer, FileType file) throws XMLStreamException {
+    new StAXMETSWriter(writer).writeFile(file);
+  }
+
+  private void writeMets(MetsType mets, String schemaLocation, boolean root) throws XMLStreamException {
+    writer.writeStartElement("", "mets", METS_NAMESPACE);
+    if (root) {
+      writer.writeNamespace("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+      writer.writeNamespace(SIP, SIP_NAMESPACE);
+      writer.writeDefaultNamespace(METS_NAMESPACE);
+      writer.writeNamespace(CSIP, CSIP_NAMESPACE);
+      writer.writeNamespace(XLINK, XLINK_NAMESPACE);
+    }
+    attribute("ID", mets.getID());
+    attribute("OBJID", mets.getOBJID());
+    attribute("LABEL", mets.getLABEL());
+    attribute("TYPE", mets.getTYPE());
+    attribute(CSIP, CSIP_NAMESPACE, "OTHERTYPE", mets.getOTHERTYPE());
+    attribute(CSIP, CSIP_NAMESPACE, "CONTENTINFORMATIONTYPE", mets.getCONTENTINFORMATIONTYPE());
+    attribute(CSIP, CSIP_NAMESPACE, "OTHERCONTENTINFORMATIONTYPE", mets.getOTHERCONTENTINFORMATIONTYPE());
+    attribute("PROFILE", mets.getPROFILE());
+    otherAttributes(mets.getOtherAttributes());
+    if (root && schemaLocation != null) {
+      writer.writeAttribute("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation", schemaLocation);
+    }
+    if (mets.getMetsHdr() != null) {
+      writeMetsHdr(mets.getMetsHdr());
+    }
+    for (MdSecType dmdSec : mets.getDmdSec()) {
+      writeMdSec("dmdSec", dmdSec);
+    }
+    for (AmdSecType amdSec : mets.getAmdSec()) {
+      writeAmdSec(amdSec);
+    }
+    if (mets.getFileSec() != null) {
+      writeFileSec(mets.getFileSec());
+    }
+    for (StructMapType structMap : mets.getStructMap()) {
+      writeStructMap(structMap);
+    }
+    if (mets.getStructLink() != null) {
+      writeStructLink(mets.getStructLink());
+    }
+    for (BehaviorSecType behaviorSec : mets.getBehaviorSec()) {
+      writeBehaviorSec(behaviorSec);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeMetsHdr(MetsHdr metsHdr) throws XMLStreamException {
+    startElement("metsHdr");
+    attribute("ID", metsHdr.getID());
+    idrefs("ADMID", metsHdr.getADMID());
+    attribute("CREATEDATE", metsHdr.getCREATEDATE());
+    attribute("LASTMODDATE", metsHdr.getLASTMODDATE());
+    attribute("RECORDSTATUS", metsHdr.getRECORDSTATUS());
+    attribute(CSIP, CSIP_NAMESPACE, "OAISPACKAGETYPE", metsHdr.getOAISPACKAGETYPE());
+    otherAttributes(metsHdr.getOtherAttributes());
+    for (Agent agent : metsHdr.getAgent()) {
+      writeAgent(agent);
+    }
+    for (AltRecordID altRecordID : metsHdr.getAltRecordID()) {
+      startElement("altRecordID");
+      attribute("ID", altRecordID.getID());
+      attribute("TYPE", altRecordID.getTYPE());
+      characters(altRecordID.getValue());
+      writer.writeEndElement();
+    }
+    if (metsHdr.getMetsDocumentID() != null) {
+      startElement("metsDocumentID");
+      attribute("ID", metsHdr.getMetsDocumentID().getID());
+      attribute("TYPE", metsHdr.getMetsDocumentID().getTYPE());
+      characters(metsHdr.getMetsDocumentID().getValue());
+      writer.writeEndElement();
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeAgent(Agent agent) throws XMLStreamException {
+    startElement("agent");
+    attribute("ID", agent.getID());
+    attribute("ROLE", agent.getROLE());
+    attribute("OTHERROLE", agent.getOTHERROLE());
+    attribute("TYPE", agent.getTYPE());
+    attribute("OTHERTYPE", agent.getOTHERTYPE());
+    if (agent.getName() != null) {
+      startElement("name");
+      characters(agent.getName());
+      writer.writeEndElement();
+    }
+    for (Agent.Note note : agent.getNote()) {
+      startElement("note");
+      attribute(CSIP, CSIP_NAMESPACE, "NOTETYPE", note.getNOTETYPE());
+      otherAttributes(note.getOtherAttributes());
+      characters(note.getValue());
+      writer.writeEndElement();
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeMdSec(String name, MdSecType mdSec) throws XMLStreamException {
+    startElement(name);
+    attribute("ID", mdSec.getID());
+    attribute("GROUPID", mdSec.getGROUPID());
+    idrefs("ADMID", mdSec.getADMID());
+    attribute("CREATED", mdSec.getCREATED());
+    attribute("STATUS", mdSec.getSTATUS());
+    otherAttributes(mdSec.getOtherAttributes());
+    if (mdSec.getMdRef() != null) {
+      writeMdRef(mdSec.getMdRef());
+    }
+    if (mdSec.getMdWrap() != null) {
+      writeMdWrap(mdSec.getMdWrap());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeMdRef(MdRef mdRef) throws XMLStreamException {
+    emptyElement("mdRef");
+    attribute("ID", mdRef.getID());
+    attribute("LABEL", mdRef.getLABEL());
+    attribute("XPTR", mdRef.getXPTR());
+    attribute("LOCTYPE", mdRef.getLOCTYPE());
+    attribute("OTHERLOCTYPE", mdRef.getOTHERLOCTYPE());
+    attribute("MDTYPE", mdRef.getMDTYPE());
+    attribute("OTHERMDTYPE", mdRef.getOTHERMDTYPE());
+    attribute("MDTYPEVERSION", mdRef.getMDTYPEVERSION());
+    xlinkAttribute("type", mdRef.getType());
+    xlinkAttribute("href", mdRef.getHref());
+    xlinkAttribute("role", mdRef.getRole());
+    xlinkAttribute("arcrole", mdRef.getArcrole());
+    xlinkAttribute("title", mdRef.getTitle());
+    xlinkAttribute("show", mdRef.getShow());
+    xlinkAttribute("actuate", mdRef.getActuate());
+    attribute("MIMETYPE", mdRef.getMIMETYPE());
+    attribute("SIZE", mdRef.getSIZE());
+    attribute("CREATED", mdRef.getCREATED());
+    attribute("CHECKSUM", mdRef.getCHECKSUM());
+    attribute("CHECKSUMTYPE", mdRef.getCHECKSUMTYPE());
+  }
+
+  private void writeMdWrap(MdWrap mdWrap) throws XMLStreamException {
+    startElement("mdWrap");
+    attribute("ID", mdWrap.getID());
+    attribute("LABEL", mdWrap.getLABEL());
+    attribute("MIMETYPE", mdWrap.getMIMETYPE());
+    attribute("SIZE", mdWrap.getSIZE());
+    attribute("CREATED", mdWrap.getCREATED());
+    attribute("CHECKSUM", mdWrap.getCHECKSUM());
+    attribute("CHECKSUMTYPE", mdWrap.getCHECKSUMTYPE());
+    attribute("MDTYPE", mdWrap.getMDTYPE());
+    attribute("OTHERMDTYPE", mdWrap.getOTHERMDTYPE());
+    attribute("MDTYPEVERSION", mdWrap.getMDTYPEVERSION());
+    writeBinData(mdWrap.getBinData());
+    if (mdWrap.getXmlData() != null) {
+      writeXmlData(mdWrap.getXmlData().getAny());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeAmdSec(AmdSecType amdSec) throws XMLStreamException {
+    startElement("amdSec");
+    attribute("ID", amdSec.getID());
+    otherAttributes(amdSec.getOtherAttributes());
+    for (MdSecType techMD : amdSec.getTechMD()) {
+      writeMdSec("techMD", techMD);
+    }
+    for (MdSecType rightsMD : amdSec.getRightsMD()) {
+      writeMdSec("rightsMD", rightsMD);
+    }
+    for (MdSecType sourceMD : amdSec.getSourceMD()) {
+      writeMdSec("sourceMD", sourceMD);
+    }
+    for (MdSecType digiprovMD : amdSec.getDigiprovMD()) {
+      writeMdSec("digiprovMD", digiprovMD);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeFileSec(FileSec fileSec) throws XMLStreamException {
+    startElement("fileSec");
+    attribute("ID", fileSec.getID());
+    otherAttributes(fileSec.getOtherAttributes());
+    for (FileGrpType fileGrp : fileSec.getFileGrp()) {
+      writeFileGrp(fileGrp);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeFileGrp(FileGrpType fileGrp) throws XMLStreamException {
+    startElement("fileGrp");
+    attribute("ID", fileGrp.getID());
+    attribute("VERSDATE", fileGrp.getVERSDATE());
+    idrefs("ADMID", fileGrp.getADMID());
+    attribute("USE", fileGrp.getUSE());
+    otherAttributes(fileGrp.getOtherAttributes());
+    for (FileGrpType nestedFileGrp : fileGrp.getFileGrp()) {
+      writeFileGrp(nestedFileGrp);
+    }
+    for (FileType file : fileGrp.getFile()) {
+      writeFile(file);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeFile(FileType file) throws XMLStreamException {
+    startElement("file");
+    attribute("ID", file.getID());
+    attribute("SEQ", file.getSEQ());
+    attribute("OWNERID", file.getOWNERID());
+    idrefs("ADMID", file.getADMID());
+    idrefs("DMDID", file.getDMDID());
+    attribute("GROUPID", file.getGROUPID());
+    attribute("USE", file.getUSE());
+    attribute("BEGIN", file.getBEGIN());
+    attribute("END", file.getEND());
+    attribute("BETYPE", file.getBETYPE());
+    attribute(SIP, SIP_NAMESPACE, "FILEFORMATNAME", file.getFILEFORMATNAME());
+    attribute(SIP, SIP_NAMESPACE, "FILEFORMATVERSION", file.getFILEFORMATVERSION());
+    attribute(SIP, SIP_NAMESPACE, "FORMATREGISTRY", file.getFORMATREGISTRY());
+    attribute(SIP, SIP_NAMESPACE, "FORMATREGISTRYKEY", file.getFORMATREGISTRYKEY());
+    attribute("MIMETYPE", file.getMIMETYPE());
+    attribute("SIZE", file.getSIZE());
+    attribute("CREATED", file.getCREATED());
+    attribute("CHECKSUM", file.getCHECKSUM());
+    attribute("CHECKSUMTYPE", file.getCHECKSUMTYPE());
+    otherAttributes(file.getOtherAttributes());
+    for (FLocat fLocat : file.getFLocat()) {
+      writeFLocat(fLocat);
+    }
+    if (file.getFContent() != null) {
+      writeFContent(file.getFContent());
+    }
+    for (FileType.Stream stream : file.getStream()) {
+      writeStream(stream);
+    }
+    for (TransformFile transformFile : file.getTransformFile()) {
+      writeTransformFile(transformFile);
+    }
+    for (FileType nestedFile : file.getFile()) {
+      writeFile(nestedFile);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeFLocat(FLocat fLocat) throws XMLStreamException {
+    emptyElement("FLocat");
+    attribute("ID", fLocat.getID());
+    attribute("USE", fLocat.getUSE());
+    xlinkAttribute("type", fLocat.getType());
+    xlinkAttribute("href", fLocat.getHref());
+    xlinkAttribute("role", fLocat.getRole());
+    xlinkAttribute("arcrole", fLocat.getArcrole());
+    xlinkAttribute("title", fLocat.getTitle());
+    xlinkAttribute("show", fLocat.getShow());
+    xlinkAttribute("actuate", fLocat.getActuate());
+    attribute("LOCTYPE", fLocat.getLOCTYPE());
+    attribute("OTHERLOCTYPE", fLocat.getOTHERLOCTYPE());
+  }
+
+  private void writeFContent(FContent fContent) throws XMLStreamException {
+    startElement("FContent");
+    attribute("ID", fContent.getID());
+    attribute("USE", fContent.getUSE());
+    writeBinData(fContent.getBinData());
+    if (fContent.getXmlData() != null) {
+      writeXmlData(fContent.getXmlData().getAny());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeStream(FileType.Stream stream) throws XMLStreamException {
+    emptyElement("stream");
+    attribute("ID", stream.getID());
+    attribute("streamType", stream.getStreamType());
+    attribute("OWNERID", stream.getOWNERID());
+    idrefs("ADMID", stream.getADMID());
+    idrefs("DMDID", stream.getDMDID());
+    attribute("BEGIN", stream.getBEGIN());
+    attribute("END", stream.getEND());
+    attribute("BETYPE", stream.getBETYPE());
+  }
+
+  private void writeTransformFile(TransformFile transformFile) throws XMLStreamException {
+    emptyElement("transformFile");
+    attribute("ID", transformFile.getID());
+    attribute("TRANSFORMTYPE", transformFile.getTRANSFORMTYPE());
+    attribute("TRANSFORMALGORITHM", transformFile.getTRANSFORMALGORITHM());
+    attribute("TRANSFORMKEY", transformFile.getTRANSFORMKEY());
+    idref("TRANSFORMBEHAVIOR", transformFile.getTRANSFORMBEHAVIOR());
+    attribute("TRANSFORMORDER", transformFile.getTRANSFORMORDER());
+  }
+
+  private void writeStructMap(StructMapType structMap) throws XMLStreamException {
+    startElement("structMap");
+    attribute("ID", structMap.getID());
+    attribute("TYPE", structMap.getTYPE());
+    attribute("LABEL", structMap.getLABEL());
+    otherAttributes(structMap.getOtherAttributes());
+    if (structMap.getDiv() != null) {
+      writeDiv(structMap.getDiv());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeDiv(DivType div) throws XMLStreamException {
+    startElement("div");
+    attribute("ID", div.getID());
+    idrefs("DMDID", div.getDMDID());
+    idrefs("ADMID", div.getADMID());
+    attribute("TYPE", div.getTYPE());
+    tokens("CONTENTIDS", div.getCONTENTIDS());
+    xlinkAttribute("label", div.getXlinkLabel());
+    attribute("ORDER", div.getORDER());
+    attribute("ORDERLABEL", div.getORDERLABEL());
+    attribute("LABEL", div.getLABEL());
+    for (Mptr mptr : div.getMptr()) {
+      writeMptr(mptr);
+    }
+    for (Fptr fptr : div.getFptr()) {
+      writeFptr(fptr);
+    }
+    for (DivType nestedDiv : div.getDiv()) {
+      writeDiv(nestedDiv);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeMptr(Mptr mptr) throws XMLStreamException {
+    emptyElement("mptr");
+    attribute("ID", mptr.getID());
+    tokens("CONTENTIDS", mptr.getCONTENTIDS());
+    xlinkAttribute("type", mptr.getType());
+    xlinkAttribute("href", mptr.getHref());
+    xlinkAttribute("role", mptr.getRole());
+    xlinkAttribute("arcrole", mptr.getArcrole());
+    xlinkAttribute("title", mptr.getTitle());
+    xlinkAttribute("show", mptr.getShow());
+    xlinkAttribute("actuate", mptr.getActuate());
+    attribute("LOCTYPE", mptr.getLOCTYPE());
+    attribute("OTHERLOCTYPE", mptr.getOTHERLOCTYPE());
+  }
+
+  private void writeFptr(Fptr fptr) throws XMLStreamException {
+    startElement("fptr");
+    attribute("ID", fptr.getID());
+    idref("FILEID", fptr.getFILEID());
+    tokens("CONTENTIDS", fptr.getCONTENTIDS());
+    otherAttributes(fptr.getOtherAttributes());
+    if (fptr.getPar() != null) {
+      writePar(fptr.getPar());
+    }
+    if (fptr.getSeq() != null) {
+      writeSeq(fptr.getSeq());
+    }
+    if (fptr.getArea() != null) {
+      writeArea(fptr.getArea());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writePar(ParType par) throws XMLStreamException {
+    startElement("par");
+    attribute("ID", par.getID());
+    attribute("ORDER", par.getORDER());
+    attribute("ORDERLABEL", par.getORDERLABEL());
+    attribute("LABEL", par.getLABEL());
+    otherAttributes(par.getOtherAttributes());
+    for (Object areaOrSeq : par.getAreaOrSeq()) {
+      if (areaOrSeq instanceof AreaType) {
+        writeArea((AreaType) areaOrSeq);
+      } else {
+        writeSeq((SeqType) areaOrSeq);
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeSeq(SeqType seq) throws XMLStreamException {
+    startElement("seq");
+    attribute("ID", seq.getID());
+    attribute("ORDER", seq.getORDER());
+    attribute("ORDERLABEL", seq.getORDERLABEL());
+    attribute("LABEL", seq.getLABEL());
+    otherAttributes(seq.getOtherAttributes());
+    for (Object areaOrPar : seq.getAreaOrPar()) {
+      if (areaOrPar instanceof AreaType) {
+        writeArea((AreaType) areaOrPar);
+      } else {
+        writePar((ParType) areaOrPar);
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeArea(AreaType area) throws XMLStreamException {
+    emptyElement("area");
+    attribute("ID", area.getID());
+    idref("FILEID", area.getFILEID());
+    attribute("SHAPE", area.getSHAPE());
+    attribute("COORDS", area.getCOORDS());
+    attribute("BEGIN", area.getBEGIN());
+    attribute("END", area.getEND());
+    attribute("BETYPE", area.getBETYPE());
+    attribute("EXTENT", area.getEXTENT());
+    attribute("EXTTYPE", area.getEXTTYPE());
+    idrefs("ADMID", area.getADMID());
+    tokens("CONTENTIDS", area.getCONTENTIDS());
+    attribute("ORDER", area.getORDER());
+    attribute("ORDERLABEL", area.getORDERLABEL());
+    attribute("LABEL", area.getLABEL());
+    otherAttributes(area.getOtherAttributes());
+  }
+
+  private void writeStructLink(StructLinkType structLink) throws XMLStreamException {
+    startElement("structLink");
+    attribute("ID", structLink.getID());
+    otherAttributes(structLink.getOtherAttributes());
+    for (Object smLinkOrSmLinkGrp : structLink.getSmLinkOrSmLinkGrp()) {
+      if (smLinkOrSmLinkGrp instanceof SmLink) {
+        writeSmLink((SmLink) smLinkOrSmLinkGrp);
+      } else {
+        writeSmLinkGrp((SmLinkGrp) smLinkOrSmLinkGrp);
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeSmLink(SmLink smLink) throws XMLStreamException {
+    emptyElement("smLink");
+    attribute("ID", smLink.getID());
+    xlinkAttribute("arcrole", smLink.getArcrole());
+    xlinkAttribute("title", smLink.getTitle());
+    xlinkAttribute("show", smLink.getShow());
+    xlinkAttribute("actuate", smLink.getActuate());
+    xlinkAttribute("to", smLink.getTo());
+    xlinkAttribute("from", smLink.getFrom());
+  }
+
+  private void writeSmLinkGrp(SmLinkGrp smLinkGrp) throws XMLStreamException {
+    startElement("smLinkGrp");
+    attribute("ID", smLinkGrp.getID());
+    attribute("ARCLINKORDER", smLinkGrp.getARCLINKORDER());
+    xlinkAttribute("type", smLinkGrp.getType());
+    xlinkAttribute("role", smLinkGrp.getRole());
+    xlinkAttribute("title", smLinkGrp.getTitle());
+    for (SmLocatorLink smLocatorLink : smLinkGrp.getSmLocatorLink()) {
+      emptyElement("smLocatorLink");
+      attribute("ID", smLocatorLink.getID());
+      xlinkAttribute("type", smLocatorLink.getType());
+      xlinkAttribute("href", smLocatorLink.getHref());
+      xlinkAttribute("role", smLocatorLink.getRole());
+      xlinkAttribute("title", smLocatorLink.getTitle());
+      xlinkAttribute("label", smLocatorLink.getXlinkLabel());
+    }
+    for (SmArcLink smArcLink : smLinkGrp.getSmArcLink()) {
+      emptyElement("smArcLink");
+      attribute("ID", smArcLink.getID());
+      attribute("ARCTYPE", smArcLink.getARCTYPE());
+      idrefs("ADMID", smArcLink.getADMID());
+      xlinkAttribute("type", smArcLink.getType());
+      xlinkAttribute("arcrole", smArcLink.getArcrole());
+      xlinkAttribute("title", smArcLink.getTitle());
+      xlinkAttribute("show", smArcLink.getShow());
+      xlinkAttribute("actuate", smArcLink.getActuate());
+      xlinkAttribute("from", smArcLink.getFrom());
+      xlinkAttribute("to", smArcLink.getTo());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeBehaviorSec(BehaviorSecType behaviorSec) throws XMLStreamException {
+    startElement("behaviorSec");
+    attribute("ID", behaviorSec.getID());
+    attribute("CREATED", behaviorSec.getCREATED());
+    attribute("LABEL", behaviorSec.getLABEL());
+    otherAttributes(behaviorSec.getOtherAttributes());
+    for (BehaviorSecType nestedBehaviorSec : behaviorSec.getBehaviorSec()) {
+      writeBehaviorSec(nestedBehaviorSec);
+    }
+    for (BehaviorType behavior : behaviorSec.getBehavior()) {
+      writeBehavior(behavior);
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeBehavior(BehaviorType behavior) throws XMLStreamException {
+    startElement("behavior");
+    attribute("ID", behavior.getID());
+    idrefs("STRUCTID", behavior.getSTRUCTID());
+    attribute("BTYPE", behavior.getBTYPE());
+    attribute("CREATED", behavior.getCREATED());
+    attribute("LABEL", behavior.getLABEL());
+    attribute("GROUPID", behavior.getGROUPID());
+    idrefs("ADMID", behavior.getADMID());
+    if (behavior.getInterfaceDef() != null) {
+      writeObject("interfaceDef", behavior.getInterfaceDef());
+    }
+    if (behavior.getMechanism() != null) {
+      writeObject("mechanism", behavior.getMechanism());
+    }
+    writer.writeEndElement();
+  }
+
+  private void writeObject(String name, ObjectType object) throws XMLStreamException {
+    emptyElement(name);
+    attribute("ID", object.getID());
+    attribute("LABEL", object.getLABEL());
+    attribute("LOCTYPE", object.getLOCTYPE());
+    attribute("OTHERLOCTYPE", object.getOTHERLOCTYPE());
+    xlinkAttribute("type", object.getType());
+    xlinkAttribute("href", object.getHref());
+    xlinkAttribute("role", object.getRole());
+    xlinkAttribute("arcrole", object.getArcrole());
+    xlinkAttribute("title", object.getTitle());
+    xlinkAttribute("show", object.getShow());
+    xlinkAttribute("actuate", object.getActuate());
+  }
+
+  private void writeBinData(byte[] binData) throws XMLStreamException {
+    if (binData != null) {
+      startElement("binData");
+      writer.writeCharacters(Base64.getEncoder().encodeToString(binData));
+      writer.writeEndElement();
+    }
+  }
+
+  private void writeXmlData(List<Object> any) throws XMLStreamException {
+    startElement("xmlData");
+    for (Object content : any) {
+      if (content instanceof MetsType) {
+        writeMets((MetsType) content, null, false);
+      } else if (content instanceof Element) {
+        Deque<Map<String, String>> scopes = new ArrayDeque<>();
+        Map<String, String> rootScope = new HashMap<>();
+        rootScope.put("", METS_NAMESPACE);
+        rootScope.put(XLINK, XLINK_NAMESPACE);
+        rootScope.put(CSIP, CSIP_NAMESPACE);
+        rootScope.put(SIP, SIP_NAMESPACE);
+        rootScope.put("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+        scopes.push(rootScope);
+        writeElement((Element) content, scopes);
+      } else {
+        throw new XMLStreamException("Unsupported xmlData content: " + content.getClass().getName());
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  /**
+   * Writes a DOM element, declaring the namespaces it uses that are not in
+   * scope.
+   */
+  private void writeElement(Element element, Deque<Map<String, String>> scopes) throws XMLStreamException {
+    Map<String, String> scope = new HashMap<>();
+    scopes.push(scope);
+    String prefix = nullToEmpty(element.getPrefix());
+    String namespace = nullToEmpty(element.getNamespaceURI());
+    String localName = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+    writer.writeStartElement(prefix, localName, namespace);
+
+    NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); i++) {
+      Attr attribute = (Attr) attributes.item(i);
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+        String declaredPrefix = attribute.getPrefix() == null ? "" : attribute.getLocalName();
+        declareNamespace(scopes, declaredPrefix, attribute.getValue());
+      }
+    }
+    if (!namespace.equals(lookupNamespace(scopes, prefix))) {
+      declareNamespace(scopes, prefix, namespace);
+    }
+    for (int i = 0; i < attributes.getLength(); i++) {
+      Attr attribute = (Attr) attributes.item(i);
+      String attributeNamespace = attribute.getNamespaceURI();
+      if (attributeNamespace == null || attributeNamespace.isEmpty()) {
+        writer.writeAttribute(attribute.getLocalName() != null ? attribute.getLocalName() : attribute.getName(),
+          attribute.getValue());
+      } else if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attributeNamespace)) {
+        String attributePrefix = attribute.getPrefix();
+        if (attributePrefix == null || !attributeNamespace.equals(lookupNamespace(scopes, attributePrefix))) {
+          attributePrefix = generatePrefix();
+          declareNamespace(scopes, attributePrefix, attributeNamespace);
+        }
+        writer.writeAttribute(attributePrefix, attributeNamespace, attribute.getLocalName(), attribute.getValue());
+      }
+    }
+
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      switch (child.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          writeElement((Element) child, scopes);
+          break;
+        case Node.TEXT_NODE:
+          writer.writeCharacters(child.getNodeValue());
+          break;
+        case Node.CDATA_SECTION_NODE:
+          writer.writeCData(child.getNodeValue());
+          break;
+        case Node.COMMENT_NODE:
+          writer.writeComment(child.getNodeValue());
+          break;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+          writer.writeProcessingInstruction(child.getNodeName(), child.getNodeValue());
+          break;
+        default:
+          break;
+      }
+    }
+    writer.writeEndElement();
+    scopes.pop();
+  }
+
+  private void declareNamespace(Deque<Map<String, String>> scopes, String prefix, String namespace)
+    throws XMLStreamException {
+    if (prefix.isEmpty()) {
+      writer.writeDefaultNamespace(namespace);
+    } else {
+      writer.writeNamespace(prefix, namespace);
+    }
+    scopes.peek().put(prefix, namespace);
+  }
+
+  private static String lookupNamespace(Deque<Map<String, String>> scopes, String prefix) {
+    for (Map<String, String> scope : scopes) {
+      String namespace = scope.get(prefix);
+      if (namespace != null) {
+        return namespace;
+      }
+    }
+    return "";
+  }
+
+  private String generatePrefix() {
+    return "ns" + (++generatedPrefixes);
+  }
+
+  private void startElement(String name) throws XMLStreamException {
+    writer.writeStartElement("", name, METS_NAMESPACE);
+  }
+
+  /** Starts an element that has no content. */
+  private void emptyElement(String name) throws XMLStreamException {
+    writer.writeEmptyElement("", name, METS_NAMESPACE);
+  }
+
+  private void characters(String text) throws XMLStreamException {
+    if (text != null) {
+      writer.writeCharacters(text);
+    }
+  }
+
+  private void attribute(String name, String value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(name, value);
+    }
+  }
+
+  private void attribute(String name, Number value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(name, value.toString());
+    }
+  }
+
+  private void attribute(String name, XMLGregorianCalendar value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(name, value.toXMLFormat());
+    }
+  }
+
+  private void attribute(String prefix, String namespace, String name, String value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(prefix, namespace, name, value);
+    }
+  }
+
+  private void xlinkAttribute(String name, String value) throws XMLStreamException {
+    attribute(XLINK, XLINK_NAMESPACE, name, value);
+  }
+
+  private void tokens(String name, List<String> values) throws XMLStreamException {
+    if (!values.isEmpty()) {
+      writer.writeAttribute(name, String.join(" ", values));
+    }
+  }
+
+  private void idref(String name, Object value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(name, id(value));
+    }
+  }
+
+  private void idrefs(String name, List<Object> values) throws XMLStreamException {
+    if (!values.isEmpty()) {
+      StringBuilder ids = new StringBuilder();
+      for (Object value : values) {
+        if (ids.length() > 0) {
+          ids.append(' ');
+        }
+        ids.append(id(value));
+      }
+      writer.writeAttribute(name, ids.toString());
+    }
+  }
+
+  /**
+   * Writes the attributes the METS binding does not know about, declaring
+   * (on the element) the namespaces that are not declared on the root.
+   */
+  private void otherAttributes(Map<QName, String> otherAttributes) throws XMLStreamException {
+    for (Map.Entry<QName, String> attribute : otherAttributes.entrySet()) {
+      QName name = attribute.getKey();
+      String namespace = name.getNamespaceURI();
+      if (namespace.isEmpty()) {
+        writer.writeAttribute(name.getLocalPart(), attribute.getValue());
+      } else {
+        String prefix = rootPrefix(namespace);
+        if (prefix == null) {
+          prefix = generatePrefix();
+          writer.writeNamespace(prefix, namespace);
+        }
+        writer.writeAttribute(prefix, namespace, name.getLocalPart(), attribute.getValue());
+      }
+    }
+  }
+
+  private static String rootPrefix(String namespace) {
+    switch (namespace) {
+      case XLINK_NAMESPACE:
+        return XLINK;
+      case CSIP_NAMESPACE:
+        return CSIP;
+      case SIP_NAMESPACE:
+        return SIP;
+      case XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI:
+        return "xsi";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return the ID of an object referenced by an IDREF.
+   */
+  private static String id(Object object) throws XMLStreamException {
+    String id;
+    if (object instanceof MdSecType) {
+      id = ((MdSecType) object).getID();
+    } else if (object instanceof FileType) {
+      id = ((FileType) object).getID();
+    } else if (object instanceof DivType) {
+      id = ((DivType) object).getID();
+    } else if (object instanceof AmdSecType) {
+      id = ((AmdSecType) object).getID();
+    } else if (object instanceof FileGrpType) {
+      id = ((FileGrpType) object).getID();
+    } else if (object instanceof StructMapType) {
+      id = ((StructMapType) object).getID();
+    } else if (object instanceof MetsType) {
+      id = ((MetsType) object).getID();
+    } else if (object instanceof MetsHdr) {
+      id = ((MetsHdr) object).getID();
+    } else if (object instanceof Agent) {
+      id = ((Agent) object).getID();
+    } else if (object instanceof AltRecordID) {
+      id = ((AltRecordID) object).getID();
+    } else if (object instanceof MetsDocumentID) {
+      id = ((MetsDocumentID) object).getID();
+    } else if (object instanceof MdRef) {
+      id = ((MdRef) object).getID();
+    } else if (object instanceof MdWrap) {
+      id = ((MdWrap) object).getID();
+    } else if (object instanceof FileSec) {
+      id = ((FileSec) object).getID();
+    } else if (object instanceof FLocat) {
+      id = ((FLocat) object).getID();
+    } else if (object instanceof FContent) {
+      id = ((FContent) object).getID();
+    } else if (object instanceof FileType.Stream) {
+      id = ((FileType.Stream) object).getID();
+    } else if (object instanceof TransformFile) {
+      id = ((TransformFile) object).getID();
+    } else if (object instanceof Fptr) {
+      id = ((Fptr) object).getID();
+    } else if (object instanceof Mptr) {
+      id = ((Mptr) object).getID();
+    } else if (object instanceof ParType) {
+      id = ((ParType) object).getID();
+    } else if (object instanceof SeqType) {
+      id = ((SeqType) object).getID();
+    } else if (object instanceof AreaType) {
+      id = ((AreaType) object).getID();
+    } else if (object instanceof StructLinkType) {
+      id = ((StructLinkType) object).getID();
+    } else if (object instanceof SmLink) {
+      id = ((SmLink) object).getID();
+    } else if (object instanceof SmLinkGrp) {
+      id = ((SmLinkGrp) object).getID();
+    } else if (object instanceof SmLocatorLink) {
+      id = ((SmLocatorLink) object).getID();
+    } else if (object instanceof SmArcLink) {
+      id = ((SmArcLink) object).getID();
+    } else if (object instanceof BehaviorSecType) {
+      id = ((BehaviorSecType) object).getID();
+    } else if (object instanceof BehaviorType) {
+      id = ((BehaviorType) object).getID();
+    } else if (object instanceof ObjectType) {
+      id = ((ObjectType) object).getID();
+    } else {
+      throw new XMLStreamException("Cannot reference an object of type " + object.getClass().getName());
+    }
+    if (id == null) {
+      throw new XMLStreamException("Referenced " + object.getClass().getSimpleName() + " has no ID");
+    }
+    return id;
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+}
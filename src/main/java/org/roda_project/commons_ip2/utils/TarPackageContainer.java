@@ -0,0 +1,472 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.SIP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TAR (POSIX ustar, with PAX headers for long names and large files)
+ * {@link PackageContainer}, optionally compressed with GZIP.
+ *
+ * <p>
+ * Entries are streamed one after the other, each hashed while written, so the
+ * package is written in a single pass over the files (unlike STORED ZIP
+ * entries, whose CRC-32 is needed before their content). With GZIP, blocks of
+ * the archive are deflated concurrently by the given number of threads.
+ * </p>
+ */
+public final class TarPackageContainer implements PackageContainer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TarPackageContainer.class);
+
+  private static final String FILE_EXTENSION = ".tar";
+  private static final String GZIP_FILE_EXTENSION = ".tar.gz";
+  private static final int BLOCK_SIZE = 512;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int NAME_LENGTH = 100;
+  private static final int SIZE_OFFSET = 124;
+  private static final int SIZE_LENGTH = 12;
+  private static final int CHECKSUM_OFFSET = 148;
+  private static final int CHECKSUM_LENGTH = 8;
+  private static final int TYPE_OFFSET = 156;
+  private static final int MAGIC_OFFSET = 257;
+  private static final int PREFIX_OFFSET = 345;
+  private static final int PREFIX_LENGTH = 155;
+  private static final byte[] MAGIC = "ustar".getBytes(StandardCharsets.US_ASCII);
+  private static final long MAX_OCTAL_SIZE = 077777777777L;
+  private static final char TYPE_FILE = '0';
+  private static final char TYPE_DIRECTORY = '5';
+  private static final char TYPE_PAX_HEADER = 'x';
+  private static final char TYPE_GNU_LONG_NAME = 'L';
+  private static final String PAX_PATH = "path";
+  private static final String PAX_SIZE = "size";
+
+  private final int compressionThreads;
+
+  TarPackageContainer(int compressionThreads) {
+    this.compressionThreads = compressionThreads;
+  }
+
+  /**
+   * @param threads
+   *          the number of threads deflating the archive.
+   * @return a TAR container compressed with GZIP.
+   */
+  public static TarPackageContainer gzip(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed to compress, got " + threads);
+    }
+    return new TarPackageContainer(threads);
+  }
+
+  /**
+   * @return a TAR container compressed with GZIP by as many threads as
+   *         available processors.
+   */
+  public static TarPackageContainer gzip() {
+    return gzip(Runtime.getRuntime().availableProcessors());
+  }
+
+  public boolean isCompressed() {
+    return compressionThreads > 0;
+  }
+
+  @Override
+  public String getFileExtension() {
+    return isCompressed() ? GZIP_FILE_EXTENSION : FILE_EXTENSION;
+  }
+
+  @Override
+  public void write(Map<String, ZipEntryInfo> entries, OutputStream out, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException {
+    try (OutputStream tar = new BufferedOutputStream(
+      isCompressed() ? new ParallelGzipOutputStream(out, compressionThreads) : out, BUFFER_SIZE)) {
+      write(entries, tar, sip, createSipIdFolder, null);
+    }
+  }
+
+  /**
+   * Same as {@link #write(Map, OutputStream, SIP, boolean)}, appending the
+   * entries after the ones of a previous build interrupted midway. Not
+   * supported with compression, as the compressed stream cannot be continued.
+   */
+  @Override
+  public void writeResumable(Map<String, ZipEntryInfo> entries, Path packagePath, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException {
+    if (isCompressed()) {
+      PackageContainer.super.writeResumable(entries, packagePath, sip, createSipIdFolder);
+      return;
+    }
+    List<ZipEntryInfo> files = new ArrayList<>(entries.values());
+    List<String> entryNames = new ArrayList<>();
+    for (ZipEntryInfo file : files) {
+      entryNames.add(ZIPUtils.getEntryName(file, sip, createSipIdFolder));
+    }
+    try (BuildJournal journal = BuildJournal.open(packagePath, entryNames, files)) {
+      try (OutputStream tar = journal.getOutput()) {
+        write(entries, tar, sip, createSipIdFolder, journal);
+      }
+      journal.finish();
+    }
+  }
+
+  private static void write(Map<String, ZipEntryInfo> entries, OutputStream tar, SIP sip, boolean createSipIdFolder,
+    BuildJournal journal) throws IOException, InterruptedException, IPException {
+    int keptEntries = journal != null ? journal.getKeptEntries() : 0;
+    long[] expectedSizes = new long[entries.size()];
+    long totalBytes = 0;
+    int i = 0;
+    for (ZipEntryInfo file : entries.values()) {
+      expectedSizes[i] = ZIPUtils.sizeIfExists(file.getFilePath());
+      totalBytes += expectedSizes[i++];
+    }
+    ZIPUtils.PackagingProgress progress = new ZIPUtils.PackagingProgress(sip, totalBytes);
+
+    i = 0;
+    for (ZipEntryInfo file : entries.values()) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+
+      if (i < keptEntries) {
+        BuildJournal.Record record = journal.getRecords().get(i);
+        progress.startEntry(file.getName(), expectedSizes[i], record.getSize());
+        ZIPUtils.restoreEntry(file, record.getChecksums(), record.getSize());
+      } else {
+        writeEntry(tar, file, sip, createSipIdFolder, progress, expectedSizes[i], journal);
+      }
+      i++;
+
+      progress.finishEntry();
+      sip.notifySipBuildPackagingCurrentStatus(i);
+    }
+    // end of archive
+    tar.write(new byte[2 * BLOCK_SIZE]);
+  }
+
+  private static void writeEntry(OutputStream tar, ZipEntryInfo file, SIP sip, boolean createSipIdFolder,
+    ZIPUtils.PackagingProgress progress, long expectedSize, BuildJournal journal) throws IOException, IPException {
+    file.prepareEntryforZipping();
+    long size = Files.size(file.getFilePath());
+    progress.startEntry(file.getName(), expectedSize, size);
+
+    LOGGER.debug("Adding file {} to TAR", file.getFilePath());
+    String name = ZIPUtils.getEntryName(file, sip, createSipIdFolder);
+    long offset = journal != null ? journal.position() : 0;
+    Long fixedTime = Utils.getFixedTime();
+    long modified = fixedTime != null ? fixedTime : Files.getLastModifiedTime(file.getFilePath()).toMillis();
+    writeHeader(tar, name, size, modified / 1000);
+    Set<String> checksumAlgorithms = ZIPUtils.getChecksumAlgorithms(file, sip);
+    Map<String, String> knownChecksums = ZIPUtils.getKnownChecksums(file);
+    Map<String, String> checksums = Collections.emptyMap();
+    try {
+      long[] written = new long[1];
+      try (InputStream inputStream = new BoundedInputStream(Files.newInputStream(file.getFilePath()), size)) {
+        checksums = ZIPUtils.calculateChecksums(Optional.of(tar), inputStream, checksumAlgorithms, bytesRead -> {
+          written[0] = bytesRead;
+          progress.entryProgress(bytesRead);
+        });
+      }
+      if (written[0] != size) {
+        throw new IOException("File " + file.getFilePath() + " changed size while being packaged");
+      }
+      pad(tar, size);
+      checksums = KnownChecksums.merge(sip.getChecksumMode(), checksums, knownChecksums, file.getName());
+      ZIPUtils.completeEntry(file, checksums);
+    } catch (NoSuchAlgorithmException e) {
+      LOGGER.error("Error while adding files to TAR", e);
+    }
+
+    if (journal != null) {
+      journal.add(new BuildJournal.Record(name, offset, journal.position(), file, size, checksums, 0, size));
+    }
+  }
+
+  private static void writeHeader(OutputStream tar, String name, long size, long modificationTime)
+    throws IOException {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    boolean asciiName = nameBytes.length == name.length();
+    if (nameBytes.length > NAME_LENGTH || !asciiName || size > MAX_OCTAL_SIZE) {
+      Map<String, String> records = new HashMap<>();
+      records.put(PAX_PATH, name);
+      records.put(PAX_SIZE, Long.toString(size));
+      byte[] pax = paxRecords(records);
+      String paxName = "PaxHeaders/" + name.replaceAll("[^a-zA-Z0-9-_\\./]", "_");
+      tar.write(header(paxName, pax.length, modificationTime, TYPE_PAX_HEADER));
+      tar.write(pax);
+      pad(tar, pax.length);
+    }
+    tar.write(header(name, Math.min(size, MAX_OCTAL_SIZE), modificationTime, TYPE_FILE));
+  }
+
+  private static byte[] header(String name, long size, long modificationTime, char type) {
+    byte[] header = new byte[BLOCK_SIZE];
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, NAME_LENGTH));
+    octal(header, 100, 8, 0644);
+    octal(header, 108, 8, 0);
+    octal(header, 116, 8, 0);
+    octal(header, SIZE_OFFSET, SIZE_LENGTH, size);
+    octal(header, 136, 12, modificationTime);
+    header[TYPE_OFFSET] = (byte) type;
+    System.arraycopy(MAGIC, 0, header, MAGIC_OFFSET, MAGIC.length);
+    header[MAGIC_OFFSET + 6] = '0';
+    header[MAGIC_OFFSET + 7] = '0';
+    octal(header, CHECKSUM_OFFSET, CHECKSUM_LENGTH - 1, checksum(header));
+    header[CHECKSUM_OFFSET + CHECKSUM_LENGTH - 1] = ' ';
+    return header;
+  }
+
+  /** Writes a value as zero-padded octal digits followed by a NUL. */
+  private static void octal(byte[] header, int offset, int length, long value) {
+    String digits = Long.toOctalString(value);
+    int start = offset + length - 1 - digits.length();
+    for (int i = offset; i < start; i++) {
+      header[i] = '0';
+    }
+    System.arraycopy(digits.getBytes(StandardCharsets.US_ASCII), 0, header, start, digits.length());
+    header[offset + length - 1] = 0;
+  }
+
+  /** @return the checksum of a header, counting its checksum field as spaces. */
+  private static long checksum(byte[] header) {
+    long checksum = 0;
+    for (int i = 0; i < BLOCK_SIZE; i++) {
+      boolean checksumField = i >= CHECKSUM_OFFSET && i < CHECKSUM_OFFSET + CHECKSUM_LENGTH;
+      checksum += checksumField ? ' ' : header[i] & 0xff;
+    }
+    return checksum;
+  }
+
+  /** @return the PAX records, each as "length key=value\n". */
+  private static byte[] paxRecords(Map<String, String> records) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    records.forEach((key, value) -> {
+      int recordLength = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+      int length = recordLength + Integer.toString(recordLength).length();
+      if (Integer.toString(length).length() != Integer.toString(recordLength).length()) {
+        length++;
+      }
+      byte[] record = (length + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+      output.write(record, 0, record.length);
+    });
+    return output.toByteArray();
+  }
+
+  private static void pad(OutputStream tar, long size) throws IOException {
+    int remainder = (int) (size % BLOCK_SIZE);
+    if (remainder > 0) {
+      tar.write(new byte[BLOCK_SIZE - remainder]);
+    }
+  }
+
+  @Override
+  public boolean canExtract(Path path) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      return false;
+    }
+    try (InputStream inputStream = open(path)) {
+      byte[] header = new byte[BLOCK_SIZE];
+      return readBlock(inputStream, header) && isHeader(header);
+    } catch (EOFException | ZipException e) {
+      // truncated or not GZIP after all
+      return false;
+    }
+  }
+
+  private static boolean isHeader(byte[] header) {
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (header[MAGIC_OFFSET + i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    return parseNumber(header, CHECKSUM_OFFSET, CHECKSUM_LENGTH) == checksum(header);
+  }
+
+  /** @return the content of a TAR file, decompressed if it is GZIP. */
+  private static InputStream open(Path path) throws IOException {
+    InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    inputStream.mark(2);
+    boolean gzip = inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+    inputStream.reset();
+    return gzip ? new BufferedInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE) : inputStream;
+  }
+
+  @Override
+  public void extract(Path source, Path destinationDirectory) throws IOException {
+    Path root = destinationDirectory.toAbsolutePath().normalize();
+    try (InputStream tar = open(source)) {
+      byte[] header = new byte[BLOCK_SIZE];
+      Map<String, String> pax = new HashMap<>();
+      String longName = null;
+      while (readBlock(tar, header) && !isEmpty(header)) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new ClosedByInterruptException();
+        }
+        if (!isHeader(header)) {
+          throw new IOException("Invalid TAR header in " + source);
+        }
+        char type = (char) header[TYPE_OFFSET];
+        long size = pax.containsKey(PAX_SIZE) ? Long.parseLong(pax.get(PAX_SIZE))
+          : parseNumber(header, SIZE_OFFSET, SIZE_LENGTH);
+
+        if (type == TYPE_PAX_HEADER) {
+          pax.putAll(parsePaxRecords(readContent(tar, size)));
+          continue;
+        } else if (type == TYPE_GNU_LONG_NAME) {
+          longName = parseString(readContent(tar, size), 0, (int) size);
+          continue;
+        }
+
+        String name = pax.containsKey(PAX_PATH) ? pax.get(PAX_PATH) : longName != null ? longName : parseName(header);
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root)) {
+          throw new IOException("TAR entry " + name + " is outside of the destination directory");
+        }
+        if (type == TYPE_DIRECTORY) {
+          Files.createDirectories(target);
+        } else if (type == TYPE_FILE || type == 0) {
+          Files.createDirectories(target.getParent());
+          try (OutputStream outputStream = Files.newOutputStream(target)) {
+            if (IOUtils.copyLarge(tar, outputStream, 0, size) != size) {
+              throw new EOFException("TAR entry " + name + " is truncated");
+            }
+          }
+          skipPadding(tar, size);
+        } else {
+          LOGGER.debug("Skipping TAR entry {} of type {}", name, type);
+          skip(tar, size);
+          skipPadding(tar, size);
+        }
+        pax.clear();
+        longName = null;
+      }
+    }
+  }
+
+  private static boolean readBlock(InputStream inputStream, byte[] block) throws IOException {
+    int read = IOUtils.read(inputStream, block);
+    if (read == 0) {
+      return false;
+    } else if (read < block.length) {
+      throw new EOFException("Truncated TAR block");
+    }
+    return true;
+  }
+
+  private static boolean isEmpty(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] readContent(InputStream tar, long size) throws IOException {
+    byte[] content = new byte[(int) size];
+    IOUtils.readFully(tar, content);
+    skipPadding(tar, size);
+    return content;
+  }
+
+  private static void skipPadding(InputStream tar, long size) throws IOException {
+    int remainder = (int) (size % BLOCK_SIZE);
+    if (remainder > 0) {
+      skip(tar, BLOCK_SIZE - remainder);
+    }
+  }
+
+  private static void skip(InputStream tar, long size) throws IOException {
+    if (IOUtils.skip(tar, size) != size) {
+      throw new EOFException("Truncated TAR entry");
+    }
+  }
+
+  private static String parseName(byte[] header) {
+    String name = parseString(header, 0, NAME_LENGTH);
+    String prefix = parseString(header, PREFIX_OFFSET, PREFIX_LENGTH);
+    return prefix.isEmpty() ? name : prefix + "/" + name;
+  }
+
+  private static String parseString(byte[] bytes, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && bytes[end] != 0) {
+      end++;
+    }
+    return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return a numeric field, either octal (terminated by NUL or space) or, for
+   *         large values (GNU extension), base-256 with the high bit set.
+   */
+  private static long parseNumber(byte[] header, int offset, int length) {
+    if ((header[offset] & 0x80) != 0) {
+      long value = header[offset] & 0x7f;
+      for (int i = offset + 1; i < offset + length; i++) {
+        value = (value << 8) | (header[i] & 0xff);
+      }
+      return value;
+    }
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      byte b = header[i];
+      if (b == 0 || (b == ' ' && value > 0)) {
+        break;
+      } else if (b >= '0' && b <= '7') {
+        value = (value << 3) + (b - '0');
+      }
+    }
+    return value;
+  }
+
+  private static Map<String, String> parsePaxRecords(byte[] content) {
+    Map<String, String> records = new HashMap<>();
+    int offset = 0;
+    while (offset < content.length) {
+      int space = offset;
+      while (space < content.length && content[space] != ' ') {
+        space++;
+      }
+      int length = Integer.parseInt(new String(content, offset, space - offset, StandardCharsets.US_ASCII));
+      String record = new String(content, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+      int equals = record.indexOf('=');
+      records.put(record.substring(0, equals), record.substring(equals + 1));
+      offset += length;
+    }
+    return records;
+  }
+}
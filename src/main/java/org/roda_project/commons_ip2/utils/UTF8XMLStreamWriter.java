@@ -0,0 +1,333 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Minimal {@link XMLStreamWriter} that writes UTF-8 straight to a stream: it
+ * does not check or repair namespaces (whoever writes declares them) and
+ * escapes only what must be escaped, being much faster than the JDK one.
+ * Elements without content are written as empty elements.
+ */
+class UTF8XMLStreamWriter implements XMLStreamWriter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Writer out;
+  private final Deque<String> names = new ArrayDeque<>();
+  private boolean startTagOpen = false;
+  private boolean emptyElement = false;
+
+  UTF8XMLStreamWriter(OutputStream outputStream) {
+    this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  @Override
+  public void writeStartElement(String localName) throws XMLStreamException {
+    startElement(localName, false);
+  }
+
+  @Override
+  public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+    startElement(localName, false);
+  }
+
+  @Override
+  public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    startElement(qName(prefix, localName), false);
+  }
+
+  @Override
+  public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+    startElement(localName, true);
+  }
+
+  @Override
+  public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    startElement(qName(prefix, localName), true);
+  }
+
+  @Override
+  public void writeEmptyElement(String localName) throws XMLStreamException {
+    startElement(localName, true);
+  }
+
+  private void startElement(String name, boolean empty) throws XMLStreamException {
+    try {
+      closeStartTag();
+      out.write('<');
+      out.write(name);
+      startTagOpen = true;
+      emptyElement = empty;
+      if (!empty) {
+        names.push(name);
+      }
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  @Override
+  public void writeEndElement() throws XMLStreamException {
+    try {
+      if (startTagOpen && !emptyElement) {
+        out.write("/>");
+        startTagOpen = false;
+        names.pop();
+      } else {
+        closeStartTag();
+        out.write("</");
+        out.write(names.pop());
+        out.write('>');
+      }
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  private void closeStartTag() throws IOException {
+    if (startTagOpen) {
+      out.write(emptyElement ? "/>" : ">");
+      startTagOpen = false;
+      emptyElement = false;
+    }
+  }
+
+  @Override
+  public void writeEndDocument() throws XMLStreamException {
+    while (!names.isEmpty() || startTagOpen) {
+      if (startTagOpen && emptyElement) {
+        try {
+          closeStartTag();
+        } catch (IOException e) {
+          throw new XMLStreamException(e);
+        }
+      } else {
+        writeEndElement();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws XMLStreamException {
+    // as the XMLStreamWriter contract says, the underlying stream is not closed
+    flush();
+  }
+
+  @Override
+  public void flush() throws XMLStreamException {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  @Override
+  public void writeAttribute(String localName, String value) throws XMLStreamException {
+    attribute(localName, value);
+  }
+
+  @Override
+  public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+    throws XMLStreamException {
+    attribute(qName(prefix, localName), value);
+  }
+
+  @Override
+  public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+    attribute(localName, value);
+  }
+
+  @Override
+  public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+    if (prefix == null || prefix.isEmpty() || "xmlns".equals(prefix)) {
+      attribute("xmlns", namespaceURI);
+    } else {
+      attribute("xmlns:" + prefix, namespaceURI);
+    }
+  }
+
+  @Override
+  public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+    attribute("xmlns", namespaceURI);
+  }
+
+  private void attribute(String name, String value) throws XMLStreamException {
+    if (!startTagOpen) {
+      throw new XMLStreamException("Attribute " + name + " written outside of a start tag");
+    }
+    try {
+      out.write(' ');
+      out.write(name);
+      out.write("=\"");
+      escape(value, true);
+      out.write('"');
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  @Override
+  public void writeComment(String data) throws XMLStreamException {
+    raw("<!--", data, "-->");
+  }
+
+  @Override
+  public void writeProcessingInstruction(String target) throws XMLStreamException {
+    raw("<?", target, "?>");
+  }
+
+  @Override
+  public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+    raw("<?", target + " " + data, "?>");
+  }
+
+  @Override
+  public void writeCData(String data) throws XMLStreamException {
+    raw("<![CDATA[", data, "]]>");
+  }
+
+  @Override
+  public void writeDTD(String dtd) throws XMLStreamException {
+    raw("", dtd, "");
+  }
+
+  @Override
+  public void writeEntityRef(String name) throws XMLStreamException {
+    raw("&", name, ";");
+  }
+
+  private void raw(String start, String text, String end) throws XMLStreamException {
+    try {
+      closeStartTag();
+      out.write(start);
+      out.write(text);
+      out.write(end);
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  @Override
+  public void writeStartDocument() throws XMLStreamException {
+    writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+  }
+
+  @Override
+  public void writeStartDocument(String version) throws XMLStreamException {
+    writeStartDocument(StandardCharsets.UTF_8.name(), version);
+  }
+
+  @Override
+  public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+    raw("<?xml version=\"", version + "\" encoding=\"" + encoding, "\"?>");
+  }
+
+  @Override
+  public void writeCharacters(String text) throws XMLStreamException {
+    try {
+      closeStartTag();
+      escape(text, false);
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  @Override
+  public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+    writeCharacters(new String(text, start, len));
+  }
+
+  /**
+   * Writes text escaping markup characters and, in attribute values, the
+   * whitespace that attribute value normalization would replace.
+   */
+  private void escape(String text, boolean attribute) throws IOException {
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      String escaped;
+      switch (text.charAt(i)) {
+        case '&':
+          escaped = "&amp;";
+          break;
+        case '<':
+          escaped = "&lt;";
+          break;
+        case '>':
+          escaped = "&gt;";
+          break;
+        case '"':
+          escaped = attribute ? "&quot;" : null;
+          break;
+        case '\r':
+          escaped = "&#13;";
+          break;
+        case '\n':
+          escaped = attribute ? "&#10;" : null;
+          break;
+        case '\t':
+          escaped = attribute ? "&#9;" : null;
+          break;
+        default:
+          escaped = null;
+      }
+      if (escaped != null) {
+        out.write(text, start, i - start);
+        out.write(escaped);
+        start = i + 1;
+      }
+    }
+    out.write(text, start, text.length() - start);
+  }
+
+  private static String qName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+
+  @Override
+  public String getPrefix(String uri) {
+    return null;
+  }
+
+  @Override
+  public void setPrefix(String prefix, String uri) {
+    // namespaces are not tracked
+  }
+
+  @Override
+  public void setDefaultNamespace(String uri) {
+    // namespaces are not tracked
+  }
+
+  @Override
+  public void setNamespaceContext(NamespaceContext context) {
+    // namespaces are not tracked
+  }
+
+  @Override
+  public NamespaceContext getNamespaceContext() {
+    return null;
+  }
+
+  @Override
+  public Object getProperty(String name) {
+    throw new IllegalArgumentException("Property " + name + " is not supported");
+  }
+}
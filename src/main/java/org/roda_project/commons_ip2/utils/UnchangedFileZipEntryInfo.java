@@ -0,0 +1,25 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.nio.file.Path;
+
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
+
+/**
+ * Entry of a previously built IP that is carried over unchanged (e.g. files of
+ * an unmodified representation). Its checksum is already recorded in a METS
+ * that is also carried over, so the file is only copied and never hashed.
+ */
+public class UnchangedFileZipEntryInfo extends FileZipEntryInfo {
+
+  public UnchangedFileZipEntryInfo(String name, Path filePath) {
+    super(name, filePath);
+  }
+
+}
@@ -19,13 +19,13 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
 
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.datatype.DatatypeConfigurationException;
@@ -40,6 +40,7 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.IPFile;
 import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPFolder;
 import org.roda_project.commons_ip2.model.IPInterface;
 import org.roda_project.commons_ip2.model.ValidationEntry;
 import org.slf4j.Logger;
@@ -50,6 +51,12 @@ public final class Utils {
 
   private static final String SYSTEM_OS = System.getProperty("os.name").toLowerCase();
 
+  private static DatatypeFactory datatypeFactory;
+
+  private static volatile IDGenerator defaultIDGenerator = IDGenerator.RANDOM;
+  private static final ThreadLocal<IDGenerator> ID_GENERATOR = new ThreadLocal<>();
+  private static final ThreadLocal<Long> FIXED_TIME = new ThreadLocal<>();
+
   private Utils() {
   }
 
@@ -68,18 +75,136 @@ public final class Utils {
     return res;
   }
 
+  /**
+   * @return the current time or, if one was set for the current thread (see
+   *         {@link #setFixedTime(Long)}), the fixed time in UTC.
+   */
   public static XMLGregorianCalendar getCurrentCalendar() throws DatatypeConfigurationException {
-    GregorianCalendar gcal = new GregorianCalendar();
-    gcal.setTime(new Date());
-    return DatatypeFactory.newInstance().newXMLGregorianCalendar(gcal);
+    Long fixedTime = FIXED_TIME.get();
+    GregorianCalendar gcal = fixedTime != null ? new GregorianCalendar(TimeZone.getTimeZone("UTC"))
+      : new GregorianCalendar();
+    gcal.setTime(fixedTime != null ? new Date(fixedTime) : new Date());
+    return getDatatypeFactory().newXMLGregorianCalendar(gcal);
+  }
+
+  /**
+   * @return the current time in milliseconds or, if one was set for the
+   *         current thread, the fixed time.
+   */
+  public static long currentTimeMillis() {
+    Long fixedTime = FIXED_TIME.get();
+    return fixedTime != null ? fixedTime : System.currentTimeMillis();
+  }
+
+  /**
+   * @return the fixed time of the current thread, or {@code null} if the
+   *         current time is used.
+   */
+  public static Long getFixedTime() {
+    return FIXED_TIME.get();
+  }
+
+  /**
+   * Makes the dates written to METS and packages by the current thread be a
+   * fixed time (e.g. for reproducible builds) instead of the current time.
+   *
+   * @param fixedTime
+   *          the time in milliseconds, or {@code null} to use the current time.
+   * @return the previous fixed time of the current thread.
+   */
+  public static Long setFixedTime(Long fixedTime) {
+    Long previous = FIXED_TIME.get();
+    if (fixedTime == null) {
+      FIXED_TIME.remove();
+    } else {
+      FIXED_TIME.set(fixedTime);
+    }
+    return previous;
+  }
+
+  /**
+   * @return a shared {@link DatatypeFactory}, as looking one up is expensive.
+   */
+  public static synchronized DatatypeFactory getDatatypeFactory() throws DatatypeConfigurationException {
+    if (datatypeFactory == null) {
+      datatypeFactory = DatatypeFactory.newInstance();
+    }
+    return datatypeFactory;
   }
 
   public static String generateRandomAndPrefixedUUID() {
-    return METSEnums.ID_PREFIX + UUID.randomUUID().toString().toUpperCase();
+    return getIDGenerator().generate(METSEnums.ID_PREFIX, null);
   }
 
   public static String generateRandomAndPrefixedFileID() {
-    return METSEnums.FILE_ID_PREFIX + UUID.randomUUID().toString().toUpperCase();
+    return getIDGenerator().generate(METSEnums.FILE_ID_PREFIX, null);
+  }
+
+  /**
+   * @param name
+   *          the path of the file inside the package (unique in it), which
+   *          name based {@link IDGenerator}s derive the identifier from.
+   */
+  public static String generatePrefixedFileID(String name) {
+    return getIDGenerator().generate(METSEnums.FILE_ID_PREFIX, name);
+  }
+
+  /**
+   * @return the {@link IDGenerator} of the current thread or, if none was set,
+   *         the default one.
+   */
+  public static IDGenerator getIDGenerator() {
+    IDGenerator idGenerator = ID_GENERATOR.get();
+    return idGenerator != null ? idGenerator : defaultIDGenerator;
+  }
+
+  /**
+   * Sets the {@link IDGenerator} used by the current thread.
+   *
+   * @param idGenerator
+   *          the generator, or {@code null} to use the default one.
+   * @return the generator previously set for the current thread.
+   */
+  public static IDGenerator setIDGenerator(IDGenerator idGenerator) {
+    IDGenerator previous = ID_GENERATOR.get();
+    if (idGenerator == null) {
+      ID_GENERATOR.remove();
+    } else {
+      ID_GENERATOR.set(idGenerator);
+    }
+    return previous;
+  }
+
+  /**
+   * Wraps a task handed to other threads (e.g. a thread pool) while building or
+   * parsing an IP, so that it runs with the {@link IDGenerator} and fixed time
+   * the current thread has when it is wrapped, as they are set per thread.
+   *
+   * @param task
+   *          the task.
+   * @return the task that sets them while it runs.
+   */
+  public static <T> Callable<T> withThreadSettings(Callable<T> task) {
+    final IDGenerator idGenerator = ID_GENERATOR.get();
+    final Long fixedTime = FIXED_TIME.get();
+    return () -> {
+      IDGenerator previousIDGenerator = setIDGenerator(idGenerator);
+      Long previousFixedTime = setFixedTime(fixedTime);
+      try {
+        return task.call();
+      } finally {
+        setIDGenerator(previousIDGenerator);
+        setFixedTime(previousFixedTime);
+      }
+    };
+  }
+
+  /**
+   * Sets the {@link IDGenerator} used by threads that have none set (by
+   * default, {@link IDGenerator#RANDOM}).
+   */
+  public static void setDefaultIDGenerator(IDGenerator idGenerator) {
+    defaultIDGenerator = idGenerator;
   }
 
   public static Path copyResourceFromClasspathToDir(Class<?> resourceClass, Path dir, String resourceTempSuffix,
@@ -174,12 +299,12 @@ public final class Utils {
   }
 
   public static List<String> getFileRelativeFolders(Path basePath, Path filePath) {
-    List<String> res = new ArrayList<>();
+    IPFolder res = IPFolder.ROOT;
     Path relativize = basePath.relativize(filePath).getParent();
     if (relativize != null) {
       Iterator<Path> iterator = relativize.iterator();
       while (iterator.hasNext()) {
-        res.add(iterator.next().toString());
+        res = res.child(iterator.next().toString());
       }
     }
     return res;
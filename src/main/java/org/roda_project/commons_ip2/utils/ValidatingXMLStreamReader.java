@@ -0,0 +1,169 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * {@link XMLStreamReader} that forwards every event it reads to a
+ * {@link ValidatorHandler}, so the document is validated against a schema in
+ * the same pass it is read (whoever consumes the events, e.g. JAXB). A
+ * validation error is thrown as a {@link XMLStreamException} whose cause is the
+ * {@link SAXException}.
+ */
+class ValidatingXMLStreamReader extends StreamReaderDelegate {
+  private final ValidatorHandler validator;
+
+  ValidatingXMLStreamReader(XMLStreamReader reader, ValidatorHandler validator) throws XMLStreamException {
+    super(reader);
+    this.validator = validator;
+    validator.setDocumentLocator(new StreamLocator(reader));
+    try {
+      validator.startDocument();
+    } catch (SAXException e) {
+      throw new XMLStreamException(e.getMessage(), reader.getLocation(), e);
+    }
+    forward(reader.getEventType());
+  }
+
+  @Override
+  public int next() throws XMLStreamException {
+    int event = super.next();
+    forward(event);
+    return event;
+  }
+
+  @Override
+  public int nextTag() throws XMLStreamException {
+    int event = next();
+    while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+      || (event == XMLStreamConstants.CDATA && isWhiteSpace()) || event == XMLStreamConstants.SPACE
+      || event == XMLStreamConstants.PROCESSING_INSTRUCTION || event == XMLStreamConstants.COMMENT) {
+      event = next();
+    }
+    if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+      throw new XMLStreamException("expected start or end tag", getLocation());
+    }
+    return event;
+  }
+
+  @Override
+  public String getElementText() throws XMLStreamException {
+    if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+      throw new XMLStreamException("parser must be on START_ELEMENT to read next text", getLocation());
+    }
+    StringBuilder content = new StringBuilder();
+    int event = next();
+    while (event != XMLStreamConstants.END_ELEMENT) {
+      if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+        || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE) {
+        content.append(getText());
+      } else if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_DOCUMENT) {
+        throw new XMLStreamException("unexpected event while reading element text", getLocation());
+      }
+      event = next();
+    }
+    return content.toString();
+  }
+
+  private void forward(int event) throws XMLStreamException {
+    try {
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          for (int i = 0; i < getNamespaceCount(); i++) {
+            validator.startPrefixMapping(prefix(getNamespacePrefix(i)), getNamespaceURI(i));
+          }
+          validator.startElement(uri(getNamespaceURI()), getLocalName(), qName(getPrefix(), getLocalName()),
+            attributes());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          validator.endElement(uri(getNamespaceURI()), getLocalName(), qName(getPrefix(), getLocalName()));
+          for (int i = 0; i < getNamespaceCount(); i++) {
+            validator.endPrefixMapping(prefix(getNamespacePrefix(i)));
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          validator.characters(getTextCharacters(), getTextStart(), getTextLength());
+          break;
+        case XMLStreamConstants.END_DOCUMENT:
+          validator.endDocument();
+          break;
+        default:
+          break;
+      }
+    } catch (SAXException e) {
+      throw new XMLStreamException(e.getMessage(), getLocation(), e);
+    }
+  }
+
+  private AttributesImpl attributes() {
+    AttributesImpl attributes = new AttributesImpl();
+    for (int i = 0; i < getAttributeCount(); i++) {
+      attributes.addAttribute(uri(getAttributeNamespace(i)), getAttributeLocalName(i),
+        qName(getAttributePrefix(i), getAttributeLocalName(i)), "CDATA", getAttributeValue(i));
+    }
+    return attributes;
+  }
+
+  private static String uri(String uri) {
+    return uri == null ? XMLConstants.NULL_NS_URI : uri;
+  }
+
+  private static String prefix(String prefix) {
+    return prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix;
+  }
+
+  private static String qName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+
+  private static final class StreamLocator implements Locator {
+    private final XMLStreamReader reader;
+
+    private StreamLocator(XMLStreamReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public String getPublicId() {
+      Location location = reader.getLocation();
+      return location == null ? null : location.getPublicId();
+    }
+
+    @Override
+    public String getSystemId() {
+      Location location = reader.getLocation();
+      return location == null ? null : location.getSystemId();
+    }
+
+    @Override
+    public int getLineNumber() {
+      Location location = reader.getLocation();
+      return location == null ? -1 : location.getLineNumber();
+    }
+
+    @Override
+    public int getColumnNumber() {
+      Location location = reader.getLocation();
+      return location == null ? -1 : location.getColumnNumber();
+    }
+  }
+
+}
@@ -7,21 +7,34 @@
  */
 package org.roda_project.commons_ip2.utils;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -31,6 +44,7 @@ import javax.xml.bind.DatatypeConverter;
 
 import org.apache.commons.io.IOUtils;
 import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
@@ -38,11 +52,17 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.SIPBuildPhase;
+import org.roda_project.commons_ip2.model.SIPBuildProgress;
+import org.roda_project.commons_ip2.model.SIPBuildTimings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class ZIPUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(ZIPUtils.class);
+  private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+  /** Size up to which STORED entries are read only once, into memory. */
+  private static final long STORED_IN_MEMORY_SIZE = 1024L * 1024;
 
   private ZIPUtils() {
     // do nothing
@@ -61,7 +81,7 @@ public final class ZIPUtils {
     Path ipFolderPath = destinationDirectory;
     if (!Files.isDirectory(source)) {
       try {
-        ZIPUtils.unzip(source, destinationDirectory);
+        PackageContainer.of(source).extract(source, destinationDirectory);
 
         // 20161111 hsilva: see if the IP extracted has a folder which contains
         // the content of the IP (for being compliant with previous way of
@@ -102,6 +122,13 @@ public final class ZIPUtils {
     return zipEntries;
   }
 
+  public static Map<String, ZipEntryInfo> addMETSFileToZip(Map<String, ZipEntryInfo> zipEntries, Path filePath,
+    String zipPath, Mets mets, boolean rootMETS, FileType fileType, METSFileGrpSpool dataFileGrpSpool)
+    throws IPException {
+    zipEntries.put(zipPath, new METSZipEntryInfo(zipPath, filePath, mets, rootMETS, fileType, dataFileGrpSpool));
+    return zipEntries;
+  }
+
   public static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean isCompressed)
     throws IOException, InterruptedException, IPException {
     zip(files, out, sip, true, isCompressed);
@@ -109,77 +136,317 @@ public final class ZIPUtils {
 
   public static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean createSipIdFolder,
     boolean isCompressed) throws IOException, InterruptedException, IPException {
-    ZipOutputStream zos = new ZipOutputStream(out);
-    if (isCompressed) {
-      zos.setLevel(Deflater.DEFAULT_COMPRESSION);
-    } else {
-      zos.setLevel(Deflater.NO_COMPRESSION);
+    zip(files, out, sip, createSipIdFolder,
+      isCompressed ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION, ZipEntryCompressionPolicy.ALWAYS);
+  }
+
+  /**
+   * Zips the provided entries, deciding per entry (through the provided
+   * {@link ZipEntryCompressionPolicy}) if it is deflated or stored. Stored
+   * entries are copied straight from the file channel.
+   */
+  public static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean createSipIdFolder,
+    ZipEntryCompressionPolicy compressionPolicy) throws IOException, InterruptedException, IPException {
+    zip(files, out, sip, createSipIdFolder, Deflater.DEFAULT_COMPRESSION, compressionPolicy);
+  }
+
+  private static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean createSipIdFolder,
+    int compressionLevel, ZipEntryCompressionPolicy compressionPolicy)
+    throws IOException, InterruptedException, IPException {
+    zip(files, out, sip, createSipIdFolder, compressionLevel, compressionPolicy, null);
+  }
+
+  /**
+   * Zips the provided entries to a file, resuming a previous build interrupted
+   * midway (see {@link PackageContainer#writeResumable(Map, Path, SIP, boolean)}).
+   */
+  static void zipResumable(Map<String, ZipEntryInfo> files, Path zipPath, SIP sip, boolean createSipIdFolder,
+    ZipEntryCompressionPolicy compressionPolicy) throws IOException, InterruptedException, IPException {
+    List<ZipEntryInfo> entries = new ArrayList<>(files.values());
+    List<String> entryNames = new ArrayList<>();
+    for (ZipEntryInfo file : entries) {
+      entryNames.add(getEntryName(file, sip, createSipIdFolder));
     }
+    try (BuildJournal journal = BuildJournal.open(zipPath, entryNames, entries)) {
+      zip(files, journal.getOutput(), sip, createSipIdFolder, Deflater.DEFAULT_COMPRESSION, compressionPolicy,
+        journal);
+      journal.finish();
+    }
+  }
 
-    Set<String> nonMetsChecksumAlgorithms = new TreeSet<>();
-    nonMetsChecksumAlgorithms.add(IPConstants.CHECKSUM_ALGORITHM);
-    Set<String> metsChecksumAlgorithms = new TreeSet<>();
-    metsChecksumAlgorithms.addAll(nonMetsChecksumAlgorithms);
-    metsChecksumAlgorithms.addAll(sip.getExtraChecksumAlgorithms());
+  private static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean createSipIdFolder,
+    int compressionLevel, ZipEntryCompressionPolicy compressionPolicy, BuildJournal journal)
+    throws IOException, InterruptedException, IPException {
+    ZipOutputStream zos = new ZipOutputStream(out);
+    zos.setLevel(compressionLevel);
+    int keptEntries = journal != null ? journal.getKeptEntries() : 0;
 
+    long[] expectedSizes = new long[files.size()];
+    long totalBytes = 0;
     int i = 0;
+    for (ZipEntryInfo file : files.values()) {
+      expectedSizes[i] = sizeIfExists(file.getFilePath());
+      totalBytes += expectedSizes[i++];
+    }
+    PackagingProgress progress = new PackagingProgress(sip, totalBytes);
+
+    i = 0;
     for (ZipEntryInfo file : files.values()) {
       if (Thread.interrupted()) {
         throw new InterruptedException();
       }
 
-      file.prepareEntryforZipping();
+      if (i < keptEntries) {
+        BuildJournal.Record record = journal.getRecords().get(i);
+        progress.startEntry(file.getName(), expectedSizes[i], record.getSize());
+        restoreEntry(file, record.getChecksums(), record.getSize());
+      } else {
+        zipEntry(zos, file, sip, createSipIdFolder, compressionPolicy, progress, expectedSizes[i], journal);
+      }
+      i++;
+
+      progress.finishEntry();
+      sip.notifySipBuildPackagingCurrentStatus(i);
+    }
+
+    if (keptEntries > 0) {
+      // the central directory of the ZipOutputStream only has the entries it
+      // wrote, so it is replaced by one with the entries kept as well
+      long centralDirectoryOffset = journal.position();
+      zos.finish();
+      journal.truncate(centralDirectoryOffset);
+      ZipCentralDirectory.write(journal.getOutput(), journal.getPackagePath(), journal.getRecords(),
+        centralDirectoryOffset);
+    }
+    zos.close();
+    out.close();
+  }
 
-      LOGGER.debug("Zipping file {}", file.getFilePath());
-      ZipEntry entry;
-      if (createSipIdFolder) {
-        entry = new ZipEntry(sip.getId().replaceAll("[^a-zA-Z0-9-_\\.]", "_") + "/" + file.getName());
+  private static void zipEntry(ZipOutputStream zos, ZipEntryInfo file, SIP sip, boolean createSipIdFolder,
+    ZipEntryCompressionPolicy compressionPolicy, PackagingProgress progress, long expectedSize,
+    BuildJournal journal) throws IOException, InterruptedException, IPException {
+    file.prepareEntryforZipping();
+    progress.startEntry(file.getName(), expectedSize, sizeIfExists(file.getFilePath()));
+
+    LOGGER.debug("Zipping file {}", file.getFilePath());
+    ZipEntry entry = new ZipEntry(getEntryName(file, sip, createSipIdFolder));
+    Long fixedTime = Utils.getFixedTime();
+    if (fixedTime != null) {
+      // DOS times are local, so the fixed time is shifted to be written as UTC
+      entry.setTime(fixedTime - TimeZone.getDefault().getOffset(fixedTime));
+    }
+    long offset = journal != null ? journal.position() : 0;
+
+    Set<String> checksumAlgorithms = getChecksumAlgorithms(file, sip);
+    Map<String, String> knownChecksums = getKnownChecksums(file);
+    Map<String, String> checksums = Collections.emptyMap();
+    try {
+      SIPBuildTimings timings = SIPBuildTimings.current();
+      long probeStart = System.nanoTime();
+      boolean compress = compressionPolicy.shouldCompress(file);
+      timings.add(SIPBuildPhase.MIME_PROBING, System.nanoTime() - probeStart);
+      if (compress) {
+        zos.putNextEntry(entry);
+        try (InputStream inputStream = Files.newInputStream(file.getFilePath())) {
+          checksums = calculateChecksums(Optional.of(zos), inputStream, checksumAlgorithms, progress::entryProgress);
+        }
       } else {
-        entry = new ZipEntry(file.getName());
+        checksums = zipStoredEntry(zos, entry, file.getFilePath(), checksumAlgorithms, progress);
       }
+      checksums = KnownChecksums.merge(sip.getChecksumMode(), checksums, knownChecksums, file.getName());
+      completeEntry(file, checksums);
+    } catch (NoSuchAlgorithmException e) {
+      LOGGER.error("Error while zipping files", e);
+    }
+    zos.closeEntry();
+
+    if (journal != null) {
+      journal.add(new BuildJournal.Record(entry.getName(), offset, journal.position(), file, entry.getSize(),
+        checksums, entry.getCrc(), entry.getCompressedSize()));
+    }
+  }
+
+  /**
+   * Sets the checksums of an entry kept in the package from a previous build,
+   * as {@link #completeEntry(ZipEntryInfo, Map)} does. METS files are generated
+   * again (to set what references them in the root METS) but referenced with
+   * the checksum and size of the ones in the package.
+   */
+  static void restoreEntry(ZipEntryInfo file, Map<String, String> checksums, long size)
+    throws IOException, IPException {
+    if (file instanceof METSZipEntryInfo) {
+      file.prepareEntryforZipping();
+      FileType fileType = ((METSZipEntryInfo) file).getFileType();
+      if (fileType != null) {
+        fileType.setSIZE(size);
+        fileType.setCHECKSUM(checksums.get(IPConstants.CHECKSUM_ALGORITHM));
+        fileType.setCHECKSUMTYPE(IPConstants.CHECKSUM_ALGORITHM);
+      }
+    }
+    completeEntry(file, checksums);
+    if (file instanceof METSZipEntryInfo) {
+      ((METSZipEntryInfo) file).setSize(size);
+    }
+  }
+
+  /**
+   * @return the name of an entry in a package, inside a folder named after the
+   *         SIP id if requested.
+   */
+  static String getEntryName(ZipEntryInfo file, SIP sip, boolean createSipIdFolder) {
+    if (createSipIdFolder) {
+      return sip.getId().replaceAll("[^a-zA-Z0-9-_\\.]", "_") + "/" + file.getName();
+    }
+    return file.getName();
+  }
+
+  /**
+   * @return the checksum algorithms to calculate while writing an entry to a
+   *         package (none for unchanged files, the extra ones of the SIP for
+   *         METS files and, for other files, the ones not already known).
+   */
+  static Set<String> getChecksumAlgorithms(ZipEntryInfo file, SIP sip) {
+    Set<String> checksumAlgorithms = new TreeSet<>();
+    if (file instanceof UnchangedFileZipEntryInfo) {
+      return checksumAlgorithms;
+    }
+    checksumAlgorithms.add(IPConstants.CHECKSUM_ALGORITHM);
+    if (file instanceof METSZipEntryInfo) {
+      checksumAlgorithms.addAll(sip.getExtraChecksumAlgorithms());
+      return checksumAlgorithms;
+    }
+    return KnownChecksums.toCalculate(sip.getChecksumMode(), checksumAlgorithms, getKnownChecksums(file));
+  }
+
+  static Map<String, String> getKnownChecksums(ZipEntryInfo file) {
+    if (file instanceof FileZipEntryInfo && !(file instanceof UnchangedFileZipEntryInfo)
+      && !(file instanceof METSZipEntryInfo)) {
+      return ((FileZipEntryInfo) file).getKnownChecksums();
+    }
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Sets the checksums of an entry written to a package in the entry and in
+   * the METS element that references it.
+   */
+  static void completeEntry(ZipEntryInfo file, Map<String, String> checksums) throws IOException, IPException {
+    if (file instanceof METSZipEntryInfo) {
+      METSZipEntryInfo metsEntry = (METSZipEntryInfo) file;
+      metsEntry.setChecksums(checksums);
+      metsEntry.setSize(metsEntry.getFilePath().toFile().length());
+    }
 
+    String checksum = checksums.get(IPConstants.CHECKSUM_ALGORITHM);
+    String checksumType = IPConstants.CHECKSUM_ALGORITHM;
+    if (!(file instanceof UnchangedFileZipEntryInfo)) {
+      file.setChecksum(checksum);
+      file.setChecksumAlgorithm(checksumType);
+    }
+    if (file instanceof METSFileTypeZipEntryInfo) {
+      METSFileTypeZipEntryInfo f = (METSFileTypeZipEntryInfo) file;
+      f.getMetsFileType().setCHECKSUM(checksum);
+      f.getMetsFileType().setCHECKSUMTYPE(checksumType);
+    } else if (file instanceof METSMdRefZipEntryInfo) {
+      METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) file;
+      f.getMetsMdRef().setCHECKSUM(checksum);
+      f.getMetsMdRef().setCHECKSUMTYPE(checksumType);
+    } else if (file instanceof METSSpooledFileZipEntryInfo) {
+      ((METSSpooledFileZipEntryInfo) file).complete();
+    }
+  }
+
+  /**
+   * Writes a file as a STORED zip entry. As STORED entries need size and CRC-32
+   * before the entry header is written, the content is needed twice: files of
+   * up to {@link #STORED_IN_MEMORY_SIZE} bytes are read once into memory, bigger
+   * ones are read a first time to compute size and CRC-32 (together with the
+   * requested checksums) and a second time to transfer the content from the
+   * file channel. The second read is usually served by the operating system
+   * page cache, and it is still cheaper than deflating content that does not
+   * compress.
+   *
+   * @throws IOException
+   *           if some I/O error occurs or the file changes size meanwhile.
+   */
+  private static Map<String, String> zipStoredEntry(ZipOutputStream zos, ZipEntry entry, Path filePath,
+    Set<String> checksumAlgorithms, PackagingProgress progress)
+    throws IOException, NoSuchAlgorithmException, InterruptedException {
+    if (Files.size(filePath) <= STORED_IN_MEMORY_SIZE) {
+      byte[] content = Files.readAllBytes(filePath);
+      CRC32 crc = new CRC32();
+      crc.update(content, 0, content.length);
+      setStored(entry, content.length, crc);
       zos.putNextEntry(entry);
+      return calculateChecksums(Optional.of(zos), new ByteArrayInputStream(content), checksumAlgorithms,
+        progress::entryProgress);
+    }
 
-      try (InputStream inputStream = Files.newInputStream(file.getFilePath());) {
-        Map<String, String> checksums;
-        if (file instanceof METSZipEntryInfo) {
-          checksums = calculateChecksums(Optional.of(zos), inputStream, metsChecksumAlgorithms);
-          METSZipEntryInfo metsEntry = (METSZipEntryInfo) file;
-          metsEntry.setChecksums(checksums);
-          metsEntry.setSize(metsEntry.getFilePath().toFile().length());
-        } else {
-          checksums = calculateChecksums(Optional.of(zos), inputStream, nonMetsChecksumAlgorithms);
-        }
+    CRC32 crc = new CRC32();
+    Map<String, String> checksums;
+    long[] read = new long[1];
+    try (InputStream inputStream = new CheckedInputStream(Files.newInputStream(filePath), crc)) {
+      // the content is read twice, each pass being half of the entry progress
+      checksums = calculateChecksums(Optional.empty(), inputStream, checksumAlgorithms, bytesRead -> {
+        read[0] = bytesRead;
+        progress.entryProgress(bytesRead / 2);
+      });
+    }
 
-        LOGGER.debug("Done zipping file");
-        String checksum = checksums.get(IPConstants.CHECKSUM_ALGORITHM);
-        String checksumType = IPConstants.CHECKSUM_ALGORITHM;
-        file.setChecksum(checksum);
-        file.setChecksumAlgorithm(checksumType);
-        if (file instanceof METSFileTypeZipEntryInfo) {
-          METSFileTypeZipEntryInfo f = (METSFileTypeZipEntryInfo) file;
-          f.getMetsFileType().setCHECKSUM(checksum);
-          f.getMetsFileType().setCHECKSUMTYPE(checksumType);
-        } else if (file instanceof METSMdRefZipEntryInfo) {
-          METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) file;
-          f.getMetsMdRef().setCHECKSUM(checksum);
-          f.getMetsMdRef().setCHECKSUMTYPE(checksumType);
-        }
-      } catch (NoSuchAlgorithmException e) {
-        LOGGER.error("Error while zipping files", e);
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      long size = read[0];
+      if (channel.size() != size) {
+        throw new IOException("File " + filePath + " changed size while being packaged");
       }
-      zos.closeEntry();
-      i++;
+      setStored(entry, size, crc);
+      zos.putNextEntry(entry);
 
-      sip.notifySipBuildPackagingCurrentStatus(i);
+      WritableByteChannel target = Channels.newChannel(zos);
+      SIPBuildTimings timings = SIPBuildTimings.current();
+      long position = 0;
+      while (position < size) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        long start = System.nanoTime();
+        long transferred = channel.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), target);
+        timings.add(SIPBuildPhase.COMPRESSION, System.nanoTime() - start);
+        if (transferred <= 0) {
+          // the file shrank after its size was read
+          throw new IOException("File " + filePath + " changed size while being packaged");
+        }
+        position += transferred;
+        progress.entryProgress((size + position) / 2);
+      }
     }
+    return checksums;
+  }
 
-    zos.close();
-    out.close();
+  private static void setStored(ZipEntry entry, long size, CRC32 crc) {
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(size);
+    entry.setCompressedSize(size);
+    entry.setCrc(crc.getValue());
+  }
+
+  static long sizeIfExists(Path path) throws IOException {
+    return Files.exists(path) ? Files.size(path) : 0;
   }
 
-  public static Map<String, String> calculateChecksums(Optional<ZipOutputStream> zos, InputStream inputStream,
+  public static Map<String, String> calculateChecksums(Optional<? extends OutputStream> zos, InputStream inputStream,
     Set<String> checksumAlgorithms) throws NoSuchAlgorithmException, IOException {
+    return calculateChecksums(zos, inputStream, checksumAlgorithms, bytesRead -> {
+    });
+  }
+
+  /**
+   * Same as {@link #calculateChecksums(Optional, InputStream, Set)}, reporting
+   * the number of bytes read so far after each buffer. Stops with a
+   * {@link ClosedByInterruptException} if the thread is interrupted.
+   */
+  public static Map<String, String> calculateChecksums(Optional<? extends OutputStream> zos, InputStream inputStream,
+    Set<String> checksumAlgorithms, LongConsumer progress) throws NoSuchAlgorithmException, IOException {
+    SIPBuildTimings timings = SIPBuildTimings.current();
     byte[] buffer = new byte[4096];
     Map<String, String> values = new HashMap<>();
 
@@ -190,17 +457,27 @@ public final class ZIPUtils {
     }
 
     // calculate value for each one of the algorithms
+    long totalRead = 0;
     int numRead;
     do {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new ClosedByInterruptException();
+      }
       numRead = inputStream.read(buffer);
       if (numRead > 0) {
+        long start = System.nanoTime();
         for (Entry<String, MessageDigest> alg : algorithms.entrySet()) {
           alg.getValue().update(buffer, 0, numRead);
         }
+        long hashed = System.nanoTime();
+        timings.add(SIPBuildPhase.HASHING, hashed - start);
 
         if (zos.isPresent()) {
           zos.get().write(buffer, 0, numRead);
+          timings.add(SIPBuildPhase.COMPRESSION, System.nanoTime() - hashed);
         }
+        totalRead += numRead;
+        progress.accept(totalRead);
       }
     } while (numRead != -1);
 
@@ -219,6 +496,10 @@ public final class ZIPUtils {
       zipInputStream.close();
     } else {
       while (zipEntry != null) {
+        if (Thread.currentThread().isInterrupted()) {
+          zipInputStream.close();
+          throw new ClosedByInterruptException();
+        }
         // for each entry to be extracted
         String entryName = zipEntry.getName();
         if (Utils.systemIsWindows()) {
@@ -247,4 +528,57 @@ public final class ZIPUtils {
     }
   }
 
+  /**
+   * Byte progress of the packaging, notified to the SIP observers at most every
+   * {@link #NOTIFICATION_INTERVAL_NANOS} and when each entry is done.
+   */
+  static final class PackagingProgress {
+    private static final long NOTIFICATION_INTERVAL_NANOS = 200_000_000L;
+
+    private final SIP sip;
+    private final long startNanos = System.nanoTime();
+    private long lastNotificationNanos = startNanos;
+    private long totalBytes;
+    private long completedBytes;
+    private String entryName;
+    private long entrySize;
+    private long entryBytes;
+
+    PackagingProgress(SIP sip, long totalBytes) {
+      this.sip = sip;
+      this.totalBytes = totalBytes;
+    }
+
+    /**
+     * @param expectedSize
+     *          the size counted in the total (0 for files generated while
+     *          packaging, like the METS files).
+     */
+    void startEntry(String name, long expectedSize, long size) {
+      totalBytes += size - expectedSize;
+      entryName = name;
+      entrySize = size;
+      entryBytes = 0;
+    }
+
+    void entryProgress(long bytes) {
+      entryBytes = Math.min(bytes, entrySize);
+      long now = System.nanoTime();
+      if (now - lastNotificationNanos >= NOTIFICATION_INTERVAL_NANOS) {
+        notify(now);
+      }
+    }
+
+    void finishEntry() {
+      completedBytes += entrySize;
+      entryBytes = 0;
+      notify(System.nanoTime());
+    }
+
+    private void notify(long now) {
+      lastNotificationNanos = now;
+      sip.notifySipBuildPackagingProgress(
+        new SIPBuildProgress(completedBytes + entryBytes, totalBytes, entryName, now - startNanos));
+    }
+  }
 }
@@ -0,0 +1,117 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes the central directory (and the end records) of a ZIP whose entries
+ * were written by different {@link java.util.zip.ZipOutputStream}s (see
+ * {@link BuildJournal}), from the journaled entries and their local headers.
+ */
+final class ZipCentralDirectory {
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final short ZIP64_EXTRA_ID = 0x0001;
+  private static final short ZIP64_VERSION = 45;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  private ZipCentralDirectory() {
+    // do nothing
+  }
+
+  /**
+   * @param offset
+   *          the position in the ZIP where the central directory starts.
+   */
+  static void write(OutputStream out, Path zipPath, List<BuildJournal.Record> entries, long offset)
+    throws IOException {
+    ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    try (FileChannel zip = FileChannel.open(zipPath, StandardOpenOption.READ)) {
+      for (BuildJournal.Record entry : entries) {
+        centralDirectory.write(centralHeader(zip, entry));
+      }
+    }
+    centralDirectory.writeTo(out);
+
+    long size = centralDirectory.size();
+    ByteBuffer end = ByteBuffer.allocate(56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+    boolean zip64 = entries.size() >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC || offset >= ZIP64_MAGIC;
+    if (zip64) {
+      end.putInt(ZIP64_END_SIGNATURE).putLong(44).putShort(ZIP64_VERSION).putShort(ZIP64_VERSION).putInt(0)
+        .putInt(0).putLong(entries.size()).putLong(entries.size()).putLong(size).putLong(offset);
+      end.putInt(ZIP64_LOCATOR_SIGNATURE).putInt(0).putLong(offset + size).putInt(1);
+    }
+    short count = (short) Math.min(entries.size(), ZIP64_MAGIC_COUNT);
+    end.putInt(END_SIGNATURE).putShort((short) 0).putShort((short) 0).putShort(count).putShort(count)
+      .putInt((int) Math.min(size, ZIP64_MAGIC)).putInt((int) Math.min(offset, ZIP64_MAGIC)).putShort((short) 0);
+    out.write(end.array(), 0, end.position());
+  }
+
+  /**
+   * @return the central directory header of an entry, with the version, flags,
+   *         method and time of its local header.
+   */
+  private static byte[] centralHeader(FileChannel zip, BuildJournal.Record entry) throws IOException {
+    ByteBuffer local = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (local.hasRemaining()) {
+      if (zip.read(local, entry.getOffset() + local.position()) < 0) {
+        throw new EOFException("Truncated local header of " + entry.getName());
+      }
+    }
+    if (local.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException("Invalid local header of " + entry.getName() + " at " + entry.getOffset());
+    }
+
+    boolean zip64Size = entry.getSize() >= ZIP64_MAGIC || entry.getCompressedSize() >= ZIP64_MAGIC;
+    boolean zip64Offset = entry.getOffset() >= ZIP64_MAGIC;
+    int zip64ExtraSize = (zip64Size ? 16 : 0) + (zip64Offset ? 8 : 0);
+    short version = zip64ExtraSize > 0 ? ZIP64_VERSION : local.getShort(4);
+    byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+
+    ByteBuffer header = ByteBuffer.allocate(46 + name.length + (zip64ExtraSize > 0 ? 4 + zip64ExtraSize : 0))
+      .order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(CENTRAL_HEADER_SIGNATURE).putShort(version).putShort(version);
+    // flags, method, time and date
+    header.putShort(local.getShort(6)).putShort(local.getShort(8)).putShort(local.getShort(10))
+      .putShort(local.getShort(12));
+    header.putInt((int) entry.getCrc());
+    header.putInt((int) (zip64Size ? ZIP64_MAGIC : entry.getCompressedSize()));
+    header.putInt((int) (zip64Size ? ZIP64_MAGIC : entry.getSize()));
+    header.putShort((short) name.length).putShort((short) (zip64ExtraSize > 0 ? 4 + zip64ExtraSize : 0));
+    // comment length, disk, internal and external attributes
+    header.putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+    header.putInt((int) (zip64Offset ? ZIP64_MAGIC : entry.getOffset()));
+    header.put(name);
+    if (zip64ExtraSize > 0) {
+      header.putShort(ZIP64_EXTRA_ID).putShort((short) zip64ExtraSize);
+      if (zip64Size) {
+        header.putLong(entry.getSize()).putLong(entry.getCompressedSize());
+      }
+      if (zip64Offset) {
+        header.putLong(entry.getOffset());
+      }
+    }
+    return header.array();
+  }
+}
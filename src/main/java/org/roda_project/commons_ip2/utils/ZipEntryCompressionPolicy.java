@@ -0,0 +1,36 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+
+/**
+ * Decides, for each entry of an IP ZIP, whether its content should be deflated
+ * or written as-is (STORED).
+ */
+@FunctionalInterface
+public interface ZipEntryCompressionPolicy {
+
+  /** Deflates every entry (previous behaviour of the E-ARK SIP build). */
+  ZipEntryCompressionPolicy ALWAYS = entry -> true;
+
+  /** Stores every entry without compression. */
+  ZipEntryCompressionPolicy NEVER = entry -> false;
+
+  /**
+   * @param entry
+   *          the entry about to be written (already prepared for zipping).
+   * @return {@code true} if the entry should be deflated, {@code false} if it
+   *         should be stored.
+   * @throws IOException
+   *           if some error occurs while inspecting the entry content.
+   */
+  boolean shouldCompress(ZipEntryInfo entry) throws IOException;
+}
@@ -0,0 +1,78 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.SIP;
+
+/**
+ * ZIP {@link PackageContainer}, compressing each entry according to the
+ * {@link ZipEntryCompressionPolicy} of the SIP.
+ */
+public final class ZipPackageContainer implements PackageContainer {
+  private static final String FILE_EXTENSION = ".zip";
+  private static final byte[] MAGIC = {'P', 'K', 3, 4};
+
+  ZipPackageContainer() {
+    // use PackageContainer.ZIP
+  }
+
+  @Override
+  public String getFileExtension() {
+    return FILE_EXTENSION;
+  }
+
+  @Override
+  public void write(Map<String, ZipEntryInfo> entries, OutputStream out, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException {
+    ZIPUtils.zip(entries, out, sip, createSipIdFolder, sip.getZipEntryCompressionPolicy());
+  }
+
+  @Override
+  public void writeResumable(Map<String, ZipEntryInfo> entries, Path packagePath, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException {
+    ZIPUtils.zipResumable(entries, packagePath, sip, createSipIdFolder, sip.getZipEntryCompressionPolicy());
+  }
+
+  @Override
+  public boolean canExtract(Path path) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      return false;
+    }
+    byte[] header = new byte[MAGIC.length];
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      int read = 0;
+      int n;
+      while (read < header.length && (n = inputStream.read(header, read, header.length - read)) != -1) {
+        read += n;
+      }
+      if (read < header.length) {
+        return false;
+      }
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (header[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void extract(Path source, Path destinationDirectory) throws IOException {
+    ZIPUtils.unzip(source, destinationDirectory);
+  }
+}
@@ -0,0 +1,207 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.IOUtils;
+import org.roda_project.commons_ip2.validator.utils.CLIUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+
+/**
+ * Thin client of the {@link CLIServer}: submits SIPs to a running server and
+ * writes their reports to the standard output (or to files, as the
+ * {@link CLIValidator} does), authenticating with the token the server wrote
+ * to {@link CLIServer#getTokenPath(int)}.
+ */
+public class CLIClient {
+  /**
+   * {@link Options}.
+   */
+  private final Options parameters;
+  /**
+   * {@link CommandLineParser}.
+   */
+  private final CommandLineParser parser;
+
+  /** Initialize available CLI options. */
+  public CLIClient() {
+    this.parameters = new Options();
+    this.parser = new DefaultParser();
+
+    final Option op = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT, "input", true,
+      "List of files to be used as inputs");
+    op.setArgs(Option.UNLIMITED_VALUES);
+    op.setRequired(true);
+    parameters.addOption(op);
+    final Option reportOption = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT, true,
+      "Output to file");
+    reportOption.setRequired(false);
+    parameters.addOption(reportOption);
+    final Option typeValidatorReportOption = new Option(
+      CLIConstants.CLI_VALIDATE_SHORT_OPTION_TYPE_OF_REPORT_WITHOUT_IDENT, true, "Type of Validation Report");
+    typeValidatorReportOption.setRequired(false);
+    parameters.addOption(typeValidatorReportOption);
+    final Option portOption = new Option(CLIConstants.CLI_SERVE_SHORT_OPTION_PORT_WITHOUT_IDENT, true,
+      "Port of the server");
+    portOption.setRequired(false);
+    parameters.addOption(portOption);
+  }
+
+  /**
+   * Print All available options if some required option is missing.
+   *
+   * @param printStream
+   *          {@link PrintStream}
+   */
+  public static void printUsageClient(final PrintStream printStream) {
+    final StringBuilder out = new StringBuilder();
+
+    out.append("Usage: Commons-ip submit [OPTIONS]\n");
+
+    out.append(CLIConstants.END_OF_LINE);
+    out.append("Commands:");
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SIP_PATHS).append(CLIConstants.DOUBLE_TAB)
+      .append("(required) Paths to the SIPs archive file or files").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_REPORT_DIRECTORY).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Path to save the validation reports. If not set the reports are written to the output.")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_REPORT_TYPE).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) By default generate json report, with option eark generate E-ARK JSON")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_SERVE_OPTION_PORT).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Port of the validation server (default ").append(CLIConstants.SERVE_DEFAULT_PORT)
+      .append(")").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.END_OF_LINE);
+    printStream.append(out).flush();
+  }
+
+  /**
+   * Start the CLI.
+   *
+   * @param args
+   *          {@link String} array with arguments of command.
+   * @return one {@link ExitCodes}
+   */
+  public int start(final String[] args) {
+    final String[] sipPaths;
+    final String reportDirectoryPath;
+    final String typeReportOption;
+    final int port;
+    try {
+      final CommandLine commandLine = parser.parse(parameters, args);
+      sipPaths = commandLine.getOptionValues(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT);
+      reportDirectoryPath = commandLine
+        .getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT);
+      typeReportOption = commandLine
+        .getOptionValue(CLIConstants.CLI_VALIDATE_SHORT_OPTION_TYPE_OF_REPORT_WITHOUT_IDENT);
+      port = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVE_SHORT_OPTION_PORT_WITHOUT_IDENT,
+        String.valueOf(CLIConstants.SERVE_DEFAULT_PORT)));
+    } catch (final ParseException | NumberFormatException e) {
+      printUsageClient(System.out);
+      return ExitCodes.EXIT_PARSE_ARG;
+    }
+
+    try {
+      if (reportDirectoryPath != null) {
+        Files.createDirectories(Paths.get(reportDirectoryPath));
+      }
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot create the directory for the report.");
+      return ExitCodes.EXIT_CODE_CREATE_DIRECTORY_FAILS;
+    }
+
+    final String token;
+    try {
+      token = new String(Files.readAllBytes(CLIServer.getTokenPath(port)), StandardCharsets.UTF_8).trim();
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot read the token of the validation server on port " + port + ": "
+        + CLIServer.getTokenPath(port));
+      return ExitCodes.EXIT_CODE_SERVER_UNAVAILABLE;
+    }
+
+    final String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    for (String sip : sipPaths) {
+      final Path sipPath = Paths.get(sip);
+      final HttpURLConnection connection;
+      try {
+        connection = submit(port, token, sipPath, typeReportOption);
+      } catch (final IOException e) {
+        CLIUtils.printErrors(System.out,
+          "Cannot reach the validation server on port " + port + ": " + e.getMessage());
+        return ExitCodes.EXIT_CODE_SERVER_UNAVAILABLE;
+      }
+      try {
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+          final InputStream error = connection.getErrorStream();
+          CLIUtils.printErrors(System.out,
+            error != null ? IOUtils.toString(error, StandardCharsets.UTF_8) : connection.getResponseMessage());
+          return getExitCode(connection.getResponseCode());
+        }
+        try (InputStream report = connection.getInputStream()) {
+          if (reportDirectoryPath != null) {
+            final Path reportPath = CLIValidator.newReportPath(sipPath, reportDirectoryPath, date);
+            Files.copy(report, reportPath);
+            System.out.println(reportPath.normalize().toAbsolutePath());
+          } else {
+            IOUtils.copy(report, System.out);
+            System.out.println();
+          }
+        }
+      } catch (final IOException e) {
+        CLIUtils.printErrors(System.out, "Error on Report Initialize");
+        return ExitCodes.EXIT_CANNOT_CREATE_REPORT;
+      } finally {
+        connection.disconnect();
+      }
+    }
+    return ExitCodes.EXIT_CODE_OK;
+  }
+
+  private static int getExitCode(final int responseCode) {
+    if (responseCode == HttpURLConnection.HTTP_BAD_REQUEST) {
+      return ExitCodes.EXIT_REPORT_TYPE_INVALID;
+    } else if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    } else {
+      return ExitCodes.EXIT_CANNOT_CREATE_REPORT;
+    }
+  }
+
+  private HttpURLConnection submit(final int port, final String token, final Path sipPath,
+    final String typeReportOption) throws IOException {
+    final StringBuilder query = new StringBuilder(CLIConstants.SERVE_VALIDATE_PATH).append('?')
+      .append(CLIConstants.SERVE_PARAMETER_PATH).append('=')
+      .append(URLEncoder.encode(sipPath.toAbsolutePath().normalize().toString(), StandardCharsets.UTF_8.name()));
+    if (typeReportOption != null) {
+      query.append('&').append(CLIConstants.SERVE_PARAMETER_REPORT_TYPE).append('=')
+        .append(URLEncoder.encode(typeReportOption, StandardCharsets.UTF_8.name()));
+    }
+    final URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, query.toString());
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty(CLIConstants.SERVE_HEADER_TOKEN, token);
+    connection.setDoOutput(true);
+    connection.setFixedLengthStreamingMode(0);
+    connection.getOutputStream().close();
+    connection.getResponseCode();
+    return connection;
+  }
+}
@@ -20,6 +20,16 @@ public final class CLIConstants {
    */
   public static final String CLI_OPTION_CREATE = "create";
 
+  /**
+   * CLI option to start the validation server.
+   */
+  public static final String CLI_OPTION_SERVE = "serve";
+
+  /**
+   * CLI option to submit SIPs to the validation server.
+   */
+  public static final String CLI_OPTION_SUBMIT = "submit";
+
   /**
    * CLI option sip paths to validate.
    */
@@ -40,6 +50,17 @@ public final class CLIConstants {
    */
   public static final String CLI_OPTION_VERBOSE = "-v";
 
+  /**
+   * CLI option to give the port of the validation server.
+   */
+  public static final String CLI_SERVE_OPTION_PORT = "-p";
+
+  /**
+   * CLI option to give the number of validations the server runs at the same
+   * time.
+   */
+  public static final String CLI_SERVE_OPTION_THREADS = "-t";
+
   /**
    * CLI option to give the metadata file.
    */
@@ -243,6 +264,68 @@ public final class CLIConstants {
    */
   public static final String CLI_CREATE_SHORT_OPTION_SUBMITTER_AGENT_ID_WITHOUT_IDENT = "aid";
 
+  /**
+   * Short option port without ident.
+   */
+  public static final String CLI_SERVE_SHORT_OPTION_PORT_WITHOUT_IDENT = "p";
+
+  /**
+   * Short option threads without ident.
+   */
+  public static final String CLI_SERVE_SHORT_OPTION_THREADS_WITHOUT_IDENT = "t";
+
+  /* SERVER */
+
+  /**
+   * Default port of the validation server.
+   */
+  public static final int SERVE_DEFAULT_PORT = 8907;
+
+  /**
+   * Path of the validation endpoint of the server.
+   */
+  public static final String SERVE_VALIDATE_PATH = "/validate";
+
+  /**
+   * Parameter of the validation endpoint with the path of the SIP.
+   */
+  public static final String SERVE_PARAMETER_PATH = "path";
+
+  /**
+   * Parameter of the validation endpoint with the type of the report.
+   */
+  public static final String SERVE_PARAMETER_REPORT_TYPE = "type";
+
+  /**
+   * Header of the validation response telling if the SIP is valid.
+   */
+  public static final String SERVE_HEADER_VALID = "X-Validation-Valid";
+
+  /**
+   * Header of the validation request with the token of the server.
+   */
+  public static final String SERVE_HEADER_TOKEN = "X-Validation-Token";
+
+  /**
+   * Folder, in the home of the user, with the tokens of the running servers.
+   */
+  public static final String SERVE_TOKEN_FOLDER = ".commons-ip";
+
+  /**
+   * Prefix of the file with the token of the server listening on a port.
+   */
+  public static final String SERVE_TOKEN_FILE_PREFIX = "validator-server-";
+
+  /**
+   * Extension of the file with the token of the server listening on a port.
+   */
+  public static final String SERVE_TOKEN_FILE_EXTENSION = ".token";
+
+  /**
+   * Number of validation results the server keeps in memory.
+   */
+  public static final int SERVE_CACHE_SIZE = 1024;
+
   /*
    * PRINT CHARS UTILS
    * 
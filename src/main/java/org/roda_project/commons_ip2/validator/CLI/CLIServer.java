@@ -0,0 +1,367 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.roda_project.commons_ip2.validator.EARKPyIPValidator;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.cache.MemoryValidationCache;
+import org.roda_project.commons_ip2.validator.cache.PackageFingerprint;
+import org.roda_project.commons_ip2.validator.cache.ValidationCache;
+import org.roda_project.commons_ip2.validator.common.InstatiateMets;
+import org.roda_project.commons_ip2.validator.constants.Constants;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJSONPyIP;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.roda_project.commons_ip2.validator.utils.CLIUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long-running validator that keeps the validation engine warm (METS JAXB
+ * context and schema, loaded classes, JIT-compiled code and the results of
+ * the SIPs already validated) and validates SIPs on request, so that scripts
+ * validating one SIP at a time do not pay for starting a JVM for each one.
+ *
+ * <p>
+ * It listens only on the loopback interface: a {@code POST} to
+ * {@value CLIConstants#SERVE_VALIDATE_PATH} with the parameters
+ * {@value CLIConstants#SERVE_PARAMETER_PATH} (the path of the SIP, as seen by
+ * the server) and, optionally, {@value CLIConstants#SERVE_PARAMETER_REPORT_TYPE}
+ * answers with the report, and with the header
+ * {@value CLIConstants#SERVE_HEADER_VALID} telling if the SIP is valid.
+ * </p>
+ *
+ * <p>
+ * As any local process (or web page, through the browser) can reach the
+ * loopback interface, requests must carry, in the header
+ * {@value CLIConstants#SERVE_HEADER_TOKEN}, a random token the server writes
+ * to a file only its user can read (see {@link #getTokenPath(int)}), and
+ * requests with an {@code Origin} header, sent by browsers, are refused.
+ * </p>
+ */
+public class CLIServer {
+  /**
+   * {@link Logger}.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CLIServer.class);
+  /**
+   * {@link Options}.
+   */
+  private final Options parameters;
+  /**
+   * {@link CommandLineParser}.
+   */
+  private final CommandLineParser parser;
+
+  /** Initialize available CLI options. */
+  public CLIServer() {
+    this.parameters = new Options();
+    this.parser = new DefaultParser();
+
+    final Option portOption = new Option(CLIConstants.CLI_SERVE_SHORT_OPTION_PORT_WITHOUT_IDENT, true,
+      "Port of the server");
+    portOption.setRequired(false);
+    parameters.addOption(portOption);
+    final Option threadsOption = new Option(CLIConstants.CLI_SERVE_SHORT_OPTION_THREADS_WITHOUT_IDENT, true,
+      "Number of validations at the same time");
+    threadsOption.setRequired(false);
+    parameters.addOption(threadsOption);
+  }
+
+  /**
+   * Print All available options if some option is invalid.
+   *
+   * @param printStream
+   *          {@link PrintStream}
+   */
+  public static void printUsageServer(final PrintStream printStream) {
+    final StringBuilder out = new StringBuilder();
+
+    out.append("Usage: Commons-ip serve [OPTIONS]\n");
+
+    out.append(CLIConstants.END_OF_LINE);
+    out.append("Commands:");
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_SERVE_OPTION_PORT).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Port to listen on, in the loopback interface (default ")
+      .append(CLIConstants.SERVE_DEFAULT_PORT).append(")").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_SERVE_OPTION_THREADS).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Number of SIPs validated at the same time (default number of processors)")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.END_OF_LINE);
+    printStream.append(out).flush();
+  }
+
+  /**
+   * Start the server, that keeps running (in other threads) after this method
+   * returns.
+   *
+   * @param args
+   *          {@link String} array with arguments of command.
+   * @return one {@link ExitCodes}
+   */
+  public int start(final String[] args) {
+    final int port;
+    final int threads;
+    try {
+      final CommandLine commandLine = parser.parse(parameters, args);
+      port = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVE_SHORT_OPTION_PORT_WITHOUT_IDENT,
+        String.valueOf(CLIConstants.SERVE_DEFAULT_PORT)));
+      threads = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVE_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+        String.valueOf(Runtime.getRuntime().availableProcessors())));
+    } catch (final ParseException | NumberFormatException e) {
+      printUsageServer(System.out);
+      return ExitCodes.EXIT_PARSE_ARG;
+    }
+
+    try {
+      final String token = newToken();
+      final HttpServer server = createServer(port, threads, token);
+      final Path tokenPath = getTokenPath(server.getAddress().getPort());
+      writeToken(tokenPath, token);
+      server.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        server.stop(0);
+        try {
+          Files.deleteIfExists(tokenPath);
+        } catch (final IOException e) {
+          LOGGER.debug("Could not delete the token file {}", tokenPath, e);
+        }
+      }));
+      System.out.println("Token in " + tokenPath.toAbsolutePath());
+      System.out.println("Listening on http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort() + CLIConstants.SERVE_VALIDATE_PATH);
+    } catch (final JAXBException | SAXException e) {
+      CLIUtils.printErrors(System.out, "Error on object initialize");
+      return ExitCodes.EXIT_CANNOT_CREATE_EARKVALIDATOR_OBJECT;
+    } catch (final IOException | IllegalArgumentException e) {
+      CLIUtils.printErrors(System.out, "Cannot listen on port " + port + ": " + e.getMessage());
+      return ExitCodes.EXIT_CODE_SERVER_UNAVAILABLE;
+    }
+    return ExitCodes.EXIT_CODE_OK;
+  }
+
+  /**
+   * Creates a validation server, warming up the validation engine, that is not
+   * started yet.
+   *
+   * @param port
+   *          the port to listen on, in the loopback interface, or 0 to use any
+   *          free port.
+   * @param threads
+   *          the number of SIPs validated at the same time.
+   * @param token
+   *          the token the requests must carry.
+   * @return the {@link HttpServer}.
+   * @throws IOException
+   *           if it cannot listen on the port.
+   * @throws JAXBException
+   *           if the METS {@link javax.xml.bind.JAXBContext} cannot be created.
+   * @throws SAXException
+   *           if the METS schema cannot be compiled.
+   */
+  public static HttpServer createServer(final int port, final int threads, final String token)
+    throws IOException, JAXBException, SAXException {
+    InstatiateMets.warmUp();
+    final ValidationCache cache = new MemoryValidationCache(CLIConstants.SERVE_CACHE_SIZE);
+    final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      final Thread thread = new Thread(runnable, "commons-ip-validator-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext(CLIConstants.SERVE_VALIDATE_PATH, exchange -> handleValidate(exchange, cache, token));
+    return server;
+  }
+
+  /**
+   * Gets the file with the token of the server listening on a port, in the home
+   * of the user.
+   *
+   * @param port
+   *          the port of the server.
+   * @return the {@link Path} of the file.
+   */
+  public static Path getTokenPath(final int port) {
+    return Paths.get(System.getProperty("user.home"), CLIConstants.SERVE_TOKEN_FOLDER,
+      CLIConstants.SERVE_TOKEN_FILE_PREFIX + port + CLIConstants.SERVE_TOKEN_FILE_EXTENSION);
+  }
+
+  private static String newToken() {
+    final byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    final StringBuilder token = new StringBuilder();
+    for (byte b : bytes) {
+      token.append(String.format(Locale.ROOT, "%02x", b));
+    }
+    return token.toString();
+  }
+
+  /**
+   * Writes the token to a new file that, where the file system has POSIX
+   * permissions, only the user can read.
+   */
+  private static void writeToken(final Path tokenPath, final String token) throws IOException {
+    final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    if (!Files.isDirectory(tokenPath.getParent())) {
+      if (posix) {
+        Files.createDirectories(tokenPath.getParent(),
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      } else {
+        Files.createDirectories(tokenPath.getParent());
+      }
+    }
+    Files.deleteIfExists(tokenPath);
+    if (posix) {
+      Files.createFile(tokenPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } else {
+      Files.createFile(tokenPath);
+    }
+    Files.write(tokenPath, token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static boolean isAuthorized(final HttpExchange exchange, final String token) {
+    final String requestToken = exchange.getRequestHeaders().getFirst(CLIConstants.SERVE_HEADER_TOKEN);
+    return exchange.getRequestHeaders().getFirst("Origin") == null && requestToken != null
+      && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void handleValidate(final HttpExchange exchange, final ValidationCache cache, final String token)
+    throws IOException {
+    try {
+      if (!isAuthorized(exchange, token)) {
+        sendError(exchange, 403, "Missing or wrong token");
+        return;
+      }
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        sendError(exchange, 405, "Use POST");
+        return;
+      }
+      final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      final String sip = query.get(CLIConstants.SERVE_PARAMETER_PATH);
+      if (sip == null) {
+        sendError(exchange, 400, "Missing SIP Path");
+        return;
+      }
+      final Path sipPath = Paths.get(sip);
+      if (!Files.exists(sipPath)) {
+        sendError(exchange, 404, "SIP not found: " + sip);
+        return;
+      }
+      final String typeReportOption = query.get(CLIConstants.SERVE_PARAMETER_REPORT_TYPE);
+      final ByteArrayOutputStream report = new ByteArrayOutputStream();
+      final boolean valid;
+      if (typeReportOption == null || typeReportOption.equals("default")) {
+        final ValidationReportOutputJson jsonReporter = new ValidationReportOutputJson(sipPath, report);
+        final EARKSIPValidator earksipValidator = new EARKSIPValidator(jsonReporter);
+        earksipValidator.setValidationCache(cache, getFingerprintMode(sipPath));
+        valid = earksipValidator.validate();
+      } else if (typeReportOption.equals("eark")) {
+        final Path reportPath = Files.createTempFile(Constants.VALIDATION_REPORT_PREFIX,
+          CLIConstants.JSON_FILE_EXTENSION);
+        try {
+          final ValidationReportOutputJSONPyIP jsonReporter = new ValidationReportOutputJSONPyIP(reportPath, sipPath);
+          valid = new EARKPyIPValidator(jsonReporter).validate();
+          Files.copy(reportPath, report);
+        } finally {
+          Files.deleteIfExists(reportPath);
+        }
+      } else {
+        sendError(exchange, 400, "Invalid Option of ReportType");
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.getResponseHeaders().set(CLIConstants.SERVE_HEADER_VALID, String.valueOf(valid));
+      exchange.sendResponseHeaders(200, report.size());
+      try (OutputStream body = exchange.getResponseBody()) {
+        report.writeTo(body);
+      }
+    } catch (final IOException | ParserConfigurationException | SAXException | NoSuchAlgorithmException
+      | RuntimeException e) {
+      LOGGER.error("Error validating {}", exchange.getRequestURI(), e);
+      sendError(exchange, 500, "Error validating the SIP: " + e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Gets how a SIP is fingerprinted for the cache: a zip file or folder by its
+   * metadata, any other file (a TAR or a damaged zip, whose metadata is just
+   * its size and modification time) by its content.
+   */
+  private static PackageFingerprint.Mode getFingerprintMode(final Path sipPath) {
+    if (Files.isDirectory(sipPath)) {
+      return PackageFingerprint.Mode.METADATA;
+    }
+    try (ZipFile zipFile = new ZipFile(sipPath.toFile())) {
+      return PackageFingerprint.Mode.METADATA;
+    } catch (final IOException e) {
+      return PackageFingerprint.Mode.DIGEST;
+    }
+  }
+
+  private static Map<String, String> parseQuery(final String query) throws UnsupportedEncodingException {
+    final Map<String, String> parameters = new HashMap<>();
+    if (query != null) {
+      for (String parameter : query.split("&")) {
+        final int separator = parameter.indexOf('=');
+        if (separator > 0) {
+          parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8.name()),
+            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8.name()));
+        }
+      }
+    }
+    return parameters;
+  }
+
+  private static void sendError(final HttpExchange exchange, final int status, final String message) {
+    final byte[] body = message.getBytes(StandardCharsets.UTF_8);
+    try {
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (final IOException e) {
+      // the response was already started or the client is gone
+      LOGGER.debug("Could not send error response", e);
+    }
+  }
+}
@@ -141,19 +141,7 @@ public class CLIValidator {
       final String date = localDateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
       for (String sip : sipPaths) {
         final Path sipPath = Paths.get(sip);
-        Path reportPath;
-        int count = 1;
-        do {
-          final String reportName = sipPath.getFileName() + "_validation-report_" + date + "_" + count++
-            + CLIConstants.JSON_FILE_EXTENSION;
-          if (reportDirectoryPath != null) {
-            reportPath = Paths.get(reportDirectoryPath).resolve(reportName);
-          } else {
-            reportPath = sipPath.normalize().toAbsolutePath().getParent().resolve(reportName);
-          }
-
-        } while (Files.exists(reportPath));
-
+        final Path reportPath = newReportPath(sipPath, reportDirectoryPath, date);
         validate(typeReportOption, reportPath, sipPath,
           commandLine.hasOption(CLIConstants.CLI_CREATE_SHORT_OPTION_VERBOSE_WITHOUT_IDENT));
         System.out.println(reportPath.normalize().toAbsolutePath());
@@ -179,6 +167,34 @@ public class CLIValidator {
     return ExitCodes.EXIT_CODE_OK;
   }
 
+  /**
+   * Gets a path for the report of a SIP that does not exist yet.
+   *
+   * @param sipPath
+   *          the {@link Path} of the SIP.
+   * @param reportDirectoryPath
+   *          the directory of the report or {@code null} to use the one of the
+   *          SIP.
+   * @param date
+   *          the date of the report.
+   * @return the {@link Path} of the report.
+   */
+  static Path newReportPath(final Path sipPath, final String reportDirectoryPath, final String date) {
+    Path reportPath;
+    int count = 1;
+    do {
+      final String reportName = sipPath.getFileName() + "_validation-report_" + date + "_" + count++
+        + CLIConstants.JSON_FILE_EXTENSION;
+      if (reportDirectoryPath != null) {
+        reportPath = Paths.get(reportDirectoryPath).resolve(reportName);
+      } else {
+        reportPath = sipPath.normalize().toAbsolutePath().getParent().resolve(reportName);
+      }
+
+    } while (Files.exists(reportPath));
+    return reportPath;
+  }
+
   private void printMissingSipPath(final PrintStream printStream) {
     final StringBuilder out = new StringBuilder();
 
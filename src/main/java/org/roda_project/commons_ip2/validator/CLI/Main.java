@@ -8,6 +8,14 @@ import org.roda_project.commons_ip2.validator.utils.CLIUtils;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public final class Main {
+  /**
+   * System property set when running as a GraalVM native image.
+   */
+  private static final String NATIVE_IMAGE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+  /**
+   * System property that disables the bytecode generation of JAXB.
+   */
+  private static final String JAXB_NO_OPTIMIZE_PROPERTY = "com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize";
 
   private Main() {
     // do nothing
@@ -20,6 +28,11 @@ public final class Main {
    *          {@link String} array with the args of the command.
    */
   public static void main(final String[] args) {
+    if (System.getProperty(NATIVE_IMAGE_PROPERTY) != null) {
+      // a native image cannot define classes at run time, so JAXB must use
+      // reflection instead of generating its optimized accessors
+      System.setProperty(JAXB_NO_OPTIMIZE_PROPERTY, "true");
+    }
     if (args.length == 0) {
       CLIUtils.printUsage(System.out);
     } else {
@@ -33,6 +46,16 @@ public final class Main {
         filteredArgs.remove(0);
         final CLICreator cliCreator = new CLICreator();
         cliCreator.start(filteredArgs.toArray(new String[] {}));
+      } else if (args[0].equals(CLIConstants.CLI_OPTION_SERVE)) {
+        final List<String> filteredArgs = new ArrayList<>(Arrays.asList(args));
+        filteredArgs.remove(0);
+        final CLIServer cliServer = new CLIServer();
+        cliServer.start(filteredArgs.toArray(new String[] {}));
+      } else if (args[0].equals(CLIConstants.CLI_OPTION_SUBMIT)) {
+        final List<String> filteredArgs = new ArrayList<>(Arrays.asList(args));
+        filteredArgs.remove(0);
+        final CLIClient cliClient = new CLIClient();
+        cliClient.start(filteredArgs.toArray(new String[] {}));
       } else {
         CLIUtils.printUsage(System.out);
 
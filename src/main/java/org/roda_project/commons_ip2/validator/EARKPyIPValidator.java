@@ -6,14 +6,17 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.roda_project.commons_ip2.validator.aipComponents.aipFileSectionComponent.AipFileSectionComponent;
 import org.roda_project.commons_ip2.validator.common.InstatiateMets;
+import org.roda_project.commons_ip2.validator.common.SubMets;
 import org.roda_project.commons_ip2.validator.component.MetsValidator;
 import org.roda_project.commons_ip2.validator.component.administritiveMetadataComponent.AdministritiveMetadataComponentValidator;
 import org.roda_project.commons_ip2.validator.component.descriptiveMetadataComponent.DescriptiveMetadataComponentValidator;
@@ -57,6 +60,8 @@ public class EARKPyIPValidator {
   private final List<MetsValidator> aipComponents = new ArrayList<>();
   /** The contextual mets state {@link MetsValidatorState}. */
   private final MetsValidatorState metsValidatorState;
+  /** List of {@link ValidationObserver}. */
+  private final List<ValidationObserver> observers = new ArrayList<>();
 
   /**
    * Initializes Validation Objects.
@@ -116,6 +121,7 @@ public class EARKPyIPValidator {
    *          the {@link ValidationObserver}
    */
   public void addObserver(final ValidationObserver observer) {
+    observers.add(observer);
     structureComponent.addObserver(observer);
     csipComponents.forEach(c -> c.addObserver(observer));
     sipComponents.forEach(c -> c.addObserver(observer));
@@ -128,6 +134,7 @@ public class EARKPyIPValidator {
    *          the {@link ValidationObserver}
    */
   public void removeObserver(final ValidationObserver observer) {
+    observers.remove(observer);
     structureComponent.removeObserver(observer);
     csipComponents.forEach(c -> c.removeObserver(observer));
     sipComponents.forEach(c -> c.removeObserver(observer));
@@ -144,13 +151,14 @@ public class EARKPyIPValidator {
    */
   public boolean validate() throws IOException, NoSuchAlgorithmException {
     structureComponent.notifyObserversIPValidationStarted();
+    structureValidatorState.getFolderManager().invalidate();
     try {
       final Map<String, ReporterDetails> structureValidationResults = structureComponent
         .validate(structureValidatorState);
       validationReportOutputJSONPyIP.getResults().putAll(structureValidationResults);
 
       if (validationReportOutputJSONPyIP.validFileComponent()) {
-        final Map<String, InputStream> subMets;
+        final List<SubMets> subMets;
         if (structureValidatorState.isZipFileFlag()) {
           metsValidatorState.setMetsFiles(structureValidatorState.getZipManager().getFiles(earksipPath));
           subMets = structureValidatorState.getZipManager().getSubMets(earksipPath);
@@ -159,7 +167,7 @@ public class EARKPyIPValidator {
           subMets = structureValidatorState.getFolderManager().getSubMets(earksipPath);
         }
 
-        if (subMets.size() > 0) {
+        if (!subMets.isEmpty()) {
           validateSubMets(subMets, structureValidatorState.isZipFileFlag());
         }
         validateRootMets();
@@ -204,6 +212,7 @@ public class EARKPyIPValidator {
     validationReportOutputJSONPyIP
       .setIpType(metsValidatorState.getIpType() != null ? metsValidatorState.getIpType() : IpType.CSIP.toString());
     validationReportOutputJSONPyIP.writeReport();
+    structureComponent.notifyObserversIPValidationFinished();
     return validationReportOutputJSONPyIP.isValid();
   }
 
@@ -226,7 +235,8 @@ public class EARKPyIPValidator {
    * Validate METS files inside representations.
    *
    * @param subMets
-   *          the {@link Map} with path to sub METS and InputStream of file.
+   *          the {@link List} of {@link SubMets}, each opened when its validation
+   *          starts and closed when it ends.
    * @param isZip
    *          flag if the Information Package is in compact format or if it is a
    *          folder.
@@ -237,13 +247,19 @@ public class EARKPyIPValidator {
    * @throws SAXException
    *           If some error occurs
    */
-  private void validateSubMets(final Map<String, InputStream> subMets, final boolean isZip)
+  private void validateSubMets(final List<SubMets> subMets, final boolean isZip)
     throws IOException, JAXBException, SAXException {
-    for (Map.Entry<String, InputStream> entry : subMets.entrySet()) {
-      final InstatiateMets instatiateMets = new InstatiateMets(entry.getValue());
-      metsValidatorState.setMets(instatiateMets.instatiateMetsFile());
+    for (SubMets entry : subMets) {
+      // data files are read one at a time, when validated, not kept in memory
+      final Set<String> dataFileGrpIds = new HashSet<>();
+      try (InputStream stream = entry.open()) {
+        final InstatiateMets mets = new InstatiateMets(stream);
+        metsValidatorState.setMets(mets.instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+        notifyObserversMetsParsed(entry.getPath(), mets);
+      }
+      metsValidatorState.setStreamedFiles(dataFileGrpIds, entry::open);
       metsValidatorState.setIpType(metsValidatorState.getMets().getMetsHdr().getOAISPACKAGETYPE());
-      setupMetsValidatorState(entry.getKey(), isZip, false);
+      setupMetsValidatorState(entry.getPath(), isZip, false);
       validateComponents();
     }
   }
@@ -259,24 +275,44 @@ public class EARKPyIPValidator {
    *           If some error occurs
    */
   private void validateRootMets() throws IOException, JAXBException, SAXException {
-    final InputStream metsRootStream;
+    final SubMets.Opener metsRootOpener;
     final String ipPath;
     if (structureValidatorState.isZipFileFlag()) {
-      metsRootStream = structureValidatorState.getZipManager().getMetsRootInputStream(earksipPath);
+      metsRootOpener = () -> structureValidatorState.getZipManager().getMetsRootInputStream(earksipPath);
       ipPath = earksipPath.toString();
     } else {
-      metsRootStream = structureValidatorState.getFolderManager().getMetsRootInputStream(earksipPath);
+      metsRootOpener = () -> structureValidatorState.getFolderManager().getMetsRootInputStream(earksipPath);
       ipPath = earksipPath.resolve(Constants.METS_FILE).toString();
     }
 
-    final InstatiateMets metsRoot = new InstatiateMets(metsRootStream);
     metsValidatorState.setMetsPath(earksipPath.toString());
     metsValidatorState.setMetsName(ipPath);
     metsValidatorState.setIsRootMets(true);
-    metsValidatorState.setMets(metsRoot.instatiateMetsFile());
+    // data files are read one at a time, when validated, not kept in memory
+    final Set<String> dataFileGrpIds = new HashSet<>();
+    try (InputStream metsRootStream = metsRootOpener.open()) {
+      final InstatiateMets metsRoot = new InstatiateMets(metsRootStream);
+      metsValidatorState.setMets(metsRoot.instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+      notifyObserversMetsParsed(ipPath, metsRoot);
+    }
+    metsValidatorState.setStreamedFiles(dataFileGrpIds, metsRootOpener);
     validateComponents();
   }
 
+  /**
+   * Notify observers that a METS file was parsed.
+   *
+   * @param metsName
+   *          the METS file name.
+   * @param mets
+   *          the {@link InstatiateMets} that parsed it.
+   */
+  private void notifyObserversMetsParsed(final String metsName, final InstatiateMets mets) {
+    for (ValidationObserver observer : observers) {
+      observer.notifyMetsParsed(metsName, mets.getBytesRead(), mets.getElements(), mets.getNanos());
+    }
+  }
+
   /**
    * Setup State of METS.
    *
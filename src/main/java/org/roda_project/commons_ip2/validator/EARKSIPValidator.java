@@ -2,17 +2,41 @@ package org.roda_project.commons_ip2.validator;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.io.FileUtils;
+import org.roda_project.commons_ip2.utils.METSBinding;
+import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.PackageContainer;
 import org.roda_project.commons_ip2.validator.aipComponents.aipFileSectionComponent.AipFileSectionComponent;
+import org.roda_project.commons_ip2.validator.cache.CachedValidation;
+import org.roda_project.commons_ip2.validator.cache.PackageFingerprint;
+import org.roda_project.commons_ip2.validator.cache.ValidationCache;
 import org.roda_project.commons_ip2.validator.common.InstatiateMets;
+import org.roda_project.commons_ip2.validator.common.SubMets;
 import org.roda_project.commons_ip2.validator.component.MetsValidator;
 import org.roda_project.commons_ip2.validator.component.administritiveMetadataComponent.AdministritiveMetadataComponentValidator;
 import org.roda_project.commons_ip2.validator.component.descriptiveMetadataComponent.DescriptiveMetadataComponentValidator;
@@ -37,8 +61,12 @@ import org.xml.sax.SAXParseException;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public class EARKSIPValidator {
-  /** IP path. */
-  private final Path earksipPath;
+  /** Default {@link #subMetsExecutor}, that runs in the calling thread. */
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+  /** Maximum number of representation METS validated ahead of the merge. */
+  private static final int SUB_METS_WINDOW = 2 * Runtime.getRuntime().availableProcessors();
+  /** IP path (the folder where it is extracted, while validating a TAR). */
+  private Path earksipPath;
 
   /** {@link ValidationReportOutputJson}. */
   private final ValidationReportOutputJson validationReportOutputJson;
@@ -46,14 +74,22 @@ public class EARKSIPValidator {
   private final StructureComponentValidator structureComponent;
   /** the contextual structural state {@link StructureValidatorState}. */
   private final StructureValidatorState structureValidatorState;
-  /** List of CSIP components to validate. */
-  private final List<MetsValidator> csipComponents = new ArrayList<>();
-  /** List of SIP components to validate. */
-  private final List<MetsValidator> sipComponents = new ArrayList<>();
-  /** List of AIP components to validate. */
-  private final List<MetsValidator> aipComponents = new ArrayList<>();
   /** The contextual mets state {@link MetsValidatorState}. */
   private final MetsValidatorState metsValidatorState;
+  /** Validation of the root METS (with the results of the whole IP). */
+  private final MetsValidation rootValidation;
+  /** Observers of the validation. */
+  private final List<ValidationObserver> observers = new ArrayList<>();
+  /** {@link Executor} of the representation METS validations. */
+  private Executor subMetsExecutor = DIRECT_EXECUTOR;
+  /** {@link ValidationCache} of the validation results (if any). */
+  private ValidationCache validationCache;
+  /** How the IP is fingerprinted to look up the {@link #validationCache}. */
+  private PackageFingerprint.Mode fingerprintMode = PackageFingerprint.Mode.METADATA;
+  /** Version of the validator that keys the {@link #validationCache}. */
+  private static String validatorVersion;
+  /** Flag to validate the IP even if its results are cached. */
+  private boolean strict;
 
   /**
    * Initializes Validation Objects.
@@ -78,32 +114,54 @@ public class EARKSIPValidator {
       reportOutputJson.getSipPath().toAbsolutePath().normalize());
     this.structureComponent = new StructureComponentValidator();
     this.metsValidatorState = new MetsValidatorState();
-    setupComponents();
+    this.rootValidation = new MetsValidation(metsValidatorState, validationReportOutputJson.getResults());
   }
 
   /**
-   * Setup Validation Components.
+   * Sets the {@link Executor} that validates the representation METS files,
+   * each with its own components and state, so that they can be validated
+   * concurrently. Their results are merged in the order of the METS paths, so
+   * the report does not depend on the executor. By default they are validated
+   * one after the other, in the calling thread.
    *
-   * @throws IOException
-   *           if some I/O error occurs.
-   * @throws ParserConfigurationException
-   *           if some error occur.
-   * @throws SAXException
-   *           if some error occur.
+   * <p>
+   * With a concurrent executor, the {@link ValidationObserver}s are notified
+   * from the executor threads.
+   * </p>
+   *
+   * @param executor
+   *          the {@link Executor}.
+   */
+  public void setSubMetsExecutor(final Executor executor) {
+    this.subMetsExecutor = executor;
+  }
+
+  /**
+   * Sets the {@link ValidationCache} where the results of the validation are
+   * stored, keyed by the fingerprint of the IP and the validator version, and
+   * looked up before validating: if the IP was validated before by the same
+   * version of the validator, the report is written from the stored results.
+   *
+   * @param cache
+   *          the {@link ValidationCache} or {@code null} to not use a cache.
+   * @param mode
+   *          the {@link PackageFingerprint.Mode} of the fingerprint of the IP.
+   */
+  public void setValidationCache(final ValidationCache cache, final PackageFingerprint.Mode mode) {
+    this.validationCache = cache;
+    this.fingerprintMode = mode;
+  }
+
+  /**
+   * Sets the strict mode, where the IP is always validated (and the
+   * {@link ValidationCache} updated with the results) even if its results are
+   * cached.
+   *
+   * @param strict
+   *          the flag.
    */
-  private void setupComponents() throws IOException, ParserConfigurationException, SAXException {
-    this.csipComponents.add(new MetsComponentValidator());
-    this.csipComponents.add(new MetsHeaderComponentValidator());
-    this.csipComponents.add(new DescriptiveMetadataComponentValidator());
-    this.csipComponents.add(new AdministritiveMetadataComponentValidator());
-    this.csipComponents.add(new FileSectionComponentValidator());
-    this.csipComponents.add(new StructuralMapComponentValidator());
-
-    this.sipComponents.add(new SipMetsComponent());
-    this.sipComponents.add(new SipMetsHdrComponent());
-    this.sipComponents.add(new SipFileSectionComponent());
-
-    this.aipComponents.add(new AipFileSectionComponent());
+  public void setStrict(final boolean strict) {
+    this.strict = strict;
   }
 
   /**
@@ -114,8 +172,8 @@ public class EARKSIPValidator {
    */
   public void addObserver(final ValidationObserver observer) {
     structureComponent.addObserver(observer);
-    csipComponents.forEach(c -> c.addObserver(observer));
-    sipComponents.forEach(c -> c.addObserver(observer));
+    rootValidation.addObserver(observer);
+    observers.add(observer);
   }
 
   /**
@@ -126,8 +184,8 @@ public class EARKSIPValidator {
    */
   public void removeObserver(final ValidationObserver observer) {
     structureComponent.removeObserver(observer);
-    csipComponents.forEach(c -> c.removeObserver(observer));
-    sipComponents.forEach(c -> c.removeObserver(observer));
+    rootValidation.removeObserver(observer);
+    observers.remove(observer);
   }
 
   /**
@@ -135,27 +193,93 @@ public class EARKSIPValidator {
    *
    * @return if the Information package is valid or not
    * @throws IOException
-   *           if some I/O error occurs.
+   *           if some I/O error occurs or the thread is interrupted (an
+   *           {@link InterruptedIOException}, the report is not written).
    */
   public boolean validate() throws IOException {
     structureComponent.notifyObserversIPValidationStarted();
+    final String cacheKey = getCacheKey();
+    final CachedValidation cached = cacheKey != null && !strict ? validationCache.get(cacheKey) : null;
+    if (cached != null) {
+      validationReportOutputJson.getResults().putAll(cached.getResults());
+      validationReportOutputJson.setIpType(cached.getIpType());
+    } else {
+      final Path extractedPath = extractIfTar();
+      structureValidatorState.getFolderManager().invalidate();
+      try {
+        validateIP();
+      } finally {
+        if (extractedPath != null) {
+          earksipPath = validationReportOutputJson.getSipPath().toAbsolutePath().normalize();
+          structureValidatorState.setIpPath(earksipPath);
+          FileUtils.deleteQuietly(extractedPath.toFile());
+        }
+      }
+      if (cacheKey != null) {
+        validationCache.put(cacheKey,
+          new CachedValidation(validationReportOutputJson.getIpType(), validationReportOutputJson.getResults()));
+      }
+    }
+    writeReport();
+    return validationReportOutputJson.getErrors() == 0;
+  }
+
+  /**
+   * Extracts the IP, if it is packaged in a TAR (which, unlike ZIP, cannot be
+   * read in place), to a temporary folder that is validated instead.
+   *
+   * @return the temporary folder or {@code null} if the IP is not a TAR.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  private Path extractIfTar() throws IOException {
+    if (!PackageContainer.TAR.canExtract(earksipPath)) {
+      return null;
+    }
+    final Path extractedPath = Files.createTempDirectory("validation");
+    try {
+      PackageContainer.TAR.extract(earksipPath, extractedPath);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(extractedPath.toFile());
+      throw e;
+    }
+    // the archive must unpack to a single folder, validated as the IP
+    try (Stream<Path> children = Files.list(extractedPath)) {
+      final List<Path> folders = children.collect(Collectors.toList());
+      earksipPath = folders.size() == 1 && Files.isDirectory(folders.get(0)) ? folders.get(0) : extractedPath;
+    }
+    structureValidatorState.setIpPath(earksipPath);
+    return extractedPath;
+  }
+
+  /**
+   * Validates the structure and the METS files of the IP.
+   *
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  private void validateIP() throws IOException {
     final Map<String, ReporterDetails> structureValidationResults = structureComponent
       .validate(structureValidatorState);
     validationReportOutputJson.getResults().putAll(structureValidationResults);
+    checkInterrupted();
 
     if (validationReportOutputJson.validFileComponent()) {
-      final Map<String, InputStream> subMets;
+      final List<SubMets> subMets;
       if (structureValidatorState.isZipFileFlag()) {
-        metsValidatorState.setMetsFiles(structureValidatorState.getZipManager().getFiles(earksipPath));
+        metsValidatorState
+          .setMetsFiles(new ConcurrentHashMap<>(structureValidatorState.getZipManager().getFiles(earksipPath)));
         subMets = structureValidatorState.getZipManager().getSubMets(earksipPath);
       } else {
-        metsValidatorState.setMetsFiles(structureValidatorState.getFolderManager().getFiles(earksipPath));
+        metsValidatorState
+          .setMetsFiles(new ConcurrentHashMap<>(structureValidatorState.getFolderManager().getFiles(earksipPath)));
         subMets = structureValidatorState.getFolderManager().getSubMets(earksipPath);
       }
 
-      if (subMets.size() > 0) {
+      if (!subMets.isEmpty()) {
         validateSubMets(subMets, structureValidatorState.isZipFileFlag());
       }
+      checkInterrupted();
       validateRootMets();
 
       if (!validationReportOutputJson.getResults()
@@ -167,55 +291,224 @@ public class EARKSIPValidator {
           csipStr0);
       }
     }
-    writeReport();
-    return validationReportOutputJson.getErrors() == 0;
+    if (metsValidatorState.getMets() != null) {
+      validationReportOutputJson.setIpType(metsValidatorState.getIpType());
+    }
+  }
+
+  /**
+   * Stops the validation if the thread was interrupted (e.g. its future was
+   * cancelled), leaving the interrupt status set.
+   *
+   * @throws InterruptedIOException
+   *           if the thread was interrupted.
+   */
+  private static void checkInterrupted() throws InterruptedIOException {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Validation interrupted");
+    }
+  }
+
+  /**
+   * Gets the key of the validation of the IP in the {@link #validationCache}.
+   *
+   * @return the key or {@code null} if there is no cache or the IP cannot be
+   *         fingerprinted (e.g. it does not exist), in which case it is
+   *         validated without the cache.
+   */
+  private String getCacheKey() {
+    if (validationCache == null) {
+      return null;
+    }
+    try {
+      return PackageFingerprint.key(PackageFingerprint.of(earksipPath, fingerprintMode), getValidatorVersion());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the version of the validator that keys the {@link #validationCache}:
+   * the implementation version of the jar or, when there is none (e.g. running
+   * from the build output folder), the fingerprint of the validator classes,
+   * so that cached results do not survive a rebuild.
+   *
+   * @return the version.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  private static synchronized String getValidatorVersion() throws IOException {
+    if (validatorVersion == null) {
+      final String version = EARKSIPValidator.class.getPackage().getImplementationVersion();
+      if (version != null) {
+        validatorVersion = version;
+      } else {
+        final CodeSource codeSource = EARKSIPValidator.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+          throw new IOException("Cannot locate the validator classes");
+        }
+        try {
+          final Path classes = Paths.get(codeSource.getLocation().toURI());
+          validatorVersion = "build-" + PackageFingerprint.of(classes, PackageFingerprint.Mode.METADATA);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+          throw new IOException("Cannot locate the validator classes", e);
+        }
+      }
+    }
+    return validatorVersion;
   }
 
   /**
    * Iterates over all components and merge all results from components
    * validations.
    *
+   * @param validation
+   *          the {@link MetsValidation}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateComponents() throws IOException {
-    for (MetsValidator component : csipComponents) {
+  private void validateComponents(final MetsValidation validation) throws IOException {
+    for (MetsValidator component : validation.csipComponents) {
       final Map<String, ReporterDetails> componentResults = component.validate(structureValidatorState,
-        metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), componentResults);
+        validation.metsValidatorState);
+      ResultsUtils.mergeResults(validation.results, componentResults);
     }
-    validateIpTypeExtendedComponents();
+    validateIpTypeExtendedComponents(validation);
   }
 
   /**
-   * Validate METS files inside representations.
+   * Validate METS files inside representations, each in its own
+   * {@link MetsValidation} run by the {@link #subMetsExecutor}, and merge their
+   * results in order. At most {@link #SUB_METS_WINDOW} validations are run ahead
+   * of the merge, so the results of only so many representations are kept in
+   * memory.
+   *
+   * <p>
+   * METS internal id's must be unique in the whole IP, so a representation is
+   * validated with the id's of the METS files merged before it started. Only if
+   * it turns out to use id's of a representation that was still being validated
+   * is it validated again, with them (as if they had been validated one after
+   * the other).
+   * </p>
    *
    * @param subMets
-   *          the {@link Map } with path to sub METS and InputStream of file.
+   *          the {@link List} of {@link SubMets}, each opened when its validation
+   *          starts and closed when it ends.
    * @param isZip
    *          flag if the Information Package is in compact format or if it is a
    *          folder.
+   * @throws IOException
+   *           if the validation is interrupted.
    */
-  private void validateSubMets(final Map<String, InputStream> subMets, final boolean isZip) {
-    for (Map.Entry<String, InputStream> entry : subMets.entrySet()) {
+  private void validateSubMets(final List<SubMets> subMets, final boolean isZip) throws IOException {
+    // the id's merged so far, with the index of the representation that used
+    // them first (-1 for the root METS)
+    final Map<String, Integer> mergedIds = new ConcurrentHashMap<>();
+    metsValidatorState.getMetsInternalIds().forEach(id -> mergedIds.put(id, -1));
+    final int window = subMetsExecutor == DIRECT_EXECUTOR ? 1 : SUB_METS_WINDOW;
+    // the sub METS are read with the binding of the validating thread
+    final METSBinding metsBinding = METSUtils.getMETSBinding();
+    final Deque<CompletableFuture<MetsValidation>> validations = new ArrayDeque<>();
+    final int[] submittedBefore = new int[subMets.size()];
+    int submitted = 0;
+
+    for (int i = 0; i < subMets.size(); i++) {
+      checkInterrupted();
+      while (submitted < subMets.size() && submitted - i < window) {
+        final SubMets entry = subMets.get(submitted);
+        final int merged = i;
+        submittedBefore[submitted++] = merged;
+        validations.add(CompletableFuture.supplyAsync(() -> {
+          final METSBinding previousMETSBinding = METSUtils.setMETSBinding(metsBinding);
+          try {
+            return validateSubMets(entry, isZip, id -> isMergedBefore(mergedIds, id, merged));
+          } finally {
+            METSUtils.setMETSBinding(previousMETSBinding);
+          }
+        }, subMetsExecutor));
+      }
 
-      final InstatiateMets instatiateMets = new InstatiateMets(entry.getValue());
+      MetsValidation validation;
       try {
-        metsValidatorState.setMets(instatiateMets.instatiateMetsFile());
-        metsValidatorState.setIpType(metsValidatorState.getMets().getMetsHdr().getOAISPACKAGETYPE());
-        setupMetsValidatorState(entry.getKey(), isZip, false);
-        validateComponents();
-      } catch (IOException | JAXBException | SAXException e) {
-        final String message = createExceptionMessage(e, entry.getKey());
-        final ReporterDetails csipStr0 = new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, message,
-          false, false);
-        csipStr0.setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION);
-        ResultsUtils.addResult(validationReportOutputJson.getResults(),
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP0_ID, csipStr0);
+        validation = validations.poll().join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
       }
+      final int merged = submittedBefore[i];
+      if (merged < i && validation.metsValidatorState.getMetsInternalIds().stream()
+        .anyMatch(id -> mergedIds.getOrDefault(id, -1) >= merged)) {
+        final int index = i;
+        validation = validateSubMets(subMets.get(i), isZip, id -> isMergedBefore(mergedIds, id, index));
+      }
+
+      for (String id : validation.metsValidatorState.getMetsInternalIds()) {
+        mergedIds.putIfAbsent(id, i);
+      }
+      metsValidatorState.addMetsInternalIds(validation.metsValidatorState.getMetsInternalIds());
+      if (validation.metsValidatorState.getMets() != null) {
+        metsValidatorState.setMets(validation.metsValidatorState);
+        metsValidatorState.setIpType(validation.metsValidatorState.getIpType());
+      }
+      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), validation.results);
     }
   }
 
+  private static boolean isMergedBefore(final Map<String, Integer> mergedIds, final String id, final int index) {
+    final Integer mergedBy = mergedIds.get(id);
+    return mergedBy != null && mergedBy < index;
+  }
+
+  /**
+   * Validates a METS file inside a representation.
+   *
+   * @param entry
+   *          the {@link SubMets}.
+   * @param isZip
+   *          flag if the Information Package is in compact format or if it is a
+   *          folder.
+   * @param previousIds
+   *          tells if an id was used by the METS files validated before.
+   * @return the {@link MetsValidation} with the results.
+   */
+  private MetsValidation validateSubMets(final SubMets entry, final boolean isZip,
+    final Predicate<String> previousIds) {
+    final MetsValidatorState state = new MetsValidatorState();
+    state.setMetsFiles(metsValidatorState.getMetsFiles());
+    state.setPreviousMetsInternalIds(previousIds);
+    final MetsValidation validation;
+    try {
+      validation = new MetsValidation(state, new HashMap<>());
+    } catch (IOException | ParserConfigurationException | SAXException e) {
+      throw new IllegalStateException("Cannot create the validation components", e);
+    }
+    observers.forEach(validation::addObserver);
+
+    try {
+      // data files are read one at a time, when validated, not kept in memory
+      final Set<String> dataFileGrpIds = new HashSet<>();
+      try (InputStream stream = entry.open()) {
+        final InstatiateMets mets = new InstatiateMets(stream);
+        state.setMets(mets.instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+        notifyObserversMetsParsed(entry.getPath(), mets);
+      }
+      state.setStreamedFiles(dataFileGrpIds, entry::open);
+      state.setIpType(state.getMets().getMetsHdr().getOAISPACKAGETYPE());
+      setupMetsValidatorState(state, entry.getPath(), isZip, false);
+      validateComponents(validation);
+    } catch (IOException | JAXBException | SAXException e) {
+      final String message = createExceptionMessage(e, entry.getPath());
+      final ReporterDetails csipStr0 = new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, message,
+        false, false);
+      csipStr0.setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION);
+      ResultsUtils.addResult(validation.results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP0_ID,
+        csipStr0);
+    }
+    return validation;
+  }
+
   /**
    * Creates Message for Exception.
    *
@@ -254,25 +547,31 @@ public class EARKSIPValidator {
 
   /** Validates METS file in root of Information Package. */
   private void validateRootMets() {
-    final InputStream metsRootStream;
+    final SubMets.Opener metsRootOpener;
     final String ipPath;
     try {
 
       if (structureValidatorState.isZipFileFlag()) {
-        metsRootStream = structureValidatorState.getZipManager().getMetsRootInputStream(earksipPath);
+        metsRootOpener = () -> structureValidatorState.getZipManager().getMetsRootInputStream(earksipPath);
         ipPath = earksipPath.toString();
       } else {
-        metsRootStream = structureValidatorState.getFolderManager().getMetsRootInputStream(earksipPath);
+        metsRootOpener = () -> structureValidatorState.getFolderManager().getMetsRootInputStream(earksipPath);
         ipPath = earksipPath.resolve(Constants.METS_FILE).toString();
       }
 
-      final InstatiateMets metsRoot = new InstatiateMets(metsRootStream);
       metsValidatorState.setMetsPath(earksipPath.toString());
       metsValidatorState.setMetsName(ipPath);
       metsValidatorState.setIsRootMets(true);
 
-      metsValidatorState.setMets(metsRoot.instatiateMetsFile());
-      validateComponents();
+      // data files are read one at a time, when validated, not kept in memory
+      final Set<String> dataFileGrpIds = new HashSet<>();
+      try (InputStream metsRootStream = metsRootOpener.open()) {
+        final InstatiateMets metsRoot = new InstatiateMets(metsRootStream);
+        metsValidatorState.setMets(metsRoot.instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+        notifyObserversMetsParsed(ipPath, metsRoot);
+      }
+      metsValidatorState.setStreamedFiles(dataFileGrpIds, metsRootOpener);
+      validateComponents(rootValidation);
     } catch (IOException | JAXBException | SAXException e) {
       final String message = createExceptionMessage(e,
         earksipPath.toString() + Constants.SEPARATOR + Constants.METS_FILE);
@@ -287,6 +586,8 @@ public class EARKSIPValidator {
   /**
    * Setup State of METS.
    *
+   * @param metsValidatorState
+   *          the {@link MetsValidatorState}
    * @param key
    *          the METS file path
    * @param isZip
@@ -294,9 +595,10 @@ public class EARKSIPValidator {
    * @param isRootMets
    *          Flag if METS file is root or representation METS
    */
-  private void setupMetsValidatorState(final String key, final boolean isZip, final boolean isRootMets) {
-    this.metsValidatorState.setMetsName(key);
-    this.metsValidatorState.setIsRootMets(isRootMets);
+  private static void setupMetsValidatorState(final MetsValidatorState metsValidatorState, final String key,
+    final boolean isZip, final boolean isRootMets) {
+    metsValidatorState.setMetsName(key);
+    metsValidatorState.setIsRootMets(isRootMets);
     if (isZip) {
       final StringBuilder metsPath = new StringBuilder();
       for (String path : key.split(Constants.SEPARATOR)) {
@@ -304,9 +606,23 @@ public class EARKSIPValidator {
           metsPath.append(path).append("/");
         }
       }
-      this.metsValidatorState.setMetsPath(metsPath.toString());
+      metsValidatorState.setMetsPath(metsPath.toString());
     } else {
-      this.metsValidatorState.setMetsPath(Paths.get(key).getParent().toString());
+      metsValidatorState.setMetsPath(Paths.get(key).getParent().toString());
+    }
+  }
+
+  /**
+   * Notify observers that a METS file was parsed.
+   *
+   * @param metsName
+   *          the METS file name.
+   * @param mets
+   *          the {@link InstatiateMets} that parsed it.
+   */
+  private void notifyObserversMetsParsed(final String metsName, final InstatiateMets mets) {
+    for (ValidationObserver observer : observers) {
+      observer.notifyMetsParsed(metsName, mets.getBytesRead(), mets.getElements(), mets.getNanos());
     }
   }
 
@@ -320,42 +636,47 @@ public class EARKSIPValidator {
   /**
    * Validate SIP specifications or AIP Specifications if the type is SIP or AIP.
    *
+   * @param validation
+   *          the {@link MetsValidation}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateIpTypeExtendedComponents() throws IOException {
+  private void validateIpTypeExtendedComponents(final MetsValidation validation) throws IOException {
+    final MetsValidatorState metsValidatorState = validation.metsValidatorState;
     if (metsValidatorState.getIpType() != null && metsValidatorState.getIpType().equals("SIP")) {
-      validateSIPComponents();
+      validateSIPComponents(validation);
     } else if (metsValidatorState.getIpType() != null && metsValidatorState.getIpType().equals("AIP")) {
-      validateAIPComponets();
+      validateAIPComponets(validation);
     }
   }
 
   /**
    * Iterate over SIP components and merge the results with CSIP validations.
    *
+   * @param validation
+   *          the {@link MetsValidation}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateSIPComponents() throws IOException {
-    aipComponents.clear();
-    for (MetsValidator component : sipComponents) {
+  private void validateSIPComponents(final MetsValidation validation) throws IOException {
+    validation.aipComponents.clear();
+    for (MetsValidator component : validation.sipComponents) {
       if (component instanceof SipFileSectionComponent) {
         ((SipFileSectionComponent) component).setIsToValidate(ResultsUtils.isResultValid(
-          validationReportOutputJson.getResults(), ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID));
+          validation.results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID));
       }
       if (component instanceof SipMetsHdrComponent) {
         ((SipMetsHdrComponent) component).setIsToValidateMetsHdr(ResultsUtils.isResultValid(
-          validationReportOutputJson.getResults(), ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP117_ID));
-        if (validationReportOutputJson.getResults()
+          validation.results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP117_ID));
+        if (validation.results
           .get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP10_ID) != null) {
           ((SipMetsHdrComponent) component).setIsToValidateAgents(ResultsUtils.isResultValid(
-            validationReportOutputJson.getResults(), ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP10_ID));
+            validation.results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP10_ID));
         }
       }
       final Map<String, ReporterDetails> sipComponentResults = component.validate(structureValidatorState,
-        metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), sipComponentResults);
+        validation.metsValidatorState);
+      ResultsUtils.mergeResults(validation.results, sipComponentResults);
     }
   }
 
@@ -363,19 +684,21 @@ public class EARKSIPValidator {
    * Iterate over AIP components and merges the results with CSIP validations
    * results.
    *
+   * @param validation
+   *          the {@link MetsValidation}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateAIPComponets() throws IOException {
-    sipComponents.clear();
-    for (MetsValidator component : aipComponents) {
+  private void validateAIPComponets(final MetsValidation validation) throws IOException {
+    validation.sipComponents.clear();
+    for (MetsValidator component : validation.aipComponents) {
       if (component instanceof AipFileSectionComponent) {
         ((AipFileSectionComponent) component).setIsToValidate(ResultsUtils.isResultValid(
-          validationReportOutputJson.getResults(), ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID));
+          validation.results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID));
       }
       final Map<String, ReporterDetails> aipComponentResults = component.validate(structureValidatorState,
-        metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), aipComponentResults);
+        validation.metsValidatorState);
+      ResultsUtils.mergeResults(validation.results, aipComponentResults);
     }
   }
 
@@ -386,10 +709,6 @@ public class EARKSIPValidator {
    *           if some I/O error occurs.
    */
   private void writeReport() throws IOException {
-    if (metsValidatorState.getMets() != null) {
-      validationReportOutputJson.setIpType(metsValidatorState.getIpType());
-    }
-
     validationReportOutputJson.init();
     validationReportOutputJson.validationResults();
     validationReportOutputJson.writeFinalResult();
@@ -397,4 +716,49 @@ public class EARKSIPValidator {
     validationReportOutputJson.close();
     structureComponent.notifyObserversIPValidationFinished();
   }
+
+  /**
+   * Validation of a METS file: the components (which keep state while
+   * validating), the {@link MetsValidatorState} and the results.
+   */
+  private static final class MetsValidation {
+    /** List of CSIP components to validate. */
+    private final List<MetsValidator> csipComponents = new ArrayList<>();
+    /** List of SIP components to validate. */
+    private final List<MetsValidator> sipComponents = new ArrayList<>();
+    /** List of AIP components to validate. */
+    private final List<MetsValidator> aipComponents = new ArrayList<>();
+    /** The contextual mets state {@link MetsValidatorState}. */
+    private final MetsValidatorState metsValidatorState;
+    /** The results. */
+    private final Map<String, ReporterDetails> results;
+
+    private MetsValidation(final MetsValidatorState metsValidatorState, final Map<String, ReporterDetails> results)
+      throws IOException, ParserConfigurationException, SAXException {
+      this.metsValidatorState = metsValidatorState;
+      this.results = results;
+      this.csipComponents.add(new MetsComponentValidator());
+      this.csipComponents.add(new MetsHeaderComponentValidator());
+      this.csipComponents.add(new DescriptiveMetadataComponentValidator());
+      this.csipComponents.add(new AdministritiveMetadataComponentValidator());
+      this.csipComponents.add(new FileSectionComponentValidator());
+      this.csipComponents.add(new StructuralMapComponentValidator());
+
+      this.sipComponents.add(new SipMetsComponent());
+      this.sipComponents.add(new SipMetsHdrComponent());
+      this.sipComponents.add(new SipFileSectionComponent());
+
+      this.aipComponents.add(new AipFileSectionComponent());
+    }
+
+    private void addObserver(final ValidationObserver observer) {
+      csipComponents.forEach(c -> c.addObserver(observer));
+      sipComponents.forEach(c -> c.addObserver(observer));
+    }
+
+    private void removeObserver(final ValidationObserver observer) {
+      csipComponents.forEach(c -> c.removeObserver(observer));
+      sipComponents.forEach(c -> c.removeObserver(observer));
+    }
+  }
 }
@@ -1,11 +1,13 @@
 package org.roda_project.commons_ip2.validator.aipComponents.aipFileSectionComponent;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
 import org.roda_project.commons_ip2.validator.component.MetsValidatorImpl;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.constants.ConstantsAIPspec;
@@ -45,7 +47,7 @@ public class AipFileSectionComponent extends MetsValidatorImpl {
 
   @Override
   public Map<String, ReporterDetails> validate(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) {
+    final MetsValidatorState metsValidatorState) throws IOException {
     final Map<String, ReporterDetails> results = new HashMap<>();
 
     if (isToValidate) {
@@ -106,22 +108,24 @@ public class AipFileSectionComponent extends MetsValidatorImpl {
         ConstantsAIPspec.VALIDATION_REPORT_SPECIFICATION_AIP15_ID);
     }
 
+    notifyObserversFinishModule(moduleName);
     return results;
   }
 
-  private ReporterDetails validateAIP9(final MetsValidatorState metsValidatorState) {
+  private ReporterDetails validateAIP9(final MetsValidatorState metsValidatorState) throws IOException {
     if (metsValidatorState.getMets().getFileSec() != null) {
       final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
       for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-        final List<FileType> files = fileGrp.getFile();
-        for (FileType file : files) {
-          final String id = file.getID();
-          if (!id.startsWith("ID")) {
-            final StringBuilder message = new StringBuilder();
-            message.append("The mets/fileSec/fileGrp/file/@ID must start with ID in ").append(id)
-              .append("does not start with ID");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_AIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+        try (METSStreamReader.FileCursor files = metsValidatorState.openFiles(fileGrp)) {
+          for (FileType file = files.next(); file != null; file = files.next()) {
+            final String id = file.getID();
+            if (!id.startsWith("ID")) {
+              final StringBuilder message = new StringBuilder();
+              message.append("The mets/fileSec/fileGrp/file/@ID must start with ID in ").append(id)
+                .append("does not start with ID");
+              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_AIP_VERSION, Message.createErrorMessage(
+                message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+            }
           }
         }
       }
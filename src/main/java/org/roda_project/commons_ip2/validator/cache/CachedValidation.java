@@ -0,0 +1,44 @@
+package org.roda_project.commons_ip2.validator.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+
+/**
+ * Results of the validation of an Information Package, as stored in a
+ * {@link ValidationCache}: the result of each requirement and the type of the
+ * IP, from which the report is written again.
+ */
+public final class CachedValidation {
+  /**
+   * The IP type (may be {@code null}).
+   */
+  private final String ipType;
+  /**
+   * {@link Map} with the result of each requirement.
+   */
+  private final Map<String, ReporterDetails> results;
+
+  /**
+   * Creates a {@link CachedValidation}.
+   *
+   * @param ipType
+   *          the IP type.
+   * @param results
+   *          the {@link Map} with the result of each requirement.
+   */
+  public CachedValidation(final String ipType, final Map<String, ReporterDetails> results) {
+    this.ipType = ipType;
+    this.results = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+  }
+
+  public String getIpType() {
+    return ipType;
+  }
+
+  public Map<String, ReporterDetails> getResults() {
+    return results;
+  }
+}
@@ -0,0 +1,187 @@
+package org.roda_project.commons_ip2.validator.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * {@link ValidationCache} that keeps each validation in a JSON file, named
+ * after its key, in a folder. A validation is written to a temporary file and
+ * then moved, so that concurrent validators never read a partial file.
+ */
+public class FileValidationCache implements ValidationCache {
+  /**
+   * {@link Logger}.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileValidationCache.class);
+  /**
+   * Extension of the cache files.
+   */
+  private static final String EXTENSION = ".json";
+
+  private static final String IP_TYPE = "ipType";
+  private static final String RESULTS = "results";
+  private static final String ID = "id";
+  private static final String SPECIFICATION = "specification";
+  private static final String VALID = "valid";
+  private static final String SKIPPED = "skipped";
+  private static final String DETAIL = "detail";
+  private static final String ISSUES = "issues";
+
+  /**
+   * {@link JsonFactory}.
+   */
+  private final JsonFactory jsonFactory = new JsonFactory();
+  /**
+   * Folder of the cache.
+   */
+  private final Path folder;
+
+  /**
+   * Creates a {@link FileValidationCache}.
+   *
+   * @param folder
+   *          the folder of the cache, created if it does not exist.
+   * @throws IOException
+   *           if the folder cannot be created.
+   */
+  public FileValidationCache(final Path folder) throws IOException {
+    this.folder = Files.createDirectories(folder);
+  }
+
+  @Override
+  public CachedValidation get(final String key) {
+    try (InputStream inputStream = Files.newInputStream(folder.resolve(key + EXTENSION));
+      JsonParser parser = jsonFactory.createParser(inputStream)) {
+      return read(parser);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Could not read cached validation {}", key, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void put(final String key, final CachedValidation validation) {
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(folder, key, ".tmp");
+      try (OutputStream outputStream = Files.newOutputStream(temp);
+        JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+        write(generator, validation);
+      }
+      Files.move(temp, folder.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Could not cache validation {}", key, e);
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e1) {
+          LOGGER.debug("Could not delete {}", temp, e1);
+        }
+      }
+    }
+  }
+
+  private static void write(final JsonGenerator generator, final CachedValidation validation) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField(IP_TYPE, validation.getIpType());
+    generator.writeFieldName(RESULTS);
+    generator.writeStartArray();
+    for (Map.Entry<String, ReporterDetails> entry : validation.getResults().entrySet()) {
+      final ReporterDetails details = entry.getValue();
+      generator.writeStartObject();
+      generator.writeStringField(ID, entry.getKey());
+      generator.writeStringField(SPECIFICATION, details.getSpecification());
+      generator.writeBooleanField(VALID, details.isValid());
+      generator.writeBooleanField(SKIPPED, details.isSkipped());
+      generator.writeStringField(DETAIL, details.getDetail());
+      generator.writeFieldName(ISSUES);
+      generator.writeStartArray();
+      for (String issue : details.getIssues()) {
+        generator.writeString(issue);
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+  }
+
+  private static CachedValidation read(final JsonParser parser) throws IOException {
+    String ipType = null;
+    final Map<String, ReporterDetails> results = new LinkedHashMap<>();
+    expect(parser.nextToken(), JsonToken.START_OBJECT);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+      if (IP_TYPE.equals(field)) {
+        ipType = parser.getValueAsString();
+      } else if (RESULTS.equals(field)) {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          readResult(parser, results);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new CachedValidation(ipType, results);
+  }
+
+  private static void readResult(final JsonParser parser, final Map<String, ReporterDetails> results)
+    throws IOException {
+    String id = null;
+    final ReporterDetails details = new ReporterDetails();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+      if (ID.equals(field)) {
+        id = parser.getValueAsString();
+      } else if (SPECIFICATION.equals(field)) {
+        details.setSpecification(parser.getValueAsString());
+      } else if (VALID.equals(field)) {
+        details.setValid(parser.getBooleanValue());
+      } else if (SKIPPED.equals(field)) {
+        details.setSkipped(parser.getBooleanValue());
+      } else if (DETAIL.equals(field)) {
+        details.setDetail(parser.getValueAsString());
+      } else if (ISSUES.equals(field)) {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          details.addIssue(parser.getValueAsString());
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    if (id == null) {
+      throw new IOException("Cached result without " + ID);
+    }
+    results.put(id, details);
+  }
+
+  private static void expect(final JsonToken token, final JsonToken expected) throws IOException {
+    if (token != expected) {
+      throw new IOException("Expected " + expected + " but found " + token);
+    }
+  }
+}
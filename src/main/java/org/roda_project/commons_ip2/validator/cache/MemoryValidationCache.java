@@ -0,0 +1,44 @@
+package org.roda_project.commons_ip2.validator.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ValidationCache} that keeps the most recently used validations in
+ * memory, for validators that live longer than one validation (e.g. the CLI
+ * server). It is thread-safe.
+ */
+public class MemoryValidationCache implements ValidationCache {
+  /**
+   * Validations by key, in access order.
+   */
+  private final Map<String, CachedValidation> validations;
+
+  /**
+   * Creates a {@link MemoryValidationCache}.
+   *
+   * @param maxSize
+   *          the maximum number of validations kept, the least recently used
+   *          being evicted first.
+   */
+  public MemoryValidationCache(final int maxSize) {
+    this.validations = new LinkedHashMap<String, CachedValidation>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedValidation> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  @Override
+  public synchronized CachedValidation get(final String key) {
+    return validations.get(key);
+  }
+
+  @Override
+  public synchronized void put(final String key, final CachedValidation validation) {
+    validations.put(key, validation);
+  }
+}
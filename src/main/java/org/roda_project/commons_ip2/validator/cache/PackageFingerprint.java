@@ -0,0 +1,160 @@
+package org.roda_project.commons_ip2.validator.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Computes a fingerprint of an Information Package (zip file or folder) that
+ * changes whenever its content changes, used as the key of a
+ * {@link ValidationCache}.
+ */
+public final class PackageFingerprint {
+  /**
+   * Algorithm of the fingerprint.
+   */
+  private static final String ALGORITHM = "SHA-256";
+  /**
+   * Size of the buffer used to digest file contents.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * How the fingerprint is computed.
+   */
+  public enum Mode {
+    /**
+     * From the size and modification time of the package and, for a zip file,
+     * its central directory (entry names, sizes and CRCs) or, for a folder, the
+     * path, size and modification time of every file. Does not read the content
+     * of the files. A file that is not a readable zip (e.g. a TAR or a damaged
+     * zip) is fingerprinted from its size and modification time alone.
+     */
+    METADATA,
+    /**
+     * From the content of the package (every byte of the zip file or of every
+     * file in the folder, with its path).
+     */
+    DIGEST
+  }
+
+  private PackageFingerprint() {
+    // do nothing
+  }
+
+  /**
+   * Computes the fingerprint of an Information Package.
+   *
+   * @param ipPath
+   *          the {@link Path} to the zip file or folder.
+   * @param mode
+   *          the {@link Mode}.
+   * @return the fingerprint, as an hexadecimal {@link String}.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public static String of(final Path ipPath, final Mode mode) throws IOException {
+    final MessageDigest digest = newDigest();
+    update(digest, mode.name());
+    if (Files.isDirectory(ipPath)) {
+      for (Path file : listFiles(ipPath)) {
+        update(digest, ipPath.relativize(file).toString().replace('\\', '/'));
+        if (mode == Mode.DIGEST) {
+          updateWithContent(digest, file);
+        } else {
+          update(digest, Long.toString(Files.size(file)));
+          update(digest, Long.toString(Files.getLastModifiedTime(file).toMillis()));
+        }
+      }
+    } else if (mode == Mode.DIGEST) {
+      updateWithContent(digest, ipPath);
+    } else {
+      update(digest, Long.toString(Files.size(ipPath)));
+      update(digest, Long.toString(Files.getLastModifiedTime(ipPath).toMillis()));
+      updateWithZipEntries(digest, ipPath);
+    }
+    return DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+  }
+
+  /**
+   * Computes the key of the validation of an Information Package, which changes
+   * with its fingerprint and with the version of the validator.
+   *
+   * @param fingerprint
+   *          the fingerprint of the package (see
+   *          {@link #of(Path, Mode)}).
+   * @param validatorVersion
+   *          the version of the validator.
+   * @return the key, as an hexadecimal {@link String}.
+   */
+  public static String key(final String fingerprint, final String validatorVersion) {
+    final MessageDigest digest = newDigest();
+    update(digest, fingerprint);
+    update(digest, validatorVersion);
+    return DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+  }
+
+  private static List<Path> listFiles(final Path folder) throws IOException {
+    final List<Path> files;
+    try (Stream<Path> paths = Files.walk(folder)) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toCollection(ArrayList::new));
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private static void updateWithZipEntries(final MessageDigest digest, final Path zip) throws IOException {
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        update(digest, entry.getName());
+        update(digest, Long.toString(entry.getSize()));
+        update(digest, Long.toString(entry.getCompressedSize()));
+        update(digest, Long.toString(entry.getCrc()));
+      }
+    } catch (ZipException e) {
+      // not a zip (or a damaged one), its size and modification time will do
+      update(digest, "not a zip");
+    }
+  }
+
+  private static void updateWithContent(final MessageDigest digest, final Path file) throws IOException {
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+
+  private static void update(final MessageDigest digest, final String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    // separator, so that consecutive values cannot be confused
+    digest.update((byte) 0);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
+    }
+  }
+}
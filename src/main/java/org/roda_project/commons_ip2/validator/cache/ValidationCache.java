@@ -0,0 +1,35 @@
+package org.roda_project.commons_ip2.validator.cache;
+
+/**
+ * Store of validation results, keyed by the fingerprint of the validated
+ * Information Package and the version of the validator (see
+ * {@link PackageFingerprint#key(String, String)}), so that an unchanged
+ * package is not validated again.
+ *
+ * <p>
+ * A cache must not fail a validation: errors reading a result must be handled
+ * as a miss and errors storing one ignored.
+ * </p>
+ */
+public interface ValidationCache {
+
+  /**
+   * Gets the results of a validation.
+   *
+   * @param key
+   *          the key of the validation.
+   * @return the {@link CachedValidation} or {@code null} if there is none.
+   */
+  CachedValidation get(String key);
+
+  /**
+   * Stores the results of a validation, replacing the ones stored with the same
+   * key.
+   *
+   * @param key
+   *          the key of the validation.
+   * @param validation
+   *          the {@link CachedValidation}.
+   */
+  void put(String key, CachedValidation validation);
+}
@@ -0,0 +1,308 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of a directory tree (existence, type and size of every file), taken
+ * in a single {@link Files#walkFileTree} pass, so that the structure checks of
+ * an unpacked IP do not need a file system call each.
+ *
+ * The snapshot does not follow the changes made to the tree after it was taken,
+ * but it keeps the modification time of every directory, which changes when
+ * entries are added to, removed from or renamed in the directory (see
+ * {@link #isModified(Path)}).
+ */
+final class DirectorySnapshot {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshot.class);
+
+  /**
+   * The (absolute and normalized) root of the snapshot.
+   */
+  private final Path root;
+  /**
+   * Every file and directory of the snapshot, by absolute and normalized path.
+   */
+  private final Map<Path, Node> nodes;
+
+  private DirectorySnapshot(final Path root, final Map<Path, Node> nodes) {
+    this.root = root;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Takes the snapshot of a directory tree.
+   *
+   * @param path
+   *          the root directory.
+   * @param parallelism
+   *          number of threads walking the sub-trees of the root directory.
+   * @return the {@link DirectorySnapshot}.
+   * @throws IOException
+   *           if the root is not a directory or cannot be walked.
+   */
+  static DirectorySnapshot create(final Path path, final int parallelism) throws IOException {
+    final Path root = normalize(path);
+    if (!Files.isDirectory(root)) {
+      throw new NotDirectoryException(root.toString());
+    }
+    final Map<Path, Node> nodes = new HashMap<>();
+    final Node rootNode = new Node(root, true, 0L, Files.getLastModifiedTime(root));
+    nodes.put(root, rootNode);
+
+    final List<Node> subTrees = new ArrayList<>();
+    for (Node child : walk(root, 1, nodes)) {
+      if (child.isDirectory()) {
+        subTrees.add(child);
+      }
+    }
+
+    if (parallelism > 1 && subTrees.size() > 1) {
+      final ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        final List<Callable<Map<Path, Node>>> tasks = new ArrayList<>();
+        for (Node subTree : subTrees) {
+          tasks.add(() -> {
+            final Map<Path, Node> subTreeNodes = new HashMap<>();
+            subTreeNodes.put(subTree.getPath(), subTree);
+            walk(subTree.getPath(), Integer.MAX_VALUE, subTreeNodes);
+            return subTreeNodes;
+          });
+        }
+        for (Future<Map<Path, Node>> result : pool.invokeAll(tasks)) {
+          nodes.putAll(result.get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while walking " + root, e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException("Error walking " + root, e.getCause());
+      } finally {
+        pool.shutdown();
+      }
+    } else {
+      for (Node subTree : subTrees) {
+        walk(subTree.getPath(), Integer.MAX_VALUE, nodes);
+      }
+    }
+    ValidationCounters.current().addEntriesScanned(nodes.size() - 1L);
+    return new DirectorySnapshot(root, nodes);
+  }
+
+  /**
+   * Walks a directory, adding what is found to the nodes (and to the children
+   * of the nodes' directories).
+   *
+   * @return the children of the directory.
+   */
+  private static List<Node> walk(final Path directory, final int maxDepth, final Map<Path, Node> nodes)
+    throws IOException {
+    final Deque<Node> directories = new ArrayDeque<>();
+    Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth,
+      new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+          Node node = nodes.get(dir);
+          if (node == null) {
+            node = add(dir, attrs);
+          }
+          directories.push(node);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+          // with maxDepth, directories at the last level are visited as files
+          add(file, attrs);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+          LOGGER.debug("Could not visit {}", file, exc);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
+          directories.pop().sortChildren();
+          return FileVisitResult.CONTINUE;
+        }
+
+        private Node add(final Path path, final BasicFileAttributes attrs) {
+          final Node node = new Node(path, attrs.isDirectory(), attrs.isDirectory() ? 0L : attrs.size(),
+            attrs.lastModifiedTime());
+          nodes.put(path, node);
+          final Node parent = directories.peek();
+          if (parent != null) {
+            parent.getChildren().add(node);
+          }
+          return node;
+        }
+      });
+    final Node node = nodes.get(directory);
+    return node == null ? Collections.emptyList() : node.getChildren();
+  }
+
+  private static Path normalize(final Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * @return the (absolute and normalized) root of the snapshot.
+   */
+  Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Checks if a directory changed on disk since the snapshot was taken, i.e. if
+   * it was created, removed or its entries changed. Changes to the content of
+   * its files are not detected.
+   *
+   * @param path
+   *          the {@link Path} of the directory.
+   * @return if the directory changed.
+   */
+  boolean isModified(final Path path) {
+    final Node node = get(path);
+    if (node == null || !node.isDirectory()) {
+      return Files.isDirectory(path);
+    }
+    try {
+      return !Files.getLastModifiedTime(path).equals(node.getLastModified());
+    } catch (IOException e) {
+      LOGGER.debug("Could not get the modification time of {}", path, e);
+      return true;
+    }
+  }
+
+  /**
+   * Checks if a path is inside the snapshot (which does not mean it exists).
+   *
+   * @param path
+   *          the {@link Path}.
+   * @return if the path is inside the snapshot.
+   */
+  boolean covers(final Path path) {
+    return normalize(path).startsWith(root);
+  }
+
+  /**
+   * Gets the {@link Node} of a path.
+   *
+   * @param path
+   *          the {@link Path}.
+   * @return the {@link Node} or {@code null} if the path does not exist.
+   */
+  Node get(final Path path) {
+    return nodes.get(normalize(path));
+  }
+
+  boolean exists(final Path path) {
+    return get(path) != null;
+  }
+
+  boolean isDirectory(final Path path) {
+    final Node node = get(path);
+    return node != null && node.isDirectory();
+  }
+
+  long size(final Path path) throws NoSuchFileException {
+    final Node node = get(path);
+    if (node == null) {
+      throw new NoSuchFileException(path.toString());
+    }
+    return node.getSize();
+  }
+
+  /**
+   * Gets the children of a directory, sorted by name.
+   *
+   * @param path
+   *          the {@link Path} of the directory.
+   * @return the children or {@code null} if the path is not a directory (like
+   *         {@link java.io.File#listFiles()}).
+   */
+  List<Node> list(final Path path) {
+    final Node node = get(path);
+    return node != null && node.isDirectory() ? node.getChildren() : null;
+  }
+
+  /**
+   * A file or directory of the snapshot.
+   */
+  static final class Node {
+    private final Path path;
+    private final String name;
+    private final boolean directory;
+    private final long size;
+    private final FileTime lastModified;
+    private final List<Node> children;
+
+    private Node(final Path path, final boolean directory, final long size, final FileTime lastModified) {
+      this.path = path;
+      this.name = path.getFileName() == null ? "" : path.getFileName().toString();
+      this.directory = directory;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.children = directory ? new ArrayList<>() : Collections.emptyList();
+    }
+
+    Path getPath() {
+      return path;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    boolean isDirectory() {
+      return directory;
+    }
+
+    long getSize() {
+      return size;
+    }
+
+    FileTime getLastModified() {
+      return lastModified;
+    }
+
+    List<Node> getChildren() {
+      return children;
+    }
+
+    private void sortChildren() {
+      children.sort(Comparator.comparing(Node::getName));
+    }
+  }
+}
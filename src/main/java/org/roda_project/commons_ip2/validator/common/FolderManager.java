@@ -1,23 +1,23 @@
 package org.roda_project.commons_ip2.validator.common;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,34 +29,109 @@ public class FolderManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(FolderManager.class);
 
   /**
-   * {@link File}.
+   * Number of threads used to take the snapshot of the IP.
    */
-  private File folder = null;
+  private final int parallelism;
 
-  public boolean checkIfExistsRootMetsFile(final Path path) {
-    boolean found = false;
-    folder = path.toFile();
-    for (File f : folder.listFiles()) {
-      if (f.getName().equals("METS.xml")) {
-        found = true;
+  /**
+   * Snapshot of the (last) IP folder, that answers the structure queries.
+   */
+  private DirectorySnapshot snapshot = null;
+
+  public FolderManager() {
+    this(1);
+  }
+
+  /**
+   * Creates a {@link FolderManager} that takes the snapshot of the IP folder
+   * walking its sub-folders in parallel.
+   *
+   * @param parallelism
+   *          number of threads walking the IP folder.
+   */
+  public FolderManager(final int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Drops the snapshot, so that the next query takes a new one. To be called
+   * when the folder tree may have changed on disk (e.g. before validating an IP
+   * again).
+   */
+  public synchronized void invalidate() {
+    snapshot = null;
+  }
+
+  /**
+   * Gets the snapshot that covers a folder, taking it (once, for the whole
+   * folder tree) if there is none or if the folder changed on disk since it was
+   * taken.
+   *
+   * @param path
+   *          the folder {@link Path}.
+   * @return the {@link DirectorySnapshot} or {@code null} if the path is not a
+   *         folder.
+   */
+  private synchronized DirectorySnapshot getSnapshot(final Path path) {
+    if (snapshot == null || !snapshot.covers(path) || snapshot.isModified(path)) {
+      if (!Files.isDirectory(path)) {
+        return null;
+      }
+      // a stale snapshot is taken again from its root, to keep covering it
+      final Path root = snapshot != null && snapshot.covers(path) ? snapshot.getRoot() : path;
+      try {
+        snapshot = DirectorySnapshot.create(root, parallelism);
+      } catch (IOException e) {
+        LOGGER.debug("Could not take snapshot of {}", path, e);
+        return null;
       }
     }
-    return found;
+    return snapshot;
   }
 
-  public InputStream getMetsRootInputStream(final Path path) throws FileNotFoundException {
-    folder = path.toFile();
-    String metsPath = null;
-    for (File f : folder.listFiles()) {
-      if (f.getName().equals("METS.xml")) {
-        metsPath = f.getPath();
+  /**
+   * Gets the snapshot that covers a path, if any (i.e. without taking one).
+   *
+   * @param path
+   *          the {@link Path}.
+   * @return the {@link DirectorySnapshot} or {@code null}.
+   */
+  private synchronized DirectorySnapshot getSnapshotIfCovered(final Path path) {
+    return snapshot != null && snapshot.covers(path) ? snapshot : null;
+  }
+
+  /**
+   * Lists a folder (from the snapshot).
+   *
+   * @param path
+   *          the folder {@link Path}.
+   * @return the folder children or {@code null} if the path is not a folder.
+   */
+  private List<DirectorySnapshot.Node> list(final Path path) {
+    final DirectorySnapshot directorySnapshot = getSnapshot(path);
+    return directorySnapshot == null ? null : directorySnapshot.list(path);
+  }
+
+  private List<DirectorySnapshot.Node> listOrEmpty(final Path path) {
+    final List<DirectorySnapshot.Node> children = list(path);
+    return children == null ? Collections.emptyList() : children;
+  }
+
+  public boolean checkIfExistsRootMetsFile(final Path path) {
+    for (DirectorySnapshot.Node node : listOrEmpty(path)) {
+      if (node.getName().equals("METS.xml")) {
+        return true;
       }
     }
-    if (metsPath == null) {
+    return false;
+  }
+
+  public InputStream getMetsRootInputStream(final Path path) throws FileNotFoundException {
+    if (!checkIfExistsRootMetsFile(path)) {
       LOGGER.debug("METS.xml not Found");
       throw new FileNotFoundException("METS.xml not Found");
     }
-    return new FileInputStream(metsPath);
+    return new FileInputStream(path.resolve("METS.xml").toFile());
   }
 
   public String getSipRootFolderName(final Path path) {
@@ -65,29 +140,33 @@ public class FolderManager {
   }
 
   public boolean checkPathExists(final Path path) {
-    return Files.exists(path);
+    final DirectorySnapshot directorySnapshot = getSnapshotIfCovered(path);
+    // files missing from the snapshot may have been created after it was taken
+    return (directorySnapshot != null && directorySnapshot.exists(path)) || Files.exists(path);
   }
 
   public boolean verifyChecksum(final Path path, final String alg, final String checksum)
     throws IOException, NoSuchAlgorithmException {
     boolean valid = true;
 
-    if (!Files.exists(path)) {
+    if (!checkPathExists(path)) {
       valid = false;
     } else {
-      final InputStream stream = new FileInputStream(path.toFile());
-      final MessageDigest messageDigest = MessageDigest.getInstance(alg);
-      final byte[] buffer = new byte[8192];
-      int numOfBytesRead;
-      while ((numOfBytesRead = stream.read(buffer)) > 0) {
-        messageDigest.update(buffer, 0, numOfBytesRead);
-      }
-      final byte[] hash = messageDigest.digest();
-      final String fileChecksum = DatatypeConverter.printHexBinary(hash);
-      if (!checksum.equalsIgnoreCase(fileChecksum)) {
-        valid = false;
+      try (InputStream stream = new FileInputStream(path.toFile())) {
+        final MessageDigest messageDigest = MessageDigest.getInstance(alg);
+        final byte[] buffer = new byte[8192];
+        int numOfBytesRead;
+        final ValidationCounters counters = ValidationCounters.current();
+        while ((numOfBytesRead = stream.read(buffer)) > 0) {
+          messageDigest.update(buffer, 0, numOfBytesRead);
+          counters.addBytesHashed(numOfBytesRead);
+        }
+        final byte[] hash = messageDigest.digest();
+        final String fileChecksum = DatatypeConverter.printHexBinary(hash);
+        if (!checksum.equalsIgnoreCase(fileChecksum)) {
+          valid = false;
+        }
       }
-      stream.close();
     }
     return valid;
   }
@@ -97,7 +176,11 @@ public class FolderManager {
     if (path == null) {
       valid = false;
     } else {
-      if (Files.size(path) != metsSize) {
+      final DirectorySnapshot directorySnapshot = getSnapshotIfCovered(path);
+      final boolean inSnapshot = directorySnapshot != null && directorySnapshot.exists(path);
+      final long size = inSnapshot ? directorySnapshot.size(path) : Files.size(path);
+      // a size that does not match may have changed after the snapshot was taken
+      if (size != metsSize && (!inSnapshot || Files.size(path) != metsSize)) {
         valid = false;
       }
     }
@@ -106,47 +189,37 @@ public class FolderManager {
 
   public int countMetadataFiles(final Path path) {
     int count = 0;
-    final File[] folder = path.toFile().listFiles();
-    if (folder != null) {
-      for (File f : folder) {
-        if (f.getName().equals("metadata")) {
-          if (f.isDirectory()) {
-            final File[] metadataFiles = f.listFiles();
-            if (metadataFiles != null) {
-              if (metadataFiles.length != 0) {
-                for (File metadata : metadataFiles) {
-                  if (metadata.isDirectory()) {
-                    final File[] descriptiveFiles = metadata.listFiles();
-                    if (descriptiveFiles != null) {
-                      count += descriptiveFiles.length;
-                    }
-                  } else {
-                    count++;
-                  }
-                }
-              }
-            }
-          }
+    final List<DirectorySnapshot.Node> metadataFiles = list(path.resolve("metadata"));
+    if (metadataFiles != null) {
+      for (DirectorySnapshot.Node metadata : metadataFiles) {
+        if (metadata.isDirectory()) {
+          count += metadata.getChildren().size();
+        } else {
+          count++;
         }
       }
     }
     return count;
   }
 
-  public Map<String, InputStream> getSubMets(final Path path) throws FileNotFoundException {
-    final HashMap<String, InputStream> subMets = new HashMap<>();
-    final File[] representationsFolder = path.resolve("representations").toFile().listFiles();
-    if (representationsFolder != null && representationsFolder.length != 0) {
-      for (File representation : representationsFolder) {
-        if (representation.isDirectory()) {
-          final File[] representationFiles = representation.listFiles();
-          if (representationFiles != null && representationFiles.length != 0) {
-            for (File file : representationFiles) {
-              if (file.getName().equals("METS.xml")) {
-                final InputStream subStream = new FileInputStream(file.getPath());
-                subMets.put(file.getPath(), subStream);
-              }
-            }
+  /**
+   * Gets the METS files inside the representations of the IP, sorted by
+   * representation name. The files are only opened when {@link SubMets#open()}
+   * is called.
+   *
+   * @param path
+   *          {@link Path} to the IP.
+   * @return {@link List} of {@link SubMets}.
+   */
+  public List<SubMets> getSubMets(final Path path) {
+    final List<SubMets> subMets = new ArrayList<>();
+    final Path representationsPath = path.resolve("representations");
+    for (DirectorySnapshot.Node representation : listOrEmpty(representationsPath)) {
+      if (representation.isDirectory()) {
+        for (DirectorySnapshot.Node file : representation.getChildren()) {
+          if (file.getName().equals("METS.xml")) {
+            final Path subMetsPath = representationsPath.resolve(representation.getName()).resolve(file.getName());
+            subMets.add(new SubMets(subMetsPath.toString(), () -> new FileInputStream(subMetsPath.toFile())));
           }
         }
       }
@@ -155,7 +228,7 @@ public class FolderManager {
   }
 
   public boolean checkDirectory(final Path path) throws IOException {
-    return Files.exists(path);
+    return checkPathExists(path);
   }
 
   public Boolean checkRootFolderName(final Path path, final String objectId) {
@@ -163,29 +236,20 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsFolderInRoot(final Path path, final String folder) {
-    final File[] root = path.toFile().listFiles();
-    for (File file : root) {
-      if (file.getName().equals(folder)) {
-        if (file.isDirectory()) {
-          return true;
-        }
+    for (DirectorySnapshot.Node file : listOrEmpty(path)) {
+      if (file.getName().equals(folder) && file.isDirectory()) {
+        return true;
       }
     }
     return false;
   }
 
   public boolean checkIfExistsFolderInside(final Path path, final String rootFolder, final String insideFolder) {
-    final File[] root = path.toFile().listFiles();
-    for (File file : root) {
-      if (file.getName().equals(rootFolder)) {
-        if (file.isDirectory()) {
-          final File[] insideFiles = file.listFiles();
-          for (File f : insideFiles) {
-            if (f.getName().equals(insideFolder)) {
-              if (f.isDirectory()) {
-                return true;
-              }
-            }
+    for (DirectorySnapshot.Node file : listOrEmpty(path)) {
+      if (file.getName().equals(rootFolder) && file.isDirectory()) {
+        for (DirectorySnapshot.Node f : file.getChildren()) {
+          if (f.getName().equals(insideFolder) && f.isDirectory()) {
+            return true;
           }
         }
       }
@@ -194,15 +258,11 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsFolderInsideRepresentation(final Path path, final String folder) {
-    final File[] representationFiles = path.resolve("representations").toFile().listFiles();
-    if (representationFiles != null && representationFiles.length != 0) {
-      for (File representation : representationFiles) {
-        if (representation.isDirectory()) {
-          final File[] filesInsideRepresentation = representation.listFiles();
-          for (File fileInside : filesInsideRepresentation) {
-            if (fileInside.getName().equals(folder) && fileInside.isDirectory()) {
-              return true;
-            }
+    for (DirectorySnapshot.Node representation : listOrEmpty(path.resolve("representations"))) {
+      if (representation.isDirectory()) {
+        for (DirectorySnapshot.Node fileInside : representation.getChildren()) {
+          if (fileInside.getName().equals(folder) && fileInside.isDirectory()) {
+            return true;
           }
         }
       }
@@ -211,23 +271,14 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsSubMets(final Path path) {
-    final File[] root = path.toFile().listFiles();
     int countSubMets = 0;
     int countRepresentationsFolder = 0;
-    for (File file : root) {
-      if (file.getName().equals("representations")) {
-        if (file.isDirectory()) {
-          final File[] insideFiles = file.listFiles();
-          for (File f : insideFiles) {
-            if (f.isDirectory()) {
-              countRepresentationsFolder++;
-              final File[] representationFiles = f.listFiles();
-              for (File representationFile : representationFiles) {
-                if (representationFile.getName().equals("METS.xml")) {
-                  countSubMets++;
-                }
-              }
-            }
+    for (DirectorySnapshot.Node representation : listOrEmpty(path.resolve("representations"))) {
+      if (representation.isDirectory()) {
+        countRepresentationsFolder++;
+        for (DirectorySnapshot.Node representationFile : representation.getChildren()) {
+          if (representationFile.getName().equals("METS.xml")) {
+            countSubMets++;
           }
         }
       }
@@ -237,17 +288,9 @@ public class FolderManager {
 
   public List<String> getRepresentationsFoldersNames(final Path path) {
     final List<String> representationsFoldersNames = new ArrayList<>();
-    final File[] rootFiles = path.toFile().listFiles();
-    for (File rootFile : rootFiles) {
-      if (rootFile.getName().equals("representations")) {
-        if (rootFile.isDirectory()) {
-          final File[] representationsFiles = rootFile.listFiles();
-          for (File representation : representationsFiles) {
-            if (representation.isDirectory()) {
-              representationsFoldersNames.add(representation.getName());
-            }
-          }
-        }
+    for (DirectorySnapshot.Node representation : listOrEmpty(path.resolve("representations"))) {
+      if (representation.isDirectory()) {
+        representationsFoldersNames.add(representation.getName());
       }
     }
     return representationsFoldersNames;
@@ -255,17 +298,9 @@ public class FolderManager {
 
   public int countFilesInsideRepresentations(final Path path) {
     int count = 0;
-    final File[] rootFiles = path.toFile().listFiles();
-    for (File rootFile : rootFiles) {
-      if (rootFile.getName().equals("representations")) {
-        if (rootFile.isDirectory()) {
-          final File[] representationsFiles = rootFile.listFiles();
-          for (File representation : representationsFiles) {
-            if (!representation.isDirectory()) {
-              count++;
-            }
-          }
-        }
+    for (DirectorySnapshot.Node representation : listOrEmpty(path.resolve("representations"))) {
+      if (!representation.isDirectory()) {
+        count++;
       }
     }
     return count;
@@ -284,14 +319,13 @@ public class FolderManager {
       LOGGER.debug("File not Found");
       throw new FileNotFoundException("File not Found");
     }
-    final HashMap<String, Boolean> data = new HashMap<>();
-    try (Stream<Path> paths = Files.walk(path.resolve("metadata"))) {
-      paths.forEach(filePath -> {
-        if (!Files.isDirectory(filePath)) {
-          data.put(filePath.toString(), false);
-        }
-      });
+    final Path metadataPath = path.resolve("metadata");
+    final DirectorySnapshot directorySnapshot = getSnapshot(path);
+    if (directorySnapshot == null || !directorySnapshot.exists(metadataPath)) {
+      throw new NoSuchFileException(metadataPath.toString());
     }
+    final HashMap<String, Boolean> data = new HashMap<>();
+    addFiles(metadataPath, directorySnapshot.get(metadataPath), data, false);
     return data;
   }
 
@@ -302,12 +336,9 @@ public class FolderManager {
     commonFolders.add("documentation");
     commonFolders.add("schemas");
     commonFolders.add("representations");
-    final File[] rootFiles = path.toFile().listFiles();
-    if (rootFiles != null) {
-      for (File rootFolder : rootFiles) {
-        if (rootFolder.isDirectory() && !commonFolders.contains(rootFolder.getName())) {
-          additionalFolders.add(rootFolder.getName());
-        }
+    for (DirectorySnapshot.Node rootFolder : listOrEmpty(path)) {
+      if (rootFolder.isDirectory() && !commonFolders.contains(rootFolder.getName())) {
+        additionalFolders.add(rootFolder.getName());
       }
     }
     return additionalFolders;
@@ -315,12 +346,10 @@ public class FolderManager {
 
   public boolean checkIfExistsFolderRepresentation(final Path ipPath, final String folder,
     final String representation) {
-    final File[] representationFiles = ipPath.resolve("representations").resolve(representation).toFile().listFiles();
-    if (representationFiles != null) {
-      for (File representationFile : representationFiles) {
-        if (representationFile.isDirectory() && representationFile.getName().equals(folder)) {
-          return true;
-        }
+    for (DirectorySnapshot.Node representationFile : listOrEmpty(
+      ipPath.resolve("representations").resolve(representation))) {
+      if (representationFile.isDirectory() && representationFile.getName().equals(folder)) {
+        return true;
       }
     }
     return false;
@@ -333,18 +362,40 @@ public class FolderManager {
   }
 
   public HashMap<String, Boolean> getFilesDirectory(Path path) {
-    HashMap<String, Boolean> files = new HashMap<>();
-    File folder = path.toFile();
-    for (final File fileEntry : folder.listFiles()) {
-      if (fileEntry.isDirectory() && !fileEntry.getName().equals("metadata")) {
-        files.putAll(getFilesDirectory(Paths.get(fileEntry.getPath())));
-      } else {
-        if (!fileEntry.isDirectory() && !fileEntry.getName().equals("METS.xml")
-          && !fileEntry.getName().equals("aip.json")) {
-          files.put(Paths.get(fileEntry.getPath()).toString(), false);
+    final HashMap<String, Boolean> files = new HashMap<>();
+    final DirectorySnapshot directorySnapshot = getSnapshot(path);
+    if (directorySnapshot == null) {
+      throw new IllegalArgumentException(path + " is not a directory");
+    }
+    addFiles(path, directorySnapshot.get(path), files, true);
+    return files;
+  }
+
+  /**
+   * Adds the files of a folder tree (from the snapshot) to a map.
+   *
+   * @param path
+   *          the folder {@link Path} (as given by the caller, so the map keys
+   *          keep its form).
+   * @param folder
+   *          the folder {@link DirectorySnapshot.Node}.
+   * @param files
+   *          the map where the files are added.
+   * @param skipMetadata
+   *          if the metadata folders and the METS/aip.json files are skipped.
+   */
+  private void addFiles(final Path path, final DirectorySnapshot.Node folder, final Map<String, Boolean> files,
+    final boolean skipMetadata) {
+    for (DirectorySnapshot.Node fileEntry : folder.getChildren()) {
+      final Path filePath = path.resolve(fileEntry.getName());
+      if (fileEntry.isDirectory()) {
+        if (!skipMetadata || !fileEntry.getName().equals("metadata")) {
+          addFiles(filePath, fileEntry, files, skipMetadata);
         }
+      } else if (!skipMetadata
+        || (!fileEntry.getName().equals("METS.xml") && !fileEntry.getName().equals("aip.json"))) {
+        files.put(filePath.toString(), false);
       }
     }
-    return files;
   }
 }
@@ -1,20 +1,17 @@
 package org.roda_project.commons_ip2.validator.common;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Set;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
-import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
 import org.roda_project.commons_ip2.utils.METSUtils;
-import org.roda_project.commons_ip2.utils.ResourceResolver;
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
 import org.xml.sax.SAXException;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
@@ -23,6 +20,19 @@ public class InstatiateMets {
    * {@link InputStream}.
    */
   private final InputStream stream;
+  /**
+   * Number of bytes read by the last {@link #instatiateMetsFile()}.
+   */
+  private long bytesRead;
+  /**
+   * Number of METS elements unmarshalled by the last
+   * {@link #instatiateMetsFile()}.
+   */
+  private long elements;
+  /**
+   * Wall time of the last {@link #instatiateMetsFile()}, in nanoseconds.
+   */
+  private long nanos;
 
   /**
    * Constructor that sets the {@link InputStream}.
@@ -44,15 +54,85 @@ public class InstatiateMets {
    *           if some parse error occurs.
    */
   public Mets instatiateMetsFile() throws JAXBException, SAXException {
-    final JAXBContext jaxbContext = JAXBContext.newInstance(Mets.class);
-    final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-    final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    factory.setResourceResolver(new ResourceResolver());
-    final InputStream metsSchemaInputStream = METSUtils.class
-      .getResourceAsStream(IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
-    final Source metsSchemaSource = new StreamSource(metsSchemaInputStream);
-    final Schema schema = factory.newSchema(metsSchemaSource);
-    jaxbUnmarshaller.setSchema(schema);
-    return (Mets) jaxbUnmarshaller.unmarshal(stream);
+    final long start = System.nanoTime();
+    final Schema metsSchema = METSUtils.getMETSSchema();
+    final long[] unmarshalled = new long[1];
+    final CountingInputStream countingStream = new CountingInputStream(stream);
+    try {
+      return METSUtils.getMETSBinding().unmarshal(countingStream, metsSchema, target -> unmarshalled[0]++);
+    } finally {
+      setStatistics(start, countingStream, unmarshalled[0]);
+    }
+  }
+
+  /**
+   * Creates the {@link Mets} object from METS file, leaving out the files of
+   * the data file groups (see
+   * {@link METSStreamReader#readWithoutDataFiles(InputStream, String, Set, java.util.function.Consumer)}),
+   * so that the memory used does not grow with the number of data files.
+   *
+   * @param dataFileGrpIds
+   *          where the ids of the file groups whose files were left out are
+   *          added.
+   * @return the {@link Mets} object.
+   * @throws JAXBException
+   *           if some schema error occurs.
+   * @throws SAXException
+   *           if some parse error occurs.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public Mets instatiateMetsFileWithoutDataFiles(final Set<String> dataFileGrpIds)
+    throws JAXBException, SAXException, IOException {
+    final long start = System.nanoTime();
+    final long[] unmarshalled = new long[1];
+    final CountingInputStream countingStream = new CountingInputStream(stream);
+    try {
+      return METSStreamReader.readWithoutDataFiles(countingStream, null, dataFileGrpIds,
+        target -> unmarshalled[0]++);
+    } finally {
+      setStatistics(start, countingStream, unmarshalled[0]);
+    }
+  }
+
+  private void setStatistics(final long start, final CountingInputStream countingStream, final long unmarshalled) {
+    bytesRead = countingStream.getByteCount();
+    elements = unmarshalled;
+    nanos = System.nanoTime() - start;
+    ValidationCounters.current().addMetsElementsVisited(elements);
+  }
+
+  /**
+   * Creates what the METS binding needs and the METS {@link Schema} if they
+   * were not created yet, so that the first {@link #instatiateMetsFile()} does
+   * not pay for it (e.g. when a long-running validator starts).
+   *
+   * @throws JAXBException
+   *           if the {@link javax.xml.bind.JAXBContext} cannot be created.
+   * @throws SAXException
+   *           if the schema cannot be compiled.
+   */
+  public static void warmUp() throws JAXBException, SAXException {
+    METSUtils.getMETSBinding().warmUp();
+    METSUtils.getMETSSchema();
+  }
+
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Gets the number of METS elements unmarshalled by the last
+   * {@link #instatiateMetsFile()} (the elements bound to objects, not the ones
+   * bound to simple values).
+   *
+   * @return the number of elements.
+   */
+  public long getElements() {
+    return elements;
+  }
+
+  public long getNanos() {
+    return nanos;
   }
 }
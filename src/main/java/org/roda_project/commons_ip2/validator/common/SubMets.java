@@ -0,0 +1,56 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A METS file inside a representation of the IP. Only its path is kept: the
+ * file is opened when {@link #open()} is called, so that the sub METS of an IP
+ * can be validated one at a time, each with its own (short lived) stream.
+ */
+public final class SubMets {
+  /**
+   * Path to the METS file (zip entry name or file path).
+   */
+  private final String path;
+  /**
+   * {@link Opener} of the METS file.
+   */
+  private final Opener opener;
+
+  /**
+   * Creates a {@link SubMets}.
+   *
+   * @param path
+   *          the path to the METS file.
+   * @param opener
+   *          the {@link Opener} of the METS file.
+   */
+  public SubMets(final String path, final Opener opener) {
+    this.path = path;
+    this.opener = opener;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Opens the METS file. The caller must close the stream.
+   *
+   * @return {@link InputStream} to the METS file.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public InputStream open() throws IOException {
+    return opener.open();
+  }
+
+  /**
+   * Opens the METS file of a {@link SubMets}.
+   */
+  @FunctionalInterface
+  public interface Opener {
+    InputStream open() throws IOException;
+  }
+}
@@ -6,6 +6,7 @@ import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -16,6 +17,7 @@ import java.util.zip.ZipFile;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,7 +66,7 @@ public class ZipManager {
     Enumeration entries = zipFile.entries();
     String entry = null;
     while (entries.hasMoreElements()) {
-      ZipEntry entr = (ZipEntry) entries.nextElement();
+      ZipEntry entr = nextEntry(entries);
       if (entr.getName().endsWith("/METS.xml")) {
         if (entr.getName().split("/").length == 2) {
           entry = entr.getName();
@@ -118,7 +120,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().endsWith("/METS.xml")) {
         if (entry.getName().split("/").length == 2) {
           found = true;
@@ -157,7 +159,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().equals(filePath)) {
         found = true;
         break;
@@ -192,8 +194,10 @@ public class ZipManager {
       MessageDigest messageDigest = MessageDigest.getInstance(alg);
       byte[] buffer = new byte[8192];
       int numOfBytesRead;
+      final ValidationCounters counters = ValidationCounters.current();
       while ((numOfBytesRead = entry.read(buffer)) > 0) {
         messageDigest.update(buffer, 0, numOfBytesRead);
+        counters.addBytesHashed(numOfBytesRead);
       }
       byte[] hash = messageDigest.digest();
       String fileChecksum = DatatypeConverter.printHexBinary(hash);
@@ -221,7 +225,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(regex)) {
         if (entry.getName().split("/").length == 3) {
           if (!entry.isDirectory()) {
@@ -238,7 +242,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(regex)) {
         if (!entry.isDirectory()) {
           count++;
@@ -248,21 +252,33 @@ public class ZipManager {
     return count;
   }
 
-  public HashMap<String, InputStream> getSubMets(Path path) throws IOException {
-    HashMap<String, InputStream> subMets = new HashMap<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+  /**
+   * Gets the METS files inside the representations of the IP, sorted by entry
+   * name. The entries are only opened when {@link SubMets#open()} is called.
+   *
+   * @param path
+   *          {@link Path} to the IP
+   * @return {@link List} of {@link SubMets}.
+   * @throws IOException
+   *           if some I/O error occurs
+   */
+  public List<SubMets> getSubMets(Path path) throws IOException {
+    if (zipFile == null) {
+      zipFile = new ZipFile(path.toFile());
+    }
+    final ZipFile ipZipFile = zipFile;
+    List<SubMets> subMets = new ArrayList<>();
+    Enumeration entries = ipZipFile.entries();
 
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().endsWith("/METS.xml") && entry.getName().split("/").length > 2
         && entry.getName().split("/").length <= 4 && !entry.getName().matches(".+/submission/.+")) {
-        InputStream stream = zipFile.getInputStream(entry);
-        if (stream != null) {
-          subMets.put(entry.getName(), stream);
-        }
+        final String name = entry.getName();
+        subMets.add(new SubMets(name, () -> ipZipFile.getInputStream(ipZipFile.getEntry(name))));
       }
     }
+    subMets.sort(Comparator.comparing(SubMets::getPath));
     return subMets;
   }
 
@@ -272,7 +288,7 @@ public class ZipManager {
 
     Set<String> tmp = new HashSet<>();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       String name = entry.getName().split("/")[0];
       tmp.add(name);
     }
@@ -286,7 +302,7 @@ public class ZipManager {
     boolean found = false;
     if (e == null) {
       while (entries.hasMoreElements()) {
-        ZipEntry entry = (ZipEntry) entries.nextElement();
+        ZipEntry entry = nextEntry(entries);
         if (entry.getName().startsWith(directoryPath) && !entry.isDirectory()) {
           found = true;
         }
@@ -301,7 +317,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       String name = entry.getName();
       if (name.matches(".*/?" + objectId + "/METS.xml")) {
         return true;
@@ -322,7 +338,7 @@ public class ZipManager {
     Enumeration entries = zipFile.entries();
     String entry = null;
     while (entries.hasMoreElements()) {
-      ZipEntry entr = (ZipEntry) entries.nextElement();
+      ZipEntry entr = nextEntry(entries);
       if (entr.getName().matches(".*/METS.xml")) {
         if (entr.getName().split("/").length == 2) {
           entry = entr.getName();
@@ -341,7 +357,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(regex)) {
         if (!entry.isDirectory()) {
           metadataFiles.put(entry.getName(), false);
@@ -356,7 +372,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (!entry.getName().matches(".*/METS.xml") && !entry.getName().contains("/metadata") && !entry.isDirectory()
         && !entry.getName().contains("/aip.json")) {
         metadataFiles.put(entry.getName(), false);
@@ -370,7 +386,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(".*/?" + filePath + "/")) {
         if (entry.isDirectory()) {
           found = true;
@@ -386,7 +402,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(".*/" + folder + "/.*")) {
         if (entry.getName().split("/")[1].equals(folder)) {
           found = true;
@@ -402,7 +418,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(".*/" + folder + "/.*") && entry.getName().split("/").length >= 3) {
         found = true;
         break;
@@ -415,7 +431,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(".*/representations/.*/" + folder + "/.*")
         && entry.getName().split("/").length >= 4) {
         return true;
@@ -431,7 +447,7 @@ public class ZipManager {
     int countRepresentations;
     List<String> representationsFoldersNames = new ArrayList<>();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().endsWith("/METS.xml")) {
         if (entry.getName().split("/").length > 2 && entry.getName().split("/").length <= 4
           && !entry.getName().matches(".+/submission/.+")) {
@@ -457,7 +473,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().contains("/representations/") && entry.getName().split("/").length > 3
         && !entry.getName().matches(".+/submission/.+")) {
         String representationName = getRepresentationName(entry.getName());
@@ -475,7 +491,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().contains("/representations/") && !entry.getName().matches(".+/submission/.+")
         && entry.getName().split("/").length == 3 && !entry.getName().endsWith("/")) {
         count++;
@@ -494,7 +510,7 @@ public class ZipManager {
     ZipFile zipFile = new ZipFile(path.toFile());
     Enumeration entries = zipFile.entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       String[] folder = entry.getName().split("/");
       if (folder.length == 2 && entry.isDirectory()) {
         if (!commonFolders.contains(folder[1])) {
@@ -520,11 +536,20 @@ public class ZipManager {
     StringBuilder regex = new StringBuilder();
     regex.append(".+/").append(representation).append("/").append(folder);
     while (entries.hasMoreElements()) {
-      ZipEntry entry = (ZipEntry) entries.nextElement();
+      ZipEntry entry = nextEntry(entries);
       if (entry.getName().matches(regex.toString())) {
         return true;
       }
     }
     return false;
   }
+
+  /**
+   * Gets the next entry of an enumeration of the zip entries, counting it as
+   * scanned (see {@link ValidationCounters}).
+   */
+  private static ZipEntry nextEntry(final Enumeration entries) {
+    ValidationCounters.current().addEntriesScanned(1);
+    return (ZipEntry) entries.nextElement();
+  }
 }
@@ -0,0 +1,45 @@
+package org.roda_project.commons_ip2.validator.component;
+
+import java.io.IOException;
+
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+
+/**
+ * A requirement checked by the {@link MetsRuleEngine} on every element of a
+ * type (e.g. every mets/fileSec/fileGrp/file), as the engine walks the METS.
+ *
+ * @param <P>
+ *          the type of the parent of the element.
+ * @param <E>
+ *          the type of the element.
+ */
+@FunctionalInterface
+public interface MetsRule<P, E> {
+
+  /**
+   * Checks an element.
+   *
+   * @param parent
+   *          the parent of the element.
+   * @param element
+   *          the element.
+   * @return {@code null} if the element meets the requirement, otherwise the
+   *         {@link ReporterDetails} of the failure (the rule is not given any
+   *         more elements).
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  ReporterDetails check(P parent, E element) throws IOException;
+
+  /**
+   * Gets the result of the rule after every element was checked (and none
+   * failed), for requirements that depend on all elements.
+   *
+   * @return the {@link ReporterDetails}.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  default ReporterDetails finish() throws IOException {
+    return new ReporterDetails();
+  }
+}
@@ -0,0 +1,274 @@
+package org.roda_project.commons_ip2.validator.component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
+import org.roda_project.commons_ip2.validator.observer.StepMetrics;
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
+
+/**
+ * Checks a set of requirements ({@link MetsRule}s) walking the METS file
+ * section once and giving each element to every rule registered for its type,
+ * so that the validation cost grows with the METS size and not with the METS
+ * size times the number of requirements.
+ *
+ * <p>
+ * Rules are given the elements in document order (each file group, then its
+ * files) and, for the same element, in the order they were registered. A rule
+ * stops at its first failure, as the requirements report a single issue.
+ * Requirements that only apply if others are met are gated on them in the
+ * same walk (see {@link #requires(String, ReporterDetails)}).
+ * </p>
+ *
+ * <p>
+ * As the rules are checked interleaved, each rule is measured on its own (see
+ * {@link #getMetrics()}).
+ * </p>
+ */
+public class MetsRuleEngine {
+  /**
+   * Rules for mets/fileSec/fileGrp.
+   */
+  private final List<Registration<MetsType.FileSec, MetsType.FileSec.FileGrp>> fileGrpRules = new ArrayList<>();
+  /**
+   * Rules for mets/fileSec/fileGrp/file.
+   */
+  private final List<Registration<MetsType.FileSec.FileGrp, FileType>> fileRules = new ArrayList<>();
+  /**
+   * Rules, in the order they were registered.
+   */
+  private final List<Registration<?, ?>> registrations = new ArrayList<>();
+  /**
+   * Requirement identifiers, in the order they were registered.
+   */
+  private final List<String> requirementIds = new ArrayList<>();
+  /**
+   * The rule the rules registered next depend on, if any.
+   */
+  private Registration<?, ?> prerequisite;
+  /**
+   * The result of the rules registered next if their prerequisite fails.
+   */
+  private ReporterDetails skipped;
+
+  /**
+   * Registers a rule for mets/fileSec/fileGrp.
+   *
+   * @param requirementId
+   *          the requirement identifier.
+   * @param specification
+   *          the specification set in the result.
+   * @param rule
+   *          the {@link MetsRule}.
+   * @return this {@link MetsRuleEngine}.
+   */
+  public MetsRuleEngine onFileGrp(final String requirementId, final String specification,
+    final MetsRule<MetsType.FileSec, MetsType.FileSec.FileGrp> rule) {
+    fileGrpRules.add(register(new Registration<>(requirementId, specification, rule)));
+    return this;
+  }
+
+  /**
+   * Registers a rule for mets/fileSec/fileGrp/file.
+   *
+   * @param requirementId
+   *          the requirement identifier.
+   * @param specification
+   *          the specification set in the result.
+   * @param rule
+   *          the {@link MetsRule}.
+   * @return this {@link MetsRuleEngine}.
+   */
+  public MetsRuleEngine onFile(final String requirementId, final String specification,
+    final MetsRule<MetsType.FileSec.FileGrp, FileType> rule) {
+    fileRules.add(register(new Registration<>(requirementId, specification, rule)));
+    return this;
+  }
+
+  /**
+   * Makes the rules registered next depend on an already registered
+   * requirement: they are given the elements the prerequisite met (as each
+   * element is given to the rules in registration order) and stop being given
+   * elements once it fails, and if it fails (including on
+   * {@link MetsRule#finish()}) their result is the given one. This keeps
+   * dependent groups of requirements in the same walk.
+   *
+   * @param requirementId
+   *          the identifier of the prerequisite requirement.
+   * @param skippedResult
+   *          the result of the dependent requirements if the prerequisite
+   *          fails.
+   * @return this {@link MetsRuleEngine}.
+   */
+  public MetsRuleEngine requires(final String requirementId, final ReporterDetails skippedResult) {
+    prerequisite = null;
+    for (Registration<?, ?> registration : registrations) {
+      if (registration.requirementId.equals(requirementId)) {
+        prerequisite = registration;
+      }
+    }
+    if (prerequisite == null) {
+      throw new IllegalArgumentException("Requirement not registered: " + requirementId);
+    }
+    skipped = skippedResult;
+    return this;
+  }
+
+  private <P, E> Registration<P, E> register(final Registration<P, E> registration) {
+    registration.prerequisite = prerequisite;
+    registration.skipped = skipped;
+    registrations.add(registration);
+    requirementIds.add(registration.requirementId);
+    return registration;
+  }
+
+  /**
+   * Gets the identifiers of the registered requirements.
+   *
+   * @return the {@link List} of identifiers, in registration order.
+   */
+  public List<String> getRequirementIds() {
+    return requirementIds;
+  }
+
+  /**
+   * Walks the METS file section checking every registered rule.
+   *
+   * @param fileSec
+   *          the mets/fileSec.
+   * @return {@link Map} with the result of each requirement, in registration
+   *         order.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public Map<String, ReporterDetails> run(final MetsType.FileSec fileSec) throws IOException {
+    return run(fileSec, new MetsValidatorState());
+  }
+
+  /**
+   * Walks the METS file section checking every registered rule, reading the
+   * files left out of the METS (see
+   * {@link MetsValidatorState#openFiles(org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType)})
+   * one at a time.
+   *
+   * @param fileSec
+   *          the mets/fileSec.
+   * @param metsValidatorState
+   *          the {@link MetsValidatorState} of the METS.
+   * @return {@link Map} with the result of each requirement, in registration
+   *         order.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public Map<String, ReporterDetails> run(final MetsType.FileSec fileSec,
+    final MetsValidatorState metsValidatorState) throws IOException {
+    final ValidationCounters counters = ValidationCounters.current();
+    for (MetsType.FileSec.FileGrp fileGrp : fileSec.getFileGrp()) {
+      for (Registration<MetsType.FileSec, MetsType.FileSec.FileGrp> registration : fileGrpRules) {
+        registration.check(fileSec, fileGrp, counters);
+      }
+      if (!fileRules.isEmpty()) {
+        try (METSStreamReader.FileCursor files = metsValidatorState.openFiles(fileGrp)) {
+          for (FileType file = files.next(); file != null; file = files.next()) {
+            for (Registration<MetsType.FileSec.FileGrp, FileType> registration : fileRules) {
+              registration.check(fileGrp, file, counters);
+            }
+          }
+        }
+      }
+    }
+
+    // prerequisites are registered, and so get their result, before their dependents
+    final Map<String, ReporterDetails> results = new LinkedHashMap<>();
+    for (Registration<?, ?> registration : registrations) {
+      results.put(registration.requirementId, registration.result(counters));
+    }
+    return results;
+  }
+
+  /**
+   * Gets the measures of each rule in the last {@link #run(MetsType.FileSec)}:
+   * the time spent and the work done checking its elements, and the number of
+   * elements it was given.
+   *
+   * @return the {@link List} of {@link StepMetrics}, in registration order.
+   */
+  public List<StepMetrics> getMetrics() {
+    final List<StepMetrics> metrics = new ArrayList<>();
+    for (Registration<?, ?> registration : registrations) {
+      metrics.add(registration.metrics());
+    }
+    return metrics;
+  }
+
+  /**
+   * A rule registered for a requirement, with its state.
+   */
+  private static final class Registration<P, E> {
+    private final String requirementId;
+    private final String specification;
+    private final MetsRule<P, E> rule;
+    private Registration<?, ?> prerequisite;
+    private ReporterDetails skipped;
+    private ReporterDetails failure;
+    private ReporterDetails result;
+    private long nanos;
+    private long bytesHashed;
+    private long entriesScanned;
+    private long elements;
+
+    private Registration(final String requirementId, final String specification, final MetsRule<P, E> rule) {
+      this.requirementId = requirementId;
+      this.specification = specification;
+      this.rule = rule;
+    }
+
+    private boolean isFailed() {
+      return failure != null || prerequisite != null && prerequisite.isFailed();
+    }
+
+    private void check(final P parent, final E element, final ValidationCounters counters) throws IOException {
+      if (!isFailed()) {
+        final long startBytesHashed = counters.getBytesHashed();
+        final long startEntriesScanned = counters.getEntriesScanned();
+        final long start = System.nanoTime();
+        failure = rule.check(parent, element);
+        nanos += System.nanoTime() - start;
+        bytesHashed += counters.getBytesHashed() - startBytesHashed;
+        entriesScanned += counters.getEntriesScanned() - startEntriesScanned;
+        elements++;
+      }
+    }
+
+    private ReporterDetails result(final ValidationCounters counters) throws IOException {
+      if (prerequisite != null && (!prerequisite.result.isValid() || prerequisite.result.isSkipped())) {
+        result = skipped;
+        return result;
+      }
+      if (failure != null) {
+        result = failure;
+      } else {
+        final long startBytesHashed = counters.getBytesHashed();
+        final long startEntriesScanned = counters.getEntriesScanned();
+        final long start = System.nanoTime();
+        result = rule.finish();
+        nanos += System.nanoTime() - start;
+        bytesHashed += counters.getBytesHashed() - startBytesHashed;
+        entriesScanned += counters.getEntriesScanned() - startEntriesScanned;
+      }
+      return result.setSpecification(specification);
+    }
+
+    private StepMetrics metrics() {
+      return new StepMetrics(requirementId, nanos, bytesHashed, entriesScanned, elements);
+    }
+  }
+}
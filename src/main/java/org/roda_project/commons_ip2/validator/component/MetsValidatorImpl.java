@@ -3,6 +3,8 @@ package org.roda_project.commons_ip2.validator.component;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.roda_project.commons_ip2.validator.observer.StepMetrics;
+import org.roda_project.commons_ip2.validator.observer.StepRecorder;
 import org.roda_project.commons_ip2.validator.observer.ValidationObserver;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
@@ -12,6 +14,10 @@ public abstract class MetsValidatorImpl implements MetsValidator {
    * {@link List} of {@link ValidationObserver}.
    */
   private List<ValidationObserver> observers = new ArrayList<>();
+  /**
+   * {@link StepRecorder} of the requirements.
+   */
+  private final StepRecorder stepRecorder = new StepRecorder();
 
   @Override
   public void addObserver(final ValidationObserver observer) {
@@ -24,15 +30,53 @@ public abstract class MetsValidatorImpl implements MetsValidator {
   }
 
   protected void notifyObserversValidationStarted(final String moduleName, final String id) {
+    notifyObserversStepFinished(stepRecorder.finish());
     for (ValidationObserver observer : observers) {
       observer.notifyStartValidationModule(moduleName, id);
       observer.notifyStartStep(id);
     }
+    stepRecorder.start(id);
   }
 
   protected void notifyObserversFinishModule(final String moduleName) {
+    notifyObserversStepFinished(stepRecorder.finish());
     for (ValidationObserver observer : observers) {
       observer.notifyFinishModule(moduleName);
     }
   }
+
+  /**
+   * Notify observers that requirements checked together (e.g. by a
+   * {@link MetsRuleEngine}) started. They are not measured here: the caller
+   * notifies their measures (see {@link #notifyObserversStepFinished(StepMetrics)}).
+   *
+   * @param moduleName
+   *          the module name.
+   * @param ids
+   *          the requirement identifiers.
+   */
+  protected void notifyObserversStepsStarted(final String moduleName, final List<String> ids) {
+    notifyObserversStepFinished(stepRecorder.finish());
+    for (String id : ids) {
+      for (ValidationObserver observer : observers) {
+        observer.notifyStartValidationModule(moduleName, id);
+        observer.notifyStartStep(id);
+      }
+    }
+  }
+
+  /**
+   * Notify observers that a requirement finished, with its measures.
+   *
+   * @param metrics
+   *          the {@link StepMetrics} ({@code null} if no requirement finished).
+   */
+  protected void notifyObserversStepFinished(final StepMetrics metrics) {
+    if (metrics != null) {
+      for (ValidationObserver observer : observers) {
+        observer.notifyFinishStep(metrics.getId());
+        observer.notifyStepMetrics(metrics);
+      }
+    }
+  }
 }
@@ -3,6 +3,8 @@ package org.roda_project.commons_ip2.validator.component;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.roda_project.commons_ip2.validator.observer.StepMetrics;
+import org.roda_project.commons_ip2.validator.observer.StepRecorder;
 import org.roda_project.commons_ip2.validator.observer.ValidationObserver;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
@@ -11,6 +13,10 @@ public abstract class StructureValidatorImpl implements StructureValidator {
    * {@link List} of {@link ValidationObserver}.
    */
   private List<ValidationObserver> observers = new ArrayList<>();
+  /**
+   * {@link StepRecorder} of the requirements.
+   */
+  private final StepRecorder stepRecorder = new StepRecorder();
 
   @Override
   public void addObserver(final ValidationObserver observer) {
@@ -58,15 +64,33 @@ public abstract class StructureValidatorImpl implements StructureValidator {
   }
 
   protected void notifyObserversValidationStarted(final String moduleName, final String id) {
+    notifyObserversStepFinished(stepRecorder.finish());
     for (ValidationObserver observer : observers) {
       observer.notifyStartValidationModule(moduleName, id);
       observer.notifyStartStep(id);
     }
+    stepRecorder.start(id);
   }
 
   protected void notifyObserversFinishModule(final String moduleName) {
+    notifyObserversStepFinished(stepRecorder.finish());
     for (ValidationObserver observer : observers) {
       observer.notifyFinishModule(moduleName);
     }
   }
+
+  /**
+   * Notify observers that a requirement finished, with its measures.
+   *
+   * @param metrics
+   *          the {@link StepMetrics} ({@code null} if no requirement finished).
+   */
+  protected void notifyObserversStepFinished(final StepMetrics metrics) {
+    if (metrics != null) {
+      for (ValidationObserver observer : observers) {
+        observer.notifyFinishStep(metrics.getId());
+        observer.notifyStepMetrics(metrics);
+      }
+    }
+  }
 }
@@ -787,7 +787,7 @@ public class AdministritiveMetadataComponentValidator extends MetsValidatorImpl
         final MdSecType.MdRef mdRef = digiprov.getMdRef();
         final String mimeType = mdRef.getMIMETYPE();
         if (mimeType != null) {
-          if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimeType)) {
+          if (!IanaMediaTypes.isRegistered(mimeType)) {
             final StringBuilder message = new StringBuilder();
             message.append("Value ").append(mimeType)
               .append(" in %1$s for mets/amdSec/digiprovMD/mdRef/@MIMETYPE isn't valid");
@@ -1324,7 +1324,7 @@ public class AdministritiveMetadataComponentValidator extends MetsValidatorImpl
                   metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
                 false, false);
             } else {
-              if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimeType)) {
+              if (!IanaMediaTypes.isRegistered(mimeType)) {
                 final StringBuilder message = new StringBuilder();
                 message.append("Value ").append(mimeType)
                   .append(" in %1$s for mets/amdSec/rightsMD/mdRef/@MIMETYPE value isn't valid");
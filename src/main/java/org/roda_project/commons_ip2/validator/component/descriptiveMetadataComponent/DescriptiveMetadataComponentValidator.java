@@ -639,7 +639,7 @@ public class DescriptiveMetadataComponentValidator extends MetsValidatorImpl {
       final MdSecType.MdRef mdRef = mdSecType.getMdRef();
       final String mimetype = mdRef.getMIMETYPE();
       if (mimetype != null) {
-        if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimetype)) {
+        if (!IanaMediaTypes.isRegistered(mimetype)) {
           final StringBuilder message = new StringBuilder();
           message.append("Value ").append(mimetype)
             .append(" in %1$s for mets/dmdSec/mdRef/@MIMETYPE value isn't valid");
@@ -4,24 +4,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLDecoder;
 import java.nio.file.Paths;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
-import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
 import org.roda_project.commons_ip2.utils.IanaMediaTypes;
 import org.roda_project.commons_ip2.validator.common.ControlledVocabularyParser;
 import org.roda_project.commons_ip2.validator.common.MetsParser;
+import org.roda_project.commons_ip2.validator.component.MetsRule;
+import org.roda_project.commons_ip2.validator.component.MetsRuleEngine;
 import org.roda_project.commons_ip2.validator.component.MetsValidatorImpl;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.constants.ConstantsCSIPspec;
@@ -35,7 +37,14 @@ import org.roda_project.commons_ip2.validator.utils.Message;
 import org.roda_project.commons_ip2.validator.utils.ResultsUtils;
 import org.xml.sax.SAXException;
 
-/** {@author João Gomes <jgomes@keep.pt>}. */
+/**
+ * Validates the METS file section. The requirements on file groups and files
+ * are {@link MetsRule}s checked by a {@link MetsRuleEngine} in a single walk of
+ * the file section, the requirements that depend on CSIP66 and CSIP76 gated on
+ * them (see {@link MetsRuleEngine#requires(String, ReporterDetails)}).
+ *
+ * {@author João Gomes <jgomes@keep.pt>}.
+ */
 public class FileSectionComponentValidator extends MetsValidatorImpl {
   /**
    * Constant "UTF-8".
@@ -47,6 +56,12 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
   public static final String HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS = "https://"
     + "dilcis.eu/XML/METS/CSIPExtensionMETS";
 
+  private static final QName KEY_ADMID = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS, "ADMID", "csip");
+  private static final QName KEY_CONTENT_INFORMATION_TYPE = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS,
+    "CONTENTINFORMATIONTYPE", "csip");
+  private static final QName KEY_OTHER_CONTENT_INFORMATION_TYPE = new QName(
+    HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS, "OTHERCONTENTINFORMATIONTYPE", "csip");
+
   /**
    * {@link String} module name.
    */
@@ -55,6 +70,10 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * {@link List} of content information type.
    */
   private List<String> contentInformationType;
+  /**
+   * {@link List} of checksum types.
+   */
+  private final List<String> checksumTypes;
 
   /**
    * Initializes Validation component.
@@ -70,12 +89,15 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     moduleName = Constants.CSIP_MODULE_NAME_5;
     this.contentInformationType = ControlledVocabularyParser
       .parse(Constants.PATH_RESOURCES_CSIP_VOCABULARY_CONTENT_INFORMATION_TYPE);
+    this.checksumTypes = new ArrayList<>();
+    for (CHECKSUMTYPE check : CHECKSUMTYPE.values()) {
+      checksumTypes.add(check.toString());
+    }
   }
 
   @Override
   public Map<String, ReporterDetails> validate(final StructureValidatorState structureValidatorState,
     final MetsValidatorState metsValidatorState) throws IOException {
-    ReporterDetails csip;
     final Map<String, ReporterDetails> results = new HashMap<>();
     /* CSIP58 */
     notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID);
@@ -83,180 +105,87 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
       validateCSIP58(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
     if (ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID)) {
+      final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
 
       /* CSIP59 */
       notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP59_ID);
       ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP59_ID,
         validateCSIP59(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
-      /* CSIP60 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP60_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP60_ID,
-        validateCSIP60(structureValidatorState, metsValidatorState)
-          .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP113 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP113_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP113_ID,
-        validateCSIP113(structureValidatorState, metsValidatorState)
-          .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP114 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP114_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP114_ID,
-        validateCSIP114(structureValidatorState, metsValidatorState)
-          .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP61 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP61_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP61_ID,
-        validateCSIP61(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP62 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP62_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP62_ID,
-        validateCSIP62(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP63 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP63_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP63_ID,
-        validateCSIP63(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP64 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP64_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP64_ID,
-        validateCSIP64(structureValidatorState, metsValidatorState)
-          .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP65 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP65_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP65_ID,
-        validateCSIP65(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      /* CSIP66 */
-      notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID);
-      ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID,
-        validateCSIP66(structureValidatorState, metsValidatorState)
-          .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-      if (ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID)) {
-
-        /* CSIP67 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID,
-          validateCSIP67(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-        /* CSIP68 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID,
-          validateCSIP68(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-        /* CSIP69 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP69_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP69_ID,
-          validateCSIP69(structureValidatorState, metsValidatorState)
-            .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-        /* CSIP70 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID,
-          validateCSIP70(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
-
-        /* CSIP71 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP71_ID);
-        try {
-          csip = validateCSIP71(structureValidatorState, metsValidatorState)
-            .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION);
-        } catch (final Exception e) {
-          csip = new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("Can't calculate checksum of file %1$s", metsValidatorState.getMetsName(),
-              metsValidatorState.isRootMets()),
-            false, false);
-        }
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP71_ID, csip);
-
-        /* CSIP72 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID,
-          validateCSIP72(metsValidatorState)
-            .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        /* CSIP73 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID,
-          validateCSIP73(metsValidatorState)
-            .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        /* CSIP74 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP74_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP74_ID,
-          validateCSIP74(metsValidatorState)
-            .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        /* CSIP75 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP75_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP75_ID,
-          validateCSIP75(metsValidatorState)
-            .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        /* CSIP76 */
-        notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID);
-        ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID,
-          validateCSIP76(metsValidatorState)
-            .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        if (ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID)) {
-
-          /* CSIP77 */
-          notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID);
-          ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID,
-            validateCSIP77(metsValidatorState)
-              .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-          /* CSIP78 */
-          notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP78_ID);
-          ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP78_ID,
-            validateCSIP78(structureValidatorState, metsValidatorState)
-              .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-          /* CSIP79 */
-          notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP79_ID);
-          ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP79_ID,
-            validateCSIP79(structureValidatorState, metsValidatorState)
-              .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
-
-        } else {
-          final String message = Message.createErrorMessage(
-            "SKIPPED in %1$s because mets/fileSec/fileGrp/file/FLocat doesn't exist", metsValidatorState.getMetsName(),
-            metsValidatorState.isRootMets());
-
-          ResultsUtils.addResults(results,
-            new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, message, true, true),
-            ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID,
-            ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP78_ID,
-            ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP79_ID);
-        }
-
-      } else {
-        final String message = Message.createErrorMessage(
-          "SKIPPED in %1$s because mets/fileSec/fileGrp/file/ doesn't exist", metsValidatorState.getMetsName(),
-          metsValidatorState.isRootMets());
-
-        ResultsUtils.addResults(results,
-          new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, message, true, true),
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP69_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP71_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP74_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP75_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP78_ID,
-          ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP79_ID,
+      /* CSIP60, CSIP113, CSIP114, CSIP61 to CSIP66 */
+      final String csipVersion = Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION;
+      final String csip72 = ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID;
+      final ReporterDetails skippedWithoutFiles = new ReporterDetails(csipVersion,
+        Message.createErrorMessage("SKIPPED in %1$s because mets/fileSec/fileGrp/file/ doesn't exist",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        true, true);
+      final ReporterDetails skippedWithoutFLocat = new ReporterDetails(csipVersion,
+        Message.createErrorMessage("SKIPPED in %1$s because mets/fileSec/fileGrp/file/FLocat doesn't exist",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        true, true);
+      run(results, fileSec, new MetsRuleEngine()
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP60_ID, csipVersion,
+          (grp, file) -> validateCSIP60(structureValidatorState, metsValidatorState, grp, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP113_ID, csipVersion,
+          (grp, file) -> validateCSIP113(structureValidatorState, metsValidatorState, grp, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP114_ID, csipVersion,
+          (grp, file) -> validateCSIP114(structureValidatorState, metsValidatorState, grp, file))
+        .onFileGrp(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP61_ID, csipVersion,
+          (sec, grp) -> validateCSIP61(metsValidatorState, grp))
+        .onFileGrp(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP62_ID, csipVersion,
+          (sec, grp) -> validateCSIP62(metsValidatorState, grp))
+        .onFileGrp(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP63_ID, csipVersion,
+          (sec, grp) -> validateCSIP63(metsValidatorState, grp))
+        .onFileGrp(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP64_ID, csipVersion,
+          (sec, grp) -> validateCSIP64(structureValidatorState, metsValidatorState, grp))
+        .onFileGrp(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP65_ID, csipVersion,
+          (sec, grp) -> validateCSIP65(metsValidatorState, grp))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID, csipVersion,
+          validateCSIP66(structureValidatorState, metsValidatorState))
+
+        /* CSIP67 to CSIP76, only if CSIP66 is met */
+        .requires(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID, skippedWithoutFiles)
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID, csipVersion,
+          (grp, file) -> validateCSIP67(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID, csipVersion,
+          (grp, file) -> validateCSIP68(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP69_ID, csipVersion,
+          (grp, file) -> validateCSIP69(structureValidatorState, metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID, csipVersion,
+          (grp, file) -> validateCSIP70(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP71_ID, csipVersion, (grp, file) -> {
+          try {
+            return validateCSIP71(structureValidatorState, metsValidatorState, file);
+          } catch (final Exception e) {
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+              Message.createErrorMessage("Can't calculate checksum of file %1$s", metsValidatorState.getMetsName(),
+                metsValidatorState.isRootMets()),
+              false, false);
+          }
+        })
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID, csip72,
+          (grp, file) -> validateCSIP72(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID, csip72,
+          (grp, file) -> validateCSIP73(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP74_ID, csip72,
+          validateCSIP74(metsValidatorState))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP75_ID, csip72,
+          (grp, file) -> validateCSIP75(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID, csip72,
+          (grp, file) -> validateCSIP76(metsValidatorState, file))
+
+        /* CSIP77 to CSIP79, only if CSIP76 is met */
+        .requires(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID, skippedWithoutFLocat)
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID, csip72,
+          (grp, file) -> validateCSIP77(metsValidatorState, file))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP78_ID, csip72,
+          validateCSIP78(structureValidatorState, metsValidatorState))
+        .onFile(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP79_ID, csip72,
+          (grp, file) -> validateCSIP79(structureValidatorState, metsValidatorState, file)),
+        metsValidatorState);
+
+      if (!ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID)) {
+        ResultsUtils.addResults(results, skippedWithoutFiles,
           ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP32_ID,
           ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP33_ID,
           ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP34_ID,
@@ -296,6 +225,19 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     return results;
   }
 
+  /**
+   * Notifies the start of the requirements of a {@link MetsRuleEngine}, runs it
+   * (reading the data files left out of the METS one at a time) and adds its
+   * results.
+   */
+  private void run(final Map<String, ReporterDetails> results, final MetsType.FileSec fileSec,
+    final MetsRuleEngine engine, final MetsValidatorState metsValidatorState) throws IOException {
+    notifyObserversStepsStarted(moduleName, engine.getRequirementIds());
+    engine.run(fileSec, metsValidatorState)
+      .forEach((requirementId, details) -> ResultsUtils.addResult(results, requirementId, details));
+    engine.getMetrics().forEach(this::notifyObserversStepFinished);
+  }
+
   /*
    * mets/fileSec The transferred content is placed in the file section in
    * different file group elements, described in other requirements. Only a single
@@ -348,55 +290,13 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * group names
    */
   private ReporterDetails validateCSIP60(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    final StringBuilder message = new StringBuilder();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Documentation")) {
-        final List<FileType> files = fileGrp.getFile();
-        if (files != null && !files.isEmpty()) {
-          for (FileType file : files) {
-            final List<FileType.FLocat> fLocats = file.getFLocat();
-            if (structureValidatorState.isZipFileFlag()) {
-              for (FileType.FLocat flocat : fLocats) {
-                final String href = URLDecoder.decode(flocat.getHref(), UTF_8);
-                final StringBuilder filePath = new StringBuilder();
-                if (metsValidatorState.isRootMets()) {
-                  filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
-                } else {
-                  filePath.append(metsValidatorState.getMetsPath()).append(href);
-                }
-                if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
-                  filePath.toString())) {
-                  message.append("mets/fileSec/fileGrp[@USE=’Documentation’] ").append(filePath)
-                    .append(" doesn't exists (%1$s)");
-                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                      metsValidatorState.isRootMets()),
-                    false, false);
-                }
-              }
-            } else {
-              for (FileType.FLocat flocat : fLocats) {
-                final String filePath = URLDecoder.decode(flocat.getHref(), UTF_8);
-                if (!structureValidatorState.getFolderManager()
-                  .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))) {
-                  message.append("mets/fileSec/fileGrp[@USE=’Documentation’] ")
-                    .append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))
-                    .append(" doesn't exists (in %1$s)");
-                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                      metsValidatorState.isRootMets()),
-                    false, false);
-                }
-              }
-            }
-          }
-        }
-      }
+    final MetsValidatorState metsValidatorState, final MetsType.FileSec.FileGrp fileGrp, final FileType file)
+    throws IOException {
+    if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Documentation")) {
+      return validateFLocatsExist(structureValidatorState, metsValidatorState, file,
+        "mets/fileSec/fileGrp[@USE=’Documentation’] ", " doesn't exists (in %1$s)");
     }
-
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -406,48 +306,13 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * names
    */
   private ReporterDetails validateCSIP113(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    final StringBuilder message = new StringBuilder();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Schemas")) {
-        final List<FileType> files = fileGrp.getFile();
-        for (FileType file : files) {
-          final List<FileType.FLocat> fLocats = file.getFLocat();
-          if (structureValidatorState.isZipFileFlag()) {
-            for (FileType.FLocat flocat : fLocats) {
-              final String href = URLDecoder.decode(flocat.getHref(), UTF_8);
-              final StringBuilder filePath = new StringBuilder();
-              if (metsValidatorState.isRootMets()) {
-                filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
-              } else {
-                filePath.append(metsValidatorState.getMetsPath()).append(href);
-              }
-              if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
-                filePath.toString())) {
-                message.append("mets/fileSec/fileGrp[@USE=’Schemas’] ").append(filePath)
-                  .append(" doesn't exists (%1$s)");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            }
-          } else {
-            for (FileType.FLocat flocat : fLocats) {
-              final String filePath = URLDecoder.decode(flocat.getHref(), UTF_8);
-              if (!structureValidatorState.getFolderManager()
-                .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))) {
-                message.append("mets/fileSec/fileGrp[@USE=’Schemas’] ")
-                  .append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))
-                  .append(" doesn't exists (%1$s)");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            }
-          }
-        }
-      }
+    final MetsValidatorState metsValidatorState, final MetsType.FileSec.FileGrp fileGrp, final FileType file)
+    throws IOException {
+    if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Schemas")) {
+      return validateFLocatsExist(structureValidatorState, metsValidatorState, file,
+        "mets/fileSec/fileGrp[@USE=’Schemas’] ", " doesn't exists (%1$s)");
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -457,48 +322,53 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * attribute value “Representations”.See also: File group names
    */
   private ReporterDetails validateCSIP114(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
+    final MetsValidatorState metsValidatorState, final MetsType.FileSec.FileGrp fileGrp, final FileType file)
+    throws IOException {
+    if (fileGrp.getUSE() != null && fileGrp.getUSE().matches("Representations/")) {
+      return validateFLocatsExist(structureValidatorState, metsValidatorState, file,
+        "mets/fileSec/fileGrp[@USE=’Representations’] ", " doesn't exists (%1$s)");
+    }
+    return null;
+  }
+
+  /**
+   * Checks that the files referenced by the FLocats of a file exist (CSIP60,
+   * CSIP113 and CSIP114).
+   */
+  private ReporterDetails validateFLocatsExist(final StructureValidatorState structureValidatorState,
+    final MetsValidatorState metsValidatorState, final FileType file, final String prefix,
+    final String folderSuffix) throws IOException {
+    final List<FileType.FLocat> fLocats = file.getFLocat();
     final StringBuilder message = new StringBuilder();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      if (fileGrp.getUSE() != null && fileGrp.getUSE().matches("Representations/")) {
-        final List<FileType> files = fileGrp.getFile();
-        for (FileType file : files) {
-          final List<FileType.FLocat> fLocats = file.getFLocat();
-          if (structureValidatorState.isZipFileFlag()) {
-            for (FileType.FLocat flocat : fLocats) {
-              final String href = URLDecoder.decode(flocat.getHref(), UTF_8);
-              final StringBuilder filePath = new StringBuilder();
-              if (metsValidatorState.isRootMets()) {
-                filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
-              } else {
-                filePath.append(metsValidatorState.getMetsPath()).append(href);
-              }
-              if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
-                filePath.toString())) {
-                message.append("mets/fileSec/fileGrp[@USE=’Representations’] ").append(filePath)
-                  .append(" doesn't exists (%1$s)");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            }
-          } else {
-            for (FileType.FLocat flocat : fLocats) {
-              final String filePath = URLDecoder.decode(flocat.getHref(), UTF_8);
-              if (!structureValidatorState.getFolderManager()
-                .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))) {
-                message.append("mets/fileSec/fileGrp[@USE=’Representations’] ")
-                  .append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))
-                  .append(" doesn't exists (%1$s)");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            }
-          }
+    if (structureValidatorState.isZipFileFlag()) {
+      for (FileType.FLocat flocat : fLocats) {
+        final String href = URLDecoder.decode(flocat.getHref(), UTF_8);
+        final StringBuilder filePath = new StringBuilder();
+        if (metsValidatorState.isRootMets()) {
+          filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
+        } else {
+          filePath.append(metsValidatorState.getMetsPath()).append(href);
+        }
+        if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
+          filePath.toString())) {
+          message.append(prefix).append(filePath).append(" doesn't exists (%1$s)");
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+        }
+      }
+    } else {
+      for (FileType.FLocat flocat : fLocats) {
+        final String filePath = URLDecoder.decode(flocat.getHref(), UTF_8);
+        if (!structureValidatorState.getFolderManager()
+          .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))) {
+          message.append(prefix).append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath))
+            .append(folderSuffix);
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
         }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /**
@@ -511,36 +381,33 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    *
    * @return reporter detail results
    */
-  private ReporterDetails validateCSIP61(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
+  private ReporterDetails validateCSIP61(final MetsValidatorState metsValidatorState,
+    final MetsType.FileSec.FileGrp fileGrp) {
     final List<AmdSecType> amdSec = metsValidatorState.getMets().getAmdSec();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      final QName keyAdmid = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS, "ADMID", "csip");
-      final String admid = fileGrp.getOtherAttributes().get(keyAdmid);
-      if (admid != null) {
-        boolean found = false;
-        for (AmdSecType a : amdSec) {
-          final List<MdSecType> digiProv = a.getDigiprovMD();
-          for (MdSecType mdSecType : digiProv) {
-            if (admid.equals(mdSecType.getID())) {
-              found = true;
-              break;
-            }
-          }
-          if (found) {
+    final String admid = fileGrp.getOtherAttributes().get(KEY_ADMID);
+    if (admid != null) {
+      boolean found = false;
+      for (AmdSecType a : amdSec) {
+        final List<MdSecType> digiProv = a.getDigiprovMD();
+        for (MdSecType mdSecType : digiProv) {
+          if (admid.equals(mdSecType.getID())) {
+            found = true;
             break;
           }
         }
-        if (!found) {
-          final StringBuilder message = new StringBuilder();
-          message.append("Value ").append(admid).append(
-            " in %1$s for mets/fileSec/fileGrp/file/@ADMID " + "doesn't match with any mets/amdSec/digiprovMD/@ID");
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+        if (found) {
+          break;
         }
       }
+      if (!found) {
+        final StringBuilder message = new StringBuilder();
+        message.append("Value ").append(admid).append(
+          " in %1$s for mets/fileSec/fileGrp/file/@ADMID " + "doesn't match with any mets/amdSec/digiprovMD/@ID");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+      }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -555,31 +422,27 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * specification used for the file group.See also: Content information type
    * specification
    */
-  private ReporterDetails validateCSIP62(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      if (fileGrp.getUSE() != null && fileGrp.getUSE().matches("Representations/")) {
-        final QName keyContentInformationType = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS,
-          "CONTENTINFORMATIONTYPE", "csip");
-        final String cType = fileGrp.getOtherAttributes().get(keyContentInformationType);
-        if (cType != null) {
-          if (!contentInformationType.contains(cType)) {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(cType).append(" in %1$s for mets/fileSec/fileGrp[@USE=’Representations’]"
-              + "/@csip:CONTENTINFORMATIONTYPE value isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        } else {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage(
-              "mets/fileSec/fileGrp[@USE=’Representations’]" + "/@csip:CONTENTINFORMATIONTYPE in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
+  private ReporterDetails validateCSIP62(final MetsValidatorState metsValidatorState,
+    final MetsType.FileSec.FileGrp fileGrp) {
+    if (fileGrp.getUSE() != null && fileGrp.getUSE().matches("Representations/")) {
+      final String cType = fileGrp.getOtherAttributes().get(KEY_CONTENT_INFORMATION_TYPE);
+      if (cType != null) {
+        if (!contentInformationType.contains(cType)) {
+          final StringBuilder message = new StringBuilder();
+          message.append("Value ").append(cType).append(" in %1$s for mets/fileSec/fileGrp[@USE=’Representations’]"
+            + "/@csip:CONTENTINFORMATIONTYPE value isn't valid");
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
         }
+      } else {
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+          Message.createErrorMessage(
+            "mets/fileSec/fileGrp[@USE=’Representations’]" + "/@csip:CONTENTINFORMATIONTYPE in %1$s can't be null",
+            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+          false, false);
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -589,27 +452,21 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * “OTHER” the mets/fileSec/fileGrp/@csip:OTHERCONTENTINFORMATIONTYPE must state
    * a value for the Content Information Type Specification used.
    */
-  private ReporterDetails validateCSIP63(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      final QName keyContentInformationType = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS,
-        "CONTENTINFORMATIONTYPE", "csip");
-      final String contentInformationType = fileGrp.getOtherAttributes().get(keyContentInformationType);
-      if (contentInformationType != null && contentInformationType.equals("OTHER")) {
-        final QName keyOtherContentInformationType = new QName(HTTPS_DILCIS_EU_XML_METS_CSIPEXTENSION_METS,
-          "OTHERCONTENTINFORMATIONTYPE", "csip");
-        final String otherContentInformationType = fileGrp.getOtherAttributes().get(keyOtherContentInformationType);
-        if (otherContentInformationType == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage(
-              "In %1$s mets/fileSec/fileGrp/@csip:CONTENTINFORMATIONTYPE " + "have the value OTHER mets/fileSec"
-                + "/fileGrp[@csip:CONTENTINFORMATIONTYPE='OTHER']" + "/@csip:OTHERCONTENTINFORMATIONTYPE can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
+  private ReporterDetails validateCSIP63(final MetsValidatorState metsValidatorState,
+    final MetsType.FileSec.FileGrp fileGrp) {
+    final String cType = fileGrp.getOtherAttributes().get(KEY_CONTENT_INFORMATION_TYPE);
+    if (cType != null && cType.equals("OTHER")) {
+      final String otherContentInformationType = fileGrp.getOtherAttributes().get(KEY_OTHER_CONTENT_INFORMATION_TYPE);
+      if (otherContentInformationType == null) {
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+          Message.createErrorMessage(
+            "In %1$s mets/fileSec/fileGrp/@csip:CONTENTINFORMATIONTYPE " + "have the value OTHER mets/fileSec"
+              + "/fileGrp[@csip:CONTENTINFORMATIONTYPE='OTHER']" + "/@csip:OTHERCONTENTINFORMATIONTYPE can't be null",
+            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+          false, false);
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -619,378 +476,317 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * Falta perguntar o use: Data
    */
   private ReporterDetails validateCSIP64(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    final List<String> tmp = new ArrayList<>();
-    tmp.add("Schemas");
-    tmp.add("Documentation");
-    tmp.add("Representations");
+    final MetsValidatorState metsValidatorState, final MetsType.FileSec.FileGrp fileGrp) throws IOException {
     final StringBuilder message = new StringBuilder();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      final String use = fileGrp.getUSE();
-      if (use != null) {
-        if (!tmp.contains(use)) {
-          if (fileGrp.getFile().isEmpty()) {
-            if (structureValidatorState.isZipFileFlag()) {
-              final String expr;
-              if (metsValidatorState.isRootMets()) {
-                expr = metsValidatorState.getMets().getOBJID() + Constants.SEPARATOR + use.toLowerCase();
-              } else {
-                expr = metsValidatorState.getMetsPath() + use.toLowerCase();
-              }
-              if (!structureValidatorState.getZipManager().checkPathIsDirectory(structureValidatorState.getIpPath(),
-                expr)) {
-                message.append("Value ").append(use)
-                  .append(" in %1$s for mets/fileSec/fileGrp/@USE " + "doesn't match with any directory in sip(")
-                  .append(expr).append(")");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            } else {
-              if (!structureValidatorState.getFolderManager()
-                .checkDirectory(Paths.get(metsValidatorState.getMetsPath()).resolve(use.toLowerCase()))) {
-                message.append("Value ").append(use)
-                  .append(" in %1$s for mets/fileSec/fileGrp/@USE " + "doesn't match with any directory in sip(")
-                  .append(Paths.get(metsValidatorState.getMetsPath()).resolve(use.toLowerCase())).append(")");
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-              }
-            }
+    final String use = fileGrp.getUSE();
+    if (use != null) {
+      if (!use.equals("Schemas") && !use.equals("Documentation") && !use.equals("Representations")
+        && !metsValidatorState.hasFiles(fileGrp)) {
+        if (structureValidatorState.isZipFileFlag()) {
+          final String expr;
+          if (metsValidatorState.isRootMets()) {
+            expr = metsValidatorState.getMets().getOBJID() + Constants.SEPARATOR + use.toLowerCase();
+          } else {
+            expr = metsValidatorState.getMetsPath() + use.toLowerCase();
+          }
+          if (!structureValidatorState.getZipManager().checkPathIsDirectory(structureValidatorState.getIpPath(),
+            expr)) {
+            message.append("Value ").append(use)
+              .append(" in %1$s for mets/fileSec/fileGrp/@USE " + "doesn't match with any directory in sip(")
+              .append(expr).append(")");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+          }
+        } else {
+          if (!structureValidatorState.getFolderManager()
+            .checkDirectory(Paths.get(metsValidatorState.getMetsPath()).resolve(use.toLowerCase()))) {
+            message.append("Value ").append(use)
+              .append(" in %1$s for mets/fileSec/fileGrp/@USE " + "doesn't match with any directory in sip(")
+              .append(Paths.get(metsValidatorState.getMetsPath()).resolve(use.toLowerCase())).append(")");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
-      } else {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-          Message.createErrorMessage("mets/fileSec/fileGrp/@USE in %1$s can't be null",
-            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-          false, false);
       }
+    } else {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/@USE in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/@ID An xml:id identifier for the file group used for
    * internal package references. It must be unique within the package.
    */
-  private ReporterDetails validateCSIP65(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final String id = grp.getID();
-      if (id != null) {
-        if (!metsValidatorState.checkMetsInternalId(id)) {
-          metsValidatorState.addMetsInternalId(id);
-        } else {
-          final StringBuilder message = new StringBuilder();
-          message.append("Value ").append(id)
-            .append(" in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-        }
+  private ReporterDetails validateCSIP65(final MetsValidatorState metsValidatorState,
+    final MetsType.FileSec.FileGrp fileGrp) {
+    final String id = fileGrp.getID();
+    if (id != null) {
+      if (!metsValidatorState.checkMetsInternalId(id)) {
+        metsValidatorState.addMetsInternalId(id);
       } else {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-          Message.createErrorMessage("mets/fileSec/fileGrp/@ID in %1$s can't be null", metsValidatorState.getMetsName(),
-            metsValidatorState.isRootMets()),
-          false, false);
+        final StringBuilder message = new StringBuilder();
+        message.append("Value ").append(id).append(" in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
       }
+    } else {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/@ID in %1$s can't be null", metsValidatorState.getMetsName(),
+          metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file The file group ( <fileGrp> ) contains the file
    * elements which describe the file objects.
    */
-  private ReporterDetails validateCSIP66(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> fileTypes = grp.getFile();
-      if (!fileTypes.isEmpty()) {
-        for (FileType file : fileTypes) {
-          final List<FileType.FLocat> fLocats = file.getFLocat();
-          if (!fLocats.isEmpty()) {
-            for (FileType.FLocat fLocat : fLocats) {
-              final String hrefDecoded = URLDecoder.decode(fLocat.getHref(), UTF_8);
-              final StringBuilder filePath = new StringBuilder();
-              if (structureValidatorState.isZipFileFlag()) {
-                if (metsValidatorState.isRootMets()) {
-                  filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(hrefDecoded);
-                } else {
-                  filePath.append(metsValidatorState.getMetsPath()).append(hrefDecoded);
-                }
-              } else {
-                filePath.append(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded));
-              }
-              if (metsValidatorState.getMetsFiles().containsKey(filePath.toString())) {
-                metsValidatorState.getMetsFiles().replace(filePath.toString(), true);
-              }
+  private MetsRule<MetsType.FileSec.FileGrp, FileType> validateCSIP66(
+    final StructureValidatorState structureValidatorState, final MetsValidatorState metsValidatorState) {
+    return new MetsRule<MetsType.FileSec.FileGrp, FileType>() {
+      @Override
+      public ReporterDetails check(final MetsType.FileSec.FileGrp fileGrp, final FileType file) throws IOException {
+        for (FileType.FLocat fLocat : file.getFLocat()) {
+          final String hrefDecoded = URLDecoder.decode(fLocat.getHref(), UTF_8);
+          final StringBuilder filePath = new StringBuilder();
+          if (structureValidatorState.isZipFileFlag()) {
+            if (metsValidatorState.isRootMets()) {
+              filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(hrefDecoded);
+            } else {
+              filePath.append(metsValidatorState.getMetsPath()).append(hrefDecoded);
             }
+          } else {
+            filePath.append(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded));
+          }
+          if (metsValidatorState.getMetsFiles().containsKey(filePath.toString())) {
+            metsValidatorState.getMetsFiles().replace(filePath.toString(), true);
           }
         }
+        return null;
       }
-    }
-    if (metsValidatorState.getMetsFiles().containsValue(false) && metsValidatorState.isRootMets()) {
-      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-        Message.createErrorMessage("You have files in SIP does not referenced in %1$s",
-          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-        false, false);
-    }
-    return new ReporterDetails();
+
+      @Override
+      public ReporterDetails finish() {
+        if (metsValidatorState.getMetsFiles().containsValue(false) && metsValidatorState.isRootMets()) {
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+            Message.createErrorMessage("You have files in SIP does not referenced in %1$s",
+              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+            false, false);
+        }
+        return new ReporterDetails();
+      }
+    };
   }
 
   /*
    * mets/fileSec/fileGrp/file/@ID A unique xml:id identifier for this file across
    * the package.
    */
-  private ReporterDetails validateCSIP67(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String id = file.getID();
-        if (id != null) {
-          if (!metsValidatorState.checkMetsInternalId(id)) {
-            metsValidatorState.addMetsInternalId(id);
-          } else {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(id)
-              .append(" in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        } else {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@ID in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
+  private ReporterDetails validateCSIP67(final MetsValidatorState metsValidatorState, final FileType file) {
+    final String id = file.getID();
+    if (id != null) {
+      if (!metsValidatorState.checkMetsInternalId(id)) {
+        metsValidatorState.addMetsInternalId(id);
+      } else {
+        final StringBuilder message = new StringBuilder();
+        message.append("Value ").append(id).append(" in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
       }
+    } else {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/@ID in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/@MIMETYPE The IANA mime type for the referenced
    * file.See also: IANA media types
    */
-  private ReporterDetails validateCSIP68(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String mimeType = file.getMIMETYPE();
-        if (mimeType != null) {
-          if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimeType)) {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(mimeType)
-              .append(" in %1$s for mets/fileSec/fileGrp/file/@MIMETYPE value isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        } else {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@MIMETYPE of file in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
+  private ReporterDetails validateCSIP68(final MetsValidatorState metsValidatorState, final FileType file) {
+    final String mimeType = file.getMIMETYPE();
+    if (mimeType != null) {
+      if (!IanaMediaTypes.isRegistered(mimeType)) {
+        final StringBuilder message = new StringBuilder();
+        message.append("Value ").append(mimeType)
+          .append(" in %1$s for mets/fileSec/fileGrp/file/@MIMETYPE value isn't valid");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
       }
+    } else {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/@MIMETYPE of file in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/@SIZE Size of the referenced file in bytes.
    */
   private ReporterDetails validateCSIP69(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
+    final MetsValidatorState metsValidatorState, final FileType file) throws IOException {
     final StringBuilder message = new StringBuilder();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat != null) {
-          if (flocat.size() == 1) {
-            final String href = URLDecoder.decode(flocat.get(0).getHref(), UTF_8);
-            if (href != null) {
-              final Long size = file.getSIZE();
-              if (size != null) {
-                if (structureValidatorState.isZipFileFlag()) {
-                  final StringBuilder filePath = new StringBuilder();
-                  if (metsValidatorState.isRootMets()) {
-                    filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
-                  } else {
-                    filePath.append(metsValidatorState.getMetsPath()).append(href);
-                  }
-                  if (!structureValidatorState.getZipManager().verifySize(structureValidatorState.getIpPath(),
-                    filePath.toString(), size)) {
-                    message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
-                      .append(filePath).append(") isn't equal");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                } else {
-                  if (metsValidatorState.isRootMets()) {
-                    if (!structureValidatorState.getFolderManager()
-                      .verifySize(structureValidatorState.getIpPath().resolve(href), size)) {
-                      message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
-                        .append(structureValidatorState.getIpPath()
-                          .resolve(structureValidatorState.getIpPath().resolve(href)))
-                        .append(") isn't equal");
-                      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                        Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                          metsValidatorState.isRootMets()),
-                        false, false);
-                    }
-                  } else {
-                    if (!structureValidatorState.getFolderManager()
-                      .verifySize(Paths.get(metsValidatorState.getMetsPath()).resolve(href), size)) {
-                      message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
-                        .append(structureValidatorState.getIpPath()
-                          .resolve(Paths.get(metsValidatorState.getMetsPath()).resolve(href)))
-                        .append(") isn't equal");
-                      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                        Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                          metsValidatorState.isRootMets()),
-                        false, false);
-                    }
-                  }
-                }
+    final List<FileType.FLocat> flocat = file.getFLocat();
+    if (flocat != null) {
+      if (flocat.size() == 1) {
+        final String href = URLDecoder.decode(flocat.get(0).getHref(), UTF_8);
+        if (href != null) {
+          final Long size = file.getSIZE();
+          if (size != null) {
+            if (structureValidatorState.isZipFileFlag()) {
+              final StringBuilder filePath = new StringBuilder();
+              if (metsValidatorState.isRootMets()) {
+                filePath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(href);
               } else {
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                  Message.createErrorMessage("mets/fileSec/fileGrp/file/@SIZE in %1$s can't be null",
-                    metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                  false, false);
+                filePath.append(metsValidatorState.getMetsPath()).append(href);
+              }
+              if (!structureValidatorState.getZipManager().verifySize(structureValidatorState.getIpPath(),
+                filePath.toString(), size)) {
+                message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
+                  .append(filePath).append(") isn't equal");
+                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
               }
             } else {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat/@href in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
+              if (metsValidatorState.isRootMets()) {
+                if (!structureValidatorState.getFolderManager()
+                  .verifySize(structureValidatorState.getIpPath().resolve(href), size)) {
+                  message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
+                    .append(structureValidatorState.getIpPath()
+                      .resolve(structureValidatorState.getIpPath().resolve(href)))
+                    .append(") isn't equal");
+                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
+                      metsValidatorState.isRootMets()),
+                    false, false);
+                }
+              } else {
+                if (!structureValidatorState.getFolderManager()
+                  .verifySize(Paths.get(metsValidatorState.getMetsPath()).resolve(href), size)) {
+                  message.append("mets/dmdSec/mdRef/@SIZE ").append(size).append(" in %1$s and size of file (")
+                    .append(structureValidatorState.getIpPath()
+                      .resolve(Paths.get(metsValidatorState.getMetsPath()).resolve(href)))
+                    .append(") isn't equal");
+                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
+                      metsValidatorState.isRootMets()),
+                    false, false);
+                }
+              }
             }
           } else {
             return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-              Message.createErrorMessage("cannot have more than one mets/fileSec/fileGrp/file/flocat in %1$s",
+              Message.createErrorMessage("mets/fileSec/fileGrp/file/@SIZE in %1$s can't be null",
                 metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
               false, false);
           }
         } else {
           return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat in %1$s can't be null",
+            Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat/@href in %1$s can't be null",
               metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
             false, false);
         }
+      } else {
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+          Message.createErrorMessage("cannot have more than one mets/fileSec/fileGrp/file/flocat in %1$s",
+            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+          false, false);
       }
+    } else {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/@CREATED Creation date of the referenced file.
    */
-  private ReporterDetails validateCSIP70(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        if (file.getCREATED() == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CREATED in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
+  private ReporterDetails validateCSIP70(final MetsValidatorState metsValidatorState, final FileType file) {
+    if (file.getCREATED() == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/@CREATED in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/@CHECKSUM The checksum of the referenced file.
    */
   private ReporterDetails validateCSIP71(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException, NoSuchAlgorithmException {
-    final List<String> tmp = new ArrayList<>();
-    for (CHECKSUMTYPE check : CHECKSUMTYPE.values()) {
-      tmp.add(check.toString());
-    }
+    final MetsValidatorState metsValidatorState, final FileType file) throws Exception {
     final StringBuilder message = new StringBuilder();
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String checksumType = file.getCHECKSUMTYPE();
-        if (checksumType == null) {
+    final String checksumType = file.getCHECKSUMTYPE();
+    if (checksumType == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      if (!checksumTypes.contains(checksumType)) {
+        message.append("Value ").append(checksumType)
+          .append(" in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+      } else {
+        final String checksum = file.getCHECKSUM();
+        if (checksum == null) {
           return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null",
+            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUM in %1$s can't be null",
               metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
             false, false);
         } else {
-          if (!tmp.contains(checksumType)) {
-            message.append("Value ").append(checksumType)
-              .append(" in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+          final String href = file.getFLocat().get(0).getHref();
+          if (href == null) {
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+              Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat/href in %1$s can't be null",
+                metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+              false, false);
           } else {
-            final String checksum = file.getCHECKSUM();
-            if (checksum == null) {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUM in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
-            } else {
-              final String href = file.getFLocat().get(0).getHref();
-              if (href == null) {
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                  Message.createErrorMessage("mets/fileSec/fileGrp/file/flocat/href in %1$s can't be null",
-                    metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                  false, false);
+            final String filePath = URLDecoder.decode(href, UTF_8);
+            if (structureValidatorState.isZipFileFlag()) {
+              final StringBuilder finalPath = new StringBuilder();
+              if (!metsValidatorState.isRootMets()) {
+                finalPath.append(metsValidatorState.getMetsPath()).append(filePath);
               } else {
-                final String filePath = URLDecoder.decode(href, UTF_8);
-                if (structureValidatorState.isZipFileFlag()) {
-                  final StringBuilder finalPath = new StringBuilder();
-                  if (!metsValidatorState.isRootMets()) {
-                    finalPath.append(metsValidatorState.getMetsPath()).append(filePath);
-                  } else {
-                    finalPath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(filePath);
-                  }
-                  if (!structureValidatorState.getZipManager().verifyChecksum(structureValidatorState.getIpPath(),
-                    finalPath.toString(), checksumType, checksum)) {
-                    message.append("mets/dmdSec/mdRef/@CHECKSUM ").append(checksum)
-                      .append(" in %1$s and checksum of file (").append(finalPath).append(") isn't equal");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                } else {
-                  if (!structureValidatorState.getFolderManager().verifyChecksum(
-                    Paths.get(metsValidatorState.getMetsPath()).resolve(filePath), checksumType, checksum)) {
-                    message.append("mets/dmdSec/mdRef/@CHECKSUM ").append(checksum)
-                      .append(" in %1$s and checksum of file (")
-                      .append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath)).append(") isn't equal");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
+                finalPath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(filePath);
+              }
+              if (!structureValidatorState.getZipManager().verifyChecksum(structureValidatorState.getIpPath(),
+                finalPath.toString(), checksumType, checksum)) {
+                message.append("mets/dmdSec/mdRef/@CHECKSUM ").append(checksum)
+                  .append(" in %1$s and checksum of file (").append(finalPath).append(") isn't equal");
+                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+              }
+            } else {
+              if (!structureValidatorState.getFolderManager().verifyChecksum(
+                Paths.get(metsValidatorState.getMetsPath()).resolve(filePath), checksumType, checksum)) {
+                message.append("mets/dmdSec/mdRef/@CHECKSUM ").append(checksum)
+                  .append(" in %1$s and checksum of file (")
+                  .append(Paths.get(metsValidatorState.getMetsPath()).resolve(filePath)).append(") isn't equal");
+                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+                  message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
               }
             }
           }
         }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -998,56 +794,38 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * value list present in the METS-standard which has been used for calculating
    * the checksum for the referenced file.
    */
-  private ReporterDetails validateCSIP72(final MetsValidatorState metsValidatorState) {
-    final List<String> tmp = new ArrayList<>();
-    for (CHECKSUMTYPE check : CHECKSUMTYPE.values()) {
-      tmp.add(check.toString());
-    }
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String checksumType = file.getCHECKSUMTYPE();
-        if (checksumType == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          if (!tmp.contains(checksumType)) {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(checksumType)
-              .append(" in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        }
+  private ReporterDetails validateCSIP72(final MetsValidatorState metsValidatorState, final FileType file) {
+    final String checksumType = file.getCHECKSUMTYPE();
+    if (checksumType == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      if (!checksumTypes.contains(checksumType)) {
+        final StringBuilder message = new StringBuilder();
+        message.append("Value ").append(checksumType)
+          .append(" in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+          message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/@OWNERID If an identifier for the file was supplied
    * by the owner it can be recorded in this attribute.
    */
-  private ReporterDetails validateCSIP73(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String ownerID = file.getOWNERID();
-        if (ownerID != null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("A owner identifier was defined in %1$s", metsValidatorState.getMetsName(),
-              metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
+  private ReporterDetails validateCSIP73(final MetsValidatorState metsValidatorState, final FileType file) {
+    final String ownerID = file.getOWNERID();
+    if (ownerID != null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("A owner identifier was defined in %1$s", metsValidatorState.getMetsName(),
+          metsValidatorState.isRootMets()),
+        false, false);
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /**
@@ -1057,75 +835,82 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    *
    * @param metsValidatorState
    *          the contextual METS validator state
-   * @return the result of the validation
+   * @return the {@link MetsRule} collecting the file ADMIDs that are not
+   *         DigiprovMD identifiers (one issue each)
    */
-  private ReporterDetails validateCSIP74(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
+  private MetsRule<MetsType.FileSec.FileGrp, FileType> validateCSIP74(final MetsValidatorState metsValidatorState) {
     final List<AmdSecType> amdSec = metsValidatorState.getMets().getAmdSec();
 
     // Get all identifiers for DigiprovMD
     final List<String> amdIds = amdSec.stream().map(AmdSecType::getDigiprovMD).flatMap(List::stream)
       .filter(dp -> dp.getMdRef() != null).map(dp -> dp.getMdRef().getID()).collect(Collectors.toList());
 
-    // Get all file ADMIDs that are NOT in the list of DigiprovMD identifiers
-    final List<String> admidsNotInAmd = fileGrps.stream().map(FileGrpType::getFile).flatMap(List::stream)
-      .map(FileType::getADMID).flatMap(List::stream).filter(MdSecType.class::isInstance).map(MdSecType.class::cast)
-      .filter(md -> md.getMdRef() != null).map(md -> md.getMdRef().getID()).distinct()
-      .filter(admid -> !amdIds.contains(admid)).collect(Collectors.toList());
-
-    // Report only valid if all ADMIDs are in DigiprovMD identifiers
-    final ReporterDetails r = new ReporterDetails();
-    r.setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION);
-    r.setSkipped(false);
-    r.setValid(admidsNotInAmd.isEmpty());
+    // File ADMIDs that are NOT in the list of DigiprovMD identifiers
+    final Set<String> admidsNotInAmd = new LinkedHashSet<>();
+
+    return new MetsRule<MetsType.FileSec.FileGrp, FileType>() {
+      @Override
+      public ReporterDetails check(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+        for (Object admid : file.getADMID()) {
+          if (admid instanceof MdSecType && ((MdSecType) admid).getMdRef() != null) {
+            final String id = ((MdSecType) admid).getMdRef().getID();
+            if (!amdIds.contains(id)) {
+              admidsNotInAmd.add(id);
+            }
+          }
+        }
+        return null;
+      }
 
-    // for each ADMID not in the DigiprovMD create an issue
-    for (String admid : admidsNotInAmd) {
-      final StringBuilder message = new StringBuilder();
-      message.append("Value ").append(admid).append(
-        " in %1$s for mets/fileSec/fileGrp/file/@ADMID " + "does not match with any mets/amdSec/digiprovMd/@ID");
-      r.addIssue(Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-        metsValidatorState.isRootMets()));
-    }
+      @Override
+      public ReporterDetails finish() {
+        // Report only valid if all ADMIDs are in DigiprovMD identifiers
+        final ReporterDetails r = new ReporterDetails();
+        r.setSkipped(false);
+        r.setValid(admidsNotInAmd.isEmpty());
 
-    return r;
+        // for each ADMID not in the DigiprovMD create an issue
+        for (String admid : admidsNotInAmd) {
+          final StringBuilder message = new StringBuilder();
+          message.append("Value ").append(admid).append(
+            " in %1$s for mets/fileSec/fileGrp/file/@ADMID " + "does not match with any mets/amdSec/digiprovMd/@ID");
+          r.addIssue(Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
+            metsValidatorState.isRootMets()));
+        }
+        return r;
+      }
+    };
   }
 
   /*
    * mets/fileSec/fileGrp/file/@DMDID If descriptive metadata has been provided
    * per file this attribute refers to the file’s descriptive metadata by ID.
    */
-  private ReporterDetails validateCSIP75(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
+  private ReporterDetails validateCSIP75(final MetsValidatorState metsValidatorState, final FileType file) {
     final List<MdSecType> dmdSec = metsValidatorState.getMets().getDmdSec();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final List<Object> dmdids = file.getDMDID();
-        if (dmdids != null && !dmdids.isEmpty()) {
-          boolean found = false;
-          for (Object o : dmdids) {
-            final MdSecType mdSecType = (MdSecType) o;
-            final String dmdid = mdSecType.getMdRef().getID();
-            for (MdSecType md : dmdSec) {
-              final String id = md.getMdRef().getID();
-              if (id != null && dmdid.equals(id)) {
-                found = true;
-                break;
-              }
-            }
-            if (!found) {
-              final StringBuilder message = new StringBuilder();
-              message.append("Value ").append(dmdid).append(
-                " in %1$s for mets/fileSec/fileGrp/file/@DMDID " + "does not match with any mets/dmdSec/mdRef/@ID");
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-                message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-            }
+    final List<Object> dmdids = file.getDMDID();
+    if (dmdids != null && !dmdids.isEmpty()) {
+      boolean found = false;
+      for (Object o : dmdids) {
+        final MdSecType mdSecType = (MdSecType) o;
+        final String dmdid = mdSecType.getMdRef().getID();
+        for (MdSecType md : dmdSec) {
+          final String id = md.getMdRef().getID();
+          if (id != null && dmdid.equals(id)) {
+            found = true;
+            break;
           }
         }
+        if (!found) {
+          final StringBuilder message = new StringBuilder();
+          message.append("Value ").append(dmdid).append(
+            " in %1$s for mets/fileSec/fileGrp/file/@DMDID " + "does not match with any mets/dmdSec/mdRef/@ID");
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+            message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+        }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -1135,84 +920,68 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * XLink href attribute and the file protocol using the relative location of the
    * file.
    */
-  private ReporterDetails validateCSIP76(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          if (flocat.size() != 1) {
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-              Message.createErrorMessage("Can't have more than one mets/fileSec/fileGrp/file/FLocat in %1$s",
-                metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-              false, false);
-          }
-        }
+  private ReporterDetails validateCSIP76(final MetsValidatorState metsValidatorState, final FileType file) {
+    final List<FileType.FLocat> flocat = file.getFLocat();
+    if (flocat == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      if (flocat.size() != 1) {
+        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+          Message.createErrorMessage("Can't have more than one mets/fileSec/fileGrp/file/FLocat in %1$s",
+            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+          false, false);
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
    * mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] The locator type is always
    * used with the value “URL” from the vocabulary in the attribute.
    */
-  private ReporterDetails validateCSIP77(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat == null) {
+  private ReporterDetails validateCSIP77(final MetsValidatorState metsValidatorState, final FileType file) {
+    final List<FileType.FLocat> flocat = file.getFLocat();
+    if (flocat == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      for (FileType.FLocat floc : flocat) {
+        final String loctype = floc.getLOCTYPE();
+        if (loctype == null) {
           return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] in %1$s can't be null",
               metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
             false, false);
         } else {
-          for (FileType.FLocat floc : flocat) {
-            final String loctype = floc.getLOCTYPE();
-            if (loctype == null) {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
-            } else {
-              if (!loctype.equals("URL")) {
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                  Message.createErrorMessage(
-                    "mets/fileSec/fileGrp/file/" + "FLocat[@LOCTYPE=’URL’] value in %1$s has to be URL ",
-                    metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                  false, false);
-              }
-            }
+          if (!loctype.equals("URL")) {
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+              Message.createErrorMessage(
+                "mets/fileSec/fileGrp/file/" + "FLocat[@LOCTYPE=’URL’] value in %1$s has to be URL ",
+                metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+              false, false);
           }
         }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
-  /*
-   * mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] Attribute used with
-   * the value “simple”. Value list is maintained by the xlink standard.
+  /**
+   * Gets the xlink:type of the mets/fileSec/fileGrp/file/FLocat of the METS (by
+   * xlink:href), which the METS beans do not have, for CSIP78.
    */
-  private ReporterDetails validateCSIP78(final StructureValidatorState structureValidatorState,
+  private Map<String, String> parseFileSecTypes(final StructureValidatorState structureValidatorState,
     final MetsValidatorState metsValidatorState) throws IOException {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
     final HashMap<String, String> fileSecTypes = new HashMap<>();
     final MetsHandler fileSecHandler = new MetsHandler("file", "FLocat", fileSecTypes);
     final MetsParser metsParser = new MetsParser();
     InputStream metsStream = null;
-    if (!fileGrp.isEmpty()) {
+    if (!metsValidatorState.getMets().getFileSec().getFileGrp().isEmpty()) {
       if (structureValidatorState.isZipFileFlag()) {
         if (metsValidatorState.isRootMets()) {
           metsStream = structureValidatorState.getZipManager()
@@ -1234,38 +1003,60 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     if (metsStream != null) {
       metsParser.parse(fileSecHandler, metsStream);
     }
+    return fileSecTypes;
+  }
 
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat.isEmpty()) {
+  /**
+   * Reads the xlink:type of each FLocat (the bound METS has the default of
+   * the attribute where it is missing) when the first file is checked.
+   */
+  private MetsRule<MetsType.FileSec.FileGrp, FileType> validateCSIP78(
+    final StructureValidatorState structureValidatorState, final MetsValidatorState metsValidatorState) {
+    return new MetsRule<MetsType.FileSec.FileGrp, FileType>() {
+      private Map<String, String> fileSecTypes;
+
+      @Override
+      public ReporterDetails check(final MetsType.FileSec.FileGrp fileGrp, final FileType file) throws IOException {
+        if (fileSecTypes == null) {
+          fileSecTypes = parseFileSecTypes(structureValidatorState, metsValidatorState);
+        }
+        return validateCSIP78(metsValidatorState, fileSecTypes, file);
+      }
+    };
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] Attribute used with
+   * the value “simple”. Value list is maintained by the xlink standard.
+   */
+  private ReporterDetails validateCSIP78(final MetsValidatorState metsValidatorState,
+    final Map<String, String> fileSecTypes, final FileType file) {
+    final List<FileType.FLocat> flocat = file.getFLocat();
+    if (flocat.isEmpty()) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      for (FileType.FLocat floc : flocat) {
+        if (fileSecTypes.get(floc.getHref()) == null) {
           return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+            Message.createErrorMessage(
+              "mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] " + "in %1$s can't be null",
               metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
             false, false);
         } else {
-          for (FileType.FLocat floc : flocat) {
-            if (fileSecTypes.get(floc.getHref()) == null) {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage(
-                  "mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] " + "in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
-            } else {
-              if (!fileSecTypes.get(floc.getHref()).equals("simple")) {
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                  Message.createErrorMessage(
-                    "mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] " + "value in %1$s has to be simple",
-                    metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                  false, false);
-              }
-            }
+          if (!fileSecTypes.get(floc.getHref()).equals("simple")) {
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+              Message.createErrorMessage(
+                "mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] " + "value in %1$s has to be simple",
+                metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+              false, false);
           }
         }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 
   /*
@@ -1273,62 +1064,51 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * resource. We recommend recording a URL type filepath within this attribute.
    */
   private ReporterDetails validateCSIP79(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) throws IOException {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
+    final MetsValidatorState metsValidatorState, final FileType file) throws IOException {
     final StringBuilder message = new StringBuilder();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          for (FileType.FLocat floc : flocat) {
-            final String href = floc.getHref();
-            if (href != null) {
-              final String hrefDecoded = URLDecoder.decode(href, UTF_8);
-              if (structureValidatorState.isZipFileFlag()) {
-                final StringBuilder finalPath = new StringBuilder();
-                if (!metsValidatorState.isRootMets()) {
-                  finalPath.append(metsValidatorState.getMetsPath()).append(hrefDecoded);
-                } else {
-                  finalPath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(hrefDecoded);
-                }
-                if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
-                  finalPath.toString())) {
-                  message.append("mets/fileSec/fileGrp/file/@xlink:href ").append(finalPath)
-                    .append(" does not exist (%1$s)");
-                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                      metsValidatorState.isRootMets()),
-                    false, false);
-                }
-              } else {
-                if (!structureValidatorState.getFolderManager()
-                  .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded))) {
-                  message.append("mets/fileSec/fileGrp/file/@xlink:href ")
-                    .append(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded))
-                    .append(" does not exist (%1$s)");
-                  return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                    Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                      metsValidatorState.isRootMets()),
-                    false, false);
-                }
-              }
+    final List<FileType.FLocat> flocat = file.getFLocat();
+    if (flocat == null) {
+      return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+        Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
+          metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+        false, false);
+    } else {
+      for (FileType.FLocat floc : flocat) {
+        final String href = floc.getHref();
+        if (href != null) {
+          final String hrefDecoded = URLDecoder.decode(href, UTF_8);
+          if (structureValidatorState.isZipFileFlag()) {
+            final StringBuilder finalPath = new StringBuilder();
+            if (!metsValidatorState.isRootMets()) {
+              finalPath.append(metsValidatorState.getMetsPath()).append(hrefDecoded);
             } else {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat/@xlink:href in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
+              finalPath.append(metsValidatorState.getMets().getOBJID()).append(Constants.SEPARATOR).append(hrefDecoded);
+            }
+            if (!structureValidatorState.getZipManager().checkPathExists(structureValidatorState.getIpPath(),
+              finalPath.toString())) {
+              message.append("mets/fileSec/fileGrp/file/@xlink:href ").append(finalPath)
+                .append(" does not exist (%1$s)");
+              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+                message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
+            }
+          } else {
+            if (!structureValidatorState.getFolderManager()
+              .checkPathExists(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded))) {
+              message.append("mets/fileSec/fileGrp/file/@xlink:href ")
+                .append(Paths.get(metsValidatorState.getMetsPath()).resolve(hrefDecoded))
+                .append(" does not exist (%1$s)");
+              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+                message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
             }
           }
+        } else {
+          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
+            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat/@xlink:href in %1$s can't be null",
+              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
+            false, false);
         }
       }
     }
-    return new ReporterDetails();
+    return null;
   }
 }
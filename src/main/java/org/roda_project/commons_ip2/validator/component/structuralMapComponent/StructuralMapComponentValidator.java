@@ -1007,7 +1007,7 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
       if (fileGrps != null && !fileGrps.isEmpty()) {
         for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
           if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Documentation")) {
-            if (!fileGrp.getFile().isEmpty()) {
+            if (metsValidatorState.hasFiles(fileGrp)) {
               fileGrpDocumentation++;
             }
           }
@@ -1236,7 +1236,7 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
       if (fileGrps != null && !fileGrps.isEmpty()) {
         for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
           if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Schemas")) {
-            if (!fileGrp.getFile().isEmpty()) {
+            if (metsValidatorState.hasFiles(fileGrp)) {
               fileGrpSchemas++;
             }
           }
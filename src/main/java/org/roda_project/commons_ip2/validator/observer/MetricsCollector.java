@@ -0,0 +1,233 @@
+package org.roda_project.commons_ip2.validator.observer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * {@link ValidationObserver} that accumulates, across validations, the
+ * measures of each requirement (see {@link StepMetrics}) and of the METS
+ * parses, with a latency histogram for each, and exports them as JSON (see
+ * {@link #writeJson(OutputStream)}).
+ *
+ * <p>
+ * The same collector may be added to several validators, also validating
+ * concurrently. The histograms have power of two buckets: a bucket counts the
+ * latencies up to its bound that do not fit in the previous bucket.
+ * </p>
+ */
+public class MetricsCollector implements ValidationObserver {
+  /**
+   * Number of histogram buckets, enough for any latency in nanoseconds.
+   */
+  private static final int BUCKETS = Long.SIZE;
+
+  /**
+   * Measures of each requirement, in the order they were first measured.
+   */
+  private final Map<String, Stats> requirements = new LinkedHashMap<>();
+  /**
+   * Measures of the METS parses.
+   */
+  private final Stats metsParses = new Stats();
+  /**
+   * Number of validations finished.
+   */
+  private long runs;
+
+  @Override
+  public void notifyValidationStart() {
+    // measured per requirement
+  }
+
+  @Override
+  public void notifyStartValidationModule(final String moduleName, final String id) {
+    // measured per requirement
+  }
+
+  @Override
+  public void notifyStartStep(final String id) {
+    // measured per requirement
+  }
+
+  @Override
+  public void notifyFinishStep(final String id) {
+    // measured per requirement
+  }
+
+  @Override
+  public void notifyFinishModule(final String moduleName) {
+    // measured per requirement
+  }
+
+  @Override
+  public synchronized void notifyFinishValidation() {
+    runs++;
+  }
+
+  @Override
+  public void notifyIndicators(final int errors, final int success, final int warnings, final int notes,
+    final int skipped) {
+    // not measured
+  }
+
+  @Override
+  public synchronized void notifyStepMetrics(final StepMetrics metrics) {
+    requirements.computeIfAbsent(metrics.getId(), id -> new Stats()).add(metrics.getNanos(),
+      metrics.getBytesHashed(), metrics.getEntriesScanned(), metrics.getMetsElementsVisited());
+  }
+
+  @Override
+  public synchronized void notifyMetsParsed(final String metsName, final long bytes, final long elements,
+    final long nanos) {
+    metsParses.add(nanos, bytes, 0L, elements);
+  }
+
+  /**
+   * Gets the number of validations finished.
+   *
+   * @return the number of validations.
+   */
+  public synchronized long getRuns() {
+    return runs;
+  }
+
+  /**
+   * Gets the identifiers of the requirements measured.
+   *
+   * @return the {@link List} of identifiers, in the order they were first
+   *         measured.
+   */
+  public synchronized List<String> getRequirementIds() {
+    return new ArrayList<>(requirements.keySet());
+  }
+
+  /**
+   * Gets the sum of the measures of a requirement.
+   *
+   * @param id
+   *          the requirement identifier.
+   * @return the {@link StepMetrics} with the totals or {@code null} if the
+   *         requirement was not measured.
+   */
+  public synchronized StepMetrics getTotals(final String id) {
+    final Stats stats = requirements.get(id);
+    return stats == null ? null
+      : new StepMetrics(id, stats.totalNanos, stats.bytesHashed, stats.entriesScanned, stats.metsElementsVisited);
+  }
+
+  /**
+   * Discards all the measures.
+   */
+  public synchronized void reset() {
+    requirements.clear();
+    metsParses.clear();
+    runs = 0;
+  }
+
+  /**
+   * Writes the measures as JSON.
+   *
+   * @param outputStream
+   *          the {@link OutputStream}, left open.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public synchronized void writeJson(final OutputStream outputStream) throws IOException {
+    final JsonFactory jsonFactory = new JsonFactory();
+    jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    try (JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      generator.writeNumberField("runs", runs);
+      generator.writeFieldName("requirements");
+      generator.writeStartArray();
+      for (Map.Entry<String, Stats> entry : requirements.entrySet()) {
+        final Stats stats = entry.getValue();
+        generator.writeStartObject();
+        generator.writeStringField("id", entry.getKey());
+        stats.writeLatency(generator);
+        generator.writeNumberField("bytesHashed", stats.bytesHashed);
+        generator.writeNumberField("entriesScanned", stats.entriesScanned);
+        generator.writeNumberField("metsElementsVisited", stats.metsElementsVisited);
+        stats.writeHistogram(generator);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeFieldName("metsParses");
+      generator.writeStartObject();
+      metsParses.writeLatency(generator);
+      generator.writeNumberField("bytes", metsParses.bytesHashed);
+      generator.writeNumberField("elements", metsParses.metsElementsVisited);
+      metsParses.writeHistogram(generator);
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Accumulated measures, guarded by the collector.
+   */
+  private static final class Stats {
+    private long count;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long bytesHashed;
+    private long entriesScanned;
+    private long metsElementsVisited;
+    private final long[] histogram = new long[BUCKETS];
+
+    private void add(final long nanos, final long bytes, final long entries, final long elements) {
+      count++;
+      totalNanos += nanos;
+      minNanos = Math.min(minNanos, nanos);
+      maxNanos = Math.max(maxNanos, nanos);
+      bytesHashed += bytes;
+      entriesScanned += entries;
+      metsElementsVisited += elements;
+      histogram[BUCKETS - Long.numberOfLeadingZeros(Math.max(0L, nanos))]++;
+    }
+
+    private void clear() {
+      count = 0;
+      totalNanos = 0;
+      minNanos = Long.MAX_VALUE;
+      maxNanos = 0;
+      bytesHashed = 0;
+      entriesScanned = 0;
+      metsElementsVisited = 0;
+      Arrays.fill(histogram, 0L);
+    }
+
+    private void writeLatency(final JsonGenerator generator) throws IOException {
+      generator.writeNumberField("count", count);
+      generator.writeNumberField("totalNanos", totalNanos);
+      generator.writeNumberField("minNanos", count == 0 ? 0L : minNanos);
+      generator.writeNumberField("maxNanos", maxNanos);
+      generator.writeNumberField("meanNanos", count == 0 ? 0L : totalNanos / count);
+    }
+
+    private void writeHistogram(final JsonGenerator generator) throws IOException {
+      generator.writeFieldName("histogram");
+      generator.writeStartArray();
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        if (histogram[bucket] > 0) {
+          generator.writeStartObject();
+          generator.writeNumberField("upToNanos", (1L << bucket) - 1);
+          generator.writeNumberField("count", histogram[bucket]);
+          generator.writeEndObject();
+        }
+      }
+      generator.writeEndArray();
+    }
+  }
+}
@@ -27,7 +27,7 @@ public class ProgressValidationLoggerObserver implements ValidationObserver {
 
   @Override
   public void notifyFinishStep(final String id) {
-    LOGGER.info("Finish validation of: {}", id);
+    LOGGER.debug("Finish validation of: {}", id);
   }
 
   @Override
@@ -0,0 +1,77 @@
+package org.roda_project.commons_ip2.validator.observer;
+
+/**
+ * Measures of the validation of a requirement: wall time and work done (see
+ * {@link ValidationCounters}).
+ */
+public final class StepMetrics {
+  /**
+   * Requirement identifier.
+   */
+  private final String id;
+  /**
+   * Wall time, in nanoseconds.
+   */
+  private final long nanos;
+  /**
+   * Number of bytes hashed.
+   */
+  private final long bytesHashed;
+  /**
+   * Number of zip entries or files scanned.
+   */
+  private final long entriesScanned;
+  /**
+   * Number of METS elements visited.
+   */
+  private final long metsElementsVisited;
+
+  /**
+   * Creates a {@link StepMetrics}.
+   *
+   * @param id
+   *          the requirement identifier.
+   * @param nanos
+   *          the wall time, in nanoseconds.
+   * @param bytesHashed
+   *          the number of bytes hashed.
+   * @param entriesScanned
+   *          the number of zip entries or files scanned.
+   * @param metsElementsVisited
+   *          the number of METS elements visited.
+   */
+  public StepMetrics(final String id, final long nanos, final long bytesHashed, final long entriesScanned,
+    final long metsElementsVisited) {
+    this.id = id;
+    this.nanos = nanos;
+    this.bytesHashed = bytesHashed;
+    this.entriesScanned = entriesScanned;
+    this.metsElementsVisited = metsElementsVisited;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  public long getBytesHashed() {
+    return bytesHashed;
+  }
+
+  public long getEntriesScanned() {
+    return entriesScanned;
+  }
+
+  public long getMetsElementsVisited() {
+    return metsElementsVisited;
+  }
+
+  @Override
+  public String toString() {
+    return "StepMetrics [id=" + id + ", nanos=" + nanos + ", bytesHashed=" + bytesHashed + ", entriesScanned="
+      + entriesScanned + ", metsElementsVisited=" + metsElementsVisited + "]";
+  }
+}
@@ -0,0 +1,54 @@
+package org.roda_project.commons_ip2.validator.observer;
+
+/**
+ * Measures the requirements validated one after the other in a thread: a
+ * requirement runs from {@link #start(String)} to the next
+ * {@link #start(String)} or {@link #finish()}.
+ */
+public final class StepRecorder {
+  /**
+   * Identifier of the running requirement ({@code null} if none).
+   */
+  private String id;
+  private long startNanos;
+  private long startBytesHashed;
+  private long startEntriesScanned;
+  private long startMetsElementsVisited;
+
+  /**
+   * Starts measuring a requirement, finishing the running one.
+   *
+   * @param requirementId
+   *          the requirement identifier.
+   * @return the {@link StepMetrics} of the requirement that was running or
+   *         {@code null} if none.
+   */
+  public StepMetrics start(final String requirementId) {
+    final StepMetrics finished = finish();
+    final ValidationCounters counters = ValidationCounters.current();
+    this.id = requirementId;
+    this.startBytesHashed = counters.getBytesHashed();
+    this.startEntriesScanned = counters.getEntriesScanned();
+    this.startMetsElementsVisited = counters.getMetsElementsVisited();
+    this.startNanos = System.nanoTime();
+    return finished;
+  }
+
+  /**
+   * Finishes measuring the running requirement.
+   *
+   * @return the {@link StepMetrics} of the requirement or {@code null} if none
+   *         was running.
+   */
+  public StepMetrics finish() {
+    if (id == null) {
+      return null;
+    }
+    final long nanos = System.nanoTime() - startNanos;
+    final ValidationCounters counters = ValidationCounters.current();
+    final StepMetrics metrics = new StepMetrics(id, nanos, counters.getBytesHashed() - startBytesHashed,
+      counters.getEntriesScanned() - startEntriesScanned, counters.getMetsElementsVisited() - startMetsElementsVisited);
+    id = null;
+    return metrics;
+  }
+}
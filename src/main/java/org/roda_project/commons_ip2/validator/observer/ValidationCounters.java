@@ -0,0 +1,69 @@
+package org.roda_project.commons_ip2.validator.observer;
+
+/**
+ * Counters of the work done by the validation in the current thread (bytes
+ * hashed, zip entries or files scanned and METS elements visited). They only
+ * grow: the work of a requirement is the difference between the counters when
+ * it finishes and when it starts (see {@link StepRecorder}).
+ *
+ * <p>
+ * Each thread has its own counters, so that requirements validated
+ * concurrently are measured apart without synchronization.
+ * </p>
+ */
+public final class ValidationCounters {
+  /**
+   * Counters of each thread.
+   */
+  private static final ThreadLocal<ValidationCounters> CURRENT = ThreadLocal.withInitial(ValidationCounters::new);
+
+  /**
+   * Number of bytes hashed.
+   */
+  private long bytesHashed;
+  /**
+   * Number of zip entries or files scanned.
+   */
+  private long entriesScanned;
+  /**
+   * Number of METS elements visited.
+   */
+  private long metsElementsVisited;
+
+  private ValidationCounters() {
+    // use current()
+  }
+
+  /**
+   * Gets the counters of the current thread.
+   *
+   * @return the {@link ValidationCounters}.
+   */
+  public static ValidationCounters current() {
+    return CURRENT.get();
+  }
+
+  public long getBytesHashed() {
+    return bytesHashed;
+  }
+
+  public void addBytesHashed(final long bytes) {
+    bytesHashed += bytes;
+  }
+
+  public long getEntriesScanned() {
+    return entriesScanned;
+  }
+
+  public void addEntriesScanned(final long entries) {
+    entriesScanned += entries;
+  }
+
+  public long getMetsElementsVisited() {
+    return metsElementsVisited;
+  }
+
+  public void addMetsElementsVisited(final long elements) {
+    metsElementsVisited += elements;
+  }
+}
@@ -63,4 +63,31 @@ public interface ValidationObserver {
    */
   void notifyIndicators(int errors, int success, int warnings, int notes, int skipped);
 
+  /**
+   * Notify the measures of a requirement, after it finishes. Called from the
+   * thread that validated it.
+   *
+   * @param metrics
+   *          the {@link StepMetrics}.
+   */
+  default void notifyStepMetrics(final StepMetrics metrics) {
+    // not measured by default
+  }
+
+  /**
+   * Notify that a METS file was parsed.
+   *
+   * @param metsName
+   *          the name of the METS file.
+   * @param bytes
+   *          size of the METS file, in bytes.
+   * @param elements
+   *          number of METS elements parsed.
+   * @param nanos
+   *          the wall time of the parse, in nanoseconds.
+   */
+  default void notifyMetsParsed(final String metsName, final long bytes, final long elements, final long nanos) {
+    // not measured by default
+  }
+
 }
@@ -109,6 +109,10 @@ public class ValidationReportOutputJson {
     return results;
   }
 
+  public String getIpType() {
+    return ipType;
+  }
+
   public void setIpType(final String ipType) {
     this.ipType = ipType;
   }
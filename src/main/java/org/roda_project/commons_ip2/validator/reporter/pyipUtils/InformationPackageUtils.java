@@ -10,6 +10,7 @@ import java.security.NoSuchAlgorithmException;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.roda_project.commons_ip2.validator.observer.ValidationCounters;
 import org.roda_project.commons_ip2.validator.pyipModel.Checksum;
 import org.roda_project.commons_ip2.validator.pyipModel.ChecksumAlg;
 import org.roda_project.commons_ip2.validator.pyipModel.IpType;
@@ -66,8 +67,10 @@ public final class InformationPackageUtils {
     final MessageDigest messageDigest = MessageDigest.getInstance(alg);
     final byte[] buffer = new byte[8192];
     int numOfBytesRead;
+    final ValidationCounters counters = ValidationCounters.current();
     while ((numOfBytesRead = stream.read(buffer)) > 0) {
       messageDigest.update(buffer, 0, numOfBytesRead);
+      counters.addBytesHashed(numOfBytesRead);
     }
     final byte[] hash = messageDigest.digest();
     return DatatypeConverter.printHexBinary(hash);
@@ -1,11 +1,14 @@
 package org.roda_project.commons_ip2.validator.sipComponents.sipFileSectionComponent;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
 import org.roda_project.commons_ip2.validator.component.MetsValidatorImpl;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.constants.ConstantsSIPspec;
@@ -45,7 +48,7 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
 
   @Override
   public Map<String, ReporterDetails> validate(final StructureValidatorState structureValidatorState,
-    final MetsValidatorState metsValidatorState) {
+    final MetsValidatorState metsValidatorState) throws IOException {
     final Map<String, ReporterDetails> results = new HashMap<>();
 
     if (isToValidate) {
@@ -90,18 +93,10 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
    * “ISO/IEC 26300:2006”
    */
 
-  private ReporterDetails validateSIP32(final MetsValidatorState metsValidatorState) {
+  private ReporterDetails validateSIP32(final MetsValidatorState metsValidatorState) throws IOException {
     final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
     for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatName = file.getFILEFORMATNAME();
-        if (fileFormatName != null && !fileFormatName.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
+      if (!allFilesHave(metsValidatorState, fileGrp, FileType::getFILEFORMATNAME)) {
         return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
           Message.createErrorMessage(
             "If the MIMETYPE is not sufficient for the purposes of processing the "
@@ -118,18 +113,10 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
    * when the use of PREMIS has not been agreed upon in the submission agreement.
    * Example: “1.0”
    */
-  private ReporterDetails validateSIP33(final MetsValidatorState metsValidatorState) {
+  private ReporterDetails validateSIP33(final MetsValidatorState metsValidatorState) throws IOException {
     final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
     for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatVersion = file.getFILEFORMATVERSION();
-        if (fileFormatVersion != null && !fileFormatVersion.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
+      if (!allFilesHave(metsValidatorState, fileGrp, FileType::getFILEFORMATVERSION)) {
         return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
           Message.createErrorMessage("You can add @sip:FILEFORMATVERSION attribute in the file element for the %1$s",
             metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
@@ -144,18 +131,10 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
    * used to identify the file format when the use of PREMIS has not been agreed
    * upon in the submission agreement. Example: “PRONOM”
    */
-  private ReporterDetails validateSIP34(final MetsValidatorState metsValidatorState) {
+  private ReporterDetails validateSIP34(final MetsValidatorState metsValidatorState) throws IOException {
     final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
     for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatRegistry = file.getFORMATREGISTRY();
-        if (fileFormatRegistry != null && !fileFormatRegistry.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
+      if (!allFilesHave(metsValidatorState, fileGrp, FileType::getFORMATREGISTRY)) {
         return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
           Message.createErrorMessage("You can add @sip:FILEFORMATREGISTRY attribute in the file element for the %1$s",
             metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
@@ -170,18 +149,10 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
    * registry when use of PREMIS has not been agreed upon in the submission
    * agreement. Example: “fmt/101”
    */
-  private ReporterDetails validateSIP35(final MetsValidatorState metsValidatorState) {
+  private ReporterDetails validateSIP35(final MetsValidatorState metsValidatorState) throws IOException {
     final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
     for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatKey = file.getFORMATREGISTRYKEY();
-        if (fileFormatKey != null && !fileFormatKey.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
+      if (!allFilesHave(metsValidatorState, fileGrp, FileType::getFORMATREGISTRYKEY)) {
         return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
           Message.createErrorMessage("You can add @sip:FILEFORMATKEY attribute in the file element for the %1$s",
             metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
@@ -190,4 +161,21 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
     }
     return new ReporterDetails();
   }
+
+  /**
+   * Checks if all the files of a file group have a value for an attribute,
+   * reading them one at a time.
+   */
+  private static boolean allFilesHave(final MetsValidatorState metsValidatorState,
+    final MetsType.FileSec.FileGrp fileGrp, final Function<FileType, String> attribute) throws IOException {
+    try (METSStreamReader.FileCursor files = metsValidatorState.openFiles(fileGrp)) {
+      for (FileType file = files.next(); file != null; file = files.next()) {
+        final String value = attribute.apply(file);
+        if (value == null || value.equals("")) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
 }
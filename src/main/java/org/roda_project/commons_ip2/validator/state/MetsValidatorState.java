@@ -1,9 +1,17 @@
 package org.roda_project.commons_ip2.validator.state;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
+import org.roda_project.commons_ip2.validator.common.SubMets;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public class MetsValidatorState {
@@ -12,9 +20,22 @@ public class MetsValidatorState {
    */
   private Mets mets = null;
   /**
-   * {@link ArrayList} with the internal ids.
+   * Id's of the file groups whose files were left out of {@link #mets}.
    */
-  private ArrayList<String> metsInternalIds = new ArrayList<>();
+  private Set<String> streamedFileGrpIds = Collections.emptySet();
+  /**
+   * {@link SubMets.Opener} of the METS file, to read the files left out of
+   * {@link #mets}.
+   */
+  private SubMets.Opener metsOpener = null;
+  /**
+   * {@link Set} with the internal ids.
+   */
+  private final Set<String> metsInternalIds = new LinkedHashSet<>();
+  /**
+   * Id's of the METS files validated before, not copied to {@link #metsInternalIds}.
+   */
+  private Predicate<String> previousMetsInternalIds = id -> false;
   /**
    * Mets name.
    */
@@ -53,6 +74,65 @@ public class MetsValidatorState {
    */
   public void setMets(final Mets mets) {
     this.mets = mets;
+    this.streamedFileGrpIds = Collections.emptySet();
+    this.metsOpener = null;
+  }
+
+  /**
+   * Set the file groups whose files were left out of the {@link Mets} (see
+   * {@link org.roda_project.commons_ip2.validator.common.InstatiateMets#instatiateMetsFileWithoutDataFiles(Set)}),
+   * which are read again from the METS file when needed.
+   *
+   * @param fileGrpIds
+   *          the id's of the file groups.
+   * @param opener
+   *          the {@link SubMets.Opener} of the METS file.
+   */
+  public void setStreamedFiles(final Set<String> fileGrpIds, final SubMets.Opener opener) {
+    this.streamedFileGrpIds = fileGrpIds;
+    this.metsOpener = opener;
+  }
+
+  /**
+   * Copy the {@link Mets} of another state, with the files left out of it.
+   *
+   * @param other
+   *          the other {@link MetsValidatorState}.
+   */
+  public void setMets(final MetsValidatorState other) {
+    this.mets = other.mets;
+    this.streamedFileGrpIds = other.streamedFileGrpIds;
+    this.metsOpener = other.metsOpener;
+  }
+
+  /**
+   * Check if a file group of the {@link Mets} has files, even if they were left
+   * out of it.
+   *
+   * @param fileGrp
+   *          the {@link FileGrpType}.
+   * @return if the file group has files.
+   */
+  public boolean hasFiles(final FileGrpType fileGrp) {
+    return streamedFileGrpIds.contains(fileGrp.getID()) || !fileGrp.getFile().isEmpty();
+  }
+
+  /**
+   * Opens a cursor over the files of a file group of the {@link Mets}, reading
+   * them from the METS file if they were left out of it. The caller must close
+   * the cursor.
+   *
+   * @param fileGrp
+   *          the {@link FileGrpType}.
+   * @return the {@link METSStreamReader.FileCursor}.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public METSStreamReader.FileCursor openFiles(final FileGrpType fileGrp) throws IOException {
+    if (!streamedFileGrpIds.contains(fileGrp.getID())) {
+      return METSStreamReader.cursor(fileGrp.getFile());
+    }
+    return METSStreamReader.openFiles(metsOpener.open(), fileGrp.getID(), mets);
   }
 
   /**
@@ -130,7 +210,38 @@ public class MetsValidatorState {
    * @return if already exists this {@link String}
    */
   public boolean checkMetsInternalId(final String id) {
-    return metsInternalIds.contains(id);
+    return metsInternalIds.contains(id) || previousMetsInternalIds.test(id);
+  }
+
+  /**
+   * Set the id's of the METS files validated before, which are checked (see
+   * {@link #checkMetsInternalId(String)}) but not added to the list of id's.
+   *
+   * @param ids
+   *          {@link Predicate} that tells if an id was used before.
+   */
+  public void setPreviousMetsInternalIds(final Predicate<String> ids) {
+    this.previousMetsInternalIds = ids;
+  }
+
+  /**
+   * Get the id's added so far, in the order they were added.
+   *
+   * @return unmodifiable {@link Set} with the id's.
+   */
+  public Set<String> getMetsInternalIds() {
+    return Collections.unmodifiableSet(metsInternalIds);
+  }
+
+  /**
+   * Add id's (e.g. the ones of other METS files of the IP) to the list of all
+   * METS files id's in the IP.
+   *
+   * @param ids
+   *          the {@link Collection} of id's.
+   */
+  public void addMetsInternalIds(final Collection<String> ids) {
+    metsInternalIds.addAll(ids);
   }
 
   /**
@@ -82,4 +82,14 @@ public class StructureValidatorState {
   public Path getIpPath() {
     return ipPath;
   }
+
+  /**
+   * Set the IP {@link Path}.
+   *
+   * @param ipPath
+   *          the {@link Path}.
+   */
+  public void setIpPath(final Path ipPath) {
+    this.ipPath = ipPath;
+  }
 }
@@ -29,6 +29,10 @@ public final class CLIUtils {
     out.append(CLIConstants.DOUBLE_END_OF_LINE);
     out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_VALIDATE).append(CLIConstants.DOUBLE_TAB)
       .append("Validate a SIP file").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SERVE).append(CLIConstants.DOUBLE_TAB)
+      .append("Start a local server that keeps the validator warm").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SUBMIT).append(CLIConstants.DOUBLE_TAB)
+      .append("Validate a SIP file in a running server").append(CLIConstants.END_OF_LINE);
 
     out.append(CLIConstants.END_OF_LINE);
 
@@ -46,6 +46,11 @@ public final class ExitCodes {
    */
   public static final int EXIT_CODE_CREATE_INVALID_PATHS = 4;
 
+  /**
+   * Exit code when the validation server cannot be started or reached.
+   */
+  public static final int EXIT_CODE_SERVER_UNAVAILABLE = 8;
+
   private ExitCodes() {
     // do nothing.
   }
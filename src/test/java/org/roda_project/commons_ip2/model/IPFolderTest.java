@@ -0,0 +1,181 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class IPFolderTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void internFolders() {
+    IPFolder folder = IPFolder.of(new ArrayList<>(Arrays.asList("a", "b")));
+    Assert.assertSame(folder, IPFolder.of(Arrays.asList("a", "b")));
+    Assert.assertSame(folder, IPFolder.ROOT.child("a").child("b"));
+    Assert.assertSame(folder, IPFolder.of(folder));
+    Assert.assertSame(IPFolder.ROOT, IPFolder.of(Collections.emptyList()));
+    Assert.assertNull(IPFolder.of(null));
+
+    Assert.assertEquals(Arrays.asList("a", "b"), folder);
+    Assert.assertEquals(Arrays.asList("a", "b").hashCode(), folder.hashCode());
+    Assert.assertThat(folder.getName(), Is.is("b"));
+    Assert.assertSame(IPFolder.of(Collections.singletonList("a")), folder.getParent());
+    Assert.assertThat(folder.getPath(), Is.is("a/b/"));
+    Assert.assertThat(ModelUtils.getFoldersFromList(folder), Is.is("a/b/"));
+    Assert.assertNull(IPFolder.ROOT.getName());
+    Assert.assertNull(IPFolder.ROOT.getParent());
+    Assert.assertThat(IPFolder.ROOT.getPath(), Is.is(""));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void foldersAreUnmodifiable() {
+    IPFolder.of(Arrays.asList("a", "b")).add("c");
+  }
+
+  @Test
+  public void deserializeInternedFolders() throws IOException, ClassNotFoundException {
+    IPFolder folder = IPFolder.of(Arrays.asList("a", "b"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(folder);
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Assert.assertSame(folder, input.readObject());
+    }
+  }
+
+  @Test
+  public void shareFoldersBetweenFiles() {
+    IPFile first = new IPFile(Paths.get("src/test/resources/data/data.txt"), new ArrayList<>(Arrays.asList("a", "b")));
+    IPFile second = new IPFile(Paths.get("src/test/resources/data/bike.gif"));
+    second.setRelativeFolders(Arrays.asList("a", "b"));
+    IPFileShallow shallow = new IPFileShallow(URI.create("file:///a/b/c.txt"), new FileType(),
+      first.getRelativeFolders());
+    Assert.assertSame(folder(first), folder(second));
+    Assert.assertSame(folder(first), folder(shallow));
+    Assert.assertEquals(Arrays.asList("a", "b"), first.getRelativeFolders());
+    Assert.assertThat(ModelUtils.getFoldersFromList(first.getRelativeFolders()), Is.is("a/b/"));
+    Assert.assertTrue(new IPFile(Paths.get("src/test/resources/data/data.txt")).getRelativeFolders().isEmpty());
+    Assert.assertNull(new IPFileShallow(URI.create("file:///c.txt"), new FileType()).getRelativeFolders());
+  }
+
+  @Test
+  public void keepOneViewPerFile() {
+    IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), Arrays.asList("a", "b"));
+    IPFileShallow shallow = new IPFileShallow(Arrays.asList("a", "b"));
+    Assert.assertSame(file.getRelativeFolders(), file.getRelativeFolders());
+    Assert.assertSame(shallow.getRelativeFolders(), shallow.getRelativeFolders());
+    file.setRelativeFolders(Collections.singletonList("c"));
+    Assert.assertEquals(Collections.singletonList("c"), file.getRelativeFolders());
+  }
+
+  @Test
+  public void deserializeFilesWithInternedFolders() throws IOException, ClassNotFoundException {
+    IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), Arrays.asList("a", "b"));
+    file.setChecksumAndAlgorithm("ABC", "SHA-256");
+    file.addKnownChecksum("MD5", "def");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(file);
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      IPFile copy = (IPFile) input.readObject();
+      Assert.assertSame(folder(file), folder(copy));
+      Assert.assertEquals(file.getPath().toAbsolutePath(), copy.getPath());
+      Assert.assertThat(copy.getChecksum(), Is.is("ABC"));
+      Assert.assertThat(copy.getChecksumAlgorithm(), Is.is("SHA-256"));
+      Assert.assertThat(copy.getKnownChecksums().get("MD5"), Is.is("DEF"));
+      Assert.assertTrue(copy.getRelatedTags().isEmpty());
+      copy.getRelativeFolders().add("c");
+      Assert.assertEquals(Arrays.asList("a", "b"), file.getRelativeFolders());
+    }
+  }
+
+  @Test
+  public void changeFoldersOfOneFile() {
+    IPFile first = new IPFile(Paths.get("src/test/resources/data/data.txt"), Arrays.asList("a", "b"));
+    IPFile second = new IPFile(Paths.get("src/test/resources/data/bike.gif"), Arrays.asList("a", "b"));
+    IPFileShallow shallow = new IPFileShallow(Arrays.asList("a", "b"));
+
+    List<String> folders = first.getRelativeFolders();
+    folders.add("c");
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), first.getRelativeFolders());
+    Assert.assertSame(IPFolder.of(Arrays.asList("a", "b", "c")), folder(first));
+    Assert.assertThat(ModelUtils.getFoldersFromList(first.getRelativeFolders()), Is.is("a/b/c/"));
+    folders.set(0, "d");
+    folders.remove(1);
+    Assert.assertEquals(Arrays.asList("d", "c"), first.getRelativeFolders());
+
+    shallow.getRelativeFolders().clear();
+    Assert.assertSame(IPFolder.ROOT, folder(shallow));
+
+    Assert.assertEquals(Arrays.asList("a", "b"), second.getRelativeFolders());
+    Assert.assertSame(IPFolder.of(Arrays.asList("a", "b")), folder(second));
+  }
+
+  @Test
+  public void shareRelativeFoldersBetweenFiles() throws IPException, ParseException, InterruptedException,
+    IOException {
+    IPFile first = new IPFile(Paths.get("src/test/resources/data/data.txt"), new ArrayList<>(Arrays.asList("a", "b")));
+    IPFile second = new IPFile(Paths.get("src/test/resources/data/bike.gif"), Arrays.asList("a", "b"));
+
+    SIP sip = new EARKSIP("SIP_FOLDERS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    representation.addFile(first);
+    representation.addFile(second);
+    Path zipSIP = sip.build(tempFolder);
+
+    SIP parsedSIP = EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "folders"));
+    Assert.assertTrue(parsedSIP.isValid());
+    List<IPFileInterface> data = parsedSIP.getRepresentations().get(0).getData();
+    Assert.assertThat(data.size(), Is.is(2));
+    Assert.assertSame(folder(first), folder(data.get(0)));
+    Assert.assertSame(folder(data.get(0)), folder(data.get(1)));
+    Assert.assertEquals(Arrays.asList("a", "b"), data.get(0).getRelativeFolders());
+  }
+
+  private static IPFolder folder(IPFileInterface file) {
+    return ((IPFolder.View) file.getRelativeFolders()).getFolder();
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.ChecksumMode;
+import org.roda_project.commons_ip2.model.FolderWriteMode;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.impl.BasicAIP;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKAIPHardLinksTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildFolderAIPWithHardLinks() throws IPException, InterruptedException, IOException, ParseException {
+    Path source = Files.createTempDirectory(tempFolder, "linked_source");
+    Path dataFile = Files.copy(Paths.get("src/test/resources/data/data.txt"), source.resolve("data.txt"));
+
+    AIP aip = new EARKAIP(new BasicAIP("AIP_LINKED", IPContentType.getMIXED()));
+    aip.setContentInformationType(IPContentInformationType.getMIXED());
+    aip.setFolderWriteMode(FolderWriteMode.HARD_LINK);
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    aip.addRepresentation(representation);
+    representation.addFile(new IPFile(dataFile));
+    Path aipPath = aip.build(Files.createTempDirectory(tempFolder, "linked"));
+
+    Path linked = aipPath.resolve("representations/representation 1/data/data.txt");
+    Assert.assertTrue(Files.isSameFile(dataFile, linked));
+    AIP parsedAIP = EARKAIP.parse(aipPath);
+    Assert.assertTrue(parsedAIP.isValid());
+
+    // the checksums recorded in the METS are trusted, so rebuilding the
+    // manifest does not read the data files
+    AIP updatedAIP = EARKAIP.parseForUpdate(aipPath);
+    updatedAIP.setChecksumMode(ChecksumMode.TRUST);
+    updatedAIP.getRepresentations().get(0).setDescription("updated").markAsModified();
+    Path updatedPath = updatedAIP.build(aipPath.getParent(), true);
+    Assert.assertTrue(Files.isSameFile(dataFile, linked));
+    Assert.assertTrue(EARKAIP.parse(updatedPath).isValid());
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.IPFutures;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKSIPAsyncTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildAndValidateAsynchronously() throws Exception {
+    SIP sip = new EARKSIP("SIP_ASYNC", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/data.txt")));
+    Path report = tempFolder.resolve("async.json");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Path asyncFolder = Files.createTempDirectory(tempFolder, "async");
+      CompletableFuture<Boolean> valid = IPFutures.build(sip, asyncFolder, executor)
+        .thenCompose(zipSIP -> IPFutures.validate(zipSIP, report, executor));
+      Assert.assertNotNull(valid.get(1, TimeUnit.MINUTES));
+      Assert.assertTrue(Files.size(report) > 0);
+
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch interrupted = new CountDownLatch(1);
+      CompletableFuture<Void> blocked = IPFutures.supplyInterruptibly(() -> {
+        started.countDown();
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        return null;
+      }, executor);
+      Assert.assertTrue(started.await(1, TimeUnit.MINUTES));
+      Assert.assertTrue(blocked.cancel(true));
+      Assert.assertTrue(interrupted.await(1, TimeUnit.MINUTES));
+      Assert.assertTrue(blocked.isCancelled());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
+import org.roda_project.commons_ip2.model.IPAgent;
+import org.roda_project.commons_ip2.model.IPAgentNoteTypeEnum;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.ValidationEntry;
+import org.roda_project.commons_ip2.utils.IDGenerator;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPConcurrencyTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void validateRepresentationsConcurrently() throws IPException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    Path zipSIP = EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder);
+
+    Path sequentialReport = tempFolder.resolve("sequential.json");
+    try (OutputStream outputStream = Files.newOutputStream(sequentialReport)) {
+      Assert.assertTrue(new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream)).validate());
+    }
+
+    Path concurrentReport = tempFolder.resolve("concurrent.json");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (OutputStream outputStream = Files.newOutputStream(concurrentReport)) {
+      EARKSIPValidator validator = new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream));
+      validator.setSubMetsExecutor(executor);
+      Assert.assertTrue(validator.validate());
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertEquals(EARKSIPTestUtils.withoutDates(sequentialReport),
+      EARKSIPTestUtils.withoutDates(concurrentReport));
+  }
+
+  @Test
+  public void validateRepresentationsWithDuplicateIdsConcurrently() throws IPException, InterruptedException,
+    IOException, ParserConfigurationException, SAXException {
+    SIP sip = new EARKSIP("SIP_DUPLICATE_IDS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addAgent(new IPAgent("Agent Name", "CREATOR", "", CreatorType.INDIVIDUAL, "OTHER TYPE", "",
+      IPAgentNoteTypeEnum.IDENTIFICATIONCODE));
+    for (int r = 0; r < 6; r++) {
+      IPRepresentation representation = new IPRepresentation("representation " + r);
+      sip.addRepresentation(representation);
+      representation.addFile(new IPFile(Paths.get("src/test/resources/data/data.txt"), "data.txt"));
+    }
+    // data files are identified by their name alone, so every representation
+    // uses the ids of the previous ones
+    sip.setIDGenerator((prefix, name) -> name == null ? IDGenerator.RANDOM.generate(prefix, null)
+      : prefix + UUID.nameUUIDFromBytes(Paths.get(name).getFileName().toString().getBytes(StandardCharsets.UTF_8)));
+    Path zipSIP = sip.build(Files.createTempDirectory(tempFolder, "duplicate_ids"));
+
+    Path sequentialReport = tempFolder.resolve("duplicate_sequential.json");
+    try (OutputStream outputStream = Files.newOutputStream(sequentialReport)) {
+      Assert.assertFalse(new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream)).validate());
+    }
+
+    Path concurrentReport = tempFolder.resolve("duplicate_concurrent.json");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (OutputStream outputStream = Files.newOutputStream(concurrentReport)) {
+      EARKSIPValidator validator = new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream));
+      validator.setSubMetsExecutor(executor);
+      Assert.assertFalse(validator.validate());
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertEquals(EARKSIPTestUtils.withoutDates(sequentialReport),
+      EARKSIPTestUtils.withoutDates(concurrentReport));
+  }
+
+  @Test
+  public void parseRepresentationsConcurrently() throws IPException, ParseException, InterruptedException,
+    IOException {
+    Path zipSIP = EARKSIPTestUtils.createFullEARKSIP(tempFolder);
+
+    SIP sequentialSIP = EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "sequential"));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    SIP concurrentSIP;
+    try {
+      concurrentSIP = EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "concurrent"), executor);
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertTrue(concurrentSIP.isValid());
+    Assert.assertEquals(sequentialSIP.getRepresentations().size(), concurrentSIP.getRepresentations().size());
+    for (int i = 0; i < sequentialSIP.getRepresentations().size(); i++) {
+      Assert.assertEquals(sequentialSIP.getRepresentations().get(i).getRepresentationID(),
+        concurrentSIP.getRepresentations().get(i).getRepresentationID());
+    }
+    Assert.assertEquals(sequentialSIP.getSchemas().size(), concurrentSIP.getSchemas().size());
+    List<ValidationEntry> sequentialEntries = sequentialSIP.getValidationReport().getValidationEntries();
+    List<ValidationEntry> concurrentEntries = concurrentSIP.getValidationReport().getValidationEntries();
+    Assert.assertEquals(sequentialEntries.size(), concurrentEntries.size());
+    for (int i = 0; i < sequentialEntries.size(); i++) {
+      Assert.assertEquals(sequentialEntries.get(i).getMessage(), concurrentEntries.get(i).getMessage());
+      Assert.assertEquals(sequentialEntries.get(i).getRelatedItem(), concurrentEntries.get(i).getRelatedItem());
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.ChecksumMode;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.utils.ZIPUtils;
+
+public class EARKSIPKnownChecksumsTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildEARKSIPWithKnownChecksums()
+    throws IPException, InterruptedException, IOException, ParseException, NoSuchAlgorithmException {
+    Path dataFile = Paths.get("src/test/resources/data/data.txt");
+    String sha256;
+    try (InputStream inputStream = Files.newInputStream(dataFile)) {
+      sha256 = ZIPUtils.calculateChecksums(Optional.empty(), inputStream,
+        Collections.singleton(IPConstants.CHECKSUM_ALGORITHM)).get(IPConstants.CHECKSUM_ALGORITHM);
+    }
+    String fakeSha256 = sha256.replace(sha256.charAt(0), sha256.charAt(0) == 'A' ? 'B' : 'A');
+
+    // trusted checksums are used as they are, without hashing the file
+    Path trusted = buildSIPWithKnownChecksum(ChecksumMode.TRUST, dataFile, "MD5", "0123456789abcdef", fakeSha256);
+    try (ZipFile zip = new ZipFile(trusted.toFile())) {
+      ZipEntry representationMets = zip.getEntry("SIP_KNOWN_CHECKSUMS/representations/representation 1/METS.xml");
+      String mets = IOUtils.toString(zip.getInputStream(representationMets), StandardCharsets.UTF_8);
+      Assert.assertTrue(mets.contains(fakeSha256));
+      Assert.assertFalse(mets.contains(sha256));
+    }
+
+    // verified checksums must match the calculated ones, in every algorithm
+    try {
+      buildSIPWithKnownChecksum(ChecksumMode.VERIFY, dataFile, IPConstants.CHECKSUM_ALGORITHM, fakeSha256, sha256);
+      Assert.fail("A wrong known checksum should fail the build");
+    } catch (IPException e) {
+      Assert.assertTrue(e.getMessage().contains(fakeSha256));
+    }
+    Path verified = buildSIPWithKnownChecksum(ChecksumMode.VERIFY, dataFile, IPConstants.CHECKSUM_ALGORITHM,
+      sha256.toLowerCase(), sha256);
+    SIP parsedSIP = EARKSIP.parse(verified, Files.createTempDirectory(tempFolder, "known"));
+    Assert.assertTrue(parsedSIP.isValid());
+    Assert.assertEquals(sha256, ((IPFile) parsedSIP.getRepresentations().get(0).getData().get(0)).getChecksum());
+
+    // computed checksums ignore the known ones
+    buildSIPWithKnownChecksum(ChecksumMode.COMPUTE, dataFile, "MD5", "0123456789abcdef", fakeSha256);
+  }
+
+  private Path buildSIPWithKnownChecksum(ChecksumMode mode, Path dataFile, String algorithm, String checksum,
+    String sha256) throws IPException, InterruptedException, IOException {
+    SIP sip = new EARKSIP("SIP_KNOWN_CHECKSUMS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.setChecksumMode(mode);
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    IPFile file = new IPFile(dataFile);
+    file.addKnownChecksum(IPConstants.CHECKSUM_ALGORITHM, sha256);
+    file.addKnownChecksum(algorithm, checksum);
+    representation.addFile(file);
+    return sip.build(Files.createTempDirectory(tempFolder, "known"));
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.SIPBuildPhase;
+import org.roda_project.commons_ip2.model.SIPBuildProgress;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKSIPProgressTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildEARKSIPReportsByteProgress()
+    throws IPException, InterruptedException, IOException, ParseException {
+    SIP sip = new EARKSIP("SIP_PROGRESS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/bike.gif")));
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/data.txt")));
+
+    RecordingSIPObserver observer = new RecordingSIPObserver();
+    sip.addObserver(observer);
+    Path zipSIP = sip.build(tempFolder);
+
+    List<SIPBuildProgress> progress = observer.getProgress();
+    Map<SIPBuildPhase, Long> timings = observer.getTimings();
+
+    Assert.assertFalse(observer.getPackagedFiles().isEmpty());
+    Assert.assertFalse(progress.isEmpty());
+    SIPBuildProgress last = progress.get(progress.size() - 1);
+    Assert.assertEquals(last.getTotalBytes(), last.getBytesProcessed());
+    Assert.assertTrue(last.getTotalBytes() > Files.size(Paths.get("src/test/resources/data/bike.gif"))
+      + Files.size(Paths.get("src/test/resources/data/data.txt")));
+    Assert.assertEquals(IPConstants.METS_FILE, last.getCurrentEntry());
+    Assert.assertEquals(0, last.getEtaNanos());
+    for (int i = 1; i < progress.size(); i++) {
+      Assert.assertTrue(progress.get(i).getBytesProcessed() >= progress.get(i - 1).getBytesProcessed());
+    }
+    Assert.assertEquals(SIPBuildPhase.values().length, timings.size());
+    Assert.assertTrue(timings.get(SIPBuildPhase.HASHING) > 0);
+    Assert.assertTrue(timings.get(SIPBuildPhase.METS_GENERATION) > 0);
+    Assert.assertTrue(EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "progress")).isValid());
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
+import org.roda_project.commons_ip2.model.IPAgent;
+import org.roda_project.commons_ip2.model.IPAgentNoteTypeEnum;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.IPFutures;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPReproducibleTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildReproducibleEARKSIP() throws IPException, ParseException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    Date buildTime = new Date(1700000000000L);
+    Path first = createReproducibleEARKSIP(buildTime, Files.createTempDirectory(tempFolder, "reproducible"));
+    Path second = createReproducibleEARKSIP(buildTime, Files.createTempDirectory(tempFolder, "reproducible"));
+    Assert.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    Assert.assertTrue(EARKSIP.parse(first, Files.createTempDirectory(tempFolder, "reproducible")).isValid());
+    try (OutputStream outputStream = Files.newOutputStream(tempFolder.resolve("reproducible.json"))) {
+      Assert.assertTrue(new EARKSIPValidator(new ValidationReportOutputJson(first, outputStream)).validate());
+    }
+
+    Path other = createReproducibleEARKSIP(new Date(1800000000000L),
+      Files.createTempDirectory(tempFolder, "reproducible"));
+    Assert.assertFalse(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(other)));
+  }
+
+  @Test
+  public void buildReproducibleEARKSIPConcurrently() throws Exception {
+    Date buildTime = new Date(1700000000000L);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      // both built at the same time, their files probed by the shared pool
+      List<CompletableFuture<Path>> builds = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        Path destination = Files.createTempDirectory(tempFolder, "reproducible");
+        builds.add(IPFutures.supplyInterruptibly(() -> createReproducibleEARKSIP(buildTime, destination, 300),
+          executor));
+      }
+      Path first = builds.get(0).get(1, TimeUnit.MINUTES);
+      Assert.assertArrayEquals(Files.readAllBytes(first),
+        Files.readAllBytes(builds.get(1).get(1, TimeUnit.MINUTES)));
+
+      // parsed with the representations on the pool, and built again
+      List<Path> rebuilds = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        SIP parsed = EARKSIP.parse(first, Files.createTempDirectory(tempFolder, "reproducible"), executor);
+        parsed.setReproducibleBuild(buildTime);
+        rebuilds.add(parsed.build(Files.createTempDirectory(tempFolder, "reproducible")));
+      }
+      Assert.assertArrayEquals(Files.readAllBytes(rebuilds.get(0)), Files.readAllBytes(rebuilds.get(1)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Path createReproducibleEARKSIP(Date buildTime, Path destination) throws IPException, InterruptedException {
+    return createReproducibleEARKSIP(buildTime, destination, 10);
+  }
+
+  private Path createReproducibleEARKSIP(Date buildTime, Path destination, int files)
+    throws IPException, InterruptedException {
+    SIP sip = new EARKSIP("SIP_REPRODUCIBLE", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addAgent(new IPAgent("Agent Name", "CREATOR", "", CreatorType.INDIVIDUAL, "OTHER TYPE", "",
+      IPAgentNoteTypeEnum.IDENTIFICATIONCODE));
+    sip.addDescriptiveMetadata(new IPDescriptiveMetadata("metadata_dc",
+      new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+      new MetadataType(MetadataTypeEnum.DC), null));
+    // both representations have the same file names, which must not give the same ids
+    for (String representationId : Arrays.asList("representation 1", "representation 2")) {
+      IPRepresentation representation = new IPRepresentation(representationId);
+      sip.addRepresentation(representation);
+      for (int i = 0; i < files; i++) {
+        IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), "data_" + i + ".txt");
+        file.setRelativeFolders(Arrays.asList("folder " + (i % 2)));
+        representation.addFile(file);
+      }
+    }
+    sip.setReproducibleBuild(buildTime);
+    return sip.build(destination);
+  }
+}
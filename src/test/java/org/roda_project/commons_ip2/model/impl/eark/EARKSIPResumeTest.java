@@ -0,0 +1,128 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
+import org.roda_project.commons_ip2.model.IPAgent;
+import org.roda_project.commons_ip2.model.IPAgentNoteTypeEnum;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.PackageContainer;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPResumeTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void resumeInterruptedBuild() throws IPException, ParseException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    for (PackageContainer container : Arrays.asList(PackageContainer.ZIP, PackageContainer.TAR)) {
+      Path destination = Files.createTempDirectory(tempFolder, "resumable");
+      Path source = Files.createTempDirectory(tempFolder, "resumable_source");
+      Path bike = Paths.get("src/test/resources/data/bike.gif");
+      for (int i = 0; i < 4; i++) {
+        Files.copy(bike, source.resolve("bike_" + i + ".gif"));
+      }
+      Files.copy(Paths.get("src/test/resources/data/data.txt"), source.resolve("data.txt"));
+
+      // the build is interrupted once the descriptive metadata and two data
+      // files are written
+      SIP sip = createResumableSIP(source, container);
+      sip.addObserver(new RecordingSIPObserver().interruptAfter(3));
+      try {
+        sip.build(destination);
+        Assert.fail("The build should have been interrupted");
+      } catch (InterruptedException e) {
+        // expected
+      }
+      Path packagePath = destination.resolve("SIP_RESUMABLE" + container.getFileExtension());
+      Path journal = destination.resolve(packagePath.getFileName() + ".journal");
+      Assert.assertTrue(Files.exists(packagePath));
+      Assert.assertTrue(Files.exists(journal));
+
+      // a data file already in the package is changed without changing its size
+      // and modification time, so it is kept as it was
+      Path kept = source.resolve("bike_0.gif");
+      FileTime modified = Files.getLastModifiedTime(kept);
+      byte[] changed = Files.readAllBytes(kept);
+      changed[changed.length - 1] ^= 1;
+      Files.write(kept, changed);
+      Files.setLastModifiedTime(kept, modified);
+
+      Assert.assertEquals(packagePath, createResumableSIP(source, container).build(destination));
+      Assert.assertFalse(Files.exists(journal));
+
+      Path parsed = Files.createTempDirectory(tempFolder, "resumable_parse");
+      SIP parsedSIP = EARKSIP.parse(packagePath, parsed);
+      Assert.assertTrue(parsedSIP.isValid());
+      Assert.assertThat(parsedSIP.getRepresentations().get(0).getData().size(), Is.is(5));
+      Assert.assertArrayEquals(Files.readAllBytes(bike),
+        Files.readAllBytes(parsed.resolve("SIP_RESUMABLE/representations/representation 1/data/bike_0.gif")));
+
+      Path report = tempFolder.resolve("resumable.json");
+      try (OutputStream outputStream = Files.newOutputStream(report)) {
+        Assert.assertTrue(new EARKSIPValidator(new ValidationReportOutputJson(packagePath, outputStream)).validate());
+      }
+    }
+  }
+
+  private SIP createResumableSIP(Path source, PackageContainer container) throws IPException {
+    SIP sip = new EARKSIP("SIP_RESUMABLE", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addAgent(new IPAgent("Agent Name", "CREATOR", "", CreatorType.INDIVIDUAL, "OTHER TYPE", "",
+      IPAgentNoteTypeEnum.IDENTIFICATIONCODE));
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    for (int i = 0; i < 4; i++) {
+      representation.addFile(new IPFile(source.resolve("bike_" + i + ".gif")));
+    }
+    representation.addFile(new IPFile(source.resolve("data.txt")));
+    sip.setPackageContainer(container);
+    sip.setResumableBuild(true);
+    return sip;
+  }
+}
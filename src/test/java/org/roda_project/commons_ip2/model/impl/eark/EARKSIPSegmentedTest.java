@@ -0,0 +1,110 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
+import org.roda_project.commons_ip2.model.IPAgent;
+import org.roda_project.commons_ip2.model.IPAgentNoteTypeEnum;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.IPFutures;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKSIPSegmentedTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildAndParseSegmentedEARKSIP() throws Exception {
+    SIP sip = new EARKSIP("SIP_SEGMENTED", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addAgent(new IPAgent("Agent Name", "CREATOR", "", CreatorType.INDIVIDUAL, "OTHER TYPE", "",
+      IPAgentNoteTypeEnum.IDENTIFICATIONCODE));
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    Path bike = Paths.get("src/test/resources/data/bike.gif");
+    for (int r = 1; r <= 2; r++) {
+      IPRepresentation representation = new IPRepresentation("representation " + r);
+      sip.addRepresentation(representation);
+      for (int i = 0; i < 3; i++) {
+        representation.addFile(new IPFile(bike, "bike_" + i + ".gif"));
+      }
+    }
+
+    // two files per segment (plus the metadata), so the first representation is
+    // split between the parent and the first child
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Path destination = Files.createTempDirectory(tempFolder, "segmented");
+      List<Path> segments = ((EARKSIP) sip).buildSegmented(destination, 2 * Files.size(bike) + 10_000,
+        executor);
+      Assert.assertThat(segments.size(), Is.is(3));
+      Assert.assertEquals(segments.get(0), EARKSIP.checkSegments(segments));
+
+      List<Path> reversed = new ArrayList<>(segments);
+      Collections.reverse(reversed);
+      SIP parsedSIP = EARKSIP.parseSegmented(reversed, Files.createTempDirectory(tempFolder, "segmented_parse"));
+      Assert.assertTrue(parsedSIP.isValid());
+      Assert.assertEquals("SIP_SEGMENTED", parsedSIP.getId());
+      Assert.assertThat(parsedSIP.getDescriptiveMetadata().size(), Is.is(1));
+      Assert.assertThat(parsedSIP.getRepresentations().size(), Is.is(2));
+      for (IPRepresentation representation : parsedSIP.getRepresentations()) {
+        Assert.assertThat(representation.getData().size(), Is.is(3));
+      }
+
+      Path reports = Files.createTempDirectory(tempFolder, "segmented_reports");
+      Assert.assertTrue(IPFutures.validateSegmented(segments, reports, executor).get(1, TimeUnit.MINUTES));
+      for (Path segment : segments) {
+        Assert.assertTrue(Files.size(reports.resolve(segment.getFileName() + ".json")) > 0);
+      }
+      try {
+        EARKSIP.checkSegments(segments.subList(1, segments.size()));
+        Assert.fail("Segments without their parent should not be linked");
+      } catch (ParseException e) {
+        // expected
+      }
+      Assert.assertFalse(
+        IPFutures.validateSegmented(segments.subList(1, segments.size()), reports, executor).get(1, TimeUnit.MINUTES));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
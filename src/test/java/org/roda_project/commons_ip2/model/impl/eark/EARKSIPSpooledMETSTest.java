@@ -0,0 +1,70 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKSIPSpooledMETSTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildEARKSIPWithSpooledRepresentationMETS()
+    throws IPException, InterruptedException, IOException, ParseException {
+    SIP sip = new EARKSIP("SIP_SPOOLED", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    for (int i = 0; i < 50; i++) {
+      IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), "data_" + i + ".txt");
+      file.setRelativeFolders(Arrays.asList("folder " + (i % 3), "sub&folder"));
+      representation.addFile(file);
+    }
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/bike.gif")));
+
+    Path zipSIP = sip.build(tempFolder);
+
+    SIP parsedSIP = EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "spooled"));
+    Assert.assertTrue(parsedSIP.isValid());
+    List<IPFileInterface> data = parsedSIP.getRepresentations().get(0).getData();
+    Assert.assertThat(data.size(), Is.is(51));
+    Assert.assertThat(data.get(50).getFileName(), Is.is("bike.gif"));
+    for (IPFileInterface file : data) {
+      Assert.assertNotNull(((IPFile) file).getChecksum());
+    }
+  }
+}
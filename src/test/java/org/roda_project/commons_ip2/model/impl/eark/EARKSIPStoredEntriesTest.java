@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.Utils;
+
+public class EARKSIPStoredEntriesTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildEARKSIPStoresAlreadyCompressedFiles()
+    throws IPException, InterruptedException, IOException, ParseException {
+    SIP sip = new EARKSIP("SIP_STORED", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/bike.gif")));
+    representation.addFile(new IPFile(Paths.get("src/test/resources/data/data.txt")));
+    // bigger than what is stored reading the file only once
+    Path bigGif = Files.createTempDirectory(tempFolder, "stored").resolve("big.gif");
+    byte[] bike = Files.readAllBytes(Paths.get("src/test/resources/data/bike.gif"));
+    try (OutputStream outputStream = Files.newOutputStream(bigGif)) {
+      for (long written = 0; written <= 2 * 1024 * 1024; written += bike.length) {
+        outputStream.write(bike);
+      }
+    }
+    representation.addFile(new IPFile(bigGif));
+
+    Path zipSIP = sip.build(tempFolder);
+
+    try (ZipFile zipFile = new ZipFile(zipSIP.toFile())) {
+      ZipEntry gif = zipFile.getEntry("SIP_STORED/representations/representation 1/data/bike.gif");
+      Assert.assertThat(gif.getMethod(), Is.is(ZipEntry.STORED));
+      Assert.assertThat(gif.getSize(), Is.is(Files.size(Paths.get("src/test/resources/data/bike.gif"))));
+      ZipEntry big = zipFile.getEntry("SIP_STORED/representations/representation 1/data/big.gif");
+      Assert.assertThat(big.getMethod(), Is.is(ZipEntry.STORED));
+      Assert.assertThat(big.getSize(), Is.is(Files.size(bigGif)));
+      try (InputStream inputStream = zipFile.getInputStream(big)) {
+        // fails if the CRC does not match the content
+        Assert.assertThat(IOUtils.toByteArray(inputStream).length, Is.is((int) Files.size(bigGif)));
+      }
+      ZipEntry txt = zipFile.getEntry("SIP_STORED/representations/representation 1/data/data.txt");
+      Assert.assertThat(txt.getMethod(), Is.is(ZipEntry.DEFLATED));
+      ZipEntry mets = zipFile.getEntry("SIP_STORED/METS.xml");
+      Assert.assertThat(mets.getMethod(), Is.is(ZipEntry.DEFLATED));
+    }
+
+    SIP parsedSIP = EARKSIP.parse(zipSIP, Files.createTempDirectory(tempFolder, "stored"));
+    Assert.assertTrue(parsedSIP.isValid());
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.utils.PackageContainer;
+import org.roda_project.commons_ip2.utils.TarPackageContainer;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPTarTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void buildParseAndValidateEARKSIPInTar() throws IPException, ParseException, InterruptedException,
+    IOException, ParserConfigurationException, SAXException {
+    for (PackageContainer container : Arrays.asList(PackageContainer.TAR, TarPackageContainer.gzip(2))) {
+      Path tarSIP = EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder, container);
+      Assert.assertTrue(tarSIP.getFileName().toString().endsWith(container.getFileExtension()));
+      Assert.assertSame(PackageContainer.TAR, PackageContainer.of(tarSIP));
+      EARKSIPTestUtils.parseAndValidateFullEARKSIP(tarSIP, tempFolder);
+
+      Path report = tempFolder.resolve("tar.json");
+      try (OutputStream outputStream = Files.newOutputStream(report)) {
+        Assert.assertTrue(new EARKSIPValidator(new ValidationReportOutputJson(tarSIP, outputStream)).validate());
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class EARKSIPUpdateTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EARKSIPUpdateTest.class);
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void updateEARKSIPMetadataOnly() throws IPException, ParseException, InterruptedException, IOException {
+    Path zipSIP = EARKSIPTestUtils.createFullEARKSIP(tempFolder);
+
+    SIP sip = EARKSIP.parseForUpdate(zipSIP, Files.createTempDirectory(tempFolder, "update"));
+    Assert.assertTrue(sip.isValid());
+    for (IPRepresentation representation : sip.getRepresentations()) {
+      Assert.assertTrue(representation.getSourceMetsPath().isPresent());
+    }
+
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_ead2002.xml")),
+        new MetadataType(MetadataTypeEnum.EAD), "2002"));
+    // changing the lists of a representation directly also marks it as modified
+    sip.getRepresentations().get(1).getData().add(new IPFile(Paths.get("src/test/resources/data/data.txt")));
+    Assert.assertFalse(sip.getRepresentations().get(1).getSourceMetsPath().isPresent());
+    Assert.assertTrue(sip.getRepresentations().get(0).getSourceMetsPath().isPresent());
+
+    Path updatedZipSIP = sip.build(Files.createTempDirectory(tempFolder, "updated"));
+
+    SIP updatedSIP = EARKSIP.parse(updatedZipSIP, Files.createTempDirectory(tempFolder, "parse"));
+    updatedSIP.getValidationReport().getValidationEntries().stream().filter(e -> e.getLevel() == LEVEL.ERROR)
+      .forEach(e -> LOGGER.error("Validation report entry: {}", e));
+    Assert.assertTrue(updatedSIP.isValid());
+    Assert.assertThat(updatedSIP.getDescriptiveMetadata().size(), Is.is(2));
+    Assert.assertThat(updatedSIP.getRepresentations().size(), Is.is(2));
+    Assert.assertThat(updatedSIP.getRepresentations().get(0).getData().size(),
+      Is.is(sip.getRepresentations().get(0).getData().size()));
+    Assert.assertThat(updatedSIP.getRepresentations().get(1).getData().size(), Is.is(2));
+    Assert.assertThat(updatedSIP.getSchemas().size(), Is.is(sip.getSchemas().size()));
+  }
+}
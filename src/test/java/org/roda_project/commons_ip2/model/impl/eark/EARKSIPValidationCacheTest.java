@@ -0,0 +1,114 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.utils.PackageContainer;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.cache.CachedValidation;
+import org.roda_project.commons_ip2.validator.cache.FileValidationCache;
+import org.roda_project.commons_ip2.validator.cache.PackageFingerprint;
+import org.roda_project.commons_ip2.validator.cache.ValidationCache;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPValidationCacheTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void validateFromCache() throws IPException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    Path zipSIP = EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder);
+    FileValidationCache files = new FileValidationCache(tempFolder.resolve("cache"));
+    AtomicInteger hits = new AtomicInteger();
+    ValidationCache cache = new ValidationCache() {
+      @Override
+      public CachedValidation get(String key) {
+        CachedValidation cached = files.get(key);
+        if (cached != null) {
+          hits.incrementAndGet();
+        }
+        return cached;
+      }
+
+      @Override
+      public void put(String key, CachedValidation validation) {
+        files.put(key, validation);
+      }
+    };
+
+    List<String> reports = new ArrayList<>();
+    for (boolean strict : new boolean[] {false, false, true}) {
+      Path report = tempFolder.resolve("cached" + reports.size() + ".json");
+      try (OutputStream outputStream = Files.newOutputStream(report)) {
+        EARKSIPValidator validator = new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream));
+        validator.setValidationCache(cache, PackageFingerprint.Mode.METADATA);
+        validator.setStrict(strict);
+        Assert.assertTrue(validator.validate());
+      }
+      reports.add(EARKSIPTestUtils.withoutDates(report));
+    }
+
+    Assert.assertEquals(1, hits.get());
+    Assert.assertEquals(reports.get(0), reports.get(1));
+    Assert.assertEquals(reports.get(0), reports.get(2));
+  }
+
+  @Test
+  public void validateTarAndDamagedZipFromCache() throws IPException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    Path tarSIP = EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder, PackageContainer.TAR);
+    Path damagedSIP = tempFolder.resolve("damaged.zip");
+    byte[] zip = Files.readAllBytes(EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder));
+    // lost its local header signature and its end of central directory
+    Arrays.fill(zip, 0, 4, (byte) 0);
+    Files.write(damagedSIP, Arrays.copyOf(zip, zip.length / 2));
+    ValidationCache cache = new FileValidationCache(tempFolder.resolve("cache"));
+
+    for (Path sip : Arrays.asList(tarSIP, damagedSIP)) {
+      boolean uncached;
+      try (OutputStream outputStream = Files.newOutputStream(tempFolder.resolve("uncached.json"))) {
+        uncached = new EARKSIPValidator(new ValidationReportOutputJson(sip, outputStream)).validate();
+      }
+      Assert.assertEquals(sip == tarSIP, uncached);
+      for (int run = 0; run < 2; run++) {
+        try (OutputStream outputStream = Files.newOutputStream(tempFolder.resolve("cached.json"))) {
+          EARKSIPValidator validator = new EARKSIPValidator(new ValidationReportOutputJson(sip, outputStream));
+          validator.setValidationCache(cache, PackageFingerprint.Mode.METADATA);
+          Assert.assertEquals(uncached, validator.validate());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.observer.MetricsCollector;
+import org.roda_project.commons_ip2.validator.observer.StepMetrics;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+public class EARKSIPValidationMetricsTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void collectValidationMetrics() throws IPException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    Path zipSIP = EARKSIPTestUtils.createFullEARKSIP_For_Test_Compliance(tempFolder);
+    MetricsCollector collector = new MetricsCollector();
+    for (int run = 0; run < 2; run++) {
+      try (OutputStream outputStream = Files.newOutputStream(tempFolder.resolve("metrics" + run + ".json"))) {
+        EARKSIPValidator validator = new EARKSIPValidator(new ValidationReportOutputJson(zipSIP, outputStream));
+        validator.addObserver(collector);
+        Assert.assertTrue(validator.validate());
+      }
+    }
+
+    Assert.assertEquals(2, collector.getRuns());
+    Assert.assertTrue(collector.getRequirementIds().contains("CSIP1"));
+    StepMetrics checksums = collector.getTotals("CSIP71");
+    Assert.assertNotNull(checksums);
+    Assert.assertTrue(checksums.getBytesHashed() > 0);
+    Assert.assertTrue(checksums.getMetsElementsVisited() > 0);
+
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    collector.writeJson(json);
+    String metrics = new String(json.toByteArray(), StandardCharsets.UTF_8);
+    Assert.assertTrue(metrics.contains("\"id\" : \"CSIP71\""));
+    Assert.assertTrue(metrics.contains("\"metsParses\""));
+    Assert.assertTrue(metrics.contains("\"histogram\""));
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roda_project.commons_ip2.model.SIPBuildPhase;
+import org.roda_project.commons_ip2.model.SIPBuildProgress;
+import org.roda_project.commons_ip2.model.SIPObserver;
+
+/**
+ * {@link SIPObserver} keeping what it is told while packaging, which may also
+ * interrupt the build once a number of files are packaged.
+ */
+class RecordingSIPObserver implements SIPObserver {
+  private final List<Integer> packagedFiles = new ArrayList<>();
+  private final List<SIPBuildProgress> progress = new ArrayList<>();
+  private final Map<SIPBuildPhase, Long> timings = new EnumMap<>(SIPBuildPhase.class);
+  private int interruptAfterFiles = -1;
+
+  /**
+   * Interrupts the building thread once the given number of files is packaged.
+   */
+  RecordingSIPObserver interruptAfter(int numberOfFiles) {
+    this.interruptAfterFiles = numberOfFiles;
+    return this;
+  }
+
+  List<Integer> getPackagedFiles() {
+    return packagedFiles;
+  }
+
+  List<SIPBuildProgress> getProgress() {
+    return progress;
+  }
+
+  Map<SIPBuildPhase, Long> getTimings() {
+    return timings;
+  }
+
+  @Override
+  public void sipBuildRepresentationsProcessingStarted(int totalNumberOfRepresentations) {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildRepresentationProcessingStarted(int totalNumberOfFiles) {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildRepresentationProcessingCurrentStatus(int numberOfFilesAlreadyProcessed) {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildRepresentationProcessingEnded() {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildRepresentationsProcessingEnded() {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildPackagingStarted(int totalNumberOfFiles) {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildPackagingCurrentStatus(int numberOfFilesAlreadyProcessed) {
+    packagedFiles.add(numberOfFilesAlreadyProcessed);
+    if (numberOfFilesAlreadyProcessed == interruptAfterFiles) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void sipBuildPackagingEnded() {
+    // not recorded
+  }
+
+  @Override
+  public void sipBuildPackagingProgress(SIPBuildProgress current) {
+    progress.add(current);
+  }
+
+  @Override
+  public void sipBuildPhaseTimings(Map<SIPBuildPhase, Long> nanosByPhase) {
+    timings.putAll(nanosByPhase);
+  }
+}
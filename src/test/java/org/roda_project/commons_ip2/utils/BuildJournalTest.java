@@ -0,0 +1,182 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+
+public class BuildJournalTest {
+  private static final List<String> NAMES = Arrays.asList("a.txt", "b.txt");
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void keepJournaledEntries() throws IOException {
+    Path folder = Files.createDirectory(tempFolder.resolve("kept"));
+    List<ZipEntryInfo> entries = createEntries(folder);
+    Path packagePath = folder.resolve("package.zip");
+    Path journalPath = folder.resolve("package.zip" + BuildJournal.JOURNAL_EXTENSION);
+
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(0));
+      Assert.assertThat(journal.position(), Is.is(0L));
+      Assert.assertTrue(Files.exists(journalPath));
+      writeEntries(journal, entries, 0);
+      // the package is written past the journaled entries
+      journal.getOutput().write("trailer".getBytes(StandardCharsets.UTF_8));
+    }
+    Assert.assertThat(Files.size(packagePath), Is.is(15L));
+
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(2));
+      Assert.assertThat(journal.position(), Is.is(8L));
+      Assert.assertThat(Files.size(packagePath), Is.is(8L));
+      BuildJournal.Record record = journal.getRecords().get(1);
+      Assert.assertThat(record.getName(), Is.is("b.txt"));
+      Assert.assertThat(record.getOffset(), Is.is(3L));
+      Assert.assertThat(record.getEnd(), Is.is(8L));
+      Assert.assertThat(record.getSize(), Is.is(5L));
+      Assert.assertThat(record.getChecksums(), Is.is(checksums("b.txt")));
+    }
+    Assert.assertThat(new String(Files.readAllBytes(packagePath), StandardCharsets.UTF_8), Is.is("aaabbbbb"));
+
+    // entries in another order are not kept
+    try (BuildJournal journal = BuildJournal.open(packagePath, Arrays.asList("b.txt", "a.txt"),
+      Arrays.asList(entries.get(1), entries.get(0)))) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(0));
+      Assert.assertThat(Files.size(packagePath), Is.is(0L));
+    }
+  }
+
+  @Test
+  public void dropEntriesOfChangedSources() throws IOException {
+    Path folder = Files.createDirectory(tempFolder.resolve("changed"));
+    List<ZipEntryInfo> entries = createEntries(folder);
+    Path packagePath = folder.resolve("package.zip");
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      writeEntries(journal, entries, 0);
+    }
+
+    Files.write(entries.get(1).getFilePath(), "bbbbbb".getBytes(StandardCharsets.UTF_8));
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(1));
+      Assert.assertThat(journal.position(), Is.is(3L));
+      Assert.assertThat(Files.size(packagePath), Is.is(3L));
+    }
+
+    Files.delete(entries.get(0).getFilePath());
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(0));
+    }
+  }
+
+  @Test
+  public void ignoreDamagedJournals() throws IOException {
+    Path folder = Files.createDirectory(tempFolder.resolve("damaged"));
+    List<ZipEntryInfo> entries = createEntries(folder);
+    Path packagePath = folder.resolve("package.zip");
+    Path journalPath = folder.resolve("package.zip" + BuildJournal.JOURNAL_EXTENSION);
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      writeEntries(journal, entries, 0);
+    }
+
+    // a record that does not match its CRC
+    Files.write(journalPath, new byte[] {0, 0, 0, 4, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12},
+      StandardOpenOption.APPEND);
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(2));
+    }
+
+    // the last record torn
+    try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 5);
+    }
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(1));
+      writeEntries(journal, entries, 1);
+    }
+
+    // not a journal
+    Files.write(journalPath, "not a journal".getBytes(StandardCharsets.UTF_8));
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      Assert.assertThat(journal.getKeptEntries(), Is.is(0));
+      Assert.assertThat(Files.size(packagePath), Is.is(0L));
+    }
+  }
+
+  @Test
+  public void deleteJournalWhenFinished() throws IOException {
+    Path folder = Files.createDirectory(tempFolder.resolve("finished"));
+    List<ZipEntryInfo> entries = createEntries(folder);
+    Path packagePath = folder.resolve("package.zip");
+    try (BuildJournal journal = BuildJournal.open(packagePath, NAMES, entries)) {
+      writeEntries(journal, entries, 0);
+      journal.truncate(3);
+      Assert.assertThat(journal.position(), Is.is(3L));
+      journal.getOutput().write("ccc".getBytes(StandardCharsets.UTF_8));
+      journal.finish();
+    }
+    Assert.assertFalse(Files.exists(folder.resolve("package.zip" + BuildJournal.JOURNAL_EXTENSION)));
+    Assert.assertThat(new String(Files.readAllBytes(packagePath), StandardCharsets.UTF_8), Is.is("aaaccc"));
+  }
+
+  private static List<ZipEntryInfo> createEntries(Path folder) throws IOException {
+    List<ZipEntryInfo> entries = new ArrayList<>();
+    for (String name : NAMES) {
+      String content = name.equals("a.txt") ? "aaa" : "bbbbb";
+      Path source = Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+      entries.add(new FileZipEntryInfo(name, source));
+    }
+    return entries;
+  }
+
+  private static void writeEntries(BuildJournal journal, List<ZipEntryInfo> entries, int from) throws IOException {
+    for (int i = from; i < entries.size(); i++) {
+      ZipEntryInfo entry = entries.get(i);
+      long offset = journal.position();
+      try (OutputStream output = journal.getOutput()) {
+        Files.copy(entry.getFilePath(), output);
+      }
+      long size = Files.size(entry.getFilePath());
+      journal.add(new BuildJournal.Record(entry.getName(), offset, journal.position(), entry, size,
+        checksums(entry.getName()), 0, size));
+    }
+  }
+
+  private static Map<String, String> checksums(String name) {
+    return Collections.singletonMap("SHA-256", name.toUpperCase());
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+
+public class FileAttributesCollectorTest {
+
+  @Test
+  public void collectFileAttributesInBatches() throws IPException, InterruptedException, IOException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      files.add(Paths.get(i % 2 == 0 ? "src/test/resources/data/data.txt" : "src/test/resources/data/bike.gif"));
+    }
+    files.add(Paths.get("src/test/resources/data/missing.txt"));
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try (FileAttributesCollector collector = new FileAttributesCollector(files.iterator(), executor, 3)) {
+      FileAttributesCollector.FileAttributes first = null;
+      for (int i = 0; i < 300; i++) {
+        FileAttributesCollector.FileAttributes attributes = collector.next();
+        Assert.assertThat(attributes.getSize(), Is.is(Files.size(files.get(i))));
+        Assert.assertThat(attributes.getMimetype(), Is.is(METSUtils.getFileMimetype(files.get(i))));
+        if (first == null) {
+          first = attributes;
+        }
+        Assert.assertEquals(first.getCreated(), attributes.getCreated());
+        Assert.assertNotSame(first.getCreated(), attributes.getCreated());
+        Assert.assertThat(attributes.getCreatedMillis(),
+          Is.is(first.getCreated().toGregorianCalendar().getTimeInMillis()));
+      }
+      try {
+        collector.next();
+        Assert.fail("Missing file should not have attributes");
+      } catch (IPException e) {
+        // expected
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void collectFileAttributesWithSharedThreads() throws IPException, InterruptedException, IOException {
+    Path file = Paths.get("src/test/resources/data/data.txt");
+    try (FileAttributesCollector collector = new FileAttributesCollector(Arrays.asList(file, file).iterator())) {
+      Assert.assertThat(collector.next().getSize(), Is.is(Files.size(file)));
+      Assert.assertThat(collector.next().getSize(), Is.is(Files.size(file)));
+      try {
+        collector.next();
+        Assert.fail("There should be no more files");
+      } catch (IllegalStateException e) {
+        // expected
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IDGeneratorTest {
+
+  @Test
+  public void generateThreadLocalRandomUUIDs() {
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      String id = IDGenerator.THREAD_LOCAL_RANDOM.generate("uuid-", null);
+      UUID uuid = UUID.fromString(id.substring("uuid-".length()));
+      Assert.assertThat(uuid.version(), Is.is(4));
+      Assert.assertThat(uuid.variant(), Is.is(2));
+      ids.add(id);
+    }
+    Assert.assertThat(ids.size(), Is.is(1000));
+  }
+
+  @Test
+  public void generateNameBasedUUIDs() {
+    IDGenerator first = IDGenerator.nameBased("SIP_1");
+    IDGenerator second = IDGenerator.nameBased("SIP_1");
+    Assert.assertEquals(first.generate("file-", "representations/rep1/data/a.txt"),
+      second.generate("file-", "representations/rep1/data/a.txt"));
+    Assert.assertEquals(first.generate("uuid-", null), second.generate("uuid-", null));
+    Assert.assertEquals(first.generate("uuid-", null), second.generate("uuid-", null));
+
+    IDGenerator generator = IDGenerator.nameBased("SIP_1");
+    Set<String> ids = new HashSet<>();
+    ids.add(generator.generate("file-", "representations/rep1/data/a.txt"));
+    ids.add(generator.generate("file-", "representations/rep2/data/a.txt"));
+    ids.add(generator.generate("uuid-", null));
+    ids.add(generator.generate("uuid-", null));
+    ids.add(IDGenerator.nameBased("SIP_2").generate("file-", "representations/rep1/data/a.txt"));
+    Assert.assertThat(ids.size(), Is.is(5));
+    Assert.assertThat(UUID.fromString(ids.iterator().next().substring(5)).version(), Is.is(3));
+  }
+
+  @Test
+  public void generateForOtherPackages() {
+    Assert.assertSame(IDGenerator.RANDOM, IDGenerator.RANDOM.forPackage("SIP_1_part1"));
+    Assert.assertSame(IDGenerator.THREAD_LOCAL_RANDOM, IDGenerator.THREAD_LOCAL_RANDOM.forPackage("SIP_1_part1"));
+
+    IDGenerator generator = IDGenerator.nameBased("SIP_1");
+    generator.generate("uuid-", null);
+    // the other package has its own sequence, whatever the first one generated
+    IDGenerator other = generator.forPackage("SIP_1_part1");
+    IDGenerator expected = IDGenerator.nameBased("SIP_1_part1");
+    Assert.assertEquals(expected.generate("uuid-", null), other.generate("uuid-", null));
+    Assert.assertEquals(expected.generate("file-", "data/a.txt"), other.generate("file-", "data/a.txt"));
+    Assert.assertNotEquals(generator.generate("file-", "data/a.txt"), other.generate("file-", "data/a.txt"));
+  }
+
+  @Test
+  public void runTasksWithTheSettingsOfTheSubmittingThread() throws Exception {
+    IDGenerator generator = IDGenerator.nameBased("SIP_1");
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    IDGenerator previousIDGenerator = Utils.setIDGenerator(generator);
+    Long previousFixedTime = Utils.setFixedTime(1700000000000L);
+    try {
+      Callable<Object[]> task = () -> new Object[] {Utils.getIDGenerator(), Utils.getFixedTime()};
+      Object[] settings = executor.submit(Utils.withThreadSettings(task)).get(1, TimeUnit.MINUTES);
+      Assert.assertSame(generator, settings[0]);
+      Assert.assertThat(settings[1], Is.is(1700000000000L));
+      settings = IPFutures.supplyInterruptibly(task, executor).get(1, TimeUnit.MINUTES);
+      Assert.assertSame(generator, settings[0]);
+      Assert.assertThat(settings[1], Is.is(1700000000000L));
+
+      // the worker gets its own settings back
+      settings = executor.submit(task).get(1, TimeUnit.MINUTES);
+      Assert.assertNotSame(generator, settings[0]);
+      Assert.assertNull(settings[1]);
+    } finally {
+      Utils.setIDGenerator(previousIDGenerator);
+      Utils.setFixedTime(previousFixedTime);
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,508 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.DatatypeConfigurationException;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Fptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Mptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FLocat;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.Agent;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.MetsHdr.AltRecordID;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.xml.sax.SAXException;
+
+public class METSBindingTest {
+  private static final String SCHEMA_LOCATION = "http://www.loc.gov/METS/ schemas/mets1_12.xsd";
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void bindAgents() throws Exception {
+    Mets mets = createMets();
+    Agent agent = new Agent();
+    agent.setID("agent-1");
+    agent.setROLE("CREATOR");
+    agent.setTYPE("OTHER");
+    agent.setOTHERTYPE("SOFTWARE");
+    agent.setName("RODA Commons IP & co");
+    Agent.Note note = new Agent.Note();
+    note.setValue("2.0.0");
+    note.setNOTETYPE("SOFTWARE VERSION");
+    agent.getNote().add(note);
+    mets.getMetsHdr().getAgent().add(agent);
+    Agent person = new Agent();
+    person.setROLE("OTHER");
+    person.setOTHERROLE("SUBMITTER");
+    person.setTYPE("INDIVIDUAL");
+    person.setName("Jane <Doe>");
+    mets.getMetsHdr().getAgent().add(person);
+
+    Mets read = assertSameBinding(mets);
+    Assert.assertThat(read.getMetsHdr().getAgent().size(), Is.is(2));
+    Assert.assertThat(read.getMetsHdr().getAgent().get(0).getNote().get(0).getNOTETYPE(), Is.is("SOFTWARE VERSION"));
+    Assert.assertThat(read.getMetsHdr().getAgent().get(1).getName(), Is.is("Jane <Doe>"));
+  }
+
+  @Test
+  public void bindAltRecordIDs() throws Exception {
+    Mets mets = createMets();
+    for (String type : new String[] {"SUBMISSIONAGREEMENT", "REFERENCECODE"}) {
+      AltRecordID altRecordID = new AltRecordID();
+      altRecordID.setTYPE(type);
+      altRecordID.setValue("value of " + type);
+      mets.getMetsHdr().getAltRecordID().add(altRecordID);
+    }
+
+    Mets read = assertSameBinding(mets);
+    Assert.assertThat(read.getMetsHdr().getAltRecordID().get(1).getTYPE(), Is.is("REFERENCECODE"));
+    Assert.assertThat(read.getMetsHdr().getAltRecordID().get(1).getValue(), Is.is("value of REFERENCECODE"));
+  }
+
+  @Test
+  public void bindMdRefAttributes() throws Exception {
+    Mets mets = createMets();
+    MdSecType dmdSec = createMdSec("dmd-1", "metadata/descriptive/dc.xml");
+    MdRef mdRef = dmdSec.getMdRef();
+    mdRef.setMDTYPE("OTHER");
+    mdRef.setOTHERMDTYPE("custom");
+    mdRef.setMDTYPEVERSION("1.1");
+    mdRef.setLABEL("label");
+    mdRef.setMIMETYPE("text/xml");
+    mdRef.setSIZE(1234L);
+    mdRef.setCREATED(Utils.getDatatypeFactory().newXMLGregorianCalendar("2020-01-02T03:04:05.678+01:00"));
+    mdRef.setCHECKSUM("ABCDEF");
+    mdRef.setCHECKSUMTYPE("SHA-256");
+    dmdSec.setSTATUS("CURRENT");
+    mets.getDmdSec().add(dmdSec);
+    AmdSecType amdSec = new AmdSecType();
+    amdSec.setID("amd-1");
+    MdSecType digiprovMD = createMdSec("digiprov-1", "metadata/preservation/premis.xml");
+    // a reference to a section read before
+    digiprovMD.getADMID().add(dmdSec);
+    amdSec.getDigiprovMD().add(digiprovMD);
+    mets.getAmdSec().add(amdSec);
+
+    Mets read = assertSameBinding(mets);
+    MdRef readMdRef = read.getDmdSec().get(0).getMdRef();
+    Assert.assertThat(readMdRef.getSIZE(), Is.is(1234L));
+    Assert.assertThat(readMdRef.getCREATED().toXMLFormat(), Is.is("2020-01-02T03:04:05.678+01:00"));
+    Assert.assertThat(readMdRef.getOTHERMDTYPE(), Is.is("custom"));
+    Assert.assertSame(read.getDmdSec().get(0), read.getAmdSec().get(0).getDigiprovMD().get(0).getADMID().get(0));
+  }
+
+  @Test
+  public void bindNestedDivsAndPointers() throws Exception {
+    Mets mets = createMetsWithFiles();
+    Mets read = assertSameBinding(mets);
+
+    DivType root = read.getStructMap().get(0).getDiv();
+    Assert.assertThat(root.getDiv().size(), Is.is(2));
+    DivType data = root.getDiv().get(1);
+    Assert.assertThat(data.getORDER(), Is.is(BigInteger.valueOf(2)));
+    Assert.assertThat(data.getCONTENTIDS(), Is.is(Arrays.asList("content-1", "content-2")));
+    Assert.assertThat(data.getDiv().get(0).getLABEL(), Is.is("Data/folder"));
+    FileType file = read.getFileSec().getFileGrp().get(0).getFile().get(0);
+    // references are resolved to the objects, wherever they are in the METS
+    Assert.assertSame(read.getFileSec().getFileGrp().get(0), root.getDiv().get(0).getFptr().get(0).getFILEID());
+    Assert.assertSame(file, data.getDiv().get(0).getFptr().get(0).getFILEID());
+    Assert.assertSame(read.getDmdSec().get(0), root.getDMDID().get(0));
+    Assert.assertSame(read.getAmdSec().get(0).getDigiprovMD().get(0), file.getADMID().get(0));
+    Assert.assertThat(data.getMptr().get(0).getHref(), Is.is("representations/rep1/METS.xml"));
+  }
+
+  @Test
+  public void streamSameElements() throws Exception {
+    Mets mets = createMetsWithFiles();
+    Path metsFile = tempFolder.resolve("streamed.xml");
+    try (OutputStream outputStream = Files.newOutputStream(metsFile)) {
+      METSBinding.STAX.marshal(mets, outputStream, SCHEMA_LOCATION, null);
+    }
+
+    // the elements given one at a time are the ones of the whole METS, with
+    // the references as IDs
+    List<String> events = new ArrayList<>();
+    METSStreamReader.read(metsFile, new METSStreamHandler() {
+      @Override
+      public void startFileGrp(FileGrpType fileGrp) {
+        events.add("fileGrp " + fileGrp.getID() + " " + fileGrp.getUSE());
+      }
+
+      @Override
+      public void file(FileGrpType fileGrp, FileType file) {
+        events.add("file " + file.getID() + " " + file.getADMID() + " " + file.getFLocat().get(0).getHref());
+      }
+
+      @Override
+      public void startDiv(DivType div) {
+        events.add("div " + div.getLABEL() + " " + div.getDMDID() + " " + div.getORDER());
+      }
+
+      @Override
+      public void fptr(DivType div, Fptr fptr) {
+        events.add("fptr " + fptr.getFILEID());
+      }
+
+      @Override
+      public void mptr(DivType div, Mptr mptr) {
+        events.add("mptr " + mptr.getHref());
+      }
+
+      @Override
+      public void endDiv(DivType div) {
+        events.add("/div");
+      }
+    });
+    Assert.assertThat(events, Is.is(Arrays.asList("fileGrp grp-data Data",
+      "file file-1 [digiprov-1] data/file-1.txt", "file file-2 [] data/file-2.txt", "div ip [dmd-1] null",
+      "div Documentation [] 1", "fptr grp-data", "/div", "div Data [] 2", "mptr representations/rep1/METS.xml",
+      "div Data/folder [] null", "fptr file-1", "/div", "/div", "/div")));
+
+    // the files left out are read as the whole METS reads them
+    Set<String> dataFileGrpIds = new HashSet<>();
+    Mets withoutDataFiles = METSStreamReader.readWithoutDataFiles(metsFile, dataFileGrpIds);
+    Assert.assertThat(dataFileGrpIds, Is.is(Collections.singleton("grp-data")));
+    Assert.assertTrue(withoutDataFiles.getFileSec().getFileGrp().get(0).getFile().isEmpty());
+    Mets whole = read(METSBinding.STAX, metsFile);
+    try (METSStreamReader.FileCursor files = METSStreamReader.openFiles(Files.newInputStream(metsFile), "grp-data",
+      withoutDataFiles)) {
+      for (FileType file : whole.getFileSec().getFileGrp().get(0).getFile()) {
+        FileType streamed = files.next();
+        Assert.assertThat(write(streamed), Is.is(write(file)));
+        Assert.assertThat(streamed.getADMID().size(), Is.is(file.getADMID().size()));
+      }
+      Assert.assertNull(files.next());
+    }
+    Assert.assertSame(withoutDataFiles.getAmdSec().get(0).getDigiprovMD().get(0),
+      readFirstFile(metsFile, withoutDataFiles).getADMID().get(0));
+  }
+
+  @Test
+  public void writeSpooledFilesAsTheirElements() throws Exception {
+    Mets mets = new Mets();
+    FileSec fileSec = new FileSec();
+    FileSec.FileGrp fileGrp = new FileSec.FileGrp();
+    FileType file = createFile("file-1");
+    fileGrp.getFile().add(file);
+    fileSec.getFileGrp().add(fileGrp);
+    mets.setFileSec(fileSec);
+    String expected = write(METSBinding.JAXB, mets, null);
+
+    // a spooled file, written when the METS is being written in UTC
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    Long previousFixedTime = Utils.setFixedTime(0L);
+    try {
+      METSStreamWriter writer = new METSStreamWriter(new UTF8XMLStreamWriter(outputStream), null);
+      writer.writeStartElement("", "mets", StAXMETSReader.METS_NAMESPACE);
+      writer.writeDefaultNamespace(StAXMETSReader.METS_NAMESPACE);
+      writer.writeNamespace("xlink", StAXMETSReader.XLINK_NAMESPACE);
+      writer.writeStartElement("", "fileSec", StAXMETSReader.METS_NAMESPACE);
+      writer.writeStartElement("", "fileGrp", StAXMETSReader.METS_NAMESPACE);
+      writer.writeFile(file.getID(), file.getMIMETYPE(), file.getSIZE(),
+        file.getCREATED().toGregorianCalendar().getTimeInMillis(), file.getCHECKSUM(), file.getCHECKSUMTYPE(),
+        file.getFLocat().get(0).getHref());
+      writer.writeEndElement();
+      writer.writeEndElement();
+      writer.writeEndElement();
+      writer.close();
+    } finally {
+      Utils.setFixedTime(previousFixedTime);
+    }
+    Assert.assertThat(fileElement(outputStream.toString(StandardCharsets.UTF_8.name())), Is.is(fileElement(expected)));
+  }
+
+  @Test
+  public void buildAndParseEARKSIPWithStAXBinding() throws IPException, ParseException, InterruptedException,
+    IOException, JAXBException, SAXException {
+    SIP sip = new EARKSIP("SIP_STAX", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    for (int i = 0; i < 20; i++) {
+      IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), "data_" + i + ".txt");
+      file.setRelativeFolders(Arrays.asList("folder " + (i % 3), "sub&folder"));
+      representation.addFile(file);
+    }
+
+    // the binding is only used by this build and by the parse below
+    sip.setMETSBinding(METSBinding.STAX);
+    Path zipSIP = sip.build(tempFolder);
+    Assert.assertSame(METSBinding.JAXB, METSUtils.getMETSBinding());
+
+    Path extractedSIP = Files.createTempDirectory(tempFolder, "stax");
+    METSBinding previousMETSBinding = METSUtils.setMETSBinding(METSBinding.STAX);
+    try {
+      SIP parsedSIP = EARKSIP.parse(zipSIP, extractedSIP, ForkJoinPool.commonPool());
+      Assert.assertTrue(parsedSIP.isValid());
+      Assert.assertThat(parsedSIP.getRepresentations().get(0).getData().size(), Is.is(20));
+    } finally {
+      METSUtils.setMETSBinding(previousMETSBinding);
+    }
+    Assert.assertSame(METSBinding.JAXB, METSUtils.getMETSBinding());
+
+    List<Path> metsFiles;
+    try (Stream<Path> paths = Files.walk(extractedSIP)) {
+      metsFiles = paths.filter(path -> path.getFileName().toString().equals(IPConstants.METS_FILE))
+        .collect(Collectors.toList());
+    }
+    Assert.assertThat(metsFiles.size(), Is.is(2));
+    for (Path metsFile : metsFiles) {
+      Assert.assertTrue(new String(Files.readAllBytes(metsFile), StandardCharsets.UTF_8).contains("\n    <metsHdr "));
+      Mets jaxb;
+      Mets stax;
+      try (InputStream in = Files.newInputStream(metsFile)) {
+        jaxb = METSBinding.JAXB.unmarshal(in, METSUtils.getMETSSchema(), null);
+      }
+      try (InputStream in = Files.newInputStream(metsFile)) {
+        stax = METSBinding.STAX.unmarshal(in, METSUtils.getMETSSchema(), null);
+      }
+      ByteArrayOutputStream jaxbOutput = new ByteArrayOutputStream();
+      METSBinding.JAXB.marshal(jaxb, jaxbOutput, "schemas/mets1_12.xsd", null);
+      ByteArrayOutputStream staxOutput = new ByteArrayOutputStream();
+      METSBinding.JAXB.marshal(stax, staxOutput, "schemas/mets1_12.xsd", null);
+      Assert.assertEquals(jaxbOutput.toString(StandardCharsets.UTF_8.name()),
+        staxOutput.toString(StandardCharsets.UTF_8.name()));
+    }
+  }
+
+  /**
+   * Checks that both bindings write the same document and read it into the
+   * same objects.
+   *
+   * @return the objects read by {@link METSBinding#STAX}.
+   */
+  private static Mets assertSameBinding(Mets mets) throws JAXBException, IOException, IPException {
+    String jaxb = write(METSBinding.JAXB, mets, null);
+    String stax = write(METSBinding.STAX, mets, null);
+    Assert.assertThat(normalize(stax), Is.is(normalize(jaxb)));
+
+    Mets readByJAXB = read(METSBinding.JAXB, jaxb);
+    Mets readByStAX = read(METSBinding.STAX, jaxb);
+    Assert.assertThat(write(METSBinding.STAX, readByStAX, null), Is.is(write(METSBinding.STAX, readByJAXB, null)));
+    Assert.assertThat(write(METSBinding.STAX, readByStAX, null), Is.is(stax));
+    return readByStAX;
+  }
+
+  private static Mets createMets() throws DatatypeConfigurationException {
+    Mets mets = new Mets();
+    mets.setOBJID("ip");
+    mets.setTYPE("Mixed");
+    mets.setOTHERTYPE("other");
+    mets.setCONTENTINFORMATIONTYPE("MIXED");
+    mets.setPROFILE("https://earkcsip.dilcis.eu/profile/E-ARK-CSIP.xml");
+    MetsHdr metsHdr = new MetsHdr();
+    metsHdr.setCREATEDATE(Utils.getDatatypeFactory().newXMLGregorianCalendar("2020-01-02T03:04:05.000Z"));
+    metsHdr.setOAISPACKAGETYPE("SIP");
+    mets.setMetsHdr(metsHdr);
+    return mets;
+  }
+
+  private static Mets createMetsWithFiles() throws DatatypeConfigurationException {
+    Mets mets = createMets();
+    MdSecType dmdSec = createMdSec("dmd-1", "metadata/descriptive/dc.xml");
+    mets.getDmdSec().add(dmdSec);
+    AmdSecType amdSec = new AmdSecType();
+    amdSec.setID("amd-1");
+    MdSecType digiprovMD = createMdSec("digiprov-1", "metadata/preservation/premis.xml");
+    amdSec.getDigiprovMD().add(digiprovMD);
+    mets.getAmdSec().add(amdSec);
+
+    FileSec fileSec = new FileSec();
+    fileSec.setID("file-sec");
+    FileSec.FileGrp fileGrp = new FileSec.FileGrp();
+    fileGrp.setID("grp-data");
+    fileGrp.setUSE("Data");
+    FileType file1 = createFile("file-1");
+    file1.getADMID().add(digiprovMD);
+    fileGrp.getFile().add(file1);
+    fileGrp.getFile().add(createFile("file-2"));
+    fileSec.getFileGrp().add(fileGrp);
+    mets.setFileSec(fileSec);
+
+    StructMapType structMap = new StructMapType();
+    structMap.setID("struct-map");
+    structMap.setTYPE("PHYSICAL");
+    structMap.setLABEL("CSIP");
+    DivType root = createDiv("ip");
+    root.getDMDID().add(dmdSec);
+    DivType documentation = createDiv("Documentation");
+    documentation.setORDER(BigInteger.ONE);
+    documentation.getFptr().add(createFptr("fptr-1", fileGrp));
+    root.getDiv().add(documentation);
+    DivType data = createDiv("Data");
+    data.setORDER(BigInteger.valueOf(2));
+    data.getCONTENTIDS().add("content-1");
+    data.getCONTENTIDS().add("content-2");
+    Mptr mptr = new Mptr();
+    mptr.setID("mptr-1");
+    mptr.setType("simple");
+    mptr.setHref("representations/rep1/METS.xml");
+    mptr.setTitle("rep1");
+    mptr.setLOCTYPE("URL");
+    data.getMptr().add(mptr);
+    DivType folder = createDiv("Data/folder");
+    folder.getFptr().add(createFptr("fptr-2", file1));
+    data.getDiv().add(folder);
+    root.getDiv().add(data);
+    structMap.setDiv(root);
+    mets.getStructMap().add(structMap);
+    return mets;
+  }
+
+  private static MdSecType createMdSec(String id, String href) {
+    MdSecType mdSec = new MdSecType();
+    mdSec.setID(id);
+    MdRef mdRef = new MdRef();
+    mdRef.setID(id + "-ref");
+    mdRef.setType("simple");
+    mdRef.setHref(href);
+    mdRef.setLOCTYPE("URL");
+    mdRef.setMDTYPE("DC");
+    mdSec.setMdRef(mdRef);
+    return mdSec;
+  }
+
+  private static FileType createFile(String id) throws DatatypeConfigurationException {
+    FileType file = new FileType();
+    file.setID(id);
+    file.setMIMETYPE("text/plain");
+    file.setSIZE(42L);
+    file.setCREATED(Utils.getDatatypeFactory().newXMLGregorianCalendar("2020-01-02T03:04:05.000Z"));
+    file.setCHECKSUM("0123456789ABCDEF");
+    file.setCHECKSUMTYPE("SHA-256");
+    FLocat fLocat = new FLocat();
+    fLocat.setType("simple");
+    fLocat.setHref("data/" + id + ".txt");
+    fLocat.setLOCTYPE("URL");
+    file.getFLocat().add(fLocat);
+    return file;
+  }
+
+  private static DivType createDiv(String label) {
+    DivType div = new DivType();
+    div.setID("div-" + label.replace('/', '-'));
+    div.setLABEL(label);
+    return div;
+  }
+
+  private static Fptr createFptr(String id, Object target) {
+    Fptr fptr = new Fptr();
+    fptr.setID(id);
+    fptr.setFILEID(target);
+    return fptr;
+  }
+
+  private static FileType readFirstFile(Path metsFile, Mets mets) throws IOException {
+    try (METSStreamReader.FileCursor files = METSStreamReader.openFiles(Files.newInputStream(metsFile), "grp-data",
+      mets)) {
+      return files.next();
+    }
+  }
+
+  private static String write(METSBinding binding, Mets mets, METSFileGrpSpool spool)
+    throws JAXBException, IOException, IPException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    binding.marshal(mets, outputStream, SCHEMA_LOCATION, spool);
+    return outputStream.toString(StandardCharsets.UTF_8.name());
+  }
+
+  /** Writes a single file, with its references as IDs. */
+  private static String write(FileType file) throws Exception {
+    Mets mets = new Mets();
+    FileSec fileSec = new FileSec();
+    FileSec.FileGrp fileGrp = new FileSec.FileGrp();
+    fileGrp.getFile().add(file);
+    fileSec.getFileGrp().add(fileGrp);
+    mets.setFileSec(fileSec);
+    return write(METSBinding.STAX, mets, null);
+  }
+
+  private static Mets read(METSBinding binding, String mets) throws JAXBException, IOException {
+    try (InputStream inputStream = new ByteArrayInputStream(mets.getBytes(StandardCharsets.UTF_8))) {
+      return binding.unmarshal(inputStream, null, null);
+    }
+  }
+
+  private static Mets read(METSBinding binding, Path metsFile) throws JAXBException, IOException, SAXException {
+    try (InputStream inputStream = Files.newInputStream(metsFile)) {
+      return binding.unmarshal(inputStream, METSUtils.getMETSSchema(), null);
+    }
+  }
+
+  private static String fileElement(String mets) {
+    return mets.substring(mets.indexOf("<file "), mets.indexOf("</file>"));
+  }
+
+  /**
+   * Leaves out what differs between the documents of the two bindings (see
+   * {@link METSBinding#marshal(Mets, OutputStream, String, METSFileGrpSpool)}).
+   */
+  private static String normalize(String mets) {
+    return mets.substring(mets.indexOf("?>") + 2).trim();
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.xml.bind.JAXBException;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.xml.sax.SAXException;
+
+public class METSStreamReaderTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void streamRepresentationMETS() throws IPException, ParseException, InterruptedException, IOException,
+    JAXBException, SAXException {
+    SIP sip = new EARKSIP("SIP_STREAMED", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    for (int i = 0; i < 10; i++) {
+      IPFile file = new IPFile(Paths.get("src/test/resources/data/data.txt"), "data_" + i + ".txt");
+      file.setRelativeFolders(Arrays.asList("folder " + (i % 2)));
+      representation.addFile(file);
+    }
+    Path zipSIP = sip.build(tempFolder);
+    Path extractedSIP = Files.createTempDirectory(tempFolder, "streamed");
+    Assert.assertTrue(EARKSIP.parse(zipSIP, extractedSIP).isValid());
+
+    Path representationMETS;
+    try (Stream<Path> paths = Files.walk(extractedSIP)) {
+      representationMETS = paths.filter(path -> path.getFileName().toString().equals(IPConstants.METS_FILE)
+        && path.getParent().getParent().getFileName().toString().equals(IPConstants.REPRESENTATIONS)).findFirst()
+        .get();
+    }
+
+    final List<String> fileIds = new ArrayList<>();
+    final List<String> divLabels = new ArrayList<>();
+    METSStreamReader.read(representationMETS, new METSStreamHandler() {
+      @Override
+      public void file(FileGrpType fileGrp, FileType file) {
+        fileIds.add(file.getID());
+      }
+
+      @Override
+      public void startDiv(DivType div) {
+        divLabels.add(div.getLABEL());
+      }
+    });
+    Assert.assertThat(fileIds.size(), Is.is(10));
+    Assert.assertTrue(divLabels.contains(IPConstants.DATA_WITH_FIRST_LETTER_CAPITAL));
+
+    Set<String> dataFileGrpIds = new HashSet<>();
+    Mets mets = METSStreamReader.readWithoutDataFiles(representationMETS, dataFileGrpIds);
+    Assert.assertThat(dataFileGrpIds.size(), Is.is(1));
+    Assert.assertTrue(mets.getFileSec().getFileGrp().get(0).getFile().isEmpty());
+    final List<String> streamedFileIds = new ArrayList<>();
+    METSStreamReader.readFiles(representationMETS, dataFileGrpIds.iterator().next(),
+      file -> streamedFileIds.add(file.getID()));
+    Assert.assertThat(streamedFileIds, Is.is(fileIds));
+
+    Path invalidMETS = Files.createTempFile(tempFolder, "METS", ".xml");
+    Files.write(invalidMETS, new String(Files.readAllBytes(representationMETS), StandardCharsets.UTF_8)
+      .replace("<structMap", "<invalid/><structMap").getBytes(StandardCharsets.UTF_8));
+    try {
+      METSStreamReader.read(invalidMETS, new METSStreamHandler() {
+      });
+      Assert.fail("Invalid METS should not be read");
+    } catch (SAXException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelGzipOutputStreamTest {
+
+  @Test
+  public void compressBlocksConcurrently() throws IOException {
+    // random data repeated, so that blocks refer back to the previous one
+    byte[] pattern = new byte[16 * 1024];
+    new Random(42).nextBytes(pattern);
+    byte[] content = new byte[1024 * 1024 + 12345];
+    for (int i = 0; i < content.length; i += pattern.length) {
+      System.arraycopy(pattern, 0, content, i, Math.min(pattern.length, content.length - i));
+    }
+
+    for (int threads : Arrays.asList(1, 4)) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, threads)) {
+        Random random = new Random(threads);
+        int offset = 0;
+        while (offset < content.length) {
+          if (random.nextInt(10) == 0) {
+            gzip.write(content[offset++]);
+          } else {
+            int length = Math.min(random.nextInt(300 * 1024), content.length - offset);
+            gzip.write(content, offset, length);
+            offset += length;
+          }
+        }
+      }
+      Assert.assertArrayEquals(content, decompress(compressed.toByteArray()));
+      Assert.assertTrue(compressed.size() < content.length / 4);
+    }
+  }
+
+  @Test
+  public void compressEmptyStream() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    new ParallelGzipOutputStream(compressed, 2).close();
+    Assert.assertThat(decompress(compressed.toByteArray()).length, Is.is(0));
+  }
+
+  @Test
+  public void closeOnlyOnce() throws IOException {
+    int[] closed = new int[1];
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed[0]++;
+      }
+    };
+    ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, 2);
+    gzip.write("content".getBytes(StandardCharsets.UTF_8));
+    gzip.close();
+    int size = compressed.size();
+    gzip.close();
+    Assert.assertThat(closed[0], Is.is(1));
+    Assert.assertThat(compressed.size(), Is.is(size));
+    Assert.assertThat(new String(decompress(compressed.toByteArray()), StandardCharsets.UTF_8), Is.is("content"));
+  }
+
+  private static byte[] decompress(byte[] compressed) throws IOException {
+    try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return IOUtils.toByteArray(inputStream);
+    }
+  }
+}
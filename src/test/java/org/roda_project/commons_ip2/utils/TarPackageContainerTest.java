@@ -0,0 +1,155 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.hamcrest.core.Is;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class TarPackageContainerTest {
+  private static final String LONG_NAME = "representations/rep1/data/"
+    + String.join("", Collections.nCopies(12, "long-folder/")) + "file.bin";
+  private static final String NON_ASCII_NAME = "representations/rep1/data/ficheiro-çãé.txt";
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void writeAndExtractTar() throws IOException, InterruptedException, IPException, NoSuchAlgorithmException {
+    Path folder = Files.createDirectory(tempFolder.resolve("tar"));
+    Map<String, ZipEntryInfo> entries = createEntries(folder);
+    Path tar = write(PackageContainer.TAR, entries, folder);
+    Assert.assertThat(PackageContainer.TAR.getFileExtension(), Is.is(".tar"));
+    Assert.assertFalse(((TarPackageContainer) PackageContainer.TAR).isCompressed());
+    // a TAR is written in 512 byte blocks
+    Assert.assertThat(Files.size(tar) % 512, Is.is(0L));
+
+    for (ZipEntryInfo entry : entries.values()) {
+      Assert.assertThat(entry.getChecksumAlgorithm(), Is.is(IPConstants.CHECKSUM_ALGORITHM));
+      Assert.assertThat(entry.getChecksum(), Is.is(sha256(entry.getFilePath())));
+    }
+    checkExtract(PackageContainer.TAR, tar, entries, folder);
+  }
+
+  @Test
+  public void writeAndExtractTarGz() throws IOException, InterruptedException, IPException {
+    Path folder = Files.createDirectory(tempFolder.resolve("tar.gz"));
+    Map<String, ZipEntryInfo> entries = createEntries(folder);
+    TarPackageContainer container = TarPackageContainer.gzip(2);
+    Assert.assertTrue(container.isCompressed());
+    Assert.assertThat(container.getFileExtension(), Is.is(".tar.gz"));
+    Path tarGz = write(container, entries, folder);
+    try (InputStream inputStream = Files.newInputStream(tarGz)) {
+      Assert.assertThat(inputStream.read(), Is.is(0x1f));
+      Assert.assertThat(inputStream.read(), Is.is(0x8b));
+    }
+    checkExtract(container, tarGz, entries, folder);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compressWithAtLeastOneThread() {
+    TarPackageContainer.gzip(0);
+  }
+
+  @Test
+  public void extractOnlyTars() throws IOException {
+    Path folder = Files.createDirectory(tempFolder.resolve("other"));
+    Path zip = folder.resolve("package.zip");
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zip))) {
+      zipOutputStream.putNextEntry(new ZipEntry("METS.xml"));
+      zipOutputStream.write("<mets/>".getBytes(StandardCharsets.UTF_8));
+      zipOutputStream.closeEntry();
+    }
+    Path text = Files.write(folder.resolve("file.txt"), "ustar".getBytes(StandardCharsets.UTF_8));
+
+    for (Path path : new Path[] {zip, text, folder, folder.resolve("missing.tar")}) {
+      Assert.assertFalse(path.toString(), PackageContainer.TAR.canExtract(path));
+      Assert.assertFalse(path.toString(), TarPackageContainer.gzip(1).canExtract(path));
+    }
+    Assert.assertSame(PackageContainer.ZIP, PackageContainer.of(zip));
+  }
+
+  private static Map<String, ZipEntryInfo> createEntries(Path folder) throws IOException {
+    Map<String, ZipEntryInfo> entries = new LinkedHashMap<>();
+    Path source = Files.createDirectory(folder.resolve("source"));
+    byte[] content = new byte[200 * 1024];
+    new Random(42).nextBytes(content);
+    entries.put("METS.xml", new FileZipEntryInfo("METS.xml",
+      Files.write(source.resolve("METS.xml"), "<mets/>".getBytes(StandardCharsets.UTF_8))));
+    entries.put(LONG_NAME, new FileZipEntryInfo(LONG_NAME, Files.write(source.resolve("file.bin"), content)));
+    entries.put(NON_ASCII_NAME, new FileZipEntryInfo(NON_ASCII_NAME,
+      Files.write(source.resolve("file.txt"), "ção".getBytes(StandardCharsets.UTF_8))));
+    entries.put("empty.txt", new FileZipEntryInfo("empty.txt", Files.write(source.resolve("empty.txt"), new byte[0])));
+    return entries;
+  }
+
+  private static Path write(PackageContainer container, Map<String, ZipEntryInfo> entries, Path folder)
+    throws IOException, InterruptedException, IPException {
+    EARKSIP sip = new EARKSIP("SIP_TAR", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    Path path = folder.resolve("package" + container.getFileExtension());
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      container.write(entries, outputStream, sip, false);
+    }
+    return path;
+  }
+
+  private static void checkExtract(PackageContainer container, Path path, Map<String, ZipEntryInfo> entries,
+    Path folder) throws IOException {
+    Assert.assertTrue(container.canExtract(path));
+    Assert.assertSame(PackageContainer.TAR, PackageContainer.of(path));
+    Path destination = folder.resolve("extracted");
+    container.extract(path, destination);
+    for (Map.Entry<String, ZipEntryInfo> entry : entries.entrySet()) {
+      Path extracted = destination.resolve(entry.getKey());
+      Assert.assertTrue(entry.getKey(), Files.isRegularFile(extracted));
+      Assert.assertArrayEquals(entry.getKey(), Files.readAllBytes(entry.getValue().getFilePath()),
+        Files.readAllBytes(extracted));
+    }
+    Assert.assertFalse(Files.exists(destination.resolve("source")));
+  }
+
+  private static String sha256(Path path) throws IOException, NoSuchAlgorithmException {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      return ZIPUtils.calculateChecksums(Optional.empty(), inputStream,
+        Collections.singleton(IPConstants.CHECKSUM_ALGORITHM)).get(IPConstants.CHECKSUM_ALGORITHM);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.common.FolderManager;
+import org.roda_project.commons_ip2.validator.common.SubMets;
+
+public class FolderManagerTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void answerQueriesFromSnapshot() throws IOException {
+    Path ip = createIP("ip", 2);
+    for (int parallelism : Arrays.asList(1, 4)) {
+      FolderManager folderManager = new FolderManager(parallelism);
+      Assert.assertTrue(folderManager.checkIfExistsRootMetsFile(ip));
+      Assert.assertTrue(folderManager.checkIfExistsSubMets(ip));
+      Assert.assertTrue(folderManager.checkIfExistsFolderInRoot(ip, "metadata"));
+      Assert.assertFalse(folderManager.checkIfExistsFolderInRoot(ip, "METS.xml"));
+      Assert.assertTrue(folderManager.checkIfExistsFolderInside(ip, "metadata", "descriptive"));
+      Assert.assertTrue(folderManager.checkIfExistsFolderInsideRepresentation(ip, "data"));
+      Assert.assertTrue(folderManager.checkIfExistsFolderRepresentation(ip, "data", "rep1"));
+      Assert.assertFalse(folderManager.checkIfExistsFolderRepresentation(ip, "schemas", "rep1"));
+      Assert.assertEquals(Arrays.asList("rep0", "rep1"), folderManager.getRepresentationsFoldersNames(ip));
+      Assert.assertEquals(0, folderManager.countFilesInsideRepresentations(ip));
+      Assert.assertEquals(Collections.singletonList("extra"), folderManager.verifyAdditionalFoldersInRoot(ip));
+      Assert.assertEquals(1, folderManager.countMetadataFiles(ip));
+      Assert.assertEquals(Collections.singleton(ip.resolve("metadata/descriptive/dc.xml").toString()),
+        folderManager.getMetadataFiles(ip).keySet());
+      Assert.assertEquals(
+        Arrays.asList(ip.resolve("representations/rep0/data/file.txt").toString(),
+          ip.resolve("representations/rep1/data/file.txt").toString()),
+        folderManager.getFiles(ip).keySet().stream().sorted().collect(Collectors.toList()));
+      Assert.assertEquals(
+        Arrays.asList(ip.resolve("representations/rep0/METS.xml").toString(),
+          ip.resolve("representations/rep1/METS.xml").toString()),
+        folderManager.getSubMets(ip).stream().map(SubMets::getPath).collect(Collectors.toList()));
+
+      Path file = ip.resolve("representations/rep0/data/file.txt");
+      Assert.assertTrue(folderManager.checkPathExists(file));
+      Assert.assertFalse(folderManager.checkPathExists(ip.resolve("representations/rep0/data/missing.txt")));
+      Assert.assertTrue(folderManager.verifySize(file, 7L));
+      Assert.assertFalse(folderManager.verifySize(file, 8L));
+    }
+  }
+
+  @Test
+  public void takeSnapshotAgainWhenFolderChanges() throws IOException {
+    Path ip = createIP("changed", 1);
+    FolderManager folderManager = new FolderManager();
+    Assert.assertEquals(Collections.singletonList("rep0"), folderManager.getRepresentationsFoldersNames(ip));
+    Assert.assertEquals(1, folderManager.getMetadataFiles(ip).size());
+
+    // a new representation (the modification time is moved forward, as it may
+    // not change on file systems with a coarse time resolution)
+    Path representations = ip.resolve("representations");
+    FileTime modified = Files.getLastModifiedTime(representations);
+    createRepresentation(ip, "rep1");
+    Files.setLastModifiedTime(representations, FileTime.fromMillis(modified.toMillis() + 10000));
+    Assert.assertEquals(Arrays.asList("rep0", "rep1"), folderManager.getRepresentationsFoldersNames(ip));
+    Assert.assertTrue(folderManager.checkIfExistsSubMets(ip));
+
+    // a file created and a file resized after the snapshot was taken
+    Path file = ip.resolve("representations/rep0/data/file.txt");
+    Path newFile = ip.resolve("representations/rep0/data/new.txt");
+    Files.write(newFile, "new".getBytes(StandardCharsets.UTF_8));
+    Files.write(file, "resized content".getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(folderManager.checkPathExists(newFile));
+    Assert.assertTrue(folderManager.verifySize(file, 15L));
+
+    // a removed folder
+    Utils.deletePath(ip.resolve("metadata"));
+    Files.setLastModifiedTime(ip, FileTime.fromMillis(modified.toMillis() + 10000));
+    Assert.assertFalse(folderManager.checkIfExistsFolderInRoot(ip, "metadata"));
+    Assert.assertEquals(0, folderManager.countMetadataFiles(ip));
+
+    // changes below the queried folder are only seen after invalidating
+    Assert.assertEquals(3, folderManager.getFiles(ip).size());
+    Files.delete(newFile);
+    Assert.assertEquals(3, folderManager.getFiles(ip).size());
+    folderManager.invalidate();
+    Assert.assertEquals(2, folderManager.getFiles(ip).size());
+  }
+
+  private static Path createIP(String name, int representations) throws IOException {
+    Path ip = Files.createDirectory(tempFolder.resolve(name));
+    Files.write(ip.resolve("METS.xml"), "<mets/>".getBytes(StandardCharsets.UTF_8));
+    Files.createDirectories(ip.resolve("metadata/descriptive"));
+    Files.write(ip.resolve("metadata/descriptive/dc.xml"), "<dc/>".getBytes(StandardCharsets.UTF_8));
+    Files.createDirectories(ip.resolve("extra"));
+    Files.createDirectories(ip.resolve("representations"));
+    for (int i = 0; i < representations; i++) {
+      createRepresentation(ip, "rep" + i);
+    }
+    return ip;
+  }
+
+  private static void createRepresentation(Path ip, String name) throws IOException {
+    Path representation = Files.createDirectories(ip.resolve("representations").resolve(name));
+    Files.write(representation.resolve("METS.xml"), "<mets/>".getBytes(StandardCharsets.UTF_8));
+    Files.createDirectories(representation.resolve("data"));
+    Files.write(representation.resolve("data/file.txt"), "content".getBytes(StandardCharsets.UTF_8));
+  }
+}
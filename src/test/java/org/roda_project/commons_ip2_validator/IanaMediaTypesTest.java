@@ -0,0 +1,36 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip2.utils.IanaMediaTypes;
+
+public class IanaMediaTypesTest {
+
+  @Test
+  public void checkRegisteredMediaTypes() {
+    final Set<String> mediaTypes = IanaMediaTypes.getIanaMediaTypesList();
+    Assert.assertTrue(mediaTypes.contains("application/pdf"));
+    Assert.assertTrue(mediaTypes.contains("text/plain"));
+    for (String mediaType : mediaTypes) {
+      Assert.assertTrue(mediaType, IanaMediaTypes.isRegistered(mediaType));
+      Assert.assertTrue(mediaType, IanaMediaTypes.isRegistered(new StringBuilder(mediaType)));
+    }
+  }
+
+  @Test
+  public void checkUnregisteredMediaTypes() {
+    Assert.assertFalse(IanaMediaTypes.isRegistered(null));
+    Assert.assertFalse(IanaMediaTypes.isRegistered(""));
+    Assert.assertFalse(IanaMediaTypes.isRegistered("application"));
+    Assert.assertFalse(IanaMediaTypes.isRegistered("application/pdf "));
+    Assert.assertFalse(IanaMediaTypes.isRegistered("APPLICATION/PDF"));
+    Assert.assertFalse(IanaMediaTypes.isRegistered(new StringBuilder("image/not-registered")));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void mediaTypesAreUnmodifiable() {
+    IanaMediaTypes.getIanaMediaTypesList().add("image/not-registered");
+  }
+}
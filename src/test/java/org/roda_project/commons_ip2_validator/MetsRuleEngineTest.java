@@ -0,0 +1,169 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.validator.component.MetsRule;
+import org.roda_project.commons_ip2.validator.component.MetsRuleEngine;
+import org.roda_project.commons_ip2.validator.observer.StepMetrics;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+
+public class MetsRuleEngineTest {
+
+  @Test
+  public void checkRulesInOneTraversal() throws IOException {
+    final MetsType.FileSec fileSec = createFileSec();
+    final List<String> visits = new ArrayList<>();
+    final List<String> finished = new ArrayList<>();
+
+    final MetsRuleEngine engine = new MetsRuleEngine().onFile("B", "specB", new MetsRule<MetsType.FileSec.FileGrp,
+      FileType>() {
+      @Override
+      public ReporterDetails check(final MetsType.FileSec.FileGrp parent, final FileType file) {
+        visits.add("B:" + parent.getID() + "/" + file.getID());
+        return file.getID().equals("f2") ? new ReporterDetails("", "f2 is not valid", false, false) : null;
+      }
+
+      @Override
+      public ReporterDetails finish() {
+        finished.add("B");
+        return new ReporterDetails();
+      }
+    }).onFileGrp("A", "specA", (parent, fileGrp) -> {
+      visits.add("A:" + fileGrp.getID());
+      return null;
+    }).onFile("C", "specC", (parent, file) -> {
+      visits.add("C:" + parent.getID() + "/" + file.getID());
+      return null;
+    });
+    Assert.assertEquals(Arrays.asList("B", "A", "C"), engine.getRequirementIds());
+
+    final Map<String, ReporterDetails> results = engine.run(fileSec);
+
+    // each element once, given to the rules in registration order, and no more
+    // elements to a rule after its first failure
+    Assert.assertEquals(Arrays.asList("A:g1", "B:g1/f1", "C:g1/f1", "B:g1/f2", "C:g1/f2", "A:g2", "C:g2/f3"),
+      visits);
+    Assert.assertEquals(Collections.emptyList(), finished);
+
+    Assert.assertEquals(Arrays.asList("B", "A", "C"), new ArrayList<>(results.keySet()));
+    Assert.assertFalse(results.get("B").isValid());
+    Assert.assertEquals(Collections.singletonList("f2 is not valid"), results.get("B").getIssues());
+    Assert.assertEquals("specB", results.get("B").getSpecification());
+    Assert.assertTrue(results.get("A").isValid());
+    Assert.assertEquals("specA", results.get("A").getSpecification());
+    Assert.assertTrue(results.get("C").isValid());
+    Assert.assertEquals("specC", results.get("C").getSpecification());
+
+    final List<StepMetrics> metrics = engine.getMetrics();
+    Assert.assertEquals(Arrays.asList("B", "A", "C"),
+      metrics.stream().map(StepMetrics::getId).collect(Collectors.toList()));
+    Assert.assertEquals(Arrays.asList(2L, 2L, 3L),
+      metrics.stream().map(StepMetrics::getMetsElementsVisited).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void finishRulesWithoutFailures() throws IOException {
+    final MetsRuleEngine engine = new MetsRuleEngine().onFile("count", "spec", new MetsRule<MetsType.FileSec.FileGrp,
+      FileType>() {
+      private int files = 0;
+
+      @Override
+      public ReporterDetails check(final MetsType.FileSec.FileGrp parent, final FileType file) {
+        files++;
+        return null;
+      }
+
+      @Override
+      public ReporterDetails finish() {
+        return files == 3 ? new ReporterDetails() : new ReporterDetails("", files + " files", false, false);
+      }
+    });
+
+    final ReporterDetails result = engine.run(createFileSec()).get("count");
+    Assert.assertTrue(result.getIssues().toString(), result.isValid());
+    Assert.assertEquals("spec", result.getSpecification());
+
+    final ReporterDetails emptyResult = new MetsRuleEngine().onFile("count", "spec", (parent, file) -> null)
+      .run(new MetsType.FileSec()).get("count");
+    Assert.assertTrue(emptyResult.isValid());
+  }
+
+  @Test
+  public void skipRulesWhosePrerequisiteFails() throws IOException {
+    final List<String> visits = new ArrayList<>();
+    final ReporterDetails skippedB = new ReporterDetails("", "skipped without A", true, true);
+    final ReporterDetails skippedC = new ReporterDetails("", "skipped without B", true, true);
+    final MetsRuleEngine engine = new MetsRuleEngine()
+      .onFile("A", "specA", (parent, file) -> file.getID().equals("f2")
+        ? new ReporterDetails("", "f2 is not valid", false, false)
+        : null)
+      .requires("A", skippedB).onFile("B", "specB", (parent, file) -> {
+        visits.add("B:" + file.getID());
+        return null;
+      }).requires("B", skippedC).onFile("C", "specC", (parent, file) -> {
+        visits.add("C:" + file.getID());
+        return null;
+      });
+
+    // the dependent rules are only given the elements their prerequisite met
+    final Map<String, ReporterDetails> results = engine.run(createFileSec());
+    Assert.assertEquals(Arrays.asList("B:f1", "C:f1"), visits);
+    Assert.assertFalse(results.get("A").isValid());
+    Assert.assertSame(skippedB, results.get("B"));
+    // a skipped prerequisite is not met either
+    Assert.assertSame(skippedC, results.get("C"));
+
+    // nor when the prerequisite fails as it finishes
+    final Map<String, ReporterDetails> finishResults = new MetsRuleEngine()
+      .onFile("A", "specA", new MetsRule<MetsType.FileSec.FileGrp, FileType>() {
+        @Override
+        public ReporterDetails check(final MetsType.FileSec.FileGrp parent, final FileType file) {
+          return null;
+        }
+
+        @Override
+        public ReporterDetails finish() {
+          return new ReporterDetails("", "not valid", false, false);
+        }
+      }).requires("A", skippedB).onFile("B", "specB", (parent, file) -> null).run(createFileSec());
+    Assert.assertSame(skippedB, finishResults.get("B"));
+
+    final Map<String, ReporterDetails> validResults = new MetsRuleEngine().onFile("A", "specA", (parent, file) -> null)
+      .requires("A", skippedB).onFile("B", "specB", (parent, file) -> null).run(createFileSec());
+    Assert.assertTrue(validResults.get("B").isValid());
+    Assert.assertFalse(validResults.get("B").isSkipped());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requireRegisteredPrerequisites() {
+    new MetsRuleEngine().requires("A", new ReporterDetails());
+  }
+
+  private static MetsType.FileSec createFileSec() {
+    final MetsType.FileSec fileSec = new MetsType.FileSec();
+    fileSec.getFileGrp().add(createFileGrp("g1", "f1", "f2"));
+    fileSec.getFileGrp().add(createFileGrp("g2", "f3"));
+    return fileSec;
+  }
+
+  private static MetsType.FileSec.FileGrp createFileGrp(final String id, final String... fileIds) {
+    final MetsType.FileSec.FileGrp fileGrp = new MetsType.FileSec.FileGrp();
+    fileGrp.setID(id);
+    for (String fileId : fileIds) {
+      final FileType file = new FileType();
+      file.setID(fileId);
+      fileGrp.getFile().add(file);
+    }
+    return fileGrp;
+  }
+}
@@ -0,0 +1,118 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.JAXBException;
+
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.utils.METSStreamReader;
+import org.roda_project.commons_ip2.validator.common.InstatiateMets;
+import org.roda_project.commons_ip2.validator.component.MetsRule;
+import org.roda_project.commons_ip2.validator.component.MetsRuleEngine;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
+import org.xml.sax.SAXException;
+
+public class MetsValidatorStateTest {
+  private static final String METS = "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\""
+    + " xmlns:xlink=\"http://www.w3.org/1999/xlink\" OBJID=\"ip\""
+    + " PROFILE=\"https://earkcsip.dilcis.eu/profile/E-ARK-CSIP.xml\">"
+    + "<mets:amdSec ID=\"amd\"><mets:digiprovMD ID=\"digiprov\"><mets:mdRef LOCTYPE=\"URL\" MDTYPE=\"PREMIS\""
+    + " xlink:type=\"simple\" xlink:href=\"metadata/premis.xml\"/></mets:digiprovMD></mets:amdSec>"
+    + "<mets:fileSec ID=\"file-sec\">"
+    + "<mets:fileGrp ID=\"grp-data\" USE=\"Data\">" + file("file-1", " ADMID=\"digiprov\"") + file("file-2", "")
+    + "</mets:fileGrp>"
+    + "<mets:fileGrp ID=\"grp-schemas\" USE=\"Schemas\">" + file("file-3", "") + "</mets:fileGrp>"
+    + "<mets:fileGrp ID=\"grp-empty\" USE=\"Data/empty\"/>"
+    + "</mets:fileSec>"
+    + "<mets:structMap><mets:div LABEL=\"ip\"/></mets:structMap>"
+    + "</mets:mets>";
+
+  @Test
+  public void readDataFilesWhenValidated() throws IOException, JAXBException, SAXException {
+    final MetsValidatorState state = new MetsValidatorState();
+    final Set<String> dataFileGrpIds = new HashSet<>();
+    try (InputStream stream = open()) {
+      state.setMets(new InstatiateMets(stream).instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+    }
+    state.setStreamedFiles(dataFileGrpIds, MetsValidatorStateTest::open);
+    Assert.assertThat(dataFileGrpIds, Is.is(Collections.singleton("grp-data")));
+
+    final List<MetsType.FileSec.FileGrp> fileGrps = state.getMets().getFileSec().getFileGrp();
+    Assert.assertTrue(fileGrps.get(0).getFile().isEmpty());
+    Assert.assertThat(fileGrps.get(1).getFile().size(), Is.is(1));
+    Assert.assertTrue(state.hasFiles(fileGrps.get(0)));
+    Assert.assertTrue(state.hasFiles(fileGrps.get(1)));
+    Assert.assertFalse(state.hasFiles(fileGrps.get(2)));
+
+    try (METSStreamReader.FileCursor files = state.openFiles(fileGrps.get(0))) {
+      final FileType first = files.next();
+      Assert.assertThat(first.getID(), Is.is("file-1"));
+      // references to the sections kept in memory are resolved
+      Assert.assertThat(((MdSecType) first.getADMID().get(0)).getID(), Is.is("digiprov"));
+      Assert.assertSame(state.getMets().getAmdSec().get(0).getDigiprovMD().get(0), first.getADMID().get(0));
+      Assert.assertThat(files.next().getID(), Is.is("file-2"));
+      Assert.assertNull(files.next());
+      Assert.assertNull(files.next());
+    }
+    try (METSStreamReader.FileCursor files = state.openFiles(fileGrps.get(2))) {
+      Assert.assertNull(files.next());
+    }
+
+    // the METS set on its own has no files left out
+    final MetsValidatorState copy = new MetsValidatorState();
+    copy.setMets(state);
+    Assert.assertTrue(copy.hasFiles(fileGrps.get(0)));
+    copy.setMets(state.getMets());
+    Assert.assertFalse(copy.hasFiles(fileGrps.get(0)));
+  }
+
+  @Test
+  public void runRulesOnDataFiles() throws IOException, JAXBException, SAXException {
+    final MetsValidatorState state = new MetsValidatorState();
+    final Set<String> dataFileGrpIds = new HashSet<>();
+    try (InputStream stream = open()) {
+      state.setMets(new InstatiateMets(stream).instatiateMetsFileWithoutDataFiles(dataFileGrpIds));
+    }
+    state.setStreamedFiles(dataFileGrpIds, MetsValidatorStateTest::open);
+
+    final List<String> fileIds = new ArrayList<>();
+    final ReporterDetails result = new MetsRuleEngine()
+      .onFile("files", "spec", new MetsRule<MetsType.FileSec.FileGrp, FileType>() {
+        @Override
+        public ReporterDetails check(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+          fileIds.add(fileGrp.getID() + "/" + file.getID());
+          return null;
+        }
+
+        @Override
+        public ReporterDetails finish() {
+          return new ReporterDetails();
+        }
+      }).run(state.getMets().getFileSec(), state).get("files");
+    Assert.assertTrue(result.isValid());
+    Assert.assertThat(fileIds.toString(), Is.is("[grp-data/file-1, grp-data/file-2, grp-schemas/file-3]"));
+  }
+
+  private static String file(final String id, final String attributes) {
+    return "<mets:file ID=\"" + id + "\"" + attributes + "><mets:FLocat LOCTYPE=\"URL\" xlink:type=\"simple\""
+      + " xlink:href=\"data/" + id + ".txt\"/></mets:file>";
+  }
+
+  private static InputStream open() {
+    return new ByteArrayInputStream(METS.getBytes(StandardCharsets.UTF_8));
+  }
+}
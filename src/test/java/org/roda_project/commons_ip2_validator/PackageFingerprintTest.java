@@ -0,0 +1,95 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.cache.PackageFingerprint;
+import org.roda_project.commons_ip2.validator.cache.PackageFingerprint.Mode;
+
+public class PackageFingerprintTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void fingerprintZip() throws IOException {
+    Path zip = tempFolder.resolve("ip.zip");
+    writeZip(zip, "content");
+    String metadata = PackageFingerprint.of(zip, Mode.METADATA);
+    String digest = PackageFingerprint.of(zip, Mode.DIGEST);
+    Assert.assertEquals(metadata, PackageFingerprint.of(zip, Mode.METADATA));
+    Assert.assertNotEquals(metadata, digest);
+
+    // same size and modification time, different entries
+    FileTime modified = Files.getLastModifiedTime(zip);
+    writeZip(zip, "CONTENT");
+    Files.setLastModifiedTime(zip, modified);
+    Assert.assertNotEquals(metadata, PackageFingerprint.of(zip, Mode.METADATA));
+    Assert.assertNotEquals(digest, PackageFingerprint.of(zip, Mode.DIGEST));
+  }
+
+  @Test
+  public void fingerprintFileThatIsNotAZip() throws IOException {
+    Path tar = tempFolder.resolve("ip.tar");
+    Files.write(tar, "not a zip".getBytes(StandardCharsets.UTF_8));
+    String metadata = PackageFingerprint.of(tar, Mode.METADATA);
+    Assert.assertEquals(metadata, PackageFingerprint.of(tar, Mode.METADATA));
+
+    Files.write(tar, "still not a zip".getBytes(StandardCharsets.UTF_8));
+    Assert.assertNotEquals(metadata, PackageFingerprint.of(tar, Mode.METADATA));
+  }
+
+  @Test
+  public void fingerprintDamagedZip() throws IOException {
+    Path zip = tempFolder.resolve("damaged.zip");
+    writeZip(zip, "content");
+    byte[] bytes = Files.readAllBytes(zip);
+    Files.write(zip, Arrays.copyOf(bytes, bytes.length - 10));
+    String metadata = PackageFingerprint.of(zip, Mode.METADATA);
+
+    Files.write(zip, Arrays.copyOf(bytes, bytes.length - 11));
+    Assert.assertNotEquals(metadata, PackageFingerprint.of(zip, Mode.METADATA));
+  }
+
+  @Test
+  public void fingerprintFolder() throws IOException {
+    Path folder = Files.createDirectories(tempFolder.resolve("ip"));
+    Files.write(folder.resolve("METS.xml"), "content".getBytes(StandardCharsets.UTF_8));
+    String metadata = PackageFingerprint.of(folder, Mode.METADATA);
+    String digest = PackageFingerprint.of(folder, Mode.DIGEST);
+
+    Files.write(folder.resolve("other.xml"), new byte[0]);
+    Assert.assertNotEquals(metadata, PackageFingerprint.of(folder, Mode.METADATA));
+    Assert.assertNotEquals(digest, PackageFingerprint.of(folder, Mode.DIGEST));
+    Assert.assertNotEquals(PackageFingerprint.key(digest, "1.0"), PackageFingerprint.key(digest, "1.1"));
+  }
+
+  private static void writeZip(final Path zip, final String content) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(zip);
+      ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      zipOutputStream.putNextEntry(new ZipEntry("METS.xml"));
+      zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+      zipOutputStream.closeEntry();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.roda_project.commons_ip2_validator;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.roda_project.commons_ip2.validator.common.FolderManager;
+import org.roda_project.commons_ip2.validator.common.SubMets;
+import org.roda_project.commons_ip2.validator.common.ZipManager;
+
+public class SubMetsTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Utils.deletePath(tempFolder);
+  }
+
+  @Test
+  public void listSubMetsInFolderLazily() throws IOException {
+    final Path ip = tempFolder.resolve("ip");
+    for (String representation : Arrays.asList("rep2", "rep10", "rep1")) {
+      final Path metsPath = Files.createDirectories(ip.resolve("representations").resolve(representation))
+        .resolve("METS.xml");
+      Files.write(metsPath, representation.getBytes(StandardCharsets.UTF_8));
+    }
+    Files.createDirectories(ip.resolve("representations/rep3/data"));
+
+    final List<SubMets> subMets = new FolderManager().getSubMets(ip);
+    Assert.assertEquals(
+      Arrays.asList(ip.resolve("representations/rep1/METS.xml").toString(),
+        ip.resolve("representations/rep10/METS.xml").toString(),
+        ip.resolve("representations/rep2/METS.xml").toString()),
+      subMets.stream().map(SubMets::getPath).collect(Collectors.toList()));
+
+    // the files are only opened when asked for
+    Files.write(ip.resolve("representations/rep1/METS.xml"), "changed".getBytes(StandardCharsets.UTF_8));
+    Files.delete(ip.resolve("representations/rep10/METS.xml"));
+    Assert.assertEquals("changed", read(subMets.get(0)));
+    Assert.assertEquals("rep2", read(subMets.get(2)));
+    // each time with a new stream
+    Assert.assertEquals("rep2", read(subMets.get(2)));
+    try {
+      read(subMets.get(1));
+      Assert.fail("The deleted METS was opened");
+    } catch (FileNotFoundException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void listSubMetsInZip() throws IOException {
+    final Path zip = tempFolder.resolve("ip.zip");
+    try (OutputStream outputStream = Files.newOutputStream(zip);
+      ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      for (String entry : Arrays.asList("ip/METS.xml", "ip/representations/rep2/METS.xml",
+        "ip/representations/rep1/METS.xml", "ip/representations/rep1/data/METS.xml",
+        "ip/metadata/submission/METS.xml", "ip/representations/rep1/data/file.txt")) {
+        zipOutputStream.putNextEntry(new ZipEntry(entry));
+        zipOutputStream.write(entry.getBytes(StandardCharsets.UTF_8));
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    final ZipManager zipManager = new ZipManager();
+    try {
+      final List<SubMets> subMets = zipManager.getSubMets(zip);
+      Assert.assertEquals(
+        Arrays.asList("ip/representations/rep1/METS.xml", "ip/representations/rep2/METS.xml"),
+        subMets.stream().map(SubMets::getPath).collect(Collectors.toList()));
+      for (SubMets mets : subMets) {
+        Assert.assertEquals(mets.getPath(), read(mets));
+      }
+    } finally {
+      zipManager.closeZipFile();
+    }
+  }
+
+  private static String read(final SubMets subMets) throws IOException {
+    try (InputStream inputStream = subMets.open()) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+  }
+}
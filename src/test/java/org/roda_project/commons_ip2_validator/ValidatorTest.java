@@ -3,22 +3,35 @@ package org.roda_project.commons_ip2_validator;
 import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.roda_project.commons_ip2.utils.PackageContainer;
 import org.roda_project.commons_ip2.utils.Utils;
 import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.CLI.CLIConstants;
+import org.roda_project.commons_ip2.validator.CLI.CLIServer;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.observer.ProgressValidationLoggerObserver;
 import org.roda_project.commons_ip2.validator.observer.ValidationObserver;
@@ -27,11 +40,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * @author João Gomes <jgomes@keep.pt>
  */
 public class ValidatorTest {
   private static final Logger LOGGER = LoggerFactory.getLogger(ValidatorTest.class);
+  private static final String TOKEN = "token";
 
   private static Path tempFolder;
 
@@ -98,6 +114,140 @@ public class ValidatorTest {
 
     Assert.assertFalse(validate);
   }
+
+  @Test
+  public void validateFullSipZIPInServer() throws Exception {
+    LOGGER.info("Validate in server - Full-EARK-SIP");
+
+    URI resource = getClass().getResource("/").toURI();
+    Path earkSIPath = Paths.get(resource).resolve("validation").resolve("Full-EARK-SIP.zip");
+    HttpServer server = CLIServer.createServer(0, 1, TOKEN);
+    server.start();
+    try {
+      // the second request is answered from the cache of the server
+      for (int i = 0; i < 2; i++) {
+        URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(),
+          CLIConstants.SERVE_VALIDATE_PATH + "?" + CLIConstants.SERVE_PARAMETER_PATH + "="
+            + URLEncoder.encode(earkSIPath.toString(), StandardCharsets.UTF_8.name()));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty(CLIConstants.SERVE_HEADER_TOKEN, TOKEN);
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        Assert.assertEquals("false", connection.getHeaderField(CLIConstants.SERVE_HEADER_VALID));
+        try (InputStream report = connection.getInputStream()) {
+          Assert.assertTrue(IOUtils.toString(report, StandardCharsets.UTF_8).contains("\"header\""));
+        }
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void validateTarAndDamagedSipInServer() throws Exception {
+    URI resource = getClass().getResource("/").toURI();
+    Path earkSIPath = Paths.get(resource).resolve("validation").resolve("Full-EARK-SIP.zip");
+    Path tarSIPath = tempFolder.resolve("Full-EARK-SIP.tar");
+    zipToTar(earkSIPath, tarSIPath);
+    Assert.assertSame(PackageContainer.TAR, PackageContainer.of(tarSIPath));
+    Path damagedSIPath = tempFolder.resolve("damaged.zip");
+    byte[] zip = Files.readAllBytes(earkSIPath);
+    Files.write(damagedSIPath, Arrays.copyOfRange(zip, 4, zip.length / 2));
+
+    HttpServer server = CLIServer.createServer(0, 1, TOKEN);
+    server.start();
+    try {
+      for (Path sip : Arrays.asList(tarSIPath, damagedSIPath)) {
+        // the second request is answered from the cache of the server
+        for (int i = 0; i < 2; i++) {
+          URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(),
+            CLIConstants.SERVE_VALIDATE_PATH + "?" + CLIConstants.SERVE_PARAMETER_PATH + "="
+              + URLEncoder.encode(sip.toString(), StandardCharsets.UTF_8.name()));
+          HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+          connection.setRequestMethod("POST");
+          connection.setRequestProperty(CLIConstants.SERVE_HEADER_TOKEN, TOKEN);
+          Assert.assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+          Assert.assertEquals("false", connection.getHeaderField(CLIConstants.SERVE_HEADER_VALID));
+          try (InputStream report = connection.getInputStream()) {
+            Assert.assertTrue(IOUtils.toString(report, StandardCharsets.UTF_8).contains("\"header\""));
+          }
+        }
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void refuseRequestsWithoutTokenInServer() throws Exception {
+    URI resource = getClass().getResource("/").toURI();
+    Path earkSIPath = Paths.get(resource).resolve("validation").resolve("Full-EARK-SIP.zip");
+
+    HttpServer server = CLIServer.createServer(0, 1, TOKEN);
+    server.start();
+    try {
+      URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(),
+        CLIConstants.SERVE_VALIDATE_PATH + "?" + CLIConstants.SERVE_PARAMETER_PATH + "="
+          + URLEncoder.encode(earkSIPath.toString(), StandardCharsets.UTF_8.name()));
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestMethod("POST");
+      Assert.assertEquals(HttpURLConnection.HTTP_FORBIDDEN, connection.getResponseCode());
+
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestMethod("POST");
+      connection.setRequestProperty(CLIConstants.SERVE_HEADER_TOKEN, "other");
+      Assert.assertEquals(HttpURLConnection.HTTP_FORBIDDEN, connection.getResponseCode());
+
+      // requests sent by browsers are refused even with the token (HttpURLConnection does not send Origin)
+      try (Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort())) {
+        String request = "POST " + url.getFile() + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n"
+          + CLIConstants.SERVE_HEADER_TOKEN + ": " + TOKEN + "\r\nOrigin: http://example.com\r\n"
+          + "Connection: close\r\n\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        String response = IOUtils.toString(socket.getInputStream(), StandardCharsets.US_ASCII);
+        Assert.assertTrue(response, response.startsWith("HTTP/1.1 403"));
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  /** Repackages a zip as an uncompressed (ustar) TAR. */
+  private static void zipToTar(final Path zip, final Path tar) throws IOException {
+    try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(zip));
+      OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tar))) {
+      ZipEntry entry;
+      while ((entry = zipInputStream.getNextEntry()) != null) {
+        byte[] content = entry.isDirectory() ? new byte[0] : IOUtils.toByteArray(zipInputStream);
+        byte[] header = new byte[512];
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(name, 0, header, 0, name.length);
+        octal(header, 100, 8, entry.isDirectory() ? 0755 : 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, content.length);
+        octal(header, 136, 12, entry.getTime() / 1000);
+        header[156] = (byte) (entry.isDirectory() ? '5' : '0');
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+          checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+        outputStream.write(header);
+        outputStream.write(content);
+        outputStream.write(new byte[(512 - content.length % 512) % 512]);
+      }
+      outputStream.write(new byte[1024]);
+    }
+  }
+
+  private static void octal(final byte[] header, final int offset, final int length, final long value) {
+    String digits = String.format("%0" + (length - 1) + "o", value);
+    System.arraycopy(digits.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+    header[offset + length - 1] = 0;
+  }
   //
   // /* Simple SIP */
   // @Test